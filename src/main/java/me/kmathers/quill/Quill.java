@@ -1,8 +1,12 @@
 package me.kmathers.quill;
 
+import me.kmathers.quill.QuillScriptManager.ParsedScript;
 import me.kmathers.quill.commands.QuillCommands;
+import me.kmathers.quill.events.QuillDispatcher;
 import me.kmathers.quill.events.QuillEventBridge;
 import me.kmathers.quill.events.QuillInternalListeners;
+import me.kmathers.quill.interpreter.ExecutionEngine;
+import me.kmathers.quill.storage.StorageType;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -13,6 +17,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -22,8 +27,12 @@ import org.bukkit.plugin.java.JavaPlugin;
  * Main plugin class for Quill.
  */
 public class Quill extends JavaPlugin {
+    private static final int CONFIG_VERSION = 10;
+    private static final int TRANSLATION_VERSION = 10;
+
     private QuillScriptManager scriptManager;
     private QuillEventBridge eventBridge;
+    private QuillDispatcher dispatcher;
     private FileConfiguration translations;
     private QuillScopeManager scopeManager;
     private List<UUID> flying = new ArrayList<>();
@@ -50,9 +59,15 @@ public class Quill extends JavaPlugin {
 
         scopeManager = new QuillScopeManager(this, getDataFolder(), getLogger());
 
+        dispatcher = new QuillDispatcher(this, getDispatcherThreads(), getSyncBudget(), getSyncHandlerSlice(), getMoveSampleRate());
+
         scriptManager = new QuillScriptManager(this, getDataFolder(), getLogger(), scopeManager);
 
-        eventBridge = new QuillEventBridge(scriptManager, this);
+        eventBridge = new QuillEventBridge(this, dispatcher);
+
+        // Scripts are read and parsed in the background while the scopes load, then run in order below
+        String[] scripts = scriptManager.listAllScripts();
+        List<CompletableFuture<ParsedScript>> parsed = scriptManager.parseScripts(scripts);
 
         try {
             scopeManager.loadAll();
@@ -64,7 +79,8 @@ public class Quill extends JavaPlugin {
         getCommand("quill").setExecutor(commandHandler);
         getCommand("quill").setTabCompleter(commandHandler);
         
-        autoLoadScripts();
+        autoLoadScripts(scripts, parsed);
+        scriptManager.pruneCache();
 
         getLogger().info(translate("quill.system.state.enabled"));
     }
@@ -77,6 +93,14 @@ public class Quill extends JavaPlugin {
             scriptManager.unloadAll();
         }
 
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+
+        if (scopeManager != null) {
+            scopeManager.shutdown();
+        }
+
         if (eventBridge != null) {
             // Event handlers are automatically unregistered when plugin disables
         }
@@ -87,9 +111,7 @@ public class Quill extends JavaPlugin {
     /**
      * Auto-load all scripts in the scripts folder.
      */
-    private void autoLoadScripts() {
-        String[] scripts = scriptManager.listAllScripts();
-        
+    private void autoLoadScripts(String[] scripts, List<CompletableFuture<ParsedScript>> parsed) {
         if (scripts.length == 0) {
             getLogger().info(translate("autoload.no-scripts"));
             getLogger().info(translate("autoload.no-scripts-hint", scriptManager.getScriptsDirectory().getAbsolutePath()));
@@ -99,9 +121,10 @@ public class Quill extends JavaPlugin {
         getLogger().info(translate("quill.system.autoload.autoload", scripts.length));
         
         int loaded = 0;
-        for (String script : scripts) {
+        for (int i = 0; i < scripts.length; i++) {
+            String script = scripts[i];
             getLogger().info(translate("quill.system.autoload.loading", script));
-            if (scriptManager.loadScript(script)) {
+            if (scriptManager.runScript(parsed.get(i).join())) {
                 loaded++;
             } else {
                 getLogger().warning(translate("quill.system.autoload.fail", script));
@@ -109,10 +132,6 @@ public class Quill extends JavaPlugin {
         }
         
         getLogger().info(translate("quill.system.autoload.success", loaded, scripts.length));
-        
-        if (loaded > 0) {
-            getServer().getPluginManager().registerEvents(eventBridge, this);
-        }
     }
     
     /**
@@ -122,16 +141,115 @@ public class Quill extends JavaPlugin {
         return scriptManager;
     }
 
+    /**
+     * Get the engine scripts run on when their scope doesn't choose one.
+     */
+    public ExecutionEngine getDefaultEngine() {
+        String name = getConfig().getString("interpreter.engine", "tree");
+        ExecutionEngine engine = ExecutionEngine.fromName(name);
+        if (engine == null) {
+            getLogger().warning(translate("quill.system.config.invalid-engine", name));
+            return ExecutionEngine.TREE;
+        }
+        return engine;
+    }
+
+    /**
+     * Number of times an event handler runs before it is JIT compiled, or 0 to keep every handler interpreted.
+     */
+    public int getJitThreshold() {
+        return Math.max(0, getConfig().getInt("interpreter.jit-threshold", 1000));
+    }
+
+    /**
+     * Loop iterations and function calls one run of a script may make, or 0 for no limit.
+     */
+    public long getStepBudget() {
+        return Math.max(0, getConfig().getLong("interpreter.budget.steps", 1000000));
+    }
+
+    /**
+     * Milliseconds one run of a script may take, or 0 for no limit.
+     */
+    public long getTimeBudget() {
+        return Math.max(0, getConfig().getLong("interpreter.budget.time-ms", 100));
+    }
+
+    /**
+     * Worker threads event handlers run on, defaulting to one per CPU core.
+     */
+    public int getDispatcherThreads() {
+        int threads = getConfig().getInt("interpreter.dispatcher-threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Microseconds per tick the main thread may spend running handlers for cancellable events, or 0 to run them all off it.
+     */
+    public long getSyncBudget() {
+        return Math.max(0, getConfig().getLong("interpreter.sync-budget-us", 2000));
+    }
+
+    /**
+     * Microseconds of the tick's share that must be left for a handler to start on the main thread; with less, it runs off it.
+     */
+    public long getSyncHandlerSlice() {
+        return Math.max(0, getConfig().getLong("interpreter.sync-handler-us", 250));
+    }
+
+    /**
+     * Ticks a player's moves are folded together over for scopes that don't set their own rate, or 0 to hand handlers every move.
+     */
+    public int getMoveSampleRate() {
+        return Math.max(0, getConfig().getInt("interpreter.move-sample-rate", 0));
+    }
+
+    /**
+     * Format scopes are stored in on disk.
+     */
+    public StorageType getScopeStorage() {
+        String name = getConfig().getString("scopes.storage", "binary");
+        StorageType type = StorageType.fromName(name);
+        if (type == null) {
+            getLogger().warning(translate("quill.system.config.invalid-storage", name));
+            return StorageType.BINARY;
+        }
+        return type;
+    }
+
+    /**
+     * Whether binary scope snapshots and large journal records are compressed.
+     */
+    public boolean getScopeCompression() {
+        return getConfig().getBoolean("scopes.compress", false);
+    }
+
+    /**
+     * Whether parsed scripts are cached on disk between loads.
+     */
+    public boolean getScriptCaching() {
+        return getConfig().getBoolean("interpreter.script-cache", true);
+    }
+
+    /**
+     * Milliseconds between writes of changed scopes to disk, or 0 to write every change as it happens.
+     */
+    public long getScopeSaveInterval() {
+        return Math.max(0, getConfig().getLong("scopes.save-interval-ms", 5000));
+    }
+
     /**
      * Validate the config
      */
 
     private void validateConfig() {
         int version = getConfig().getInt("config-version", 0);
-        if (version < 1) {
+        int transVersion = getConfig().getInt("translation-version", 0);
+        if (version < CONFIG_VERSION) {
             getLogger().warning(translate("quill.system.config.lower-version"));
             mergeConfig();
-        } else if (version > 1) {
+            reloadConfig();
+        } else if (version > CONFIG_VERSION) {
             getLogger().warning(translate("quill.system.config.higher-version"));
 
             File configFile = new File(getDataFolder(), "config.yml");
@@ -153,8 +271,7 @@ public class Quill extends JavaPlugin {
             getLogger().warning(translate("quill.system.config.config-restore"));
         }
 
-        int transVersion = getConfig().getInt("translation-version", 0);
-        if (transVersion < 1) {
+        if (transVersion < TRANSLATION_VERSION) {
             mergeTranslations();
         }
 
@@ -451,4 +568,8 @@ public class Quill extends JavaPlugin {
     public QuillEventBridge getEventBridge() {
         return eventBridge;
     }
+
+    public QuillDispatcher getDispatcher() {
+        return dispatcher;
+    }
 }
\ No newline at end of file
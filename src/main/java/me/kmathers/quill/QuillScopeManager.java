@@ -1,37 +1,212 @@
 package me.kmathers.quill;
 
+import me.kmathers.quill.interpreter.ExecutionEngine;
+import me.kmathers.quill.interpreter.ScopeContext.Region;
+import me.kmathers.quill.storage.BinaryScopeStore;
+import me.kmathers.quill.storage.ScopeStore;
+import me.kmathers.quill.storage.SqlScopeStore;
+import me.kmathers.quill.storage.StorageType;
+import me.kmathers.quill.storage.YamlScopeStore;
+import me.kmathers.quill.utils.RegionIndex;
 import me.kmathers.quill.utils.Scope;
 import me.kmathers.quill.utils.Result.BooleanResult;
 import me.kmathers.quill.utils.SecurityConfig.SecurityMode;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
 
 import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * Manages loading and saving of Quill scopes.
+ * Changes to a scope mark it dirty, and a background thread writes dirty scopes out every save interval,
+ * so however often a scope changes in between it is only written once.
+ * When only persistent variables changed, only those are handed to the store.
  */
 public class QuillScopeManager {
     private Quill plugin;
     private final File scopesDir;
     private final Logger logger;
     private Map<String, Scope> scopes;
+    private final File dataFolder;
+    private final StorageType storageType;
+    private final ScopeStore store;
+    // Scopes changed since they were last written, and what changed
+    private final Map<Scope, Changes> dirty = new ConcurrentHashMap<>();
+    // Held around every call to the store, so a late write can't bring back a deleted scope
+    private final Object fileLock = new Object();
+    private final long saveInterval;
+    private ScheduledExecutorService writer;
+    private boolean closed;
+    // Where each scope's boundaries lie, for finding the scopes at a location
+    private final RegionIndex<Scope> regions = new RegionIndex<>();
     
+    // Either the whole scope needs writing or just some of its persistent variables
+    private static class Changes {
+        boolean all;
+        final Set<String> vars = new HashSet<>();
+    }
+
     public QuillScopeManager(Quill plugin, File dataFolder, Logger logger) {
         this.plugin = plugin;
         this.scopesDir = new File(dataFolder, "scopes");
         this.logger = logger;
-        this.scopes = new HashMap<>();
+        this.scopes = new ConcurrentHashMap<>();
         
         if (!scopesDir.exists()) {
             scopesDir.mkdirs();
         }
+
+        this.saveInterval = plugin.getScopeSaveInterval();
+        this.dataFolder = dataFolder;
+        this.storageType = plugin.getScopeStorage();
+        this.store = openActiveStore();
+    }
+
+    // The configured store, or binary files if the database can't be opened, so scopes still load and save
+    private ScopeStore openActiveStore() {
+        try {
+            return openStore(storageType);
+        } catch (IOException e) {
+            logger.severe(plugin.translate("quill.scope-manager.file.sql-unavailable", e.getMessage()));
+            return new BinaryScopeStore(plugin, scopesDir, logger, plugin.getScopeCompression());
+        }
+    }
+
+    private ScopeStore openStore(StorageType type) throws IOException {
+        switch (type) {
+            case YAML:
+                return new YamlScopeStore(plugin, scopesDir, logger);
+            case SQLITE:
+                try {
+                    return new SqlScopeStore(plugin, new File(dataFolder, "scopes.db"), logger);
+                } catch (SQLException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            default:
+                return new BinaryScopeStore(plugin, scopesDir, logger, plugin.getScopeCompression());
+        }
+    }
+
+    /**
+     * Note that a scope changed, to be written with the next flush, or straight away if there is no save interval.
+     */
+    public void markDirty(Scope scope) {
+        if (!queue(scope, null)) {
+            saveScope(scope);
+        }
+    }
+
+    /**
+     * Note that one of a scope's persistent variables changed, so only its new value needs writing.
+     */
+    public void markDirty(Scope scope, String var) {
+        if (!queue(scope, var)) {
+            saveVars(scope, Set.of(var));
+        }
+    }
+
+    // Add the change to the scope's pending changes, or return false if changes are written straight away
+    private synchronized boolean queue(Scope scope, String var) {
+        if (saveInterval == 0 || closed) {
+            return false;
+        }
+        if (writer == null) {
+            startWriter();
+        }
+        dirty.compute(scope, (k, changes) -> {
+            if (changes == null) {
+                changes = new Changes();
+            }
+            if (var == null) {
+                changes.all = true;
+            } else {
+                changes.vars.add(var);
+            }
+            return changes;
+        });
+        return true;
+    }
+
+    private void startWriter() {
+        writer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Quill Scope Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, saveInterval, saveInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write every dirty scope that is still loaded.
+     */
+    public void flush() {
+        for (Scope scope : dirty.keySet()) {
+            Changes changes = dirty.remove(scope);
+            if (changes == null) continue;
+            synchronized (fileLock) {
+                if (scopes.get(scope.getName()) != scope) continue;
+                if (changes.all) {
+                    saveScope(scope);
+                } else {
+                    saveVars(scope, changes.vars);
+                }
+            }
+        }
+    }
+
+    private void saveVars(Scope scope, Set<String> vars) {
+        synchronized (fileLock) {
+            try {
+                store.saveVars(scope, scope.snapshotPersistentVars(vars));
+            } catch (IOException e) {
+                logger.severe(plugin.translate("quill.scope-manager.file.write-fail", scope.getName()));
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stop the background writer and write out whatever is still dirty.
+     */
+    public void shutdown() {
+        ScheduledExecutorService writer;
+        synchronized (this) {
+            closed = true;
+            writer = this.writer;
+        }
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+
+        synchronized (fileLock) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
     
     public Scope createScope(String name, UUID owner, List<Double> boundaries, SecurityMode mode, List<String> funcs, Map<String, Object> persistentVars) {
@@ -55,176 +230,90 @@ public class QuillScopeManager {
         scope.setFuncs(funcs != null ? funcs : new ArrayList<>());
         scope.setPersistentVars(persistentVars != null ? persistentVars : new HashMap<>());
         scopes.put(name, scope);
-        saveScope(scope, name + ".yml");
+        regions.put(scope, regionOf(scope));
+        saveScope(scope);
         return scope;
     }
 
     /**
-     * Load a scope from a YAML file.
+     * Write everything about a scope now.
      */
-    public Scope loadScope(String filename) {
-        File scopeFile = new File(scopesDir, filename);
-        
-        if (!scopeFile.exists()) {
-            logger.severe(plugin.translate("quill.scope-manager.file.file-not-found", filename));
-            return null;
-        }
-        
-        try {
-            FileConfiguration config = YamlConfiguration.loadConfiguration(scopeFile);
-
-            String name = config.getString("name");
-            String ownerStr = config.getString("owner");
-            List<Double> boundaries = config.getDoubleList("boundaries");
-            String modeStr = config.getString("mode", "whitelist");
-
-            if (name == null || ownerStr == null || boundaries == null || boundaries.size() != 6) {
-                logger.severe(plugin.translate("quill.scope-manager.format.invalid-format", filename));
-                return null;
-            }
-            
-            UUID owner;
+    public boolean saveScope(Scope scope) {
+        synchronized (fileLock) {
             try {
-                owner = UUID.fromString(ownerStr);
-            } catch (IllegalArgumentException e) {
-                logger.severe(plugin.translate("quill.scope-manager.format.invalid-owner-uuid", ownerStr));
+                store.save(scope);
+                return true;
+            } catch (IOException e) {
+                logger.severe(plugin.translate("quill.scope-manager.file.write-fail", scope.getName()));
                 e.printStackTrace();
-                return null;
-            }
-            
-            SecurityMode mode;
-            try {
-                mode = SecurityMode.valueOf(modeStr.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                logger.warning(plugin.translate("quill.scope-manager.format.invalid-mode", modeStr));
-                mode = SecurityMode.WHITELIST;
+                return false;
             }
-            
-            List<String> funcs = config.getStringList("funcs");
-            if (funcs == null) {
-                funcs = new ArrayList<>();
-            }
-            
-            List<String> playerStrings = config.getStringList("players");
-            List<UUID> players = new ArrayList<>();
-            if (playerStrings != null) {
-                for (String playerStr : playerStrings) {
-                    try {
-                        players.add(UUID.fromString(playerStr));
-                    } catch (IllegalArgumentException e) {
-                        logger.warning(plugin.translate("quill.scope-manager.format.invalid-player-uuid", playerStr));
-                    }
-                }
-            }
-            
-            Map<String, Object> persistentVars = new HashMap<>();
-            if (config.contains("persistent")) {
-                var section = config.getConfigurationSection("persistent");
-                if (section != null) {
-                    persistentVars = section.getValues(false);
-                }
-            }
-            
-            Scope scope = new Scope(name, owner, boundaries, mode);
-            scope.setFuncs(funcs);
-            scope.setPlayers(players);
-            scope.setPersistentVars(persistentVars);
+        }
+    }
+
+    public Map<String, Scope> loadAll() throws Exception {
+        if (store instanceof BinaryScopeStore binary) {
+            // Scopes last saved by the YAML store get a snapshot the first time binary storage is used
+            binary.convertYaml();
+        }
+        for (Scope scope : store.loadAll()) {
             scopes.put(scope.getName(), scope);
-            
-            logger.info(plugin.translate("quill.scope-manager.status.loaded-success", name));
-            return scope;
-            
-        } catch (Exception e) {
-            logger.severe(plugin.translate("quill.scope-manager.file.read-fail", filename));
-            e.printStackTrace();
-            return null;
+            regions.put(scope, regionOf(scope));
         }
+        return scopes;
     }
 
     /**
-     * Save a scope to a YAML file.
+     * Copy every scope kept in another storage format into the current one, skipping scopes that are already loaded.
+     * Returns how many were imported.
      */
-    public boolean saveScope(Scope scope, String filename) {
-        File scopeFile = new File(scopesDir, filename);
-        
+    public int importScopes(StorageType from) throws IOException {
+        if (from == storageType) {
+            throw new IOException(plugin.translate("quill.commands.scope.import.fail.same-storage", from.name().toLowerCase()));
+        }
+
+        ScopeStore source = openStore(from);
         try {
-            FileConfiguration config = new YamlConfiguration();
-            
-            config.set("name", scope.getName());
-            config.set("owner", scope.getOwner().toString());
-            config.set("boundaries", scope.getBoundaries());
-            config.set("mode", scope.getSecurityMode().toString().toLowerCase());
-            
-            List<String> funcs = scope.getFuncs();
-            config.set("funcs", funcs != null ? funcs : new ArrayList<>());
-            
-            List<String> playerStrings = new ArrayList<>();
-            for (UUID playerId : scope.getPlayers()) {
-                playerStrings.add(playerId.toString());
+            List<Scope> imported = new ArrayList<>();
+            for (Scope scope : source.loadAll()) {
+                if (!scopes.containsKey(scope.getName())) {
+                    imported.add(scope);
+                }
             }
-            config.set("players", playerStrings);
-            
-            Map<String, Object> persistentVars = scope.getPersistentVars();
-            if (persistentVars == null) {
-                persistentVars = new HashMap<>();
+
+            synchronized (fileLock) {
+                store.saveAll(imported);
             }
-            
-            if (!persistentVars.isEmpty()) {
-                for (Map.Entry<String, Object> entry : persistentVars.entrySet()) {
-                    config.set("persistent." + entry.getKey(), entry.getValue());
-                }
-            } else {
-                config.set("persistent", new HashMap<>());
+            for (Scope scope : imported) {
+                scopes.put(scope.getName(), scope);
+                regions.put(scope, regionOf(scope));
             }
-            
-            config.save(scopeFile);
-            logger.info(plugin.translate("quill.scope-manager.file.saved-success", scope.getName(), filename));
-            return true;
-            
-        } catch (Exception e) {
-            logger.severe(plugin.translate("quill.scope-manager.file.write-fail", filename));
-            e.printStackTrace();
-            return false;
+            return imported.size();
+        } finally {
+            source.close();
         }
     }
 
-    public Map<String, Scope> loadAll() throws Exception {
-        int loaded = 0;
-        int total = 0;
-        if (scopesDir.listFiles() != null) {
-            for (File file : scopesDir.listFiles()) {
-                if (file.getName().endsWith(".yml")) {
-                    total++;
-                    Scope scope = loadScope(file.getName());
-                    if (scope != null) {
-                        loaded++;
-                    }
-                }
+    public boolean deleteScope(String name) {
+        synchronized (fileLock) {
+            if (!store.exists(name)) {
+                logger.severe(plugin.translate("quill.scope-manager.file.file-not-found", name));
+                return false;
             }
-            logger.info(plugin.translate("quill.scope-manager.file.loaded", loaded, total));
-            return scopes;
-        } else {
-            throw new Exception(plugin.translate("quill.scope-manager.file.read-fail"));
-        }
-    }
 
-    public boolean deleteScope(String filename) {
-        File scopeFile = new File(scopesDir, filename + ".yml");
-        
-        if (!scopeFile.exists()) {
-            logger.severe(plugin.translate("quill.scope-manager.file.file-not-found", filename));
-            return false;
-        }
-        
-        try {
-            if (scopes.containsKey(filename)) {
-                scopes.remove(filename);
+            try {
+                if (scopes.containsKey(name)) {
+                    Scope scope = scopes.remove(name);
+                    regions.remove(scope);
+                    dirty.remove(scope);
+                }
+                store.delete(name);
+                return true;
+            } catch (IOException e) {
+                logger.severe(plugin.translate("quill.scope-manager.file.delete-fail", name));
+                e.printStackTrace();
+                return false;
             }
-            return scopeFile.delete();
-        } catch (Exception e) {
-            logger.severe(plugin.translate("quill.scope-manager.file.delete-fail", filename));
-            e.printStackTrace();
-            return false;
         }
     }
 
@@ -245,7 +334,12 @@ public class QuillScopeManager {
             info.put("boundaries", targetScope.getBoundaries());
             info.put("mode", targetScope.getSecurityMode());
             info.put("funcs", targetScope.getFuncs());
-            info.put("persistent", targetScope.getPersistentVars());
+            info.put("persistent", targetScope.snapshotPersistentVars());
+            info.put("engine", targetScope.getEngine() != null ? targetScope.getEngine() : plugin.getDefaultEngine());
+            info.put("budget", targetScope.getStepBudget() != null ? targetScope.getStepBudget() : plugin.getStepBudget());
+            info.put("budget-overruns", targetScope.getBudgetOverruns());
+            info.put("tick-overruns", targetScope.getTickShareOverruns());
+            info.put("move-rate", targetScope.getMoveSampleRate() != null ? targetScope.getMoveSampleRate() : plugin.getMoveSampleRate());
         } else {
             info.put("name", "scope-not-found");
         }
@@ -260,13 +354,13 @@ public class QuillScopeManager {
                     return BooleanResult.fail("already-granted");
                 } else {
                     targetScope.addFunc(func);
-                    saveScope(targetScope, targetScope.getName() + ".yml");
+                    markDirty(targetScope);
                     return BooleanResult.ok();
                 }
             } else {
                 if(!targetScope.hasPermission(func)) {
                     targetScope.removeFunc(func);
-                    saveScope(targetScope, targetScope.getName() + ".yml");
+                    markDirty(targetScope);
                     return BooleanResult.ok();
                 } else {
                     return BooleanResult.fail("already-granted");
@@ -283,7 +377,7 @@ public class QuillScopeManager {
             if(targetScope.getSecurityMode().equals(SecurityMode.WHITELIST)) {
                 if(targetScope.hasPermission(func)) {
                     targetScope.removeFunc(func);
-                    saveScope(targetScope, targetScope.getName() + ".yml");
+                    markDirty(targetScope);
                     return BooleanResult.ok();
                 } else {
                     return BooleanResult.fail("not-granted");
@@ -291,7 +385,7 @@ public class QuillScopeManager {
             } else {
                 if(targetScope.hasPermission(func)) {
                     targetScope.addFunc(func);
-                    saveScope(targetScope, targetScope.getName() + ".yml");
+                    markDirty(targetScope);
                     return BooleanResult.ok();
                 } else {
                     return BooleanResult.fail("already-revoked");
@@ -314,7 +408,7 @@ public class QuillScopeManager {
     public List<String> getPersistentVars(String scope) {
         if(scopes.containsKey(scope)) {
             Scope targetScope = scopes.get(scope);
-            Map<String, Object> vars = targetScope.getPersistentVars();
+            Map<String, Object> vars = targetScope.snapshotPersistentVars();
             return vars != null ? vars.keySet().stream().toList() : new ArrayList<>();
         } else {
             return new ArrayList<>();
@@ -328,7 +422,7 @@ public class QuillScopeManager {
                 return BooleanResult.fail("already-exists");
             } else {
                 targetScope.addPersistentVar(var);
-                saveScope(targetScope, targetScope.getName() + ".yml");
+                markDirty(targetScope);
                 return BooleanResult.ok();
             }
         } else {
@@ -341,7 +435,7 @@ public class QuillScopeManager {
             Scope targetScope = scopes.get(scope);
             if(targetScope.hasPersistentVar(var)) {
                 targetScope.removePersistentVar(var);
-                saveScope(targetScope, targetScope.getName() + ".yml");
+                markDirty(targetScope);
                 return BooleanResult.ok();
             } else {
                 return BooleanResult.fail("does-not-exist");
@@ -358,7 +452,25 @@ public class QuillScopeManager {
                 return BooleanResult.fail("already-set");
             } else {
                 targetScope.setSecurityMode(SecurityMode.valueOf(mode.toUpperCase()));
-                saveScope(targetScope, targetScope.getName() + ".yml");
+                markDirty(targetScope);
+                return BooleanResult.ok();
+            }
+        } else {
+            return BooleanResult.fail("scope-not-found");
+        }
+    }
+
+    /**
+     * Set the engine a scope runs on. Passing null reverts it to the config default.
+     */
+    public BooleanResult setEngine(String scope, ExecutionEngine engine) {
+        if(scopes.containsKey(scope)) {
+            Scope targetScope = scopes.get(scope);
+            if (targetScope.getEngine() == engine) {
+                return BooleanResult.fail("already-set");
+            } else {
+                targetScope.setEngine(engine);
+                markDirty(targetScope);
                 return BooleanResult.ok();
             }
         } else {
@@ -366,6 +478,77 @@ public class QuillScopeManager {
         }
     }
 
+    /**
+     * Set how many loop iterations and function calls one run of a scope's scripts may make. Passing null reverts it to the config default.
+     */
+    public BooleanResult setStepBudget(String scope, Long steps) {
+        if(scopes.containsKey(scope)) {
+            Scope targetScope = scopes.get(scope);
+            if (Objects.equals(targetScope.getStepBudget(), steps)) {
+                return BooleanResult.fail("already-set");
+            } else {
+                targetScope.setStepBudget(steps);
+                markDirty(targetScope);
+                return BooleanResult.ok();
+            }
+        } else {
+            return BooleanResult.fail("scope-not-found");
+        }
+    }
+
+    /**
+     * Set how many ticks a scope's players' moves are folded together over. Passing null reverts it to the config default.
+     */
+    public BooleanResult setMoveSampleRate(String scope, Integer ticks) {
+        if(scopes.containsKey(scope)) {
+            Scope targetScope = scopes.get(scope);
+            if (Objects.equals(targetScope.getMoveSampleRate(), ticks)) {
+                return BooleanResult.fail("already-set");
+            } else {
+                targetScope.setMoveSampleRate(ticks);
+                markDirty(targetScope);
+                return BooleanResult.ok();
+            }
+        } else {
+            return BooleanResult.fail("scope-not-found");
+        }
+    }
+
+    public BooleanResult setBoundary(String scope, String boundary, Double coord) {
+        if(scopes.containsKey(scope)) {
+            Scope targetScope = scopes.get(scope);
+            targetScope.setBoundary(boundary, coord);
+            regions.put(targetScope, regionOf(targetScope));
+            markDirty(targetScope);
+            return BooleanResult.ok();
+        } else {
+            return BooleanResult.fail("scope-not-found");
+        }
+    }
+
+    /**
+     * Scopes whose boundaries contain the location.
+     */
+    public List<Scope> scopesAt(Location location) {
+        return regions.at(location);
+    }
+
+    // Scripts treat scope boundaries as being in the main world, so they are indexed there too
+    private static Region regionOf(Scope scope) {
+        List<Double> b = scope.getBoundaries();
+        return new Region(b.get(0), b.get(1), b.get(2), b.get(3), b.get(4), b.get(5), Bukkit.getWorlds().get(0).getName());
+    }
+
+    /**
+     * Scopes that have had a script stopped for going over its budget, most recent first.
+     */
+    public List<Scope> scopesOverBudget() {
+        return scopes.values().stream()
+            .filter(scope -> scope.getBudgetOverruns() > 0)
+            .sorted(Comparator.comparingLong(Scope::getLastBudgetOverrun).reversed())
+            .toList();
+    }
+
     public Scope getScope(String scope) {
         if (scopes.containsKey(scope)) {
             return scopes.get(scope);
@@ -381,7 +564,7 @@ public class QuillScopeManager {
                 return BooleanResult.fail("already-in-scope");
             }
             scope.addPlayer(playerId);
-            saveScope(scope, scopeName + ".yml");
+            markDirty(scope);
             return BooleanResult.ok();
         }
         return BooleanResult.fail("scope-not-found");
@@ -394,7 +577,7 @@ public class QuillScopeManager {
                 return BooleanResult.fail("not-in-scope");
             }
             scope.removePlayer(playerId);
-            saveScope(scope, scopeName + ".yml");
+            markDirty(scope);
             return BooleanResult.ok();
         }
         return BooleanResult.fail("scope-not-found");
@@ -2,12 +2,14 @@ package me.kmathers.quill;
 
 import me.kmathers.quill.interpreter.QuillInterpreter;
 import me.kmathers.quill.interpreter.ScopeContext;
+import me.kmathers.quill.interpreter.ScriptError;
 import me.kmathers.quill.lexer.QuillLexer;
 import me.kmathers.quill.parser.AST.Program;
 import me.kmathers.quill.parser.QuillParser;
 import org.bukkit.Bukkit;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
@@ -15,6 +17,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 
 /**
@@ -26,7 +32,31 @@ public class QuillScriptManager {
     private final Logger logger;
     private final Map<String, QuillInterpreter> activeScripts;
     private final QuillScopeManager scopeManager;
-    private final Map<String, Map<String, List<QuillInterpreter>>> scopeEventHandlers = new HashMap<>();
+    // Scripts subscribed to each event, so routing an event only visits the scripts that handle it
+    private final Map<String, List<Subscription>> eventSubscribers = new ConcurrentHashMap<>();
+    // Parsed scripts kept on disk between loads, or null when caching is turned off
+    private final ScriptCache cache;
+
+    /**
+     * A script handling an event, along with the scope it was loaded into.
+     */
+    public static final class Subscription {
+        private final String scopeName;
+        private final QuillInterpreter interpreter;
+
+        Subscription(String scopeName, QuillInterpreter interpreter) {
+            this.scopeName = scopeName;
+            this.interpreter = interpreter;
+        }
+
+        public String getScopeName() {
+            return scopeName;
+        }
+
+        public QuillInterpreter getInterpreter() {
+            return interpreter;
+        }
+    }
 
     public QuillScriptManager(Quill plugin, File dataFolder, Logger logger, QuillScopeManager scopeManager) {
         this.plugin = plugin;
@@ -38,33 +68,92 @@ public class QuillScriptManager {
         if (!scriptsDir.exists()) {
             scriptsDir.mkdirs();
         }
+
+        this.cache = plugin.getScriptCaching()
+            ? new ScriptCache(plugin, new File(dataFolder, "script-cache"), logger, plugin.getPluginMeta().getVersion())
+            : null;
     }
     
+    /**
+     * A script read and parsed ahead of running it, or the reason it couldn't be.
+     */
+    public static final class ParsedScript {
+        private final String name;
+        private final String scopeName;
+        private final Program ast;
+        private final Exception error;
+
+        ParsedScript(String name, String scopeName, Program ast, Exception error) {
+            this.name = name;
+            this.scopeName = scopeName;
+            this.ast = ast;
+            this.error = error;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
     /**
      * Load and execute a script from a file.
      */
     public boolean loadScript(String filename) {
+        return runScript(parseScript(filename));
+    }
+
+    /**
+     * Read, lex and parse scripts on the fork-join pool, handing back one pending result per file in the order given.
+     * Nothing here needs the main thread or the scopes, so it can overlap with the rest of startup.
+     */
+    public List<CompletableFuture<ParsedScript>> parseScripts(String[] filenames) {
+        List<CompletableFuture<ParsedScript>> parsed = new ArrayList<>(filenames.length);
+        for (String filename : filenames) {
+            parsed.add(CompletableFuture.supplyAsync(() -> parseScript(filename), ForkJoinPool.commonPool()));
+        }
+        return parsed;
+    }
+
+    private ParsedScript parseScript(String filename) {
         File scriptFile = new File(scriptsDir, filename);
 
+        String scope = "global";
+        File parent = scriptFile.getParentFile();
+        if (!parent.equals(scriptsDir)) {
+            scope = parent.getName();
+        }
+
         if (!scriptFile.exists()) {
-            logger.severe(plugin.translate("quill.script-manager.file.file-not-found", filename));
-            return false;
+            return new ParsedScript(filename, scope, null, new FileNotFoundException(filename));
         }
 
         try {
-            String sourceCode = Files.readString(scriptFile.toPath());
-
-            String scope = "global";
-            File parent = scriptFile.getParentFile();
-            if (!parent.equals(scriptsDir)) {
-                scope = parent.getName();
-            }
+            return new ParsedScript(filename, scope, parseCached(filename, Files.readString(scriptFile.toPath())), null);
+        } catch (Exception e) {
+            return new ParsedScript(filename, scope, null, e);
+        }
+    }
 
-            return executeScript(filename, sourceCode, scope);
-        } catch (IOException e) {
-            logger.severe(plugin.translate("quill.script-manager.file.read-fail", filename));
-            e.printStackTrace();
+    /**
+     * Run a parsed script's top level and register its handlers, or report why it couldn't be parsed.
+     * Runs on the main thread, like any other script load.
+     */
+    public boolean runScript(ParsedScript script) {
+        if (script.error instanceof FileNotFoundException) {
+            logger.severe(plugin.translate("quill.script-manager.file.file-not-found", script.name));
+            return false;
+        } else if (script.error instanceof IOException) {
+            logger.severe(plugin.translate("quill.script-manager.file.read-fail", script.name));
+            script.error.printStackTrace();
             return false;
+        } else if (script.error != null) {
+            return reportError(script.name, script.error);
+        }
+
+        try {
+            return run(script.name, script.ast, script.scopeName);
+        } catch (Exception e) {
+            return reportError(script.name, e);
         }
     }
 
@@ -73,63 +162,101 @@ public class QuillScriptManager {
      */
     public boolean executeScript(String name, String sourceCode, String scopeName) {
         try {
-            QuillLexer lexer = new QuillLexer(sourceCode);
-            var tokens = lexer.tokenize();
-            
-            logger.info(plugin.translate("quill.script-manager.status.tokenized-count", name, tokens.size()));
-            
-            QuillParser parser = new QuillParser(tokens);
-            Program ast = parser.parse();
-            
-            logger.info(plugin.translate("quill.script-manager.status.parsed-count", name, ast.statements.size()));
-            
-            QuillInterpreter interpreter;
+            return run(name, parse(name, sourceCode), scopeName);
+        } catch (Exception e) {
+            return reportError(name, e);
+        }
+    }
 
-            if(scopeName.equals("global")) {
-                ScopeContext.Region defaultRegion = new ScopeContext.Region(
-                    -1000000, -64, -1000000,
-                    1000000, 320, 1000000,
-                    Bukkit.getWorlds().get(0).getName()
-                );
-                ScopeContext globalScope = new ScopeContext("global", defaultRegion);
-                
-                interpreter = new QuillInterpreter(globalScope, scopeManager);
+    // Parse a script, or take it from the cache if its source hasn't changed since it was last parsed
+    private Program parseCached(String name, String sourceCode) throws QuillLexer.LexerException, QuillParser.ParseException {
+        if (cache == null) {
+            return parse(name, sourceCode);
+        }
+
+        String key = cache.key(sourceCode);
+        Program ast = cache.get(key);
+        if (ast != null) {
+            logger.info(plugin.translate("quill.script-manager.status.cache-hit", name, ast.statements.size()));
+            return ast;
+        }
+
+        ast = parse(name, sourceCode);
+        // Written before the program runs, since running it fills in slots the cache leaves to the resolver
+        cache.put(key, ast);
+        return ast;
+    }
+
+    private Program parse(String name, String sourceCode) throws QuillLexer.LexerException, QuillParser.ParseException {
+        QuillLexer lexer = new QuillLexer(sourceCode);
+        var tokens = lexer.tokenize();
+        
+        logger.info(plugin.translate("quill.script-manager.status.tokenized-count", name, tokens.size()));
+        
+        QuillParser parser = new QuillParser(tokens);
+        Program ast = parser.parse();
+        
+        logger.info(plugin.translate("quill.script-manager.status.parsed-count", name, ast.statements.size()));
+        return ast;
+    }
+
+    private boolean run(String name, Program ast, String scopeName) {
+        QuillInterpreter interpreter;
+
+        if(scopeName.equals("global")) {
+            ScopeContext.Region defaultRegion = new ScopeContext.Region(
+                -1000000, -64, -1000000,
+                1000000, 320, 1000000,
+                Bukkit.getWorlds().get(0).getName()
+            );
+            ScopeContext globalScope = new ScopeContext("global", defaultRegion);
+            
+            interpreter = new QuillInterpreter(globalScope, scopeManager);
+            interpreter.execute(ast);
+        } else {
+            List<Double> boundaries = (scopeManager.getScope(scopeName) != null ? scopeManager.getScope(scopeName).getBoundaries() : null);
+            if (boundaries != null) {
+                ScopeContext.Region targetRegion = new ScopeContext.Region(boundaries.get(0), boundaries.get(1), boundaries.get(2), boundaries.get(3), boundaries.get(4), boundaries.get(5), Bukkit.getWorlds().get(0).getName());
+                ScopeContext targetScope = new ScopeContext(scopeName, targetRegion);
+                interpreter = new QuillInterpreter(targetScope, scopeManager);
                 interpreter.execute(ast);
             } else {
-                List<Double> boundaries = (scopeManager.getScope(scopeName) != null ? scopeManager.getScope(scopeName).getBoundaries() : null);
-                if (boundaries != null) {
-                    ScopeContext.Region targetRegion = new ScopeContext.Region(boundaries.get(0), boundaries.get(1), boundaries.get(2), boundaries.get(3), boundaries.get(4), boundaries.get(5), Bukkit.getWorlds().get(0).getName());
-                    ScopeContext targetScope = new ScopeContext(scopeName, targetRegion);
-                    interpreter = new QuillInterpreter(targetScope, scopeManager);
-                    interpreter.execute(ast);
-                } else {
-                    logger.warning(plugin.translate("quill.script-manager.file.invalid-boundaries", scopeName, name));
-                    return false;
-                }
-            }
-            
-            for (String eventName : interpreter.getRegisteredEvents()) {
-                registerEventHandler(scopeName, eventName, interpreter);
+                logger.warning(plugin.translate("quill.script-manager.file.invalid-boundaries", scopeName, name));
+                return false;
             }
+        }
+        
+        for (String eventName : interpreter.getRegisteredEvents()) {
+            registerEventHandler(scopeName, eventName, interpreter);
+        }
 
-            activeScripts.put(name, interpreter);
-            
-            logger.info(plugin.translate("quill.script-manager.status.execute-success", name));
-            return true;
-            
-        } catch (QuillLexer.LexerException e) {
+        activeScripts.put(name, interpreter);
+        
+        logger.info(plugin.translate("quill.script-manager.status.execute-success", name));
+        return true;
+    }
+
+    private boolean reportError(String name, Exception e) {
+        if (e instanceof QuillLexer.LexerException) {
             logger.severe(plugin.translate("quill.script-manager.error.lexer-error", name, e.getMessage()));
-            return false;
-        } catch (QuillParser.ParseException e) {
+        } else if (e instanceof QuillParser.ParseException) {
             logger.severe(plugin.translate("quill.script-manager.error.parser-error", name, e.getMessage()));
-            return false;
-        } catch (Exception e) {
-            logger.severe(plugin.translate("quill.script-manager.error.runtime-error", name, e.getMessage()));
+        } else {
+            logger.severe(plugin.translate("quill.script-manager.error.runtime-error", name, ScriptError.describe(e)));
             e.printStackTrace();
-            return false;
         }
+        return false;
     }
     
+    /**
+     * Drop cached scripts that nothing loaded since startup.
+     */
+    public void pruneCache() {
+        if (cache != null) {
+            cache.prune();
+        }
+    }
+
     /**
      * Reload a script.
      */
@@ -145,6 +272,7 @@ public class QuillScriptManager {
         QuillInterpreter interpreter = activeScripts.remove(name);
         if (interpreter != null) {
             unregisterInterpreter(interpreter);
+            interpreter.stop();
         }
         logger.info(plugin.translate("quill.script-manager.status.unloaded", name));
     }
@@ -167,7 +295,11 @@ public class QuillScriptManager {
      * Unload all scripts.
      */
     public void unloadAll() {
+        for (QuillInterpreter interpreter : activeScripts.values()) {
+            interpreter.stop();
+        }
         activeScripts.clear();
+        clearEventHandlers();
         logger.info(plugin.translate("quill.script-manager.status.unloaded-all"));
     }
     
@@ -184,6 +316,8 @@ public class QuillScriptManager {
     public String[] listAllScripts() {
         List<String> results = new ArrayList<>();
         collectScriptsRecursive(scriptsDir, results, "");
+        // Sorted so scripts load in the same order on every start
+        Collections.sort(results);
         return results.toArray(new String[0]);
     }
 
@@ -206,27 +340,38 @@ public class QuillScriptManager {
     }
 
     public void registerEventHandler(String scopeName, String eventName, QuillInterpreter interpreter) {
-        scopeEventHandlers
-            .computeIfAbsent(scopeName, k -> new HashMap<>())
-            .computeIfAbsent(eventName, k -> new ArrayList<>())
-            .add(interpreter);
+        eventSubscribers
+            .computeIfAbsent(eventName, k -> new CopyOnWriteArrayList<>())
+            .add(new Subscription(scopeName, interpreter));
+        if (plugin.getEventBridge() != null) {
+            plugin.getEventBridge().listen(eventName);
+        }
     }
 
     public void unregisterInterpreter(QuillInterpreter interpreter) {
-        for (Map<String, List<QuillInterpreter>> scopeHandlers : scopeEventHandlers.values()) {
-            for (List<QuillInterpreter> interpreters : scopeHandlers.values()) {
-                interpreters.remove(interpreter);
+        for (Map.Entry<String, List<Subscription>> entry : eventSubscribers.entrySet()) {
+            List<Subscription> subscribers = entry.getValue();
+            if (subscribers.removeIf(subscription -> subscription.interpreter == interpreter) && subscribers.isEmpty()
+                    && plugin.getEventBridge() != null) {
+                plugin.getEventBridge().ignore(entry.getKey());
             }
         }
     }
 
-    public List<QuillInterpreter> getHandlersForScopeAndEvent(String scopeName, String eventName) {
-        return scopeEventHandlers
-            .getOrDefault(scopeName, Collections.emptyMap())
-            .getOrDefault(eventName, Collections.emptyList());
+    /**
+     * Scripts handling the named event, in every scope.
+     * Events are routed far more often than scripts load, so this is read without locking and copied when it changes.
+     */
+    public List<Subscription> getSubscribers(String eventName) {
+        return eventSubscribers.getOrDefault(eventName, Collections.emptyList());
     }
 
     public void clearEventHandlers() {
-        scopeEventHandlers.clear();
+        if (plugin.getEventBridge() != null) {
+            for (String eventName : eventSubscribers.keySet()) {
+                plugin.getEventBridge().ignore(eventName);
+            }
+        }
+        eventSubscribers.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package me.kmathers.quill;
+
+import me.kmathers.quill.parser.AST.Program;
+import me.kmathers.quill.parser.ProgramCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Keeps parsed scripts on disk so unchanged scripts skip the lexer and parser on restart and reload.
+ * Entries are named by a hash of the script's source, the Quill version and the encoding format,
+ * so editing a script or updating Quill simply misses and parses again; nothing ever has to be invalidated by hand.
+ */
+final class ScriptCache {
+    private static final int MAGIC = 0x5143504B; // "QCPK"
+    private static final String EXTENSION = ".qc";
+    private static final String TEMP = ".tmp";
+
+    private final Quill plugin;
+    private final File cacheDir;
+    private final Logger logger;
+    private final String version;
+    // Entries hit or written since startup; anything else left in the directory is stale
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    ScriptCache(Quill plugin, File cacheDir, Logger logger, String version) {
+        this.plugin = plugin;
+        this.cacheDir = cacheDir;
+        this.logger = logger;
+        this.version = version + "/" + ProgramCodec.FORMAT_VERSION;
+
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+    }
+
+    /**
+     * The key a script's source is cached under.
+     */
+    String key(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(version.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM has to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The program cached under the key, or null if there isn't one that can be read.
+     */
+    Program get(String key) {
+        File file = new File(cacheDir, key + EXTENSION);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(version)) {
+                throw new IOException("Stale cache entry");
+            }
+            Program program = ProgramCodec.read(in);
+            used.add(key);
+            return program;
+        } catch (IOException | RuntimeException e) {
+            // A damaged entry is just a miss; the script is parsed again and the entry rewritten
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Cache a freshly parsed program under the key. Must be called before the program runs, since running fills in its slots.
+     */
+    void put(String key, Program program) {
+        File file = new File(cacheDir, key + EXTENSION);
+        File temp = null;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(version);
+                ProgramCodec.write(program, out);
+            }
+            // Two loads of the same script can write the same entry at once, so each writes its own temp file
+            temp = Files.createTempFile(cacheDir.toPath(), key, TEMP).toFile();
+            Files.write(temp.toPath(), bytes.toByteArray());
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            used.add(key);
+        } catch (IOException e) {
+            if (temp != null) {
+                temp.delete();
+            }
+            logger.warning(plugin.translate("quill.script-manager.cache.write-fail", file.getName(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Delete entries no script has used since startup, left behind by scripts that were edited or removed.
+     */
+    void prune() {
+        File[] files = cacheDir.listFiles();
+        if (files == null) return;
+
+        int removed = 0;
+        for (File file : files) {
+            String filename = file.getName();
+            boolean stale = filename.endsWith(TEMP)
+                || (filename.endsWith(EXTENSION) && !used.contains(filename.substring(0, filename.length() - EXTENSION.length())));
+            if (stale && file.delete()) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info(plugin.translate("quill.script-manager.cache.pruned", removed));
+        }
+    }
+}
@@ -54,6 +54,13 @@ public class QuillCommands implements CommandExecutor, TabCompleter {
         scopeRegistry.register(new ScopeCommands.Permission(plugin, scopeManager));
         scopeRegistry.register(new ScopeCommands.Persistent(plugin, scopeManager));
         scopeRegistry.register(new ScopeCommands.Mode(plugin, scopeManager));
+        scopeRegistry.register(new ScopeCommands.Engine(plugin, scopeManager));
+        scopeRegistry.register(new ScopeCommands.Budget(plugin, scopeManager));
+        scopeRegistry.register(new ScopeCommands.MoveRate(plugin, scopeManager));
+        scopeRegistry.register(new ScopeCommands.Limits(plugin, scopeManager));
+        scopeRegistry.register(new ScopeCommands.Boundary(plugin, scopeManager));
+        scopeRegistry.register(new ScopeCommands.Here(plugin, scopeManager));
+        scopeRegistry.register(new ScopeCommands.Import(plugin, scopeManager));
         scopeRegistry.register(new ScopeCommands.AddPlayer(plugin, scopeManager));
         scopeRegistry.register(new ScopeCommands.RemovePlayer(plugin, scopeManager));
         scopeRegistry.register(new ScopeCommands.ListPlayers(plugin, scopeManager));
@@ -322,6 +329,13 @@ public class QuillCommands implements CommandExecutor, TabCompleter {
             sender.sendMessage(Component.text("/quill scope info <name>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.info.help-hint"), NamedTextColor.WHITE)));
             sender.sendMessage(Component.text("/quill scope permission <grant|revoke> <name> <function>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.permission.help-hint"), NamedTextColor.WHITE)));
             sender.sendMessage(Component.text("/quill scope persist <name> <variable> <add|remove>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.persist.help-hint"), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("/quill scope engine <name> <tree|vm|default>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.engine.help-hint"), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("/quill scope budget <name> <steps|default>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.budget.help-hint"), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("/quill scope moverate <name> <ticks|default>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.moverate.help-hint"), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("/quill scope limits", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.limits.help-hint"), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("/quill scope boundary <name> <x1|y1|z1|x2|y2|z2> <coord>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.boundary.help-hint"), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("/quill scope here [x y z]", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.here.help-hint"), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("/quill scope import <yaml|binary|sqlite>", NamedTextColor.YELLOW).append(Component.text(" - " + plugin.translate("quill.commands.scope.import.help-hint"), NamedTextColor.WHITE)));
             sender.sendMessage(Component.text("=====================", NamedTextColor.GOLD));
         }
     }
@@ -2,15 +2,19 @@ package me.kmathers.quill.commands;
 
 import me.kmathers.quill.Quill;
 import me.kmathers.quill.QuillScopeManager;
+import me.kmathers.quill.interpreter.ExecutionEngine;
+import me.kmathers.quill.storage.StorageType;
 import me.kmathers.quill.utils.Result.BooleanResult;
 import me.kmathers.quill.utils.SecurityConfig.SecurityMode;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -273,6 +277,22 @@ public class ScopeCommands {
             sender.sendMessage(Component.text(
                 plugin.translate("quill.commands.scope.info.mode") + ": ", NamedTextColor.YELLOW)
                 .append(Component.text(info.get("mode").toString(), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text(
+                plugin.translate("quill.commands.scope.info.engine") + ": ", NamedTextColor.YELLOW)
+                .append(Component.text(info.get("engine").toString().toLowerCase(), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text(
+                plugin.translate("quill.commands.scope.info.budget") + ": ", NamedTextColor.YELLOW)
+                .append(Component.text(
+                    plugin.translate("quill.commands.scope.info.budget-value", info.get("budget"), info.get("budget-overruns"), info.get("tick-overruns")),
+                    NamedTextColor.WHITE)));
+            int moveRate = (int) info.get("move-rate");
+            sender.sendMessage(Component.text(
+                plugin.translate("quill.commands.scope.info.move-rate") + ": ", NamedTextColor.YELLOW)
+                .append(Component.text(
+                    moveRate > 0
+                        ? plugin.translate("quill.commands.scope.info.move-rate-value", moveRate)
+                        : plugin.translate("quill.commands.scope.info.move-rate-off"),
+                    NamedTextColor.WHITE)));
             sender.sendMessage(Component.text(
                 info.get("mode").toString().toLowerCase().equals("whitelist") 
                     ? plugin.translate("quill.commands.scope.info.whitelisted-funcs") + ": "
@@ -645,6 +665,545 @@ public class ScopeCommands {
         }
     }
 
+    public static class Engine implements SubCommand {
+        private final Quill plugin;
+        private final QuillScopeManager scopeManager;
+        
+        public Engine(Quill plugin, QuillScopeManager scopeManager) {
+            this.plugin = plugin;
+            this.scopeManager = scopeManager;
+        }
+        
+        @Override
+        public boolean execute(CommandSender sender, String[] args) {
+            if (args.length < 2) {
+                sender.sendMessage(Component.text(
+                    "Usage: /quill scope engine <name> <tree|vm|default>",
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            String scopeName = args[0];
+            String engineString = args[1].toLowerCase();
+
+            var scope = scopeManager.getScope(scopeName);
+            
+            if (scope == null) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.info.not-found", scopeName),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            if (!sender.isOp() && !sender.hasPermission("quill.scope.engine")) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.global.no-permission", "modify this scope's execution engine"),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            ExecutionEngine engine = null;
+            if (!engineString.equals("default")) {
+                engine = ExecutionEngine.fromName(engineString);
+                if (engine == null) {
+                    sender.sendMessage(Component.text(
+                        plugin.translate("quill.commands.scope.engine.fail.no-engine", engineString),
+                        NamedTextColor.RED));
+                    return true;
+                }
+            }
+
+            BooleanResult result = scopeManager.setEngine(scopeName, engine);
+            
+            if (result.success()) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.engine.success", engineString, scopeName),
+                    NamedTextColor.GREEN));
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.engine.reload-hint"),
+                    NamedTextColor.YELLOW));
+            } else {
+                String errorKey = result.message().orElse("default");
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.engine.fail." + errorKey, scopeName, engineString),
+                    NamedTextColor.RED));
+            }
+            
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "engine";
+        }
+
+        @Override
+        public List<String> getPermissions() {
+            return List.of("quill.scope.engine");
+        }
+
+        @Override
+        public List<String> getTabCompletions(CommandSender sender, String[] args) {
+            if (args.length == 2) {
+                return Arrays.asList("tree", "vm", "default");
+            }
+            return List.of();
+        }
+    }
+
+    public static class Budget implements SubCommand {
+        private final Quill plugin;
+        private final QuillScopeManager scopeManager;
+        
+        public Budget(Quill plugin, QuillScopeManager scopeManager) {
+            this.plugin = plugin;
+            this.scopeManager = scopeManager;
+        }
+        
+        @Override
+        public boolean execute(CommandSender sender, String[] args) {
+            if (args.length < 2) {
+                sender.sendMessage(Component.text(
+                    "Usage: /quill scope budget <name> <steps|default>",
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            String scopeName = args[0];
+            String budgetString = args[1].toLowerCase();
+
+            var scope = scopeManager.getScope(scopeName);
+            
+            if (scope == null) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.info.not-found", scopeName),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            if (!sender.isOp() && !sender.hasPermission("quill.scope.budget")) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.global.no-permission", "modify this scope's budget"),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            Long steps = null;
+            if (!budgetString.equals("default")) {
+                try {
+                    steps = Long.parseLong(budgetString);
+                } catch (NumberFormatException e) {
+                    steps = -1L;
+                }
+                if (steps < 0) {
+                    sender.sendMessage(Component.text(
+                        plugin.translate("quill.commands.scope.budget.fail.no-budget", budgetString),
+                        NamedTextColor.RED));
+                    return true;
+                }
+            }
+
+            BooleanResult result = scopeManager.setStepBudget(scopeName, steps);
+            
+            if (result.success()) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.budget.success", budgetString, scopeName),
+                    NamedTextColor.GREEN));
+            } else {
+                String errorKey = result.message().orElse("default");
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.budget.fail." + errorKey, scopeName, budgetString),
+                    NamedTextColor.RED));
+            }
+            
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "budget";
+        }
+
+        @Override
+        public List<String> getPermissions() {
+            return List.of("quill.scope.budget");
+        }
+
+        @Override
+        public List<String> getTabCompletions(CommandSender sender, String[] args) {
+            if (args.length == 2) {
+                return Arrays.asList("default");
+            }
+            return List.of();
+        }
+    }
+
+    public static class MoveRate implements SubCommand {
+        private final Quill plugin;
+        private final QuillScopeManager scopeManager;
+        
+        public MoveRate(Quill plugin, QuillScopeManager scopeManager) {
+            this.plugin = plugin;
+            this.scopeManager = scopeManager;
+        }
+        
+        @Override
+        public boolean execute(CommandSender sender, String[] args) {
+            if (args.length < 2) {
+                sender.sendMessage(Component.text(
+                    "Usage: /quill scope moverate <name> <ticks|default>",
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            String scopeName = args[0];
+            String rateString = args[1].toLowerCase();
+
+            var scope = scopeManager.getScope(scopeName);
+            
+            if (scope == null) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.info.not-found", scopeName),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            if (!sender.isOp() && !sender.hasPermission("quill.scope.moverate")) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.global.no-permission", "modify this scope's move sample rate"),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            Integer ticks = null;
+            if (!rateString.equals("default")) {
+                try {
+                    ticks = Integer.parseInt(rateString);
+                } catch (NumberFormatException e) {
+                    ticks = -1;
+                }
+                if (ticks < 0) {
+                    sender.sendMessage(Component.text(
+                        plugin.translate("quill.commands.scope.moverate.fail.no-rate", rateString),
+                        NamedTextColor.RED));
+                    return true;
+                }
+            }
+
+            BooleanResult result = scopeManager.setMoveSampleRate(scopeName, ticks);
+            
+            if (result.success()) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.moverate.success", rateString, scopeName),
+                    NamedTextColor.GREEN));
+            } else {
+                String errorKey = result.message().orElse("default");
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.moverate.fail." + errorKey, scopeName, rateString),
+                    NamedTextColor.RED));
+            }
+            
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "moverate";
+        }
+
+        @Override
+        public List<String> getPermissions() {
+            return List.of("quill.scope.moverate");
+        }
+
+        @Override
+        public List<String> getTabCompletions(CommandSender sender, String[] args) {
+            if (args.length == 2) {
+                return Arrays.asList("default");
+            }
+            return List.of();
+        }
+    }
+
+    public static class Limits implements SubCommand {
+        private final Quill plugin;
+        private final QuillScopeManager scopeManager;
+        
+        public Limits(Quill plugin, QuillScopeManager scopeManager) {
+            this.plugin = plugin;
+            this.scopeManager = scopeManager;
+        }
+        
+        @Override
+        public boolean execute(CommandSender sender, String[] args) {
+            if (!sender.isOp() && !sender.hasPermission("quill.scope.budget")) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.global.no-permission", "view scope budgets"),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            var overBudget = scopeManager.scopesOverBudget();
+            
+            sender.sendMessage(Component.text(
+                "=== " + plugin.translate("quill.commands.scope.limits.title") + " ===",
+                NamedTextColor.GOLD));
+            
+            if (overBudget.isEmpty()) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.limits.none"),
+                    NamedTextColor.YELLOW));
+            } else {
+                long now = System.currentTimeMillis();
+                for (var scope : overBudget) {
+                    long secondsAgo = (now - scope.getLastBudgetOverrun()) / 1000;
+                    sender.sendMessage(Component.text(scope.getName() + ": ", NamedTextColor.YELLOW)
+                        .append(Component.text(
+                            plugin.translate("quill.commands.scope.limits.entry", scope.getBudgetOverruns(), secondsAgo),
+                            NamedTextColor.WHITE)));
+                }
+            }
+            
+            sender.sendMessage(Component.text("=====================", NamedTextColor.GOLD));
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "limits";
+        }
+
+        @Override
+        public List<String> getPermissions() {
+            return List.of("quill.scope.budget");
+        }
+    }
+
+    public static class Boundary implements SubCommand {
+        private static final List<String> BOUNDARIES = List.of("x1", "y1", "z1", "x2", "y2", "z2");
+        private final Quill plugin;
+        private final QuillScopeManager scopeManager;
+        
+        public Boundary(Quill plugin, QuillScopeManager scopeManager) {
+            this.plugin = plugin;
+            this.scopeManager = scopeManager;
+        }
+        
+        @Override
+        public boolean execute(CommandSender sender, String[] args) {
+            if (args.length < 3) {
+                sender.sendMessage(Component.text(
+                    "Usage: /quill scope boundary <name> <x1|y1|z1|x2|y2|z2> <coord>",
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            String scopeName = args[0];
+            String boundary = args[1].toLowerCase();
+            String coordString = args[2];
+
+            var scope = scopeManager.getScope(scopeName);
+            
+            if (scope == null) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.info.not-found", scopeName),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            if (!sender.isOp() && !sender.hasPermission("quill.scope.boundary")) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.global.no-permission", "modify this scope's boundaries"),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            if (!BOUNDARIES.contains(boundary)) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.boundary.fail.no-boundary", boundary),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            double coord;
+            try {
+                coord = Double.parseDouble(coordString);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.boundary.fail.no-coord", coordString),
+                    NamedTextColor.RED));
+                return true;
+            }
+
+            BooleanResult result = scopeManager.setBoundary(scopeName, boundary, coord);
+            
+            if (result.success()) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.boundary.success", boundary, scopeName, coordString),
+                    NamedTextColor.GREEN));
+            } else {
+                String errorKey = result.message().orElse("default");
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.boundary.fail." + errorKey, scopeName),
+                    NamedTextColor.RED));
+            }
+            
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "boundary";
+        }
+
+        @Override
+        public List<String> getPermissions() {
+            return List.of("quill.scope.boundary");
+        }
+
+        @Override
+        public List<String> getTabCompletions(CommandSender sender, String[] args) {
+            if (args.length == 2) {
+                return BOUNDARIES;
+            }
+            return List.of();
+        }
+    }
+
+    public static class Here implements SubCommand {
+        private final Quill plugin;
+        private final QuillScopeManager scopeManager;
+        
+        public Here(Quill plugin, QuillScopeManager scopeManager) {
+            this.plugin = plugin;
+            this.scopeManager = scopeManager;
+        }
+        
+        @Override
+        public boolean execute(CommandSender sender, String[] args) {
+            Location location;
+            if (args.length >= 3) {
+                try {
+                    location = new Location(Bukkit.getWorlds().get(0),
+                        Double.parseDouble(args[0]), Double.parseDouble(args[1]), Double.parseDouble(args[2]));
+                } catch (NumberFormatException e) {
+                    sender.sendMessage(Component.text(
+                        plugin.translate("quill.commands.scope.here.no-coords"),
+                        NamedTextColor.RED));
+                    return true;
+                }
+            } else if (sender instanceof Player player) {
+                location = player.getLocation();
+            } else {
+                sender.sendMessage(Component.text(
+                    "Usage: /quill scope here [x y z]",
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            boolean canSeeAll = sender.isOp() || sender.hasPermission("quill.scope.list.all");
+            UUID senderUUID = sender instanceof Player player ? player.getUniqueId() : null;
+            
+            sender.sendMessage(Component.text(
+                "=== " + plugin.translate("quill.commands.scope.here.title") + " ===",
+                NamedTextColor.GOLD));
+            
+            boolean any = false;
+            for (var scope : scopeManager.scopesAt(location)) {
+                if (canSeeAll || scope.getOwner().equals(senderUUID)) {
+                    sender.sendMessage(Component.text(scope.getName(), NamedTextColor.YELLOW));
+                    any = true;
+                }
+            }
+            
+            if (!any) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.here.none"),
+                    NamedTextColor.YELLOW));
+            }
+            
+            sender.sendMessage(Component.text("=====================", NamedTextColor.GOLD));
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "here";
+        }
+
+        @Override
+        public List<String> getPermissions() {
+            return List.of("quill.scope.list");
+        }
+    }
+
+    public static class Import implements SubCommand {
+        private final Quill plugin;
+        private final QuillScopeManager scopeManager;
+        
+        public Import(Quill plugin, QuillScopeManager scopeManager) {
+            this.plugin = plugin;
+            this.scopeManager = scopeManager;
+        }
+        
+        @Override
+        public boolean execute(CommandSender sender, String[] args) {
+            if (args.length < 1) {
+                sender.sendMessage(Component.text(
+                    "Usage: /quill scope import <yaml|binary|sqlite>",
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            if (!sender.isOp() && !sender.hasPermission("quill.scope.import")) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.global.no-permission", "import scopes"),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            StorageType from = StorageType.fromName(args[0]);
+            if (from == null) {
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.import.fail.no-storage", args[0]),
+                    NamedTextColor.RED));
+                return true;
+            }
+            
+            try {
+                int imported = scopeManager.importScopes(from);
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.import.success", imported, args[0].toLowerCase()),
+                    NamedTextColor.GREEN));
+            } catch (IOException e) {
+                plugin.getLogger().severe(e.getMessage());
+                sender.sendMessage(Component.text(
+                    plugin.translate("quill.commands.scope.import.fail.default", args[0].toLowerCase()),
+                    NamedTextColor.RED));
+            }
+            
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "import";
+        }
+
+        @Override
+        public List<String> getPermissions() {
+            return List.of("quill.scope.import");
+        }
+
+        @Override
+        public List<String> getTabCompletions(CommandSender sender, String[] args) {
+            if (args.length == 1) {
+                return Arrays.asList("yaml", "binary", "sqlite");
+            }
+            return List.of();
+        }
+    }
+
     public static class AddPlayer implements SubCommand {
         private final Quill plugin;
         private final QuillScopeManager scopeManager;
@@ -0,0 +1,66 @@
+package me.kmathers.quill.events;
+
+import me.kmathers.quill.interpreter.QuillValue;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Event context whose values are only built when something asks for them.
+ * The bridge fills one in as an event fires, and the dispatcher resolves just the names each handling script reads,
+ * still on the thread the event fired on, so values are taken while the event is current.
+ * Not thread safe; handlers are given the plain maps returned by {@link #resolve}.
+ */
+public class LazyContext extends AbstractMap<String, QuillValue> {
+    private final Map<String, Supplier<QuillValue>> suppliers = new HashMap<>();
+    private final Map<String, QuillValue> values = new HashMap<>();
+
+    /**
+     * Add a context variable, built the first time it is read.
+     */
+    public void supply(String name, Supplier<QuillValue> supplier) {
+        suppliers.put(name, supplier);
+    }
+
+    @Override
+    public QuillValue get(Object name) {
+        QuillValue value = values.get(name);
+        if (value == null) {
+            Supplier<QuillValue> supplier = suppliers.get(name);
+            if (supplier == null) {
+                return null;
+            }
+            value = supplier.get();
+            values.put((String) name, value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return suppliers.containsKey(name);
+    }
+
+    /**
+     * The values of whichever of the names are in the context, building any not built yet.
+     */
+    public Map<String, QuillValue> resolve(Collection<String> names) {
+        Map<String, QuillValue> resolved = new HashMap<>();
+        for (String name : names) {
+            QuillValue value = get(name);
+            if (value != null) {
+                resolved.put(name, value);
+            }
+        }
+        return resolved;
+    }
+
+    @Override
+    public Set<Map.Entry<String, QuillValue>> entrySet() {
+        return resolve(suppliers.keySet()).entrySet();
+    }
+}
@@ -0,0 +1,110 @@
+package me.kmathers.quill.events;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.QuillValue;
+import me.kmathers.quill.interpreter.QuillValue.*;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Folds players' moves together for scopes with a move sample rate.
+ * Each scope opens a window on its first move and closes it once its rate in ticks has passed,
+ * handing its scripts one PlayerMove per player that moved, from where they were when the window opened to where they ended up.
+ * Moves arrive on the main thread and windows close there, so none of this needs locking.
+ */
+final class MoveCoalescer {
+    private final Quill plugin;
+    // Open windows by scope name
+    private final Map<String, Window> windows = new HashMap<>();
+    private long tick;
+    private BukkitTask task;
+
+    private static class Window {
+        final long due;
+        // Latest move of each player in the window, in the order they first moved
+        final Map<UUID, Move> moves = new LinkedHashMap<>();
+
+        Window(long due) {
+            this.due = due;
+        }
+    }
+
+    private static class Move {
+        final Player player;
+        final Location from;
+        Location to;
+        PlayerMoveEvent event;
+
+        Move(PlayerMoveEvent event) {
+            this.player = event.getPlayer();
+            this.from = event.getFrom().clone();
+            this.to = event.getTo().clone();
+            this.event = event;
+        }
+    }
+
+    MoveCoalescer(Quill plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Add a move to the scope's current window, opening one that closes after the given ticks if there isn't one.
+     */
+    void offer(String scopeName, int ticks, PlayerMoveEvent event) {
+        Window window = windows.computeIfAbsent(scopeName, k -> new Window(tick + ticks));
+        Move move = window.moves.get(event.getPlayer().getUniqueId());
+        if (move == null) {
+            window.moves.put(event.getPlayer().getUniqueId(), new Move(event));
+        } else {
+            move.to = event.getTo().clone();
+            move.event = event;
+        }
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1, 1);
+        }
+    }
+
+    private void tick() {
+        tick++;
+        Iterator<Map.Entry<String, Window>> it = windows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Window> entry = it.next();
+            if (entry.getValue().due > tick) continue;
+
+            it.remove();
+            for (Move move : entry.getValue().moves.values()) {
+                plugin.getDispatcher().postToScope(entry.getKey(), "PlayerMove", context(move));
+            }
+        }
+
+        if (windows.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static LazyContext context(Move move) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(move.player));
+        context.supply("move", () -> {
+            Map<String, QuillValue> moveData = new HashMap<>();
+            moveData.put("from", new LocationValue(move.from));
+            moveData.put("to", new LocationValue(move.to));
+            return new MapValue(moveData);
+        });
+        // The move is long over by now, so cancelling it does nothing
+        context.supply("event", () -> new EventValue(move.event));
+        return context;
+    }
+}
@@ -0,0 +1,194 @@
+package me.kmathers.quill.events;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.QuillScriptManager.Subscription;
+import me.kmathers.quill.interpreter.QuillInterpreter;
+import me.kmathers.quill.interpreter.QuillValue;
+import me.kmathers.quill.utils.Scope;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.player.PlayerMoveEvent;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes Quill events to the scripts that handle them.
+ * Each matching script gets the event in its own mailbox, and a fixed pool of workers drains the mailboxes,
+ * so scripts run in parallel with each other but each one only ever runs on one thread at a time.
+ * Cancellable events fired on the main thread are run there instead, before the event completes, so handlers can cancel them.
+ * Those runs share a fixed amount of time each tick, and a handler only runs there if enough of it is left for a full slice;
+ * otherwise it goes to the workers, so handlers aren't started just to be stopped partway.
+ * Scopes with a move sample rate get each player's moves folded into one per window instead of every one.
+ */
+public class QuillDispatcher {
+    // How long disabling waits for handlers already running to finish
+    private static final long SHUTDOWN_SECONDS = 5;
+
+    private final Quill plugin;
+    private final ExecutorService workers;
+    // Main thread time handlers may use per tick, in nanoseconds
+    private final long tickBudget;
+    // Main thread time that must be left for a handler to start there, in nanoseconds
+    private final long handlerSlice;
+    // Only touched on the main thread
+    private int tick = -1;
+    private long tickUsed;
+    // Move sample rate for scopes that don't set their own
+    private final int moveSampleRate;
+    private final MoveCoalescer moves;
+
+    public QuillDispatcher(Quill plugin, int threads, long syncBudgetMicros, long handlerSliceMicros, int moveSampleRate) {
+        this.plugin = plugin;
+        this.workers = Executors.newFixedThreadPool(threads, new WorkerFactory());
+        this.tickBudget = syncBudgetMicros * 1000;
+        this.handlerSlice = Math.min(handlerSliceMicros, syncBudgetMicros) * 1000;
+        this.moveSampleRate = moveSampleRate;
+        this.moves = new MoveCoalescer(plugin);
+    }
+
+    /**
+     * Hand an event to every script handling it, skipping scoped scripts whose scope doesn't include the event's player.
+     * A lazy context is resolved here, so each script is handed only the variables its handlers read.
+     */
+    public void dispatch(String eventName, Map<String, QuillValue> context) {
+        dispatch(eventName, context, null);
+    }
+
+    /**
+     * Dispatch a player's move, folding it into the current window for scopes that sample moves.
+     */
+    public void dispatchMove(PlayerMoveEvent event, Map<String, QuillValue> context) {
+        dispatch("PlayerMove", context, event);
+    }
+
+    private void dispatch(String eventName, Map<String, QuillValue> context, PlayerMoveEvent move) {
+        List<Subscription> subscribers = plugin.getScriptManager().getSubscribers(eventName);
+        if (subscribers.isEmpty()) return;
+
+        boolean sync = tickBudget > 0 && isCancellable(context) && Bukkit.isPrimaryThread();
+        long start = sync ? System.nanoTime() : 0;
+        long deadline = sync ? startSync(start) : 0;
+        UUID playerId = playerId(context);
+
+        for (Subscription subscription : subscribers) {
+            if (playerId != null && !inScope(subscription.getScopeName(), playerId)) {
+                continue;
+            }
+
+            if (move != null) {
+                int rate = moveSampleRate(subscription.getScopeName());
+                if (rate > 0) {
+                    moves.offer(subscription.getScopeName(), rate, move);
+                    continue;
+                }
+            }
+
+            QuillInterpreter interpreter = subscription.getInterpreter();
+            Map<String, QuillValue> values = resolve(context, interpreter, eventName);
+            if (deadline != 0 && deadline - System.nanoTime() >= handlerSlice && interpreter.runNow(eventName, values, deadline)) {
+                continue;
+            }
+            interpreter.post(eventName, values);
+        }
+
+        if (sync) {
+            tickUsed += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Post an event to the scripts loaded into one scope, for events that were already routed to it.
+     */
+    void postToScope(String scopeName, String eventName, Map<String, QuillValue> context) {
+        for (Subscription subscription : plugin.getScriptManager().getSubscribers(eventName)) {
+            if (subscription.getScopeName().equals(scopeName)) {
+                QuillInterpreter interpreter = subscription.getInterpreter();
+                interpreter.post(eventName, resolve(context, interpreter, eventName));
+            }
+        }
+    }
+
+    private static Map<String, QuillValue> resolve(Map<String, QuillValue> context, QuillInterpreter interpreter, String eventName) {
+        return context instanceof LazyContext lazy ? lazy.resolve(interpreter.getContextReads(eventName)) : context;
+    }
+
+    private int moveSampleRate(String scopeName) {
+        if (scopeName.equals("global")) return moveSampleRate;
+        Scope scope = plugin.getScopeManager().getScope(scopeName);
+        return scope != null && scope.getMoveSampleRate() != null ? scope.getMoveSampleRate() : moveSampleRate;
+    }
+
+    private static boolean isCancellable(Map<String, QuillValue> context) {
+        QuillValue event = context.get("event");
+        return event != null && event.isEvent() && event.asEvent() instanceof Cancellable;
+    }
+
+    // Deadline for handlers run on the main thread from now, or 0 if too little of this tick's time is left to start one
+    private long startSync(long now) {
+        int current = Bukkit.getCurrentTick();
+        if (current != tick) {
+            tick = current;
+            tickUsed = 0;
+        }
+        long left = tickBudget - tickUsed;
+        return left >= handlerSlice && left > 0 ? now + left : 0;
+    }
+
+    // The player the event is about, if any, which scoped scripts only hear about when it's in their scope
+    private static UUID playerId(Map<String, QuillValue> context) {
+        QuillValue playerValue = context.get("player");
+        if (playerValue != null && playerValue.isPlayer()) {
+            Player player = playerValue.asPlayer();
+            return player.getUniqueId();
+        }
+        return null;
+    }
+
+    private boolean inScope(String scopeName, UUID playerId) {
+        if (scopeName.equals("global")) return true;
+        Scope scope = plugin.getScopeManager().getScope(scopeName);
+        return scope == null || scope.hasPlayer(playerId);
+    }
+
+    /**
+     * The pool script mailboxes are drained on.
+     */
+    public ExecutorService getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Stop taking events and give handlers already running a moment to finish.
+     */
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "Quill Dispatcher #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package me.kmathers.quill.events;
 
-import me.kmathers.quill.QuillScriptManager;
 import me.kmathers.quill.interpreter.QuillValue;
 import me.kmathers.quill.interpreter.QuillValue.*;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
+import org.bukkit.event.Event;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
@@ -20,6 +20,7 @@ import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.*;
 import org.bukkit.event.world.TimeSkipEvent;
 import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.plugin.EventExecutor;
 import org.bukkit.plugin.Plugin;
 
 import io.papermc.paper.event.player.AsyncChatEvent;
@@ -29,356 +30,373 @@ import org.bukkit.event.weather.WeatherChangeEvent;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
- * Bridges Minecraft events to Quill event handlers.
+ * Bridges Minecraft events to Quill event handlers, handing each one to the dispatcher as it fires.
+ * A Bukkit listener is only registered for a Quill event while some loaded script handles it,
+ * and the context is filled in lazily so only the variables handlers read are ever built.
  */
-public class QuillEventBridge implements Listener {
+public class QuillEventBridge {
     private final Plugin plugin;
-    
-    public QuillEventBridge(QuillScriptManager scriptManager, Plugin plugin) {
+    private final QuillDispatcher dispatcher;
+    private final Map<String, Binding> bindings = new HashMap<>();
+
+    // The Bukkit event behind a Quill event, and the listener for it while it is registered
+    private static class Binding {
+        final Class<? extends Event> type;
+        final EventExecutor executor;
+        Listener listener;
+
+        Binding(Class<? extends Event> type, EventExecutor executor) {
+            this.type = type;
+            this.executor = executor;
+        }
+    }
+
+    public QuillEventBridge(Plugin plugin, QuillDispatcher dispatcher) {
         this.plugin = plugin;
+        this.dispatcher = dispatcher;
+
+        bind("PlayerJoin", PlayerJoinEvent.class, this::onPlayerJoin);
+        bind("PlayerQuit", PlayerQuitEvent.class, this::onPlayerQuit);
+        bind("PlayerChat", AsyncChatEvent.class, this::onPlayerChat);
+        bind("PlayerMove", PlayerMoveEvent.class, this::onPlayerMove);
+        bind("PlayerDamage", EntityDamageEvent.class, this::onPlayerDamage);
+        bind("PlayerDeath", PlayerDeathEvent.class, this::onPlayerDeath);
+        bind("PlayerRespawn", PlayerRespawnEvent.class, this::onPlayerRespawn);
+        bind("PlayerInteract", PlayerInteractEvent.class, this::onPlayerInteract);
+        bind("PlayerDropItem", PlayerDropItemEvent.class, this::onPlayerDropItem);
+        bind("PlayerPickupItem", EntityPickupItemEvent.class, this::onPlayerPickupItem);
+        bind("PlayerTeleport", PlayerTeleportEvent.class, this::onPlayerTeleport);
+        bind("PlayerGamemodeChange", PlayerGameModeChangeEvent.class, this::onPlayerGameModeChange);
+        bind("BlockBreak", BlockBreakEvent.class, this::onBlockBreak);
+        bind("BlockPlace", BlockPlaceEvent.class, this::onBlockPlace);
+        bind("BlockInteract", PlayerInteractEvent.class, this::onBlockInteract);
+        bind("EntitySpawn", EntitySpawnEvent.class, this::onEntitySpawn);
+        bind("EntityDeath", EntityDeathEvent.class, this::onEntityDeath);
+        bind("EntityDamage", EntityDamageEvent.class, this::onEntityDamage);
+        bind("TimeChange", TimeSkipEvent.class, this::onTimeChange);
+        bind("WeatherChange", WeatherChangeEvent.class, this::onWeatherChange);
+    }
+
+    private <T extends Event> void bind(String eventName, Class<T> type, Consumer<T> handler) {
+        bindings.put(eventName, new Binding(type, (listener, event) -> {
+            // Bukkit also hands over subclasses that share the type's handler list
+            if (type.isInstance(event)) {
+                handler.accept(type.cast(event));
+            }
+        }));
+    }
+
+    // === Registration ===
+
+    /**
+     * Start listening for the Bukkit event behind a Quill event, if it has one and isn't already.
+     */
+    public synchronized void listen(String eventName) {
+        Binding binding = bindings.get(eventName);
+        if (binding == null || binding.listener != null) return;
+
+        binding.listener = new Listener() {};
+        Bukkit.getPluginManager().registerEvent(binding.type, binding.listener, EventPriority.HIGH, binding.executor, plugin);
     }
-    
+
+    /**
+     * Stop listening for the Bukkit event behind a Quill event once no script handles it.
+     */
+    public synchronized void ignore(String eventName) {
+        Binding binding = bindings.get(eventName);
+        if (binding == null || binding.listener == null) return;
+
+        HandlerList.unregisterAll(binding.listener);
+        binding.listener = null;
+    }
+
     // === Player Events ===
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerJoin(PlayerJoinEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerJoin", context, null));
-        });
+
+    private void onPlayerJoin(PlayerJoinEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        dispatcher.dispatch("PlayerJoin", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerQuit(PlayerQuitEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerQuit", context, null));
-        });
+
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        dispatcher.dispatch("PlayerQuit", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerChat(AsyncChatEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> chatData = new HashMap<>();
-        String plainMessage = PlainTextComponentSerializer.plainText().serialize(event.message());
-        chatData.put("message", new StringValue(plainMessage));
-        context.put("chat", new MapValue(chatData));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerChat", context, null));
+
+    private void onPlayerChat(AsyncChatEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("chat", () -> {
+            Map<String, QuillValue> chatData = new HashMap<>();
+            String plainMessage = PlainTextComponentSerializer.plainText().serialize(event.message());
+            chatData.put("message", new StringValue(plainMessage));
+            return new MapValue(chatData);
         });
+
+        dispatcher.dispatch("PlayerChat", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerMove(PlayerMoveEvent event) {
+
+    private void onPlayerMove(PlayerMoveEvent event) {
         if (event.getFrom().getBlockX() == event.getTo().getBlockX() &&
             event.getFrom().getBlockY() == event.getTo().getBlockY() &&
             event.getFrom().getBlockZ() == event.getTo().getBlockZ()) {
             return;
         }
-        
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> moveData = new HashMap<>();
-        moveData.put("from", new LocationValue(event.getFrom()));
-        moveData.put("to", new LocationValue(event.getTo()));
-        context.put("move", new MapValue(moveData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerMove", context, null));
+
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("move", () -> {
+            Map<String, QuillValue> moveData = new HashMap<>();
+            moveData.put("from", new LocationValue(event.getFrom()));
+            moveData.put("to", new LocationValue(event.getTo()));
+            return new MapValue(moveData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatchMove(event, context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerDamage(EntityDamageEvent event) {
+
+    private void onPlayerDamage(EntityDamageEvent event) {
         if (!(event.getEntity() instanceof org.bukkit.entity.Player)) {
             return;
         }
-        
+
         org.bukkit.entity.Player player = (org.bukkit.entity.Player) event.getEntity();
-        
-        Map<String, QuillValue> context = new HashMap<>();
-        
-        Map<String, QuillValue> damageData = new HashMap<>();
-        damageData.put("target", new PlayerValue(player));
-        damageData.put("amount", new NumberValue(event.getDamage()));
-        damageData.put("cause", new StringValue(event.getCause().name().toLowerCase()));
-        
-        if (event instanceof EntityDamageByEntityEvent) {
-            EntityDamageByEntityEvent damageByEntity = (EntityDamageByEntityEvent) event;
-            damageData.put("source", new EntityValue(damageByEntity.getDamager()));
-        } else {
-            damageData.put("source", NullValue.INSTANCE);
-        }
-        
-        context.put("damage", new MapValue(damageData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerDamage", context, null));
+
+        LazyContext context = new LazyContext();
+        context.supply("damage", () -> {
+            Map<String, QuillValue> damageData = new HashMap<>();
+            damageData.put("target", new PlayerValue(player));
+            damageData.put("amount", NumberValue.of(event.getDamage()));
+            damageData.put("cause", new StringValue(event.getCause().name().toLowerCase()));
+
+            if (event instanceof EntityDamageByEntityEvent) {
+                EntityDamageByEntityEvent damageByEntity = (EntityDamageByEntityEvent) event;
+                damageData.put("source", new EntityValue(damageByEntity.getDamager()));
+            } else {
+                damageData.put("source", NullValue.INSTANCE);
+            }
+            return new MapValue(damageData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("PlayerDamage", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerDeath(PlayerDeathEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getEntity()));
-        
-        Map<String, QuillValue> deathData = new HashMap<>();
-        deathData.put("killer", event.getEntity().getKiller() != null ? 
-            new PlayerValue(event.getEntity().getKiller()) : NullValue.INSTANCE);
-        deathData.put("cause", event.getEntity().getLastDamageCause() != null ?
-            new StringValue(event.getEntity().getLastDamageCause().getCause().name().toLowerCase()) :
-            new StringValue("unknown"));
-        context.put("death", new MapValue(deathData));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerDeath", context, null));
+
+    private void onPlayerDeath(PlayerDeathEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getEntity()));
+        context.supply("death", () -> {
+            Map<String, QuillValue> deathData = new HashMap<>();
+            deathData.put("killer", event.getEntity().getKiller() != null ?
+                new PlayerValue(event.getEntity().getKiller()) : NullValue.INSTANCE);
+            deathData.put("cause", event.getEntity().getLastDamageCause() != null ?
+                new StringValue(event.getEntity().getLastDamageCause().getCause().name().toLowerCase()) :
+                new StringValue("unknown"));
+            return new MapValue(deathData);
         });
+
+        dispatcher.dispatch("PlayerDeath", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerRespawn(PlayerRespawnEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerRespawn", context, null));
-        });
+
+    private void onPlayerRespawn(PlayerRespawnEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        dispatcher.dispatch("PlayerRespawn", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerInteract(PlayerInteractEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> interactData = new HashMap<>();
-        interactData.put("block", event.getClickedBlock() != null ?
-            new LocationValue(event.getClickedBlock().getLocation()) : NullValue.INSTANCE);
-        interactData.put("item", event.getItem() != null ?
-            new ItemValue(event.getItem()) : NullValue.INSTANCE);
-        context.put("interact", new MapValue(interactData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerInteract", context, null));
+
+    private void onPlayerInteract(PlayerInteractEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("interact", () -> {
+            Map<String, QuillValue> interactData = new HashMap<>();
+            interactData.put("block", event.getClickedBlock() != null ?
+                new LocationValue(event.getClickedBlock().getLocation()) : NullValue.INSTANCE);
+            interactData.put("item", event.getItem() != null ?
+                new ItemValue(event.getItem()) : NullValue.INSTANCE);
+            return new MapValue(interactData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("PlayerInteract", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerDropItem(PlayerDropItemEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        context.put("item", new ItemValue(event.getItemDrop().getItemStack()));
-        context.put("event", new EventValue(event));
-
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerDropItem", context, null));
-        });
+
+    private void onPlayerDropItem(PlayerDropItemEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("item", () -> new ItemValue(event.getItemDrop().getItemStack()));
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("PlayerDropItem", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerPickupItem(EntityPickupItemEvent event) {
+
+    private void onPlayerPickupItem(EntityPickupItemEvent event) {
         if (event.getEntity() instanceof Player player) {
-            Map<String, QuillValue> context = new HashMap<>();
-            context.put("player", new PlayerValue(player));
-            context.put("item", new ItemValue(event.getItem().getItemStack()));
-            context.put("event", new EventValue(event));
-
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerPickupItem", context, null));
-            });
-        }    
+            LazyContext context = new LazyContext();
+            context.supply("player", () -> new PlayerValue(player));
+            context.supply("item", () -> new ItemValue(event.getItem().getItemStack()));
+            context.supply("event", () -> new EventValue(event));
+
+            dispatcher.dispatch("PlayerPickupItem", context);
+        }
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerTeleport(PlayerTeleportEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> teleportData = new HashMap<>();
-        teleportData.put("from", new LocationValue(event.getFrom()));
-        teleportData.put("to", new LocationValue(event.getTo()));
-        context.put("teleport", new MapValue(teleportData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerTeleport", context, null));
+
+    private void onPlayerTeleport(PlayerTeleportEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("teleport", () -> {
+            Map<String, QuillValue> teleportData = new HashMap<>();
+            teleportData.put("from", new LocationValue(event.getFrom()));
+            teleportData.put("to", new LocationValue(event.getTo()));
+            return new MapValue(teleportData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("PlayerTeleport", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onPlayerGameModeChange(PlayerGameModeChangeEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> gamemodeData = new HashMap<>();
-        gamemodeData.put("old", new StringValue(event.getPlayer().getGameMode().name().toLowerCase()));
-        gamemodeData.put("new", new StringValue(event.getNewGameMode().name().toLowerCase()));
-        context.put("gamemode", new MapValue(gamemodeData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("PlayerGamemodeChange", context, null));
+
+    private void onPlayerGameModeChange(PlayerGameModeChangeEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("gamemode", () -> {
+            Map<String, QuillValue> gamemodeData = new HashMap<>();
+            gamemodeData.put("old", new StringValue(event.getPlayer().getGameMode().name().toLowerCase()));
+            gamemodeData.put("new", new StringValue(event.getNewGameMode().name().toLowerCase()));
+            return new MapValue(gamemodeData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("PlayerGamemodeChange", context);
     }
-    
+
     // === Block Events ===
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onBlockBreak(BlockBreakEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> blockData = new HashMap<>();
-        blockData.put("type", new StringValue(event.getBlock().getType().name().toLowerCase()));
-        blockData.put("location", new LocationValue(event.getBlock().getLocation()));
-        context.put("block", new MapValue(blockData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("BlockBreak", context, null));
+
+    private void onBlockBreak(BlockBreakEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("block", () -> {
+            Map<String, QuillValue> blockData = new HashMap<>();
+            blockData.put("type", new StringValue(event.getBlock().getType().name().toLowerCase()));
+            blockData.put("location", new LocationValue(event.getBlock().getLocation()));
+            return new MapValue(blockData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("BlockBreak", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onBlockPlace(BlockPlaceEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> blockData = new HashMap<>();
-        blockData.put("type", new StringValue(event.getBlock().getType().name().toLowerCase()));
-        blockData.put("location", new LocationValue(event.getBlock().getLocation()));
-        context.put("block", new MapValue(blockData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("BlockPlace", context, null));
+
+    private void onBlockPlace(BlockPlaceEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("block", () -> {
+            Map<String, QuillValue> blockData = new HashMap<>();
+            blockData.put("type", new StringValue(event.getBlock().getType().name().toLowerCase()));
+            blockData.put("location", new LocationValue(event.getBlock().getLocation()));
+            return new MapValue(blockData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("BlockPlace", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onBlockInteract(PlayerInteractEvent event) {
+
+    private void onBlockInteract(PlayerInteractEvent event) {
         if (event.getClickedBlock() == null) {
             return;
         }
-        
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("player", new PlayerValue(event.getPlayer()));
-        
-        Map<String, QuillValue> blockData = new HashMap<>();
-        blockData.put("type", new StringValue(event.getClickedBlock().getType().name().toLowerCase()));
-        blockData.put("location", new LocationValue(event.getClickedBlock().getLocation()));
-        context.put("block", new MapValue(blockData));
-        
-        if (event.getHand() == EquipmentSlot.HAND) {
-            context.put("hand", new StringValue("hand"));
-        } else {
-            context.put("hand", new StringValue("off_hand"));
-        }
 
-        context.put("event", new EventValue(event));
-
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("BlockInteract", context, null));
+        LazyContext context = new LazyContext();
+        context.supply("player", () -> new PlayerValue(event.getPlayer()));
+        context.supply("block", () -> {
+            Map<String, QuillValue> blockData = new HashMap<>();
+            blockData.put("type", new StringValue(event.getClickedBlock().getType().name().toLowerCase()));
+            blockData.put("location", new LocationValue(event.getClickedBlock().getLocation()));
+            return new MapValue(blockData);
         });
+        context.supply("hand", () -> new StringValue(event.getHand() == EquipmentSlot.HAND ? "hand" : "off_hand"));
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("BlockInteract", context);
     }
-    
+
     // === Entity Events ===
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onEntitySpawn(EntitySpawnEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("entity", new EntityValue(event.getEntity()));
-        
-        Map<String, QuillValue> entityData = new HashMap<>();
-        entityData.put("type", new StringValue(event.getEntity().getType().name().toLowerCase()));
-        entityData.put("location", new LocationValue(event.getLocation()));
-        context.put("entity", new MapValue(entityData));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("EntitySpawn", context, null));
+
+    private void onEntitySpawn(EntitySpawnEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("entity", () -> {
+            Map<String, QuillValue> entityData = new HashMap<>();
+            entityData.put("type", new StringValue(event.getEntity().getType().name().toLowerCase()));
+            entityData.put("location", new LocationValue(event.getLocation()));
+            return new MapValue(entityData);
         });
+
+        dispatcher.dispatch("EntitySpawn", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onEntityDeath(EntityDeathEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("entity", new EntityValue(event.getEntity()));
-        
-        Map<String, QuillValue> entityData = new HashMap<>();
-        entityData.put("killer", event.getEntity().getKiller() != null ?
-            new PlayerValue(event.getEntity().getKiller()) : NullValue.INSTANCE);
-        context.put("entity", new MapValue(entityData));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("EntityDeath", context, null));
+
+    private void onEntityDeath(EntityDeathEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("entity", () -> {
+            Map<String, QuillValue> entityData = new HashMap<>();
+            entityData.put("killer", event.getEntity().getKiller() != null ?
+                new PlayerValue(event.getEntity().getKiller()) : NullValue.INSTANCE);
+            return new MapValue(entityData);
         });
+
+        dispatcher.dispatch("EntityDeath", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onEntityDamage(EntityDamageEvent event) {
+
+    private void onEntityDamage(EntityDamageEvent event) {
         if (event.getEntity() instanceof org.bukkit.entity.Player) {
             return;
         }
-        
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("entity", new EntityValue(event.getEntity()));
-        
-        Map<String, QuillValue> damageData = new HashMap<>();
-        damageData.put("amount", new NumberValue(event.getDamage()));
-        
-        if (event instanceof EntityDamageByEntityEvent) {
-            EntityDamageByEntityEvent damageByEntity = (EntityDamageByEntityEvent) event;
-            damageData.put("source", new EntityValue(damageByEntity.getDamager()));
-        } else {
-            damageData.put("source", NullValue.INSTANCE);
-        }
-        
-        context.put("damage", new MapValue(damageData));
-        context.put("event", new EventValue(event));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("EntityDamage", context, null));
+
+        LazyContext context = new LazyContext();
+        context.supply("entity", () -> new EntityValue(event.getEntity()));
+        context.supply("damage", () -> {
+            Map<String, QuillValue> damageData = new HashMap<>();
+            damageData.put("amount", NumberValue.of(event.getDamage()));
+
+            if (event instanceof EntityDamageByEntityEvent) {
+                EntityDamageByEntityEvent damageByEntity = (EntityDamageByEntityEvent) event;
+                damageData.put("source", new EntityValue(damageByEntity.getDamager()));
+            } else {
+                damageData.put("source", NullValue.INSTANCE);
+            }
+            return new MapValue(damageData);
         });
+        context.supply("event", () -> new EventValue(event));
+
+        dispatcher.dispatch("EntityDamage", context);
     }
-    
+
     // === World Events ===
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onTimeChange(TimeSkipEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("world", new WorldValue(event.getWorld()));
-        
-        Map<String, QuillValue> timeData = new HashMap<>();
-        timeData.put("old", new NumberValue(event.getWorld().getTime() - event.getSkipAmount()));
-        timeData.put("new", new NumberValue(event.getWorld().getTime()));
-        context.put("time", new MapValue(timeData));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("TimeChange", context, null));
+
+    private void onTimeChange(TimeSkipEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("world", () -> new WorldValue(event.getWorld()));
+        context.supply("time", () -> {
+            Map<String, QuillValue> timeData = new HashMap<>();
+            timeData.put("old", NumberValue.of(event.getWorld().getTime() - event.getSkipAmount()));
+            timeData.put("new", NumberValue.of(event.getWorld().getTime()));
+            return new MapValue(timeData);
         });
+
+        dispatcher.dispatch("TimeChange", context);
     }
-    
-    @EventHandler(priority = EventPriority.HIGH)
-    public void onWeatherChange(WeatherChangeEvent event) {
-        Map<String, QuillValue> context = new HashMap<>();
-        context.put("world", new WorldValue(event.getWorld()));
-        
-        Map<String, QuillValue> weatherData = new HashMap<>();
-        String newWeather = event.toWeatherState() ? "rain" : "clear";
-        weatherData.put("new", new StringValue(newWeather));
-        context.put("weather", new MapValue(weatherData));
-        
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Bukkit.getPluginManager().callEvent(new QuillEvent("WeatherChange", context, null));
+
+    private void onWeatherChange(WeatherChangeEvent event) {
+        LazyContext context = new LazyContext();
+        context.supply("world", () -> new WorldValue(event.getWorld()));
+        context.supply("weather", () -> {
+            Map<String, QuillValue> weatherData = new HashMap<>();
+            String newWeather = event.toWeatherState() ? "rain" : "clear";
+            weatherData.put("new", new StringValue(newWeather));
+            return new MapValue(weatherData);
         });
+
+        dispatcher.dispatch("WeatherChange", context);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+
+/**
+ * How much work one run of a script may do before it is stopped.
+ * Every loop iteration and script function call costs a step, which bounds everything else a run can do,
+ * and the clock is only read every few thousand steps so the time limit costs next to nothing.
+ * Calls are also limited in how deeply they nest, so runaway recursion is stopped before it overflows the thread's stack.
+ * A budget belongs to a single run and is shared by every frame in it.
+ * A run that waits gets its budget back each time it resumes, so the limits apply to each stretch it runs for.
+ */
+public final class Budget {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    // Steps between reads of the clock
+    private static final int CLOCK_INTERVAL = 4096;
+    // Steps between reads of the clock while held to a main thread deadline, which is only microseconds away
+    private static final int TICK_CLOCK_INTERVAL = 64;
+    // Script function calls that may be in progress at once
+    private static final int MAX_DEPTH = 256;
+
+    private final String scope;
+    private final long steps;
+    private final long timeLimit;
+    private long deadline;
+    private long remaining;
+    private int clockInterval = CLOCK_INTERVAL;
+    private int untilClock = CLOCK_INTERVAL;
+    // Set while the deadline is the main thread's, rather than the run's own time limit
+    private boolean onTick;
+    private int depth;
+
+    /**
+     * Thrown when a run goes over its budget.
+     * An Error rather than a RuntimeException, since script try blocks catch runtime exceptions and must not swallow it.
+     */
+    public static class Exceeded extends Error {
+        private final String scope;
+        private final boolean tickShare;
+
+        Exceeded(String scope, String message) {
+            this(scope, message, false);
+        }
+
+        Exceeded(String scope, String message, boolean tickShare) {
+            super(message, null, false, false);
+            this.scope = scope;
+            this.tickShare = tickShare;
+        }
+
+        /**
+         * Name of the scope whose script went over its budget.
+         */
+        public String getScope() {
+            return scope;
+        }
+
+        /**
+         * Whether the run was stopped because the main thread's share of the tick ran out, rather than for going over its own budget.
+         */
+        public boolean isTickShare() {
+            return tickShare;
+        }
+    }
+
+    /**
+     * A budget for one run of a script in the named scope.
+     * Pass 0 for either limit to leave it unbounded.
+     */
+    Budget(String scope, long steps, long timeLimitMillis) {
+        this.scope = scope;
+        this.steps = steps;
+        this.timeLimit = timeLimitMillis;
+        renew();
+    }
+
+    /**
+     * Give the run all its steps and time back, as it resumes after a wait.
+     */
+    void renew() {
+        remaining = steps > 0 ? steps : Long.MAX_VALUE;
+        clockInterval = CLOCK_INTERVAL;
+        untilClock = CLOCK_INTERVAL;
+        deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1_000_000 : 0;
+        onTick = false;
+    }
+
+    /**
+     * Stop the run at the given System.nanoTime() instead, as it runs on the main thread inside the tick's share of time.
+     * The clock is read far more often so the run stops close to it, and a wait lifts it, since the run resumes off the main thread.
+     */
+    void limitTo(long deadline) {
+        this.deadline = deadline;
+        clockInterval = TICK_CLOCK_INTERVAL;
+        untilClock = TICK_CLOCK_INTERVAL;
+        onTick = true;
+    }
+
+    /**
+     * Charge one step, throwing if the run has used up its steps or its time.
+     */
+    public void charge() {
+        if (--remaining < 0) {
+            throw new Exceeded(scope, plugin.translate("quill.error.runtime.interpreter.budget-steps", scope, steps));
+        }
+        if (--untilClock == 0) {
+            untilClock = clockInterval;
+            if (deadline != 0 && System.nanoTime() - deadline > 0) {
+                if (onTick) {
+                    throw new Exceeded(scope, plugin.translate("quill.error.runtime.interpreter.budget-tick", scope), true);
+                }
+                throw new Exceeded(scope, plugin.translate("quill.error.runtime.interpreter.budget-time", scope, timeLimit));
+            }
+        }
+    }
+
+    /**
+     * Charge a step for a script function call and note that it is in progress until {@link #exit()}.
+     */
+    void enter() {
+        charge();
+        if (++depth > MAX_DEPTH) {
+            throw new Exceeded(scope, plugin.translate("quill.error.runtime.interpreter.budget-depth", scope, MAX_DEPTH));
+        }
+    }
+
+    void exit() {
+        depth--;
+    }
+}
@@ -24,27 +24,41 @@ public class BuiltInConstructorFuncs {
             if (args.size() != 3 && args.size() != 4) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "location()", "3 or 4", "location(x, y, z) or location(x, y, z, world)"));
             }
+            if (args.size() == 3) {
+                return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+            }
             
             double x = args.get(0).asNumber();
             double y = args.get(1).asNumber();
             double z = args.get(2).asNumber();
             
-            World world;
-            if (args.size() == 4) {
-                String worldName = args.get(3).asString();
-                world = Bukkit.getWorld(worldName);
-                if (world == null) {
-                    throw new RuntimeException(plugin.translate("quill.error.user.world.world-not-found", worldName));
-                }
-            } else {
-                ScopeContext.Region region = scope.getRegion();
-                if (region == null) {
-                    throw new RuntimeException(plugin.translate("quill.error.user.world.no-region-defined"));
-                }
-                world = Bukkit.getWorld(region.getWorldName());
-                if (world == null) {
-                    throw new RuntimeException(plugin.translate("quill.error.user.world.world-not-found", region.getWorldName()));
-                }
+            String worldName = args.get(3).asString();
+            World world = Bukkit.getWorld(worldName);
+            if (world == null) {
+                throw new RuntimeException(plugin.translate("quill.error.user.world.world-not-found", worldName));
+            }
+            
+            return new LocationValue(new Location(world, x, y, z));
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 3;
+        }
+
+        @Override
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            double x = arg0.asNumber();
+            double y = arg1.asNumber();
+            double z = arg2.asNumber();
+            
+            ScopeContext.Region region = scope.getRegion();
+            if (region == null) {
+                throw new RuntimeException(plugin.translate("quill.error.user.world.no-region-defined"));
+            }
+            World world = Bukkit.getWorld(region.getWorldName());
+            if (world == null) {
+                throw new RuntimeException(plugin.translate("quill.error.user.world.world-not-found", region.getWorldName()));
             }
             
             return new LocationValue(new Location(world, x, y, z));
@@ -58,9 +72,28 @@ public class BuiltInConstructorFuncs {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "item()", "1 to 3", "item(item_id), item(item_id, amount), or item(item_id, amount, metadata)"));
             }
             
-            String itemId = args.get(0).asString();
-            int amount = args.size() >= 2 ? (int) args.get(1).asNumber() : 1;
+            if (args.size() == 1) {
+                return call1(args.get(0), scope, interpreter);
+            }
             // TODO metadata (args.get(2))
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 1 || argCount == 2;
+        }
+
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            ItemStack item = createItemStack(arg0.asString(), 1);
+            return new ItemValue(item);
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            String itemId = arg0.asString();
+            int amount = (int) arg1.asNumber();
             
             ItemStack item = createItemStack(itemId, amount);
             return new ItemValue(item);
@@ -35,21 +35,32 @@ public class BuiltInPlayerFuncs {
             if (args.size() != 2 && args.size() != 4) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "teleport()", "2 or 4", "teleport(player, x, y, z) or teleport(player, location)"));
             }
+            if (args.size() == 2) {
+                return call2(args.get(0), args.get(1), scope, interpreter);
+            }
             
             Player player = args.get(0).asPlayer();
+            double x = args.get(1).asNumber();
+            double y = args.get(2).asNumber();
+            double z = args.get(3).asNumber();
+            Location loc = new Location(player.getWorld(), x, y, z);
+            player.teleport(loc);
             
-            if (args.size() == 2) {
-                Location loc = args.get(1).asLocation();
-                player.teleport(loc);
-            } else {
-                double x = args.get(1).asNumber();
-                double y = args.get(2).asNumber();
-                double z = args.get(3).asNumber();
-                Location loc = new Location(player.getWorld(), x, y, z);
-                player.teleport(loc);
-            }
+            return BooleanValue.of(true);
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 2;
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            Location loc = arg1.asLocation();
+            player.teleport(loc);
             
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
@@ -60,33 +71,41 @@ public class BuiltInPlayerFuncs {
             if (args.size() < 2 || args.size() > 3) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "give()", "2 or 3", "give(player, item_id) or give(player, item_id, amount) or give(player, item)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            ItemStack item = null;
-            int amount = 1;
-            String itemId = null;
-
             if (args.size() == 2) {
-                QuillValue second = args.get(1);
-                if (second.isString()) {
-                    itemId = second.asString();
-                } else if (second.isItem()) {
-                    item = second.asItem();
-                } else {
-                    throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "string or item", "give()", second.getType()));
-                }
-            } else {
-                itemId = args.get(1).asString();
-                amount = (int) args.get(2).asNumber();
+                return call2(args.get(0), args.get(1), scope, interpreter);
             }
-            
-            if (item == null) {
-                item = createItemStack(itemId, amount);
+            return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+        }
+
+        public boolean accepts(int argCount) {
+            return argCount == 2 || argCount == 3;
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            ItemStack item;
+
+            if (arg1.isString()) {
+                item = createItemStack(arg1.asString(), 1);
+            } else if (arg1.isItem()) {
+                item = arg1.asItem();
+            } else {
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "string or item", "give()", arg1.getType()));
             }
 
             player.give(item);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
+        }
+
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            String itemId = arg1.asString();
+            int amount = (int) arg2.asNumber();
+
+            player.give(createItemStack(itemId, amount));
+
+            return BooleanValue.of(true);
         }
     }
 
@@ -95,25 +114,33 @@ public class BuiltInPlayerFuncs {
             if (args.size() < 2 || args.size() > 3) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "remove_item()", "2 or 3", "remove_item(player, item_id) or remove_item(player, item_id, amount)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            int amount = 1;
-            String itemId = null;
-            Material itemMaterial = null;
-
             if (args.size() == 2) {
-                QuillValue second = args.get(1);
-                if (second.isString()) {
-                    itemId = second.asString();
-                } else {
-                    throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "string", "remove_item()", second.getType()));
-                }
-            } else {
-                itemId = args.get(1).asString();
-                amount = (int) Math.floor(args.get(2).asNumber());
+                return call2(args.get(0), args.get(1), scope, interpreter);
+            }
+            return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+        }
+
+        public boolean accepts(int argCount) {
+            return argCount == 2 || argCount == 3;
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            if (!arg1.isString()) {
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "string", "remove_item()", arg1.getType()));
             }
+            return removeItem(player, arg1.asString(), 1);
+        }
 
-            itemMaterial = Material.matchMaterial(itemId);
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            String itemId = arg1.asString();
+            int amount = (int) Math.floor(arg2.asNumber());
+            return removeItem(player, itemId, amount);
+        }
+
+        private static QuillValue removeItem(Player player, String itemId, int amount) {
+            Material itemMaterial = Material.matchMaterial(itemId);
             if (itemMaterial == null) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.invalid-material", itemId));
             }
@@ -121,25 +148,28 @@ public class BuiltInPlayerFuncs {
             ItemStack itemToRemove = new ItemStack(itemMaterial, amount);
             
             if (!player.getInventory().containsAtLeast(itemToRemove, amount)) {
-                return new NumberValue(0);
+                return NumberValue.of(0);
             }
             
             player.getInventory().removeItem(itemToRemove);
             
-            return new NumberValue(amount);
+            return NumberValue.of(amount);
         }
     }
 
     // === Player State ===
 
-    public static class SetGamemodeFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SetGamemodeFunction implements QuillInterpreter.BinaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "set_gamemode()", "2", "set_gamemode(player, mode)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            String gamemode = args.get(1).asString();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            String gamemode = arg1.asString();
 
             Set<String> validModes = Set.of("adventure", "creative", "spectator", "survival");
 
@@ -149,93 +179,108 @@ public class BuiltInPlayerFuncs {
 
             player.setGameMode(GameMode.valueOf(gamemode.toUpperCase()));
             
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class SetHealthFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SetHealthFunction implements QuillInterpreter.BinaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "set_health()", "2", "set_health(player, health)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
-            double health = args.get(1).asNumber();
+            double health = arg1.asNumber();
 
             if (health < 0 || health > 20) {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "digit between 0 and 20", "set_health()", args.get(1).asString()));
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "digit between 0 and 20", "set_health()", arg1.asString()));
             }
 
             player.setHealth(health);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class SetHungerFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SetHungerFunction implements QuillInterpreter.BinaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "set_hunger()", "2", "set_hunger(player, hunger)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
-            double hunger = args.get(1).asNumber();
+            double hunger = arg1.asNumber();
 
             if (hunger < 0 || hunger > 20) {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "digit between 0 and 20", "set_hunger()", args.get(1).asString()));
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "digit between 0 and 20", "set_hunger()", arg1.asString()));
             }
 
             player.setFoodLevel((int) hunger);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class HealFunction implements QuillInterpreter.BuiltInFunction {
+    public static class HealFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "heal()", "heal(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
             AttributeInstance maxHealth = player.getAttribute(Attribute.MAX_HEALTH);
 
             player.heal(maxHealth.getValue());
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class KillFunction implements QuillInterpreter.BuiltInFunction {
+    public static class KillFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "kill()", "kill(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
             player.setHealth(0);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
     // === Communication ===
 
-    public static class SendMessageFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SendMessageFunction implements QuillInterpreter.BinaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "sendmessage()", "2", "sendmessage(player, message)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            String message = args.get(1).asString();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            String message = arg1.asString();
 
             player.sendMessage(message);
             
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
@@ -256,7 +301,7 @@ public class BuiltInPlayerFuncs {
 
             player.showTitle(playerTitle);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
@@ -293,7 +338,7 @@ public class BuiltInPlayerFuncs {
                 throw new RuntimeException(plugin.translate("quill.error.user.misc.invalid-sound", soundName));
             }
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
@@ -321,19 +366,23 @@ public class BuiltInPlayerFuncs {
             }
 
             player.addPotionEffect(new PotionEffect(effectType, duration, amplifier));
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class RemoveEffectFunction implements QuillInterpreter.BuiltInFunction {
+    public static class RemoveEffectFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "remove_effect()", "2", "remove_effect(player, effect)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            Player player = args.get(0).asPlayer();
-            String effectString = args.get(1).asString().toLowerCase();
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            String effectString = arg1.asString().toLowerCase();
 
             NamespacedKey key = effectString.contains(":")
                     ? NamespacedKey.fromString(effectString)
@@ -345,34 +394,40 @@ public class BuiltInPlayerFuncs {
             }
 
             player.removePotionEffect(effectType);
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class ClearEffectsFunction implements QuillInterpreter.BuiltInFunction {
+    public static class ClearEffectsFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "clear_effects()", "clear_effects(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
             player.clearActivePotionEffects();
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
     // === Player Management ===
 
-    public static class SetFlyingFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SetFlyingFunction implements QuillInterpreter.BinaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "set_flying()", "2", "set_flying(player, flying)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            boolean flying = args.get(1).asBoolean();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            boolean flying = arg1.asBoolean();
 
             if  (flying) {
                 if(!(plugin.getFlying().contains(player.getUniqueId()))) {
@@ -390,62 +445,74 @@ public class BuiltInPlayerFuncs {
                 player.setAllowFlight(false);
             }
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class KickFunction implements QuillInterpreter.BuiltInFunction {
+    public static class KickFunction implements QuillInterpreter.BinaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "kick()", "2", "kick(player, reason)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            String reason = args.get(1).asString();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            String reason = arg1.asString();
 
             player.kick(Component.text(reason));
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
     // === Getters ===
 
-    public static class GetHealthFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetHealthFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_health()", "get_health(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
             double health = player.getHealth();
 
-            return new NumberValue(health);
+            return NumberValue.of(health);
         }
     }
 
-    public static class GetHungerFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetHungerFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_hunger()", "get_hunger(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
             double hunger = player.getFoodLevel();
 
-            return new NumberValue(hunger);
+            return NumberValue.of(hunger);
         }
     }
 
-    public static class GetLocationFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetLocationFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_location()", "get_location(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
             Location loc = player.getLocation();
 
@@ -453,13 +520,16 @@ public class BuiltInPlayerFuncs {
         }
     }
 
-    public static class GetGamemodeFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetGamemodeFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_gamemode()", "get_gamemode(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
             String gamemode = player.getGameMode().toString();
 
@@ -472,67 +542,84 @@ public class BuiltInPlayerFuncs {
             if (args.size() < 2 || args.size() > 3) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "has_item()", "2 or 3", "has_item(player, item_id) or has_item(player, item_id, amount)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            int amount = 1;
-            String itemId = null;
-            Material itemMaterial = null;
-
             if (args.size() == 2) {
-                QuillValue second = args.get(1);
-                if (second.isString()) {
-                    itemId = second.asString();
-                } else {
-                    throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "string", "has_item()", args.get(1).getType()));
-                }
-            } else {
-                itemId = args.get(1).asString();
-                amount = (int) Math.floor(args.get(2).asNumber());
+                return call2(args.get(0), args.get(1), scope, interpreter);
+            }
+            return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+        }
+
+        public boolean accepts(int argCount) {
+            return argCount == 2 || argCount == 3;
+        }
+
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            if (!arg1.isString()) {
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "string", "has_item()", arg1.getType()));
             }
+            return hasItem(player, arg1.asString(), 1);
+        }
+
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            String itemId = arg1.asString();
+            int amount = (int) Math.floor(arg2.asNumber());
+            return hasItem(player, itemId, amount);
+        }
 
-            itemMaterial = Material.matchMaterial(itemId);
+        private static QuillValue hasItem(Player player, String itemId, int amount) {
+            Material itemMaterial = Material.matchMaterial(itemId);
 
             if(player.getInventory().contains(itemMaterial, amount)) {
-                return new BooleanValue(true);
+                return BooleanValue.of(true);
             } else {
-                return new BooleanValue(false);
+                return BooleanValue.of(false);
             }
         }
     }    
 
-    public static class GetNameFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetNameFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_name()", "get_name(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
             return new StringValue(player.getName());
         }
     }    
 
-    public static class IsOnlineFunction implements QuillInterpreter.BuiltInFunction {
+    public static class IsOnlineFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "is_online()", "is_online(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new BooleanValue(player.isOnline());
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+
+            return BooleanValue.of(player.isOnline());
         }
     }
 
-    public static class IsOpFunction implements QuillInterpreter.BuiltInFunction {
+    public static class IsOpFunction implements QuillInterpreter.UnaryFunction {
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "is_op()", "is_op(player)"));
             }
-            
-            Player player = args.get(0).asPlayer();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
 
-            return new BooleanValue(player.isOp());
+            return BooleanValue.of(player.isOp());
         }
     }
 
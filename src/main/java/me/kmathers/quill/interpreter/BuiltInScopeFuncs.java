@@ -2,15 +2,12 @@ package me.kmathers.quill.interpreter;
 
 import me.kmathers.quill.Quill;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import org.bukkit.entity.Player;
 
 import me.kmathers.quill.interpreter.QuillValue.BooleanValue;
-import me.kmathers.quill.interpreter.QuillValue.ListValue;
-import me.kmathers.quill.interpreter.QuillValue.PlayerValue;
+import me.kmathers.quill.interpreter.QuillValue.PlayerListValue;
 import me.kmathers.quill.interpreter.QuillValue.RegionValue;
 import me.kmathers.quill.interpreter.ScopeContext.Region;
 
@@ -19,87 +16,99 @@ import me.kmathers.quill.interpreter.ScopeContext.Region;
  */
 public class BuiltInScopeFuncs {
     private static Quill plugin = Quill.getPlugin(Quill.class);
-    public static class AddToScopeFunction implements QuillInterpreter.BuiltInFunction {
+    public static class AddToScopeFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "addtoscope()", "2", "addtoscope(player, scope)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            ScopeContext targetScope = args.get(1).asScope().getScope();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            ScopeContext targetScope = arg1.asScope().getScope();
             
             targetScope.addPlayer(player);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class RemoveFromScopeFunction implements QuillInterpreter.BuiltInFunction {
+    public static class RemoveFromScopeFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "removefromscope()", "2", "removefromscope(player, scope)"));
             }
-            
-            Player player = args.get(0).asPlayer();
-            ScopeContext targetScope = args.get(1).asScope().getScope();
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = arg0.asPlayer();
+            ScopeContext targetScope = arg1.asScope().getScope();
 
             if(targetScope.getPlayers().contains(player)) {
                 targetScope.removePlayer(player);
             }
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class GetPlayersFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetPlayersFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "getplayers()", "getplayers(scope)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            ScopeContext targetScope = args.get(0).asScope().getScope();
-            Set<Player> players = targetScope.getPlayers();
-
-            List<QuillValue> playerValues = new ArrayList<>();
-            for (Player player : players) {
-                playerValues.add(new PlayerValue(player));
-            }
-
-            return new ListValue(playerValues);
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            ScopeContext targetScope = arg0.asScope().getScope();
+            return new PlayerListValue(targetScope.getPlayerView());
         }
     }
 
-    public static class InRegionFunction implements QuillInterpreter.BuiltInFunction {
+    public static class InRegionFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "in_region()", "2", "in_region(player, scope) or in_region(location, scope)"));
             }
-            
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            ScopeContext targetScope = args.get(1).asScope().getScope();
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            ScopeContext targetScope = arg1.asScope().getScope();
 
-            if (args.get(0).isPlayer()) {
-                return new BooleanValue(targetScope.isInRegion(args.get(0).asPlayer().getLocation()));
-            } else if (args.get(0).isLocation()) {
-                return new BooleanValue(targetScope.isInRegion(args.get(0).asLocation()));
+            if (arg0.isPlayer()) {
+                return BooleanValue.of(targetScope.isInRegion(arg0.asPlayer().getLocation()));
+            } else if (arg0.isLocation()) {
+                return BooleanValue.of(targetScope.isInRegion(arg0.asLocation()));
             } else {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "player or location", "in_region()", args.get(0).getType()));
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "player or location", "in_region()", arg0.getType()));
             }
         }
     }
 
-    public static class GetRegionFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetRegionFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_region()", "get_region(scope)"));
             }
-            
-            ScopeContext targetScope = args.get(0).asScope().getScope();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            ScopeContext targetScope = arg0.asScope().getScope();
             Region region = targetScope.getRegion();
             
             if (region == null) {
@@ -138,7 +147,7 @@ public class BuiltInScopeFuncs {
             Region newRegion = new Region(x1, y1, z1, x2, y2, z2, worldName);
             targetScope.setRegion(newRegion);
             
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package me.kmathers.quill.interpreter;
 
 import me.kmathers.quill.Quill;
-import me.kmathers.quill.events.QuillEvent;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,9 +22,10 @@ import com.google.gson.JsonPrimitive;
 
 import me.kmathers.quill.interpreter.QuillValue.BooleanValue;
 import me.kmathers.quill.interpreter.QuillValue.NumberValue;
+import me.kmathers.quill.interpreter.QuillValue.PlayerListValue;
 import me.kmathers.quill.interpreter.QuillValue.PlayerValue;
+import me.kmathers.quill.interpreter.QuillValue.RangeValue;
 import me.kmathers.quill.interpreter.QuillValue.StringValue;
-import me.kmathers.quill.utils.Scope;
 import me.kmathers.quill.interpreter.QuillValue.ListValue;
 import me.kmathers.quill.interpreter.QuillValue.MapValue;
 
@@ -36,43 +36,59 @@ public class BuiltInUtilFuncs {
     private static Random random = new Random();
     private static Quill plugin = Quill.getPlugin(Quill.class);
 
-    public static class CancelFunction implements QuillInterpreter.BuiltInFunction {
+    public static class CancelFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "cancel()", "cancel(event)"));
             }
-            
-            if (!args.get(0).isEvent()) {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "event", "cancel()", args.get(0).getType()));
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            if (!arg0.isEvent()) {
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "event", "cancel()", arg0.getType()));
             }
             
-            org.bukkit.event.Event event = args.get(0).asEvent();
+            org.bukkit.event.Event event = arg0.asEvent();
             
             if (event instanceof org.bukkit.event.Cancellable) {
                 ((org.bukkit.event.Cancellable) event).setCancelled(true);
-                return new BooleanValue(true);
+                return BooleanValue.of(true);
             } else {
                 throw new RuntimeException(plugin.translate("quill.error.developer.misc.cannot-cancel", event.getEventName()));
             }
         }
     }
 
-    public static class WaitFunction implements QuillInterpreter.BuiltInFunction {
+    public static class WaitFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "wait()", "wait(ticks)"));
             }
-            
-            // TODO: Handle wait
-            int ticks = (int) args.get(0).asNumber();
+            return call1(args.get(0), scope, interpreter);
+        }
+
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            // A wait statement suspends without calling this, so this one is inside an expression
+            ticks(arg0);
+            throw Suspension.misplaced();
+        }
+
+        /**
+         * Ticks a wait statement asked for, checked the same way whichever engine runs it.
+         */
+        static int ticks(QuillValue value) {
+            int ticks = (int) value.asNumber();
             
             if (ticks < 0) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "non-negative digit", "wait()", String.valueOf(ticks)));
             }
             
-            return new BooleanValue(true);
+            return ticks;
         }
     }
 
@@ -83,84 +99,117 @@ public class BuiltInUtilFuncs {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "random()", "1 or 2", "random(max) or random(min, max)"));
             }
 
-            double min = 0;
-            double max = 0;
-
             if(args.size() == 1) {
-                max = args.get(0).asNumber();
-            } else {
-                min = args.get(0).asNumber();
-                max = args.get(1).asNumber();
+                return call1(args.get(0), scope, interpreter);
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 1 || argCount == 2;
+        }
 
-            double choice = random.nextDouble(min, max);
-            return new NumberValue(choice);
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            double choice = random.nextDouble(0, arg0.asNumber());
+            return NumberValue.of(choice);
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            double choice = random.nextDouble(arg0.asNumber(), arg1.asNumber());
+            return NumberValue.of(choice);
         }
     }
 
-    public static class RoundFunction implements QuillInterpreter.BuiltInFunction {
+    public static class RoundFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1 ) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "round()", "round(number)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new NumberValue((double) Math.round(args.get(0).asNumber()));
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return NumberValue.of((double) Math.round(arg0.asNumber()));
         }
     }
 
-    public static class FloorFunction implements QuillInterpreter.BuiltInFunction {
+    public static class FloorFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1 ) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "floor()", "floor(number)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new NumberValue((double) Math.floor(args.get(0).asNumber()));
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return NumberValue.of((double) Math.floor(arg0.asNumber()));
         }
     }
 
-    public static class CeilFunction implements QuillInterpreter.BuiltInFunction {
+    public static class CeilFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1 ) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "ceil()", "ceil(number)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new NumberValue((double) Math.ceil(args.get(0).asNumber()));
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return NumberValue.of((double) Math.ceil(arg0.asNumber()));
         }
     }
 
-    public static class AbsFunction implements QuillInterpreter.BuiltInFunction {
+    public static class AbsFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1 ) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "abs()", "abs(number)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new NumberValue((double) Math.abs(args.get(0).asNumber()));
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return NumberValue.of((double) Math.abs(arg0.asNumber()));
         }
     }
 
-    public static class SqrtFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SqrtFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1 ) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "sqrt()", "sqrt(number)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new NumberValue((double) Math.sqrt(args.get(0).asNumber()));
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return NumberValue.of((double) Math.sqrt(arg0.asNumber()));
         }
     }
 
-    public static class PowFunction implements QuillInterpreter.BuiltInFunction {
+    public static class PowFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2 ) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "pow()", "2", "pow(number, exponent)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            return new NumberValue((double) Math.pow(args.get(0).asNumber(), args.get(1).asNumber()));
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            return NumberValue.of((double) Math.pow(arg0.asNumber(), arg1.asNumber()));
         }
     }
 
@@ -170,37 +219,50 @@ public class BuiltInUtilFuncs {
             if (args.size() != 2 && args.size() != 6) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "distance()", "2 or 6", "distance(location, location) or distance(x1, y1, z1, x2, y2, z2)"));
             }
-            Location loc1;
-            Location loc2;
-
             if (args.size() == 2) {
-                loc1 = args.get(0).asLocation();
-                loc2 = args.get(1).asLocation();
-            } else {
-                double x1 = args.get(0).asNumber();
-                double y1 = args.get(1).asNumber();
-                double z1 = args.get(2).asNumber();
-                double x2 = args.get(3).asNumber();
-                double y2 = args.get(4).asNumber();
-                double z2 = args.get(5).asNumber();
-                
-                World world = BuiltInWorldFuncs.getWorld(scope);
-
-                loc1 = new Location(world, x1, y1, z1);
-                loc2 = new Location(world, x2, y2, z2);
+                return call2(args.get(0), args.get(1), scope, interpreter);
             }
 
-            return new NumberValue(loc1.distance(loc2));
+            double x1 = args.get(0).asNumber();
+            double y1 = args.get(1).asNumber();
+            double z1 = args.get(2).asNumber();
+            double x2 = args.get(3).asNumber();
+            double y2 = args.get(4).asNumber();
+            double z2 = args.get(5).asNumber();
+            
+            World world = BuiltInWorldFuncs.getWorld(scope);
+
+            Location loc1 = new Location(world, x1, y1, z1);
+            Location loc2 = new Location(world, x2, y2, z2);
+
+            return NumberValue.of(loc1.distance(loc2));
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 2;
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Location loc1 = arg0.asLocation();
+            Location loc2 = arg1.asLocation();
+
+            return NumberValue.of(loc1.distance(loc2));
         }
     }
 
-    public static class LogFunction implements QuillInterpreter.BuiltInFunction {
+    public static class LogFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "log()", "log(message)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
             String scopeName = scope.getName();
             ScopeContext current = scope;
             while ("anonymous".equals(scopeName) && current.getParent() != null) {
@@ -208,21 +270,25 @@ public class BuiltInUtilFuncs {
                 scopeName = current.getName();
             }
 
-            Bukkit.getLogger().info("[Quill] (" + scopeName + ") " + args.get(0).toString());
+            Bukkit.getLogger().info("[Quill] (" + scopeName + ") " + arg0.toString());
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class TriggerCustomFunction implements QuillInterpreter.BuiltInFunction {
+    public static class TriggerCustomFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "trigger_custom()", "2", "trigger_custom(event_name, data)"));
             }
-            
-            String eventName = args.get(0).asString();
-            QuillValue dataValue = args.get(1);
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            String eventName = arg0.asString();
+            QuillValue dataValue = arg1;
             
             Bukkit.getLogger().info("Custom event in scope '" + scope.getName() + "' triggered: " + eventName);
             
@@ -244,34 +310,29 @@ public class BuiltInUtilFuncs {
                 
                 context.put("event", new MapValue(eventData));
 
-                Scope permScope = null;
-                if (!scope.getName().equals("global")) {
-                    permScope = plugin.getScopeManager().getScope(scope.getName());
-                }
-                
-                final Scope finalPermScope = permScope;
-                final Map<String, QuillValue> finalContext = context;
-                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                    Bukkit.getPluginManager().callEvent(new QuillEvent(eventName, finalContext, finalPermScope));
-                });
+                plugin.getDispatcher().dispatch(eventName, context);
                 
             } catch (Exception e) {
                 Bukkit.getLogger().warning("Failed to process custom event data: " + e.getMessage());
                 throw new RuntimeException("Failed to trigger custom event: " + e.getMessage());
             }
             
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class GetPlayerFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetPlayerFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_player()", "get_player(name)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            Player player = Bukkit.getPlayer(args.get(0).asString());
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Player player = Bukkit.getPlayer(arg0.asString());
             
             if (player == null) {
                 return QuillValue.NullValue.INSTANCE;
@@ -281,101 +342,119 @@ public class BuiltInUtilFuncs {
         }
     }
 
-    public static class GetOnlinePlayersFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetOnlinePlayersFunction implements QuillInterpreter.NullaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 0) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "get_online_players()", "0", "get_online_players()"));
             }
+            return call0(scope, interpreter);
+        }
 
-            List<QuillValue> players = Bukkit.getOnlinePlayers().stream().map(PlayerValue::new).collect(Collectors.toList());
-            
-            return new ListValue(players);
+        @Override
+        public QuillValue call0(ScopeContext scope, QuillInterpreter interpreter) {
+            return new PlayerListValue(Bukkit.getOnlinePlayers());
         }
     }
 
-    public static class LenFunction implements QuillInterpreter.BuiltInFunction {
+    public static class LenFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "len()", "len(list) or len(string)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            if (args.get(0).isList()) {
-                return new NumberValue(args.get(0).asList().size());
-            } else if (args.get(0).isString()) {
-                return new NumberValue(args.get(0).asString().length());
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            if (arg0.isList()) {
+                return NumberValue.of(arg0.asList().size());
+            } else if (arg0.isString()) {
+                return NumberValue.of(arg0.asString().length());
                 } else {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list or string", "len()", args.get(0).getType()));
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list or string", "len()", arg0.getType()));
             }
         }
     }
 
-    public static class AppendFunction implements QuillInterpreter.BuiltInFunction {
+    public static class AppendFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "append()", "2", "append(list, item)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            if (args.get(0).isList()) {
-                List<QuillValue> list = args.get(0).asList();
-                list.add(args.get(1));
-                return new BooleanValue(true);
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            if (arg0.isList()) {
+                List<QuillValue> list = arg0.asList();
+                list.add(arg1);
+                return BooleanValue.of(true);
             } else {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list", "append()", args.get(0).getType()));
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list", "append()", arg0.getType()));
             }
         }
     }
 
-    public static class RemoveFunction implements QuillInterpreter.BuiltInFunction {
+    public static class RemoveFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "remove()", "2", "remove(list, index)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            if (args.get(0).isList()) {
-                if (args.get(1).isNumber()) {
-                    List<QuillValue> list = args.get(0).asList();
-                    int index = (int) args.get(1).asNumber();
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            if (arg0.isList()) {
+                if (arg1.isNumber()) {
+                    List<QuillValue> list = arg0.asList();
+                    int index = (int) arg1.asNumber();
                     
                     if (index < 0 || index >= list.size()) {
                         throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "index between 0 and " + (list.size()-1), "remove()", String.valueOf(index)));
                     }
                     
                     list.remove(index);
-                    return new BooleanValue(true);
+                    return BooleanValue.of(true);
                 } else {
-                    throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "number", "remove()", args.get(1).getType()));
+                    throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "number", "remove()", arg1.getType()));
                 }
             } else {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list", "remove()", args.get(0).getType()));
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list", "remove()", arg0.getType()));
             }
         }
     }
 
-    public static class ContainsFunction implements QuillInterpreter.BuiltInFunction {
+    public static class ContainsFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "contains()", "2", "contains(list, item) or contains(string, substring)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            if (args.get(0).isList()) {
-                List<QuillValue> list = args.get(0).asList();
-                QuillValue searchItem = args.get(1);
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            if (arg0.isList()) {
+                List<QuillValue> list = arg0.asList();
+                QuillValue searchItem = arg1;
                 
                 for (QuillValue item : list) {
                     if (valuesEqual(item, searchItem)) {
-                        return new BooleanValue(true);
+                        return BooleanValue.of(true);
                     }
                 }
-                return new BooleanValue(false);
-            } else if (args.get(0).isString()) {
-                return new BooleanValue(args.get(0).asString().contains(args.get(1).asString()));
+                return BooleanValue.of(false);
+            } else if (arg0.isString()) {
+                return BooleanValue.of(arg0.asString().contains(arg1.asString()));
             } else {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list or string", "contains()", args.get(0).getType()));
+                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "list or string", "contains()", arg0.getType()));
             }
         }
         
@@ -391,15 +470,19 @@ public class BuiltInUtilFuncs {
         }
     }
 
-    public static class SplitFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SplitFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "split()", "2", "split(string, delimiter)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            String str = args.get(0).asString();
-            String delimiter = args.get(1).asString();
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            String str = arg0.asString();
+            String delimiter = arg1.asString();
             
             return new ListValue(
                 Arrays.stream(str.split(java.util.regex.Pattern.quote(delimiter)))
@@ -409,15 +492,19 @@ public class BuiltInUtilFuncs {
         }
     }
 
-    public static class JoinFunction implements QuillInterpreter.BuiltInFunction {
+    public static class JoinFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "join()", "2", "join(list, delimiter)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            List<QuillValue> list = args.get(0).asList();
-            String delimiter = args.get(1).asString();
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            List<QuillValue> list = arg0.asList();
+            String delimiter = arg1.asString();
             
             return new StringValue(
                 list.stream()
@@ -427,97 +514,110 @@ public class BuiltInUtilFuncs {
         }
     }
 
-    public static class ToStringFunction implements QuillInterpreter.BuiltInFunction {
+    public static class ToStringFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "to_string()", "to_string(value)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new StringValue(args.get(0).toString());
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return new StringValue(arg0.toString());
         }
     }
 
-    public static class ToNumberFunction implements QuillInterpreter.BuiltInFunction {
+    public static class ToNumberFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "to_number()", "to_number(value)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            QuillValue val = args.get(0);
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            QuillValue val = arg0;
             
             if (val.isNumber()) {
                 return val;
             } else if (val.isString()) {
                 try {
-                    return new NumberValue(Double.parseDouble(val.asString()));
+                    return NumberValue.of(Double.parseDouble(val.asString()));
                 } catch (NumberFormatException e) {
                     throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "number parsable string", "to_number()", val.asString()));
                 }
             } else if (val.isBoolean()) {
-                return new NumberValue(val.asBoolean() ? 1.0 : 0.0);
+                return NumberValue.of(val.asBoolean() ? 1.0 : 0.0);
             } else {
                 throw new RuntimeException(plugin.translate("quill.error.developer.misc.cannot-convert", val.getType(), "number"));
             }
         }
     }
 
-    public static class ToBooleanFunction implements QuillInterpreter.BuiltInFunction {
+    public static class ToBooleanFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "to_boolean()", "to_boolean(value)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new BooleanValue(args.get(0).isTruthy());
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return BooleanValue.of(arg0.isTruthy());
         }
     }
 
-    public static class TypeOfFunction implements QuillInterpreter.BuiltInFunction {
+    public static class TypeOfFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "type_of()", "type_of(value)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            return new StringValue(args.get(0).getType().toString().toLowerCase());
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return new StringValue(arg0.getType().toString().toLowerCase());
         }
     }
 
-    public static class RangeFunction implements QuillInterpreter.BuiltInFunction {
+    public static class RangeFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "range()", "2", "range(start, end)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            int start = (int) args.get(0).asNumber();
-            int end = (int) args.get(1).asNumber();
-            
-            List<QuillValue> values = new ArrayList<>();
-            if (start <= end) {
-                for (int i = start; i < end; i++) {
-                    values.add(new NumberValue(i));
-                }
-            } else {
-                for (int i = start; i > end; i--) {
-                    values.add(new NumberValue(i));
-                }
-            }
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            int start = (int) arg0.asNumber();
+            int end = (int) arg1.asNumber();
             
-            return new ListValue(values);
+            return new RangeValue(start, end);
         }
     }
 
-    public static class RandomChoiceFunction implements QuillInterpreter.BuiltInFunction {
+    public static class RandomChoiceFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "random_choice()", "random_choice(list)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            List<QuillValue> list = args.get(0).asList();
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            List<QuillValue> list = arg0.asList();
             
             if (list.isEmpty()) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "non-empty list", "random_choice()", "empty"));
@@ -579,9 +679,9 @@ public class BuiltInUtilFuncs {
         } else if (element.isJsonPrimitive()) {
             JsonPrimitive primitive = element.getAsJsonPrimitive();
             if (primitive.isNumber()) {
-                return new NumberValue(primitive.getAsDouble());
+                return NumberValue.of(primitive.getAsDouble());
             } else if (primitive.isBoolean()) {
-                return new BooleanValue(primitive.getAsBoolean());
+                return BooleanValue.of(primitive.getAsBoolean());
             } else if (primitive.isString()) {
                 return new StringValue(primitive.getAsString());
             }
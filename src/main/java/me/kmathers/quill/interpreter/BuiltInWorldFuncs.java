@@ -33,25 +33,35 @@ public class BuiltInWorldFuncs {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "set_block()", "2 or 4", "set_block(location, block_id) or set_block(x, y, z, block_id)"));
             }
 
-            Location loc;
-            Material mat;
-
             if (args.size() == 2) {
-                loc = args.get(0).asLocation();
-                mat = parseMaterial(args.get(1).asString());
-            } else {
-                double x = args.get(0).asNumber();
-                double y = args.get(1).asNumber();
-                double z = args.get(2).asNumber();
-                
-                World world = getWorld(scope);
-
-                loc = new Location(world, x, y, z);
-                mat = parseMaterial(args.get(3).asString());
+                return call2(args.get(0), args.get(1), scope, interpreter);
             }
 
+            double x = args.get(0).asNumber();
+            double y = args.get(1).asNumber();
+            double z = args.get(2).asNumber();
+            
+            World world = getWorld(scope);
+
+            Location loc = new Location(world, x, y, z);
+            Material mat = parseMaterial(args.get(3).asString());
+
+            loc.getBlock().setType(mat);
+            return BooleanValue.of(true);
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 2;
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            Location loc = arg0.asLocation();
+            Material mat = parseMaterial(arg1.asString());
+
             loc.getBlock().setType(mat);
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
@@ -61,21 +71,34 @@ public class BuiltInWorldFuncs {
             if (args.size() != 1 && args.size() != 3) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "get_block()", "1 or 3", "get_block(location) or get_block(x, y, z)"));
             }
+            if (args.size() == 1) {
+                return call1(args.get(0), scope, interpreter);
+            }
+            return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+        }
 
-            Location loc;
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 1 || argCount == 3;
+        }
 
-            if (args.size() == 1) {
-                loc = args.get(0).asLocation();
-            } else {
-                double x = args.get(0).asNumber();
-                double y = args.get(1).asNumber();
-                double z = args.get(2).asNumber();
-                
-                World world = getWorld(scope);
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return getBlock(arg0.asLocation());
+        }
 
-                loc = new Location(world, x, y, z);
-            }
+        @Override
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            double x = arg0.asNumber();
+            double y = arg1.asNumber();
+            double z = arg2.asNumber();
+            
+            World world = getWorld(scope);
 
+            return getBlock(new Location(world, x, y, z));
+        }
+
+        private static QuillValue getBlock(Location loc) {
             Block block = loc.getBlock();
             Material type = block.getType();
 
@@ -89,21 +112,34 @@ public class BuiltInWorldFuncs {
             if (args.size() != 1 && args.size() != 3) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "break_block()", "1 or 3", "break_block(location) or break_block(x, y, z)"));
             }
+            if (args.size() == 1) {
+                return call1(args.get(0), scope, interpreter);
+            }
+            return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+        }
 
-            Location loc;
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 1 || argCount == 3;
+        }
 
-            if (args.size() == 1) {
-                loc = args.get(0).asLocation();
-            } else {
-                double x = args.get(0).asNumber();
-                double y = args.get(1).asNumber();
-                double z = args.get(2).asNumber();
-                
-                World world = getWorld(scope);
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return breakBlock(arg0.asLocation(), scope);
+        }
 
-                loc = new Location(world, x, y, z);
-            }
+        @Override
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            double x = arg0.asNumber();
+            double y = arg1.asNumber();
+            double z = arg2.asNumber();
+            
+            World world = getWorld(scope);
+
+            return breakBlock(new Location(world, x, y, z), scope);
+        }
 
+        private static QuillValue breakBlock(Location loc, ScopeContext scope) {
             World world = getWorld(scope);
             Block block = loc.getBlock();
             Material type = block.getType();
@@ -114,7 +150,7 @@ public class BuiltInWorldFuncs {
             }
 
             loc.getBlock().setType(Material.AIR);
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
@@ -125,35 +161,50 @@ public class BuiltInWorldFuncs {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "spawn_entity()", "2 or 4", "spawn_entity(entity_type, location) or set_block(entity_type, x, y, z)"));
             }
 
-            Location loc;
-            EntityType entType;
-            World world = getWorld(scope);
-            
             if (args.size() == 2) {
-                loc = args.get(1).asLocation();
-                entType = parseEntityType(args.get(0).asString());
-            } else {
-                double x = args.get(1).asNumber();
-                double y = args.get(2).asNumber();
-                double z = args.get(3).asNumber();
-                
-                loc = new Location(world, x, y, z);
-                entType = parseEntityType(args.get(0).asString());
+                return call2(args.get(0), args.get(1), scope, interpreter);
             }
 
+            World world = getWorld(scope);
+            double x = args.get(1).asNumber();
+            double y = args.get(2).asNumber();
+            double z = args.get(3).asNumber();
+            
+            Location loc = new Location(world, x, y, z);
+            EntityType entType = parseEntityType(args.get(0).asString());
+
+            Entity entity = world.spawnEntity(loc, entType);
+            return new EntityValue(entity);
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 2;
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            World world = getWorld(scope);
+            Location loc = arg1.asLocation();
+            EntityType entType = parseEntityType(arg0.asString());
+
             Entity entity = world.spawnEntity(loc, entType);
             return new EntityValue(entity);
         }
     }
 
-    public static class RemoveEntityFunction implements QuillInterpreter.BuiltInFunction {
+    public static class RemoveEntityFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "remove_entity()", "remove_entity(entity)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            Entity entity = args.get(0).asEntity();
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Entity entity = arg0.asEntity();
 
             entity.remove();
 
@@ -168,21 +219,19 @@ public class BuiltInWorldFuncs {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "create_explosion()", "between 2 and 5", "create_explosion(location, power)\ncreate_explosion(location, power, fire)\ncreate_explosion(x, y, z, power)\ncreate_explosion(x, y, z, power, fire)"));
             }
 
+            if (args.size() == 2) {
+                return call2(args.get(0), args.get(1), scope, interpreter);
+            } else if (args.size() == 3) {
+                return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+            }
+
             Location loc = null;
             double power = 0;
             boolean fire = false;
 
             World world = getWorld(scope);
 
-            if (args.size() == 2) {
-                loc = args.get(0).asLocation();
-                power = validateExplosionPower(args.get(1).asNumber());
-                fire = false;
-            } else if (args.size() == 3) {
-                loc = args.get(0).asLocation();
-                power = validateExplosionPower(args.get(1).asNumber());
-                fire = args.get(2).asBoolean();
-            } else if (args.size() == 4) {
+            if (args.size() == 4) {
                 double x = args.get(0).asNumber();
                 double y = args.get(1).asNumber();
                 double z = args.get(2).asNumber();
@@ -202,7 +251,35 @@ public class BuiltInWorldFuncs {
 
             world.createExplosion(loc, (float) power, fire);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 2 || argCount == 3;
+        }
+
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            World world = getWorld(scope);
+            Location loc = arg0.asLocation();
+            double power = validateExplosionPower(arg1.asNumber());
+
+            world.createExplosion(loc, (float) power, false);
+
+            return BooleanValue.of(true);
+        }
+
+        @Override
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            World world = getWorld(scope);
+            Location loc = arg0.asLocation();
+            double power = validateExplosionPower(arg1.asNumber());
+            boolean fire = arg2.asBoolean();
+
+            world.createExplosion(loc, (float) power, fire);
+
+            return BooleanValue.of(true);
         }
     }
 
@@ -212,38 +289,54 @@ public class BuiltInWorldFuncs {
             if (args.size() != 1 && args.size() != 3) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "strike_lightning()", "1 or 3", "strike_lightning(location) or strike_lightning(x, y, z)"));
             }
-
-            Location loc;
-
             if (args.size() == 1) {
-                loc = args.get(0).asLocation();
-            } else {
-                double x = args.get(0).asNumber();
-                double y = args.get(1).asNumber();
-                double z = args.get(2).asNumber();
-                
-                World world = getWorld(scope);
-
-                loc = new Location(world, x, y, z);
+                return call1(args.get(0), scope, interpreter);
             }
+            return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+        }
+
+        @Override
+        public boolean accepts(int argCount) {
+            return argCount == 1 || argCount == 3;
+        }
 
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            Location loc = arg0.asLocation();
             World world = getWorld(scope);
 
             world.strikeLightning(loc);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
+        }
+
+        @Override
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            double x = arg0.asNumber();
+            double y = arg1.asNumber();
+            double z = arg2.asNumber();
+            
+            World world = getWorld(scope);
+
+            world.strikeLightning(new Location(world, x, y, z));
+
+            return BooleanValue.of(true);
         }
     }
 
-    public static class SetTimeFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SetTimeFunction implements QuillInterpreter.BinaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 2) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "set_time()", "2", "set_time(world, time)"));
             }
+            return call2(args.get(0), args.get(1), scope, interpreter);
+        }
 
-            World world = args.get(0).asWorld();
-            int time = (int) args.get(1).asNumber();
+        @Override
+        public QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            World world = arg0.asWorld();
+            int time = (int) arg1.asNumber();
 
             if(time < 0 || time > 24000) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.expected", "digit between 0 and 24000", "set_time()", String.valueOf(time)));
@@ -251,33 +344,41 @@ public class BuiltInWorldFuncs {
 
             world.setTime(time);
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class GetTimeFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetTimeFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_time()", "get_time(world)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            World world = args.get(0).asWorld();
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            World world = arg0.asWorld();
 
-            return new NumberValue(world.getTime());
+            return NumberValue.of(world.getTime());
         }
     }
 
-    public static class SetWeatherFunction implements QuillInterpreter.BuiltInFunction {
+    public static class SetWeatherFunction implements QuillInterpreter.TernaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 3) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "set_weather()", "3", "set_weather(world, weather, duration)"));
             }
+            return call3(args.get(0), args.get(1), args.get(2), scope, interpreter);
+        }
 
-            World world = args.get(0).asWorld();
-            String weather = args.get(1).asString();
-            int duration = (int) args.get(2).asNumber();
+        @Override
+        public QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            World world = arg0.asWorld();
+            String weather = arg1.asString();
+            int duration = (int) arg2.asNumber();
 
             Set<String> validWeather = Set.of("clear", "rain", "thunder");
 
@@ -303,18 +404,22 @@ public class BuiltInWorldFuncs {
                 }
             }
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
-    public static class GetWeatherFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetWeatherFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_weather()", "get_weather(world)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            World world = args.get(0).asWorld();
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            World world = arg0.asWorld();
 
             String weather;
             if (world.isThundering()) {
@@ -329,14 +434,18 @@ public class BuiltInWorldFuncs {
         }
     }
 
-    public static class GetWorldFunction implements QuillInterpreter.BuiltInFunction {
+    public static class GetWorldFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "get_world()", "get_world(world)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            String worldString = args.get(0).asString();
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            String worldString = arg0.asString();
 
             World world = Bukkit.getWorld(worldString);
 
@@ -344,21 +453,25 @@ public class BuiltInWorldFuncs {
         }
     }
 
-    public static class BroadcastFunction implements QuillInterpreter.BuiltInFunction {
+    public static class BroadcastFunction implements QuillInterpreter.UnaryFunction {
         @Override
         public QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter) {
             if (args.size() != 1) {
                 throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-single", "broadcast()", "broadcast(message)"));
             }
+            return call1(args.get(0), scope, interpreter);
+        }
 
-            String message = args.get(0).asString();
+        @Override
+        public QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            String message = arg0.asString();
             Set<Player> players = scope.getPlayers();
 
             for(Player player : players) {
                 player.sendMessage(message);
             }
 
-            return new BooleanValue(true);
+            return BooleanValue.of(true);
         }
     }
 
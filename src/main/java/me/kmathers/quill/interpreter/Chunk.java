@@ -0,0 +1,116 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.parser.AST;
+
+/**
+ * A compiled unit of Quill bytecode: the instruction array, its constant pool and a line table.
+ * Produced by {@link QuillCompiler} and run by {@link QuillVM}.
+ */
+public class Chunk implements Executable {
+    final String name;
+    final int[] code;
+    final Object[] constants;
+    final int maxStack;
+
+    // Line table: the instruction at lineStarts[i] and everything after it up to the next entry
+    // came from source position lines[i]:columns[i].
+    private final int[] lineStarts;
+    private final int[] lines;
+    private final int[] columns;
+
+    Chunk(String name, int[] code, Object[] constants, int maxStack, int[] lineStarts, int[] lines, int[] columns) {
+        this.name = name;
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+        this.lineStarts = lineStarts;
+        this.lines = lines;
+        this.columns = columns;
+    }
+
+    @Override
+    public QuillValue run(Frame frame) {
+        return QuillVM.run(this, frame);
+    }
+
+    @Override
+    public QuillValue resume(Frame frame, Suspension suspension) {
+        return QuillVM.resume(this, frame, suspension);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Source line of the instruction at the given offset, or 0 if unknown.
+     */
+    public int lineAt(int pc) {
+        int entry = entryAt(pc);
+        return entry < 0 ? 0 : lines[entry];
+    }
+
+    /**
+     * Source column of the instruction at the given offset, or 0 if unknown.
+     */
+    public int columnAt(int pc) {
+        int entry = entryAt(pc);
+        return entry < 0 ? 0 : columns[entry];
+    }
+
+    private int entryAt(int pc) {
+        int low = 0;
+        int high = lineStarts.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (lineStarts[mid] <= pc) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Render the chunk as readable assembly, one instruction per line.
+     */
+    public String disassemble() {
+        StringBuilder sb = new StringBuilder("== ").append(name).append(" ==\n");
+        int pc = 0;
+        while (pc < code.length) {
+            int op = code[pc];
+            sb.append(String.format("%04d %4d  %-18s", pc, lineAt(pc), OpCode.name(op)));
+            for (int i = 1; i <= OpCode.operandCount(op); i++) {
+                sb.append(' ').append(code[pc + i]);
+            }
+            sb.append('\n');
+            pc += 1 + OpCode.operandCount(op);
+        }
+        return sb.toString();
+    }
+
+    // Constant pool entry for a function declaration
+    static class FunctionTemplate {
+        final AST.FunctionDeclaration declaration;
+        final Chunk body;
+
+        FunctionTemplate(AST.FunctionDeclaration declaration, Chunk body) {
+            this.declaration = declaration;
+            this.body = body;
+        }
+    }
+
+    // Constant pool entry for an event handler
+    static class HandlerTemplate {
+        final AST.EventHandler declaration;
+        final Chunk body;
+
+        HandlerTemplate(AST.EventHandler declaration, Chunk body) {
+            this.declaration = declaration;
+            this.body = body;
+        }
+    }
+}
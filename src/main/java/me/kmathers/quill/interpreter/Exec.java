@@ -0,0 +1,1191 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.QuillValue.*;
+import me.kmathers.quill.parser.AST;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Linked execution tree for Quill.
+ * Each AST node kind has a matching executor that holds its children directly,
+ * so running a script never has to re-dispatch on node type.
+ */
+public class Exec {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    // How a statement completed; the value of a return is left in the frame
+    static final int NORMAL = 0;
+    static final int RETURN = 1;
+    static final int BREAK = 2;
+    static final int CONTINUE = 3;
+
+    // Base class for all executors
+    public static abstract class Node {
+        public final int line;
+        public final int column;
+
+        protected Node(AST.ASTNode source) {
+            this.line = source.line;
+            this.column = source.column;
+        }
+
+        public abstract QuillValue execute(Frame frame);
+
+        /**
+         * Evaluate the node as a number. Arithmetic overrides this so nested expressions stay unboxed.
+         */
+        public double executeNumber(Frame frame) {
+            return execute(frame).asNumber();
+        }
+
+        /**
+         * Evaluate the node as a condition. Comparisons and logic override this so no BooleanValue is made.
+         */
+        public boolean executeCondition(Frame frame) {
+            return execute(frame).isTruthy();
+        }
+
+        /**
+         * Whether the node always produces a number, so executeNumber never has to look at a value.
+         */
+        protected boolean isNumeric() {
+            return false;
+        }
+
+        /**
+         * Run the node as a statement and report how it completed.
+         */
+        public int complete(Frame frame) {
+            execute(frame);
+            return NORMAL;
+        }
+
+        /**
+         * Carry on running a statement a wait suspended, taking back the state it saved, and report how it completed.
+         */
+        public int resume(Frame frame, Suspension suspension) {
+            throw new IllegalStateException("cannot resume " + getClass().getSimpleName());
+        }
+    }
+
+    // Base class for statements that can end the enclosing block early
+    public static abstract class Statement extends Node {
+        protected Statement(AST.ASTNode source) {
+            super(source);
+        }
+
+        @Override
+        public abstract int complete(Frame frame);
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            complete(frame);
+            return NullValue.INSTANCE;
+        }
+    }
+
+    static int runBlock(Node[] body, Frame frame) {
+        return runBlock(body, 0, frame);
+    }
+
+    // Run a block from the given statement on, saving which statement it was in if a wait suspends it
+    private static int runBlock(Node[] body, int from, Frame frame) {
+        for (int i = from; i < body.length; i++) {
+            int completion;
+            try {
+                completion = body[i].complete(frame);
+            } catch (Suspension s) {
+                s.save(i);
+                throw s;
+            }
+            if (completion != NORMAL) {
+                return completion;
+            }
+        }
+        return NORMAL;
+    }
+
+    // Carry on a suspended block inside the statement it stopped in, then run the rest of it
+    static int resumeBlock(Node[] body, Frame frame, Suspension suspension) {
+        int i = (Integer) suspension.restore();
+        int completion;
+        try {
+            completion = body[i].resume(frame, suspension);
+        } catch (Suspension s) {
+            s.save(i);
+            throw s;
+        }
+        return completion != NORMAL ? completion : runBlock(body, i + 1, frame);
+    }
+
+    // Run a block in a nested frame, passing a return value back out to the enclosing one
+    private static int runNested(Node[] body, Frame frame, Frame nested) {
+        return returnFrom(runBlock(body, nested), frame, nested);
+    }
+
+    private static int resumeNested(Node[] body, Frame frame, Frame nested, Suspension suspension) {
+        return returnFrom(resumeBlock(body, nested, suspension), frame, nested);
+    }
+
+    private static int returnFrom(int completion, Frame frame, Frame nested) {
+        if (completion == RETURN) {
+            frame.returned = nested.returned;
+        }
+        return completion;
+    }
+
+    // A linked function or handler body
+    public static class Block implements Executable {
+        private final Node[] statements;
+        private final AST.SlotLayout layout;
+
+        public Block(Node[] statements, AST.SlotLayout layout) {
+            this.statements = statements;
+            this.layout = layout;
+        }
+
+        @Override
+        public AST.SlotLayout layout() {
+            return layout;
+        }
+
+        @Override
+        public QuillValue run(Frame frame) {
+            return runBlock(statements, frame) == RETURN ? frame.returned : null;
+        }
+
+        @Override
+        public QuillValue resume(Frame frame, Suspension suspension) {
+            return resumeBlock(statements, frame, suspension) == RETURN ? frame.returned : null;
+        }
+    }
+
+    // === Literals ===
+
+    public static class NumberLiteral extends Node {
+        private final QuillValue value;
+
+        private final double number;
+
+        public NumberLiteral(AST.NumberLiteral source) {
+            super(source);
+            this.value = NumberValue.of(source.value);
+            this.number = source.value;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return value;
+        }
+
+        @Override
+        public double executeNumber(Frame frame) {
+            return number;
+        }
+
+        @Override
+        protected boolean isNumeric() {
+            return true;
+        }
+    }
+
+    public static class StringLiteral extends Node {
+        private final QuillValue value;
+
+        public StringLiteral(AST.StringLiteral source) {
+            super(source);
+            this.value = new StringValue(source.value);
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return value;
+        }
+    }
+
+    public static class InterpolatedString extends Node {
+        private final String[] literals;
+        private final Node[] expressions;
+        private final int capacity;
+
+        public InterpolatedString(AST.InterpolatedString source, Node[] expressions) {
+            super(source);
+            this.literals = source.literals.toArray(new String[0]);
+            this.expressions = expressions;
+            this.capacity = QuillInterpreter.interpolationCapacity(literals);
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            StringBuilder sb = new StringBuilder(capacity);
+            sb.append(literals[0]);
+            for (int i = 0; i < expressions.length; i++) {
+                sb.append(expressions[i].execute(frame).toString());
+                sb.append(literals[i + 1]);
+            }
+            return new StringValue(sb.toString());
+        }
+    }
+
+    public static class BooleanLiteral extends Node {
+        private final QuillValue value;
+
+        public BooleanLiteral(AST.BooleanLiteral source) {
+            super(source);
+            this.value = BooleanValue.of(source.value);
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return value;
+        }
+    }
+
+    public static class NullLiteral extends Node {
+        public NullLiteral(AST.NullLiteral source) {
+            super(source);
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return NullValue.INSTANCE;
+        }
+    }
+
+    public static class ListLiteral extends Node {
+        private final Node[] elements;
+
+        public ListLiteral(AST.ListLiteral source, Node[] elements) {
+            super(source);
+            this.elements = elements;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            List<QuillValue> values = new ArrayList<>(elements.length);
+            for (Node element : elements) {
+                values.add(element.execute(frame));
+            }
+            return new ListValue(values);
+        }
+    }
+
+    public static class MapLiteral extends Node {
+        private final String[] keys;
+        private final Node[] values;
+
+        public MapLiteral(AST.MapLiteral source, String[] keys, Node[] values) {
+            super(source);
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            Map<String, QuillValue> map = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], values[i].execute(frame));
+            }
+            return new MapValue(map);
+        }
+    }
+
+    // === Identifiers and Member Access ===
+
+    public static class Identifier extends Node {
+        final String name;
+
+        public Identifier(AST.Identifier source) {
+            super(source);
+            this.name = source.name;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return frame.scope.get(name);
+        }
+    }
+
+    // A local the resolver gave a slot to
+    public static class LocalIdentifier extends Node {
+        private final String name;
+        private final int depth;
+        private final int slot;
+
+        public LocalIdentifier(AST.Identifier source) {
+            super(source);
+            this.name = source.name;
+            this.depth = source.depth;
+            this.slot = source.slot;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return frame.scope.lookup(depth, slot, name);
+        }
+    }
+
+    public static class MemberExpression extends Node {
+        final Node object;
+        final String property;
+        private final MemberCache cache;
+
+        public MemberExpression(AST.MemberExpression source, Node object) {
+            super(source);
+            this.object = object;
+            this.property = source.property;
+            this.cache = new MemberCache(source.property);
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return cache.get(object.execute(frame));
+        }
+    }
+
+    public static class IndexExpression extends Node {
+        private final Node object;
+        private final Node index;
+
+        public IndexExpression(AST.IndexExpression source, Node object, Node index) {
+            super(source);
+            this.object = object;
+            this.index = index;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return QuillInterpreter.getIndex(object.execute(frame), index.execute(frame));
+        }
+    }
+
+    // === Binary Expressions ===
+
+    public static abstract class Binary extends Node {
+        protected final Node left;
+        protected final Node right;
+
+        protected Binary(AST.BinaryExpression source, Node left, Node right) {
+            super(source);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    // Operators that always produce a number
+    public static abstract class Arithmetic extends Binary {
+        protected Arithmetic(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return NumberValue.of(executeNumber(frame));
+        }
+
+        @Override
+        protected boolean isNumeric() {
+            return true;
+        }
+    }
+
+    // Operators that always produce a boolean
+    public static abstract class Predicate extends Binary {
+        protected Predicate(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return BooleanValue.of(executeCondition(frame));
+        }
+    }
+
+    public static class Add extends Binary {
+        // Both sides always produce numbers, so the sum can be worked out unboxed
+        private final boolean numeric;
+
+        public Add(AST.BinaryExpression source, Node left, Node right) {
+            super(source, left, right);
+            this.numeric = left.isNumeric() && right.isNumeric();
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            if (numeric) {
+                return NumberValue.of(left.executeNumber(frame) + right.executeNumber(frame));
+            }
+            QuillValue l = left.execute(frame);
+            QuillValue r = right.execute(frame);
+            if (l.isNumber() && r.isNumber()) {
+                return NumberValue.of(l.asNumber() + r.asNumber());
+            }
+            return new StringValue(l.toString() + r.toString());
+        }
+
+        @Override
+        public double executeNumber(Frame frame) {
+            if (numeric) {
+                return left.executeNumber(frame) + right.executeNumber(frame);
+            }
+            QuillValue l = left.execute(frame);
+            QuillValue r = right.execute(frame);
+            if (l.isNumber() && r.isNumber()) {
+                return l.asNumber() + r.asNumber();
+            }
+            return new StringValue(l.toString() + r.toString()).asNumber();
+        }
+
+        @Override
+        protected boolean isNumeric() {
+            return numeric;
+        }
+    }
+
+    public static class Subtract extends Arithmetic {
+        public Subtract(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public double executeNumber(Frame frame) {
+            double l = left.executeNumber(frame);
+            return l - right.executeNumber(frame);
+        }
+    }
+
+    public static class Multiply extends Arithmetic {
+        public Multiply(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public double executeNumber(Frame frame) {
+            double l = left.executeNumber(frame);
+            return l * right.executeNumber(frame);
+        }
+    }
+
+    public static class Divide extends Arithmetic {
+        public Divide(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public double executeNumber(Frame frame) {
+            double l = left.executeNumber(frame);
+            double r = right.executeNumber(frame);
+            if (r == 0) {
+                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.zero-division"));
+            }
+            return l / r;
+        }
+    }
+
+    public static class Modulo extends Arithmetic {
+        public Modulo(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public double executeNumber(Frame frame) {
+            double l = left.executeNumber(frame);
+            return l % right.executeNumber(frame);
+        }
+    }
+
+    public static class Equal extends Predicate {
+        public Equal(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            QuillValue l = left.execute(frame);
+            return QuillInterpreter.isEqual(l, right.execute(frame));
+        }
+    }
+
+    public static class NotEqual extends Predicate {
+        public NotEqual(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            QuillValue l = left.execute(frame);
+            return !QuillInterpreter.isEqual(l, right.execute(frame));
+        }
+    }
+
+    public static class Greater extends Predicate {
+        public Greater(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            double l = left.executeNumber(frame);
+            return l > right.executeNumber(frame);
+        }
+    }
+
+    public static class Less extends Predicate {
+        public Less(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            double l = left.executeNumber(frame);
+            return l < right.executeNumber(frame);
+        }
+    }
+
+    public static class GreaterEqual extends Predicate {
+        public GreaterEqual(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            double l = left.executeNumber(frame);
+            return l >= right.executeNumber(frame);
+        }
+    }
+
+    public static class LessEqual extends Predicate {
+        public LessEqual(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            double l = left.executeNumber(frame);
+            return l <= right.executeNumber(frame);
+        }
+    }
+
+    public static class And extends Predicate {
+        public And(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            return left.executeCondition(frame) && right.executeCondition(frame);
+        }
+    }
+
+    public static class Or extends Predicate {
+        public Or(AST.BinaryExpression source, Node left, Node right) { super(source, left, right); }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            return left.executeCondition(frame) || right.executeCondition(frame);
+        }
+    }
+
+    // === Unary Expressions ===
+
+    public static class Not extends Node {
+        private final Node operand;
+
+        public Not(AST.UnaryExpression source, Node operand) {
+            super(source);
+            this.operand = operand;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return BooleanValue.of(!operand.executeCondition(frame));
+        }
+
+        @Override
+        public boolean executeCondition(Frame frame) {
+            return !operand.executeCondition(frame);
+        }
+    }
+
+    public static class Negate extends Node {
+        private final Node operand;
+
+        public Negate(AST.UnaryExpression source, Node operand) {
+            super(source);
+            this.operand = operand;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return NumberValue.of(-operand.executeNumber(frame));
+        }
+
+        @Override
+        public double executeNumber(Frame frame) {
+            return -operand.executeNumber(frame);
+        }
+
+        @Override
+        protected boolean isNumeric() {
+            return true;
+        }
+    }
+
+    // === Assignment ===
+
+    public static class AssignVariable extends Node {
+        private final String name;
+        private final Node value;
+
+        public AssignVariable(AST.AssignmentExpression source, String name, Node value) {
+            super(source);
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            QuillValue result = value.execute(frame);
+            frame.scope.set(name, result);
+            frame.interpreter.persistIfTracked(name, result);
+            return result;
+        }
+    }
+
+    public static class AssignLocal extends Node {
+        private final String name;
+        private final int depth;
+        private final int slot;
+        private final Node value;
+
+        public AssignLocal(AST.AssignmentExpression source, AST.Identifier target, Node value) {
+            super(source);
+            this.name = target.name;
+            this.depth = target.depth;
+            this.slot = target.slot;
+            this.value = value;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            QuillValue result = value.execute(frame);
+            frame.scope.assign(depth, slot, name, result);
+            frame.interpreter.persistIfTracked(name, result);
+            return result;
+        }
+    }
+
+    public static class AssignMember extends Node {
+        private final Node object;
+        private final String property;
+        private final Node value;
+
+        public AssignMember(AST.AssignmentExpression source, Node object, String property, Node value) {
+            super(source);
+            this.object = object;
+            this.property = property;
+            this.value = value;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            QuillValue result = value.execute(frame);
+            QuillValue target = object.execute(frame);
+
+            if (target.isScope()) {
+                target.asScope().getScope().set(property, result);
+                return result;
+            }
+
+            if (target.isMap()) {
+                ((MapValue) target).put(property, result);
+                return result;
+            }
+
+            throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-assign", target.getType()));
+        }
+    }
+
+    public static class AssignIndex extends Node {
+        private final Node object;
+        private final Node index;
+        private final Node value;
+
+        public AssignIndex(AST.AssignmentExpression source, Node object, Node index, Node value) {
+            super(source);
+            this.object = object;
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            QuillValue result = value.execute(frame);
+            QuillValue target = object.execute(frame);
+            QuillInterpreter.setIndex(target, index.execute(frame), result);
+            return result;
+        }
+    }
+
+    // === Function Calls ===
+
+    public static class Call extends Node {
+        // Null when the callee is an expression rather than a name
+        private final NamedCall named;
+        private final Node callee;
+        private final Node[] arguments;
+
+        public Call(AST.CallExpression source, NamedCall named, Node callee, Node[] arguments) {
+            super(source);
+            this.named = named;
+            this.callee = callee;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return invoke(frame, false);
+        }
+
+        // Only a call made as a statement can wait, suspending its caller along with it
+        QuillValue invoke(Frame frame, boolean statement) {
+            QuillInterpreter interpreter = frame.interpreter;
+
+            if (named != null) {
+                named.checkPermission();
+                if (named.fixedArity) {
+                    return callFixed(named.builtIn, frame);
+                }
+                if (named.builtIn != null) {
+                    return named.builtIn.call(evaluateArguments(frame), frame.scope, interpreter);
+                }
+            }
+
+            QuillValue function = callee.execute(frame);
+            List<QuillValue> args = evaluateArguments(frame);
+            return statement ? interpreter.callStatement(function, args, frame.budget) : interpreter.callValue(function, args, frame.budget);
+        }
+
+        private QuillValue callFixed(QuillInterpreter.BuiltInFunction builtIn, Frame frame) {
+            switch (arguments.length) {
+                case 0:
+                    return builtIn.call0(frame.scope, frame.interpreter);
+                case 1:
+                    return builtIn.call1(arguments[0].execute(frame), frame.scope, frame.interpreter);
+                case 2: {
+                    QuillValue arg0 = arguments[0].execute(frame);
+                    return builtIn.call2(arg0, arguments[1].execute(frame), frame.scope, frame.interpreter);
+                }
+                default: {
+                    QuillValue arg0 = arguments[0].execute(frame);
+                    QuillValue arg1 = arguments[1].execute(frame);
+                    return builtIn.call3(arg0, arg1, arguments[2].execute(frame), frame.scope, frame.interpreter);
+                }
+            }
+        }
+
+        private List<QuillValue> evaluateArguments(Frame frame) {
+            List<QuillValue> args = new ArrayList<>(arguments.length);
+            for (Node argument : arguments) {
+                args.add(argument.execute(frame));
+            }
+            return args;
+        }
+    }
+
+    // === Statements ===
+
+    public static class VariableDeclaration extends Node {
+        private final String name;
+        private final Node value;
+        private final boolean isConst;
+        private final int slot;
+
+        public VariableDeclaration(AST.VariableDeclaration source, Node value) {
+            super(source);
+            this.name = source.name;
+            this.value = value;
+            this.isConst = source.isConst;
+            this.slot = source.slot;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            QuillValue persisted = frame.interpreter.loadPersisted(name);
+            if (persisted != null) {
+                define(frame, persisted);
+                return NullValue.INSTANCE;
+            }
+
+            QuillValue result = value != null ? value.execute(frame) : NullValue.INSTANCE;
+            define(frame, result);
+            frame.interpreter.persistIfTracked(name, result);
+            return NullValue.INSTANCE;
+        }
+
+        private void define(Frame frame, QuillValue result) {
+            if (slot >= 0) {
+                frame.scope.defineSlot(slot, name, result, isConst);
+            } else if (isConst) {
+                frame.scope.defineConst(name, result);
+            } else {
+                frame.scope.define(name, result);
+            }
+        }
+    }
+
+    public static class FunctionDeclaration extends Node {
+        private final AST.FunctionDeclaration source;
+        private final Block body;
+
+        public FunctionDeclaration(AST.FunctionDeclaration source, Node[] body) {
+            super(source);
+            this.source = source;
+            this.body = new Block(body, source.layout);
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            FunctionValue func = new FunctionValue(source.name, source.parameters, source, body, frame.scope);
+            if (source.slot >= 0) {
+                frame.scope.defineSlot(source.slot, source.name, func, false);
+            } else {
+                frame.scope.define(source.name, func);
+            }
+            return NullValue.INSTANCE;
+        }
+    }
+
+    public static class Return extends Statement {
+        private final Node value;
+
+        public Return(AST.ReturnStatement source, Node value) {
+            super(source);
+            this.value = value;
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            frame.returned = value != null ? value.execute(frame) : NullValue.INSTANCE;
+            return RETURN;
+        }
+    }
+
+    public static class If extends Statement {
+        private final Node condition;
+        private final Node[] thenBranch;
+        private final Node[] elseBranch;
+
+        public If(AST.IfStatement source, Node condition, Node[] thenBranch, Node[] elseBranch) {
+            super(source);
+            this.condition = condition;
+            this.thenBranch = thenBranch;
+            this.elseBranch = elseBranch;
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            boolean taken = condition.executeCondition(frame);
+            Node[] branch = taken ? thenBranch : elseBranch;
+            if (branch == null) {
+                return NORMAL;
+            }
+            try {
+                return runBlock(branch, frame);
+            } catch (Suspension s) {
+                s.save(taken);
+                throw s;
+            }
+        }
+
+        @Override
+        public int resume(Frame frame, Suspension suspension) {
+            boolean taken = (Boolean) suspension.restore();
+            try {
+                return resumeBlock(taken ? thenBranch : elseBranch, frame, suspension);
+            } catch (Suspension s) {
+                s.save(taken);
+                throw s;
+            }
+        }
+    }
+
+    public static class While extends Statement {
+        private final Node condition;
+        private final Node[] body;
+
+        public While(AST.WhileStatement source, Node condition, Node[] body) {
+            super(source);
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            while (condition.executeCondition(frame)) {
+                frame.budget.charge();
+                int completion = runBlock(body, frame);
+                if (completion == BREAK) {
+                    break;
+                } else if (completion == RETURN) {
+                    return RETURN;
+                }
+            }
+            return NORMAL;
+        }
+
+        @Override
+        public int resume(Frame frame, Suspension suspension) {
+            // The loop keeps no state of its own, so once the interrupted iteration is done it simply carries on
+            int completion = resumeBlock(body, frame, suspension);
+            if (completion == BREAK) {
+                return NORMAL;
+            } else if (completion == RETURN) {
+                return RETURN;
+            }
+            return complete(frame);
+        }
+    }
+
+    public static class For extends Statement {
+        // Where a loop was when a wait suspended one of its iterations
+        private static class Paused {
+            final Iterator<QuillValue> items;
+            final ScopeContext subscope;
+            final Frame iteration;
+
+            Paused(Iterator<QuillValue> items, ScopeContext subscope, Frame iteration) {
+                this.items = items;
+                this.subscope = subscope;
+                this.iteration = iteration;
+            }
+        }
+
+        private final String variable;
+        private final AST.SlotLayout layout;
+        private final Node iterable;
+        // Scope of a scope.players loop, whose iterations run inside that scope
+        private final Node playersOf;
+        private final Node[] body;
+
+        public For(AST.ForStatement source, Node iterable, Node[] body) {
+            super(source);
+            this.variable = source.variable;
+            this.layout = source.layout;
+            this.iterable = iterable;
+            this.playersOf = iterable instanceof MemberExpression member && member.property.equals("players") ? member.object : null;
+            this.body = body;
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            QuillValue items;
+            ScopeContext subscope = null;
+            if (playersOf != null) {
+                QuillValue object = playersOf.execute(frame);
+                items = QuillInterpreter.getMember(object, "players");
+                if (object.isScope()) {
+                    subscope = object.asScope().getScope();
+                }
+            } else {
+                items = iterable.execute(frame);
+            }
+            return loop(frame, items.iterator(), subscope);
+        }
+
+        @Override
+        public int resume(Frame frame, Suspension suspension) {
+            Paused paused = (Paused) suspension.restore();
+            int completion;
+            try {
+                completion = resumeNested(body, frame, paused.iteration, suspension);
+            } catch (Suspension s) {
+                s.save(paused);
+                throw s;
+            }
+            if (completion == BREAK) {
+                return NORMAL;
+            } else if (completion == RETURN) {
+                return RETURN;
+            }
+            return loop(frame, paused.items, paused.subscope);
+        }
+
+        private int loop(Frame frame, Iterator<QuillValue> items, ScopeContext subscope) {
+            while (items.hasNext()) {
+                QuillValue item = items.next();
+                frame.budget.charge();
+                ScopeContext iterationScope = new ScopeContext(subscope != null ? subscope : frame.scope, layout);
+                iterationScope.bind(0, variable, item);
+
+                Frame iteration = frame.withScope(iterationScope);
+                int completion;
+                try {
+                    completion = runNested(body, frame, iteration);
+                } catch (Suspension s) {
+                    s.save(new Paused(items, subscope, iteration));
+                    throw s;
+                }
+                if (completion == BREAK) {
+                    break;
+                } else if (completion == RETURN) {
+                    return RETURN;
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    public static class Break extends Statement {
+        public Break(AST.BreakStatement source) {
+            super(source);
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            return BREAK;
+        }
+    }
+
+    public static class Continue extends Statement {
+        public Continue(AST.ContinueStatement source) {
+            super(source);
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            return CONTINUE;
+        }
+    }
+
+    public static class Try extends Statement {
+        // Saved when a wait suspends the try block; a suspended catch block saves its frame instead
+        private static final Object IN_TRY = new Object();
+
+        private final Node[] tryBlock;
+        private final String errorVariable;
+        private final AST.SlotLayout catchLayout;
+        private final Node[] catchBlock;
+
+        public Try(AST.TryStatement source, Node[] tryBlock, Node[] catchBlock) {
+            super(source);
+            this.tryBlock = tryBlock;
+            this.errorVariable = source.errorVariable;
+            this.catchLayout = source.catchLayout;
+            this.catchBlock = catchBlock;
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            return attempt(frame, null);
+        }
+
+        @Override
+        public int resume(Frame frame, Suspension suspension) {
+            Object state = suspension.restore();
+            if (state == IN_TRY) {
+                return attempt(frame, suspension);
+            }
+            return handle(frame, (Frame) state, suspension);
+        }
+
+        // Run the try block, or carry it on if resumed is set
+        private int attempt(Frame frame, Suspension resumed) {
+            try {
+                return resumed == null ? runBlock(tryBlock, frame) : resumeBlock(tryBlock, frame, resumed);
+            } catch (Suspension s) {
+                s.save(IN_TRY);
+                throw s;
+            } catch (Exception e) {
+                ScopeContext catchScope = new ScopeContext(frame.scope, catchLayout);
+                catchScope.bind(0, errorVariable, new StringValue(e.getMessage()));
+                return handle(frame, frame.withScope(catchScope), null);
+            }
+        }
+
+        private int handle(Frame frame, Frame nested, Suspension resumed) {
+            try {
+                return resumed == null ? runNested(catchBlock, frame, nested) : resumeNested(catchBlock, frame, nested, resumed);
+            } catch (Suspension s) {
+                s.save(nested);
+                throw s;
+            }
+        }
+    }
+
+    public static class Wait extends Statement {
+        private final NamedCall named;
+        private final Node ticks;
+
+        public Wait(AST.ExpressionStatement source, NamedCall named, Node ticks) {
+            super(source);
+            this.named = named;
+            this.ticks = ticks;
+        }
+
+        @Override
+        public int complete(Frame frame) {
+            named.checkPermission();
+            int count = BuiltInUtilFuncs.WaitFunction.ticks(ticks.execute(frame));
+            if (count > 0) {
+                throw new Suspension(count);
+            }
+            return NORMAL;
+        }
+
+        @Override
+        public int resume(Frame frame, Suspension suspension) {
+            // The ticks have passed, so the statement after the wait is next
+            return NORMAL;
+        }
+    }
+
+    public static class EventHandler extends Node {
+        private final AST.EventHandler source;
+        private final Block body;
+
+        public EventHandler(AST.EventHandler source, Node[] body) {
+            super(source);
+            this.source = source;
+            this.body = new Block(body, source.layout);
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            frame.interpreter.registerHandler(source, body);
+            return NullValue.INSTANCE;
+        }
+    }
+
+    public static class ScopeCreation extends Node {
+        private final Node[] arguments;
+
+        public ScopeCreation(AST.ScopeCreation source, Node[] arguments) {
+            super(source);
+            this.arguments = arguments;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            if (arguments.length != 6) {
+                throw new RuntimeException(plugin.translate("quill.error.user.scope.wrong-boundary-list-size"));
+            }
+
+            double x1 = arguments[0].execute(frame).asNumber();
+            double y1 = arguments[1].execute(frame).asNumber();
+            double z1 = arguments[2].execute(frame).asNumber();
+            double x2 = arguments[3].execute(frame).asNumber();
+            double y2 = arguments[4].execute(frame).asNumber();
+            double z2 = arguments[5].execute(frame).asNumber();
+
+            ScopeContext globalScope = frame.interpreter.getGlobalScope();
+            String worldName = globalScope.getRegion() != null ?
+                globalScope.getRegion().getWorldName() : "world";
+
+            ScopeContext.Region region = new ScopeContext.Region(x1, y1, z1, x2, y2, z2, worldName);
+            return new ScopeValue(new ScopeContext("subscope", frame.scope, region));
+        }
+    }
+
+    public static class ExpressionStatement extends Node {
+        private final Node expression;
+        // The expression if it is a call, which may wait
+        private final Call call;
+
+        public ExpressionStatement(AST.ExpressionStatement source, Node expression) {
+            super(source);
+            this.expression = expression;
+            this.call = expression instanceof Call c ? c : null;
+        }
+
+        @Override
+        public QuillValue execute(Frame frame) {
+            return call != null ? call.invoke(frame, true) : expression.execute(frame);
+        }
+
+        @Override
+        public int resume(Frame frame, Suspension suspension) {
+            frame.interpreter.resumeCall(suspension);
+            return NORMAL;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.parser.AST.SlotLayout;
+
+/**
+ * Compiled body of a function or event handler.
+ * Implemented by each execution engine so callers don't need to know which one produced the code.
+ */
+public interface Executable {
+    /**
+     * Run the body in the given frame.
+     * Returns the value passed to return, or null if the body ran to completion.
+     */
+    QuillValue run(Frame frame);
+
+    /**
+     * Carry on running a body that was suspended by a wait, from where the suspension says it stopped.
+     * Only engines whose code can wait need to support this.
+     */
+    default QuillValue resume(Frame frame, Suspension suspension) {
+        throw new IllegalStateException("cannot resume " + getClass().getSimpleName());
+    }
+
+    /**
+     * Slots of the scope the body expects to run in, or null if it looks every variable up by name.
+     */
+    default SlotLayout layout() {
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package me.kmathers.quill.interpreter;
+
+/**
+ * Engines a scope's scripts can run on.
+ */
+public enum ExecutionEngine {
+    /** Linked executor tree walked node by node. */
+    TREE,
+    /** Bytecode compiled ahead of time and run by {@link QuillVM}. */
+    VM;
+
+    /**
+     * Parse an engine name as written in config files and commands, or null if it isn't one.
+     */
+    public static ExecutionEngine fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
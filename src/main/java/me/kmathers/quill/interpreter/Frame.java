@@ -0,0 +1,46 @@
+package me.kmathers.quill.interpreter;
+
+/**
+ * Execution state handed to every linked node.
+ * Holds the interpreter that owns the code, the scope variables are resolved against
+ * and the budget of the run the frame belongs to.
+ */
+public class Frame {
+    final QuillInterpreter interpreter;
+    final ScopeContext scope;
+    final Budget budget;
+    // Value of the last return statement run in this frame
+    QuillValue returned;
+
+    /**
+     * Create the frame a new run starts in, with a fresh budget.
+     */
+    public Frame(QuillInterpreter interpreter, ScopeContext scope) {
+        this(interpreter, scope, interpreter.newBudget());
+    }
+
+    Frame(QuillInterpreter interpreter, ScopeContext scope, Budget budget) {
+        this.interpreter = interpreter;
+        this.scope = scope;
+        this.budget = budget;
+    }
+
+    /**
+     * Create a frame for a nested block that runs in a different scope.
+     */
+    public Frame withScope(ScopeContext scope) {
+        return new Frame(interpreter, scope, budget);
+    }
+
+    public QuillInterpreter getInterpreter() {
+        return interpreter;
+    }
+
+    public ScopeContext getScope() {
+        return scope;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,466 @@
+package me.kmathers.quill.interpreter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal class file writer used by the JIT.
+ * Writes version 49 class files, which the JVM verifies by type inference,
+ * so no stack map frames have to be computed here.
+ */
+final class JitClassWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int MAJOR_VERSION = 49;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<List<Object>, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    JitClassWriter(String name, String superName, String... interfaceNames) {
+        this.thisClass = classRef(name);
+        this.superClass = classRef(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    // === Constant Pool ===
+
+    private int entry(List<Object> key, int tag, Object... data) {
+        Integer existing = poolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (poolCount >= 0xFFFF) {
+            throw new IllegalStateException("constant pool overflow");
+        }
+
+        try {
+            poolOut.writeByte(tag);
+            for (Object value : data) {
+                if (value instanceof String s) {
+                    poolOut.writeUTF(s);
+                } else if (value instanceof Integer i && tag == 3) {
+                    poolOut.writeInt(i);
+                } else if (value instanceof Long l) {
+                    poolOut.writeLong(l);
+                } else {
+                    poolOut.writeShort((Integer) value);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        int index = poolCount;
+        // Long and double entries take up two slots
+        poolCount += tag == 5 || tag == 6 ? 2 : 1;
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    int utf8(String value) {
+        return entry(List.of(1, value), 1, value);
+    }
+
+    int integer(int value) {
+        return entry(List.of(3, value), 3, value);
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return entry(List.of(6, bits), 6, bits);
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry(List.of(7, internalName), 7, name);
+    }
+
+    int string(String value) {
+        int utf = utf8(value);
+        return entry(List.of(8, value), 8, utf);
+    }
+
+    int nameAndType(String name, String descriptor) {
+        int n = utf8(name);
+        int d = utf8(descriptor);
+        return entry(List.of(12, name, descriptor), 12, n, d);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        int c = classRef(owner);
+        int nt = nameAndType(name, descriptor);
+        return entry(List.of(9, owner, name, descriptor), 9, c, nt);
+    }
+
+    int methodRef(String owner, String name, String descriptor, boolean isInterface) {
+        int c = classRef(owner);
+        int nt = nameAndType(name, descriptor);
+        int tag = isInterface ? 11 : 10;
+        return entry(List.of(tag, owner, name, descriptor), tag, c, nt);
+    }
+
+    // === Members ===
+
+    void field(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    Code method(int access, String name, String descriptor, int argumentSlots) {
+        return new Code(access, name, descriptor, argumentSlots);
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int i : interfaces) {
+                out.writeShort(i);
+            }
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Slots taken by a value of the given descriptor type.
+     */
+    static int slots(char type) {
+        return switch (type) {
+            case 'V' -> 0;
+            case 'J', 'D' -> 2;
+            default -> 1;
+        };
+    }
+
+    // === Code ===
+
+    /**
+     * A branch target. The operand stack depth is recorded at the first jump so the
+     * code after an unconditional jump can resume with the right depth.
+     */
+    static final class Label {
+        private int offset = -1;
+        private int depth = -1;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    private record Handler(int start, int end, Label target, int type) {}
+
+    final class Code {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private byte[] code = new byte[256];
+        private int length;
+        private final List<Handler> handlers = new ArrayList<>();
+        private final List<Label> labels = new ArrayList<>();
+        private int locals;
+        private int depth;
+        private int maxDepth;
+        private boolean reachable = true;
+
+        private Code(int access, String name, String descriptor, int argumentSlots) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.locals = argumentSlots;
+        }
+
+        private void u1(int value) {
+            if (length == code.length) {
+                byte[] grown = new byte[code.length * 2];
+                System.arraycopy(code, 0, grown, 0, length);
+                code = grown;
+            }
+            code[length++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        private void adjust(int delta) {
+            depth += delta;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        int newLocal(int size) {
+            int index = locals;
+            locals += size;
+            return index;
+        }
+
+        void op(int opcode, int delta) {
+            u1(opcode);
+            adjust(delta);
+            if (opcode >= 0xAC && opcode <= 0xB1 || opcode == 0xBF) { // return, athrow
+                reachable = false;
+            }
+        }
+
+        /**
+         * Whether control can reach the current offset. Code after a return, throw or
+         * unconditional jump is skipped rather than emitted.
+         */
+        boolean isReachable() {
+            return reachable;
+        }
+
+        void local(int opcode, int index, int delta) {
+            if (index > 0xFF) {
+                u1(0xC4); // wide
+                u1(opcode);
+                u2(index);
+            } else {
+                u1(opcode);
+                u1(index);
+            }
+            adjust(delta);
+        }
+
+        void aload(int index) {
+            local(0x19, index, 1);
+        }
+
+        void astore(int index) {
+            local(0x3A, index, -1);
+        }
+
+        void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                u1(0x03 + value); // iconst_<n>
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(0x10); // bipush
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(0x11); // sipush
+                u2(value);
+            } else {
+                ldcIndex(integer(value));
+                return;
+            }
+            adjust(1);
+        }
+
+        void ldc(String value) {
+            ldcIndex(string(value));
+        }
+
+        void ldc(double value) {
+            u1(0x14); // ldc2_w
+            u2(doubleConstant(value));
+            adjust(2);
+        }
+
+        void ldcClass(String internalName) {
+            ldcIndex(classRef(internalName));
+        }
+
+        private void ldcIndex(int index) {
+            if (index > 0xFF) {
+                u1(0x13); // ldc_w
+                u2(index);
+            } else {
+                u1(0x12); // ldc
+                u1(index);
+            }
+            adjust(1);
+        }
+
+        void type(int opcode, String internalName) {
+            u1(opcode);
+            u2(classRef(internalName));
+            if (opcode == 0xBB) { // new
+                adjust(1);
+            }
+        }
+
+        void field(int opcode, String owner, String fieldName, String fieldDescriptor) {
+            u1(opcode);
+            u2(fieldRef(owner, fieldName, fieldDescriptor));
+            int size = slots(fieldDescriptor.charAt(0));
+            switch (opcode) {
+                case 0xB2 -> adjust(size); // getstatic
+                case 0xB3 -> adjust(-size); // putstatic
+                case 0xB4 -> adjust(size - 1); // getfield
+                default -> adjust(-size - 1); // putfield
+            }
+        }
+
+        void invoke(int opcode, String owner, String methodName, String methodDescriptor) {
+            boolean isInterface = opcode == 0xB9;
+            u1(opcode);
+            u2(methodRef(owner, methodName, methodDescriptor, isInterface));
+
+            int argumentSlots = 0;
+            int i = 1;
+            while (methodDescriptor.charAt(i) != ')') {
+                char c = methodDescriptor.charAt(i);
+                argumentSlots += slots(c);
+                while (methodDescriptor.charAt(i) == '[') {
+                    i++;
+                }
+                if (methodDescriptor.charAt(i) == 'L') {
+                    i = methodDescriptor.indexOf(';', i);
+                }
+                i++;
+            }
+            int returnSlots = slots(methodDescriptor.charAt(i + 1));
+
+            if (isInterface) {
+                u1(argumentSlots + 1);
+                u1(0);
+            }
+            adjust(returnSlots - argumentSlots - (opcode == 0xB8 ? 0 : 1));
+        }
+
+        void jump(int opcode, Label target) {
+            if (!reachable) {
+                return;
+            }
+            int delta = switch (opcode) {
+                case 0xA7 -> 0; // goto
+                case 0xA5, 0xA6 -> -2; // if_acmp<cond>
+                default -> -1;
+            };
+            adjust(delta);
+            if (target.depth < 0) {
+                target.depth = depth;
+            }
+            target.jumps.add(length);
+            u1(opcode);
+            u2(0);
+            if (opcode == 0xA7) {
+                reachable = false;
+            }
+        }
+
+        void mark(Label label) {
+            reachable = reachable || !label.jumps.isEmpty();
+            label.offset = length;
+            if (label.depth >= 0) {
+                depth = label.depth;
+            } else {
+                label.depth = depth;
+            }
+        }
+
+        /**
+         * Mark an exception handler entry, where the stack holds only the thrown exception.
+         */
+        void markHandler(Label label) {
+            label.depth = 1;
+            reachable = true;
+            mark(label);
+            maxDepth = Math.max(maxDepth, 1);
+        }
+
+        int offset() {
+            return length;
+        }
+
+        Label newLabel() {
+            Label label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        /**
+         * Catch exceptions of the given type thrown between two offsets.
+         */
+        void tryCatch(int start, int end, Label handler, String exceptionType) {
+            handlers.add(new Handler(start, end, handler, classRef(exceptionType)));
+        }
+
+        void end() {
+            for (Label label : labels) {
+                for (int at : label.jumps) {
+                    int delta = label.offset - at;
+                    if (delta < Short.MIN_VALUE || delta > Short.MAX_VALUE) {
+                        throw new IllegalStateException("jump out of range");
+                    }
+                    code[at + 1] = (byte) (delta >> 8);
+                    code[at + 2] = (byte) delta;
+                }
+            }
+            if (length > 0xFFFF) {
+                throw new IllegalStateException("method too large");
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                out.writeShort(access);
+                out.writeShort(utf8(name));
+                out.writeShort(utf8(descriptor));
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                out.writeInt(12 + length + handlers.size() * 8);
+                out.writeShort(maxDepth);
+                out.writeShort(locals);
+                out.writeInt(length);
+                out.write(code, 0, length);
+                out.writeShort(handlers.size());
+                for (Handler handler : handlers) {
+                    out.writeShort(handler.start);
+                    out.writeShort(handler.end);
+                    out.writeShort(handler.target.offset);
+                    out.writeShort(handler.type);
+                }
+                out.writeShort(0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            methods.add(bytes.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,918 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.interpreter.JitClassWriter.Code;
+import me.kmathers.quill.interpreter.JitClassWriter.Label;
+import me.kmathers.quill.interpreter.QuillValue.*;
+import me.kmathers.quill.parser.AST;
+import me.kmathers.quill.parser.AST.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.SwitchPoint;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Second tier for hot event handlers.
+ * Compiles a handler body into a hidden JVM class so HotSpot can inline and optimise it like ordinary Java.
+ * Values the code needs are handed over as class data and kept in static final fields, which the JIT treats as constants.
+ */
+class JitCompiler {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final String CLASS_NAME = "me/kmathers/quill/interpreter/JitHandler";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String EXECUTABLE = "me/kmathers/quill/interpreter/Executable";
+    private static final String FRAME = "me/kmathers/quill/interpreter/Frame";
+    private static final String RUNTIME = "me/kmathers/quill/interpreter/JitRuntime";
+    private static final String INTERPRETER = "me/kmathers/quill/interpreter/QuillInterpreter";
+    private static final String SCOPE = "me/kmathers/quill/interpreter/ScopeContext";
+    private static final String VALUE = "me/kmathers/quill/interpreter/QuillValue";
+    private static final String NUMBER = "me/kmathers/quill/interpreter/QuillValue$NumberValue";
+    private static final String BOOLEAN = "me/kmathers/quill/interpreter/QuillValue$BooleanValue";
+    private static final String BUILTIN = "me/kmathers/quill/interpreter/QuillInterpreter$BuiltInFunction";
+    private static final String NODE = "me/kmathers/quill/interpreter/Exec$Node";
+    private static final String MEMBER_CACHE = "me/kmathers/quill/interpreter/MemberCache";
+    private static final String NAMED_CALL = "me/kmathers/quill/interpreter/NamedCall";
+    private static final String BUDGET = "me/kmathers/quill/interpreter/Budget";
+    private static final String SWITCH_POINT = "java/lang/invoke/SwitchPoint";
+    private static final String ITERATOR = "java/util/Iterator";
+
+    private static final String D_VALUE = "L" + VALUE + ";";
+    private static final String D_SCOPE = "L" + SCOPE + ";";
+    private static final String D_INTERPRETER = "L" + INTERPRETER + ";";
+    private static final String D_FRAME = "L" + FRAME + ";";
+    private static final String D_LIST = "Ljava/util/List;";
+    private static final String D_STRING = "Ljava/lang/String;";
+    private static final String D_LAYOUT = "Lme/kmathers/quill/parser/AST$SlotLayout;";
+
+    // Opcodes
+    private static final int ACONST_NULL = 0x01;
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int ILOAD = 0x15;
+    private static final int ISTORE = 0x36;
+    private static final int AALOAD = 0x32;
+    private static final int AASTORE = 0x53;
+    private static final int POP = 0x57;
+    private static final int DUP = 0x59;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6B;
+    private static final int DREM = 0x73;
+    private static final int DNEG = 0x77;
+    private static final int IXOR = 0x82;
+    private static final int IFEQ = 0x99;
+    private static final int IFNE = 0x9A;
+    private static final int GOTO = 0xA7;
+    private static final int ARETURN = 0xB0;
+    private static final int RETURN = 0xB1;
+    private static final int GETSTATIC = 0xB2;
+    private static final int PUTSTATIC = 0xB3;
+    private static final int GETFIELD = 0xB4;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int INVOKEINTERFACE = 0xB9;
+    private static final int ANEWARRAY = 0xBD;
+    private static final int ATHROW = 0xBF;
+    private static final int CHECKCAST = 0xC0;
+
+    // Fixed locals of the generated run method
+    private static final int FRAME_LOCAL = 1;
+    private static final int INTERPRETER_LOCAL = 2;
+    private static final int SCOPE_LOCAL = 3;
+
+    /**
+     * A compiled handler and the assumptions it was specialised on.
+     * The code stays valid until its guard is invalidated by a global it depends on being rebound.
+     */
+    static class Compiled {
+        final Executable code;
+        final SwitchPoint guard;
+        final Map<String, QuillValue> assumptions;
+
+        Compiled(Executable code, SwitchPoint guard, Map<String, QuillValue> assumptions) {
+            this.code = code;
+            this.guard = guard;
+            this.assumptions = assumptions;
+        }
+
+        /**
+         * Whether every assumed global is what a lookup from this scope would find.
+         * Checked once, against an event scope, before the code is used: an event supplies the same context variables
+         * every time it fires, so if none shadows an assumed global then none ever will, and rebinding a global trips the guard.
+         */
+        boolean holds(ScopeContext scope) {
+            for (Map.Entry<String, QuillValue> assumption : assumptions.entrySet()) {
+                if (!scope.has(assumption.getKey()) || scope.get(assumption.getKey()) != assumption.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Thrown by the generator when a body uses something it can't compile; anything else it throws is a bug
+    private static class Unsupported extends RuntimeException {
+        Unsupported(String what) {
+            super(what, null, false, false);
+        }
+    }
+
+    /**
+     * Compile an event handler body.
+     * Pass the chunk name to tag escaping errors with their position, as the VM does, or null to leave them untouched.
+     * Globals are read from a copy taken on the script's own thread, so the compile can run on another.
+     * Returns null if the body uses something the compiler doesn't support; callers keep interpreting it in that case.
+     */
+    Compiled compile(AST.EventHandler handler, QuillInterpreter interpreter, Map<String, QuillValue> globals, String chunk) {
+        Generator generator = new Generator(interpreter, globals, chunk, handler.body);
+        byte[] bytes;
+        try {
+            bytes = generator.generate(handler.body);
+        } catch (Unsupported e) {
+            return null;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = LOOKUP.defineHiddenClassWithClassData(bytes, generator.constants.toArray(), true);
+            Executable code = (Executable) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+            return new Compiled(code, generator.guard, generator.assumptions);
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to load compiled handler", e);
+        }
+    }
+
+    private static class Generator {
+        private final QuillInterpreter interpreter;
+        private final Map<String, QuillValue> globals;
+        private final String chunk;
+        private final QuillLinker linker;
+        private final JitClassWriter writer = new JitClassWriter(CLASS_NAME, OBJECT, EXECUTABLE);
+        private Code code;
+
+        private final List<Object> constants = new ArrayList<>();
+        private final List<String> constantTypes = new ArrayList<>();
+        private final Map<Object, Integer> constantIndex = new IdentityHashMap<>();
+
+        private final SwitchPoint guard = new SwitchPoint();
+        private final Map<String, QuillValue> assumptions = new HashMap<>();
+        private final Set<String> boundNames = new HashSet<>();
+
+        private final List<Integer> lines = new ArrayList<>();
+        private final List<Integer> columns = new ArrayList<>();
+        private int positionLocal = -1;
+        private int budgetLocal;
+
+        private final Deque<Label[]> loops = new ArrayDeque<>();
+        private int scopeLocal = SCOPE_LOCAL;
+        private int playersLoops;
+
+        Generator(QuillInterpreter interpreter, Map<String, QuillValue> globals, String chunk, List<ASTNode> body) {
+            this.interpreter = interpreter;
+            this.globals = globals;
+            this.linker = new QuillLinker(interpreter);
+            this.chunk = chunk;
+            collectBindings(body, boundNames);
+        }
+
+        // Names the handler binds itself are never specialised, since its own scopes would shadow the global
+        private static void collectBindings(List<ASTNode> statements, Set<String> names) {
+            if (statements == null) {
+                return;
+            }
+            for (ASTNode node : statements) {
+                if (node instanceof VariableDeclaration n) {
+                    names.add(n.name);
+                } else if (node instanceof FunctionDeclaration n) {
+                    names.add(n.name);
+                } else if (node instanceof IfStatement n) {
+                    collectBindings(n.thenBranch, names);
+                    collectBindings(n.elseBranch, names);
+                } else if (node instanceof WhileStatement n) {
+                    collectBindings(n.body, names);
+                } else if (node instanceof ForStatement n) {
+                    names.add(n.variable);
+                    collectBindings(n.body, names);
+                } else if (node instanceof TryStatement n) {
+                    names.add(n.errorVariable);
+                    collectBindings(n.tryBlock, names);
+                    collectBindings(n.catchBlock, names);
+                }
+            }
+        }
+
+        byte[] generate(List<ASTNode> body) {
+            code = writer.method(JitClassWriter.ACC_PUBLIC, "run", "(" + D_FRAME + ")" + D_VALUE, 2);
+            code.newLocal(2); // interpreter, scope
+
+            code.aload(FRAME_LOCAL);
+            code.field(GETFIELD, FRAME, "interpreter", D_INTERPRETER);
+            code.astore(INTERPRETER_LOCAL);
+            code.aload(FRAME_LOCAL);
+            code.field(GETFIELD, FRAME, "scope", D_SCOPE);
+            code.astore(SCOPE_LOCAL);
+            budgetLocal = code.newLocal(1);
+            code.aload(FRAME_LOCAL);
+            code.field(GETFIELD, FRAME, "budget", "L" + BUDGET + ";");
+            code.astore(budgetLocal);
+
+            if (chunk != null) {
+                positionLocal = code.newLocal(1);
+                code.pushInt(-1);
+                code.local(ISTORE, positionLocal, -1);
+            }
+
+            int start = code.offset();
+            statements(body);
+            if (code.isReachable()) {
+                code.op(ACONST_NULL, 1);
+                code.op(ARETURN, -1);
+            }
+            int end = code.offset();
+
+            if (chunk != null && end > start) {
+                // Tag escaping errors with the statement they came from
+                Label handler = code.newLabel();
+                code.markHandler(handler);
+                code.ldc(chunk);
+                loadConstant(toIntArray(lines), "[I");
+                loadConstant(toIntArray(columns), "[I");
+                code.local(ILOAD, positionLocal, 1);
+                code.invoke(INVOKESTATIC, RUNTIME, "locate", "(Ljava/lang/RuntimeException;" + D_STRING + "[I[II)Ljava/lang/RuntimeException;");
+                code.op(ATHROW, -1);
+                code.tryCatch(start, end, handler, "java/lang/RuntimeException");
+            }
+            code.end();
+
+            Code init = writer.method(JitClassWriter.ACC_PUBLIC, "<init>", "()V", 1);
+            init.aload(0);
+            init.invoke(INVOKESPECIAL, OBJECT, "<init>", "()V");
+            init.op(RETURN, 0);
+            init.end();
+
+            Code clinit = writer.method(JitClassWriter.ACC_STATIC, "<clinit>", "()V", 0);
+            int data = clinit.newLocal(1);
+            clinit.invoke(INVOKESTATIC, "java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;");
+            clinit.ldc("_");
+            clinit.ldcClass("[Ljava/lang/Object;");
+            clinit.invoke(INVOKESTATIC, "java/lang/invoke/MethodHandles", "classData",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;" + D_STRING + "Ljava/lang/Class;)Ljava/lang/Object;");
+            clinit.type(CHECKCAST, "[Ljava/lang/Object;");
+            clinit.astore(data);
+            for (int i = 0; i < constants.size(); i++) {
+                String type = constantTypes.get(i);
+                writer.field(JitClassWriter.ACC_STATIC | JitClassWriter.ACC_FINAL, "k" + i, type);
+                clinit.aload(data);
+                clinit.pushInt(i);
+                clinit.op(AALOAD, -1);
+                clinit.type(CHECKCAST, type.startsWith("[") ? type : type.substring(1, type.length() - 1));
+                clinit.field(PUTSTATIC, CLASS_NAME, "k" + i, type);
+            }
+            clinit.op(RETURN, 0);
+            clinit.end();
+
+            return writer.toByteArray();
+        }
+
+        private static int[] toIntArray(List<Integer> values) {
+            int[] array = new int[values.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = values.get(i);
+            }
+            return array;
+        }
+
+        // === Constants ===
+
+        private void loadConstant(Object value, String type) {
+            Integer index = constantIndex.get(value);
+            if (index == null) {
+                index = constants.size();
+                constants.add(value);
+                constantTypes.add(type);
+                constantIndex.put(value, index);
+            }
+            code.field(GETSTATIC, CLASS_NAME, "k" + index, constantTypes.get(index));
+        }
+
+        private void loadInterpreter() {
+            code.aload(INTERPRETER_LOCAL);
+        }
+
+        private void loadScope() {
+            code.aload(scopeLocal);
+        }
+
+        private void loadFrame() {
+            code.aload(FRAME_LOCAL);
+            if (scopeLocal != SCOPE_LOCAL) {
+                loadScope();
+                code.invoke(INVOKEVIRTUAL, FRAME, "withScope", "(" + D_SCOPE + ")" + D_FRAME);
+            }
+        }
+
+        // Charge a loop iteration to the run's budget
+        private void charge() {
+            code.aload(budgetLocal);
+            code.invoke(INVOKEVIRTUAL, BUDGET, "charge", "()V");
+        }
+
+        private void runtime(String name, String descriptor) {
+            code.invoke(INVOKESTATIC, RUNTIME, name, descriptor);
+        }
+
+        // === Statements ===
+
+        private void statements(List<ASTNode> body) {
+            if (body == null) {
+                return;
+            }
+            for (ASTNode statement : body) {
+                if (!code.isReachable()) {
+                    return;
+                }
+                statement(statement);
+            }
+        }
+
+        private void statement(ASTNode node) {
+            if (positionLocal >= 0) {
+                code.pushInt(lines.size());
+                code.local(ISTORE, positionLocal, -1);
+                lines.add(node.line);
+                columns.add(node.column);
+            }
+
+            if (node instanceof ExpressionStatement n) {
+                if (n.expression instanceof CallExpression call && mayWait(call, Set.of(), new HashSet<>())) {
+                    // Compiled code can't be suspended, so handlers that might wait stay interpreted
+                    throw new Unsupported("wait");
+                }
+                expression(n.expression);
+                code.op(POP, -1);
+            } else if (node instanceof VariableDeclaration n) {
+                Label done = code.newLabel();
+                loadInterpreter();
+                loadScope();
+                code.ldc(n.name);
+                code.pushInt(n.slot);
+                code.op(n.isConst ? ICONST_1 : ICONST_0, 1);
+                runtime("definePersisted", "(" + D_INTERPRETER + D_SCOPE + D_STRING + "IZ)Z");
+                code.jump(IFNE, done);
+                loadInterpreter();
+                loadScope();
+                code.ldc(n.name);
+                code.pushInt(n.slot);
+                code.op(n.isConst ? ICONST_1 : ICONST_0, 1);
+                if (n.value != null) {
+                    expression(n.value);
+                } else {
+                    loadConstant(NullValue.INSTANCE, D_VALUE);
+                }
+                runtime("define", "(" + D_INTERPRETER + D_SCOPE + D_STRING + "IZ" + D_VALUE + ")V");
+                code.mark(done);
+            } else if (node instanceof ReturnStatement n) {
+                if (n.value != null) {
+                    expression(n.value);
+                } else {
+                    loadConstant(NullValue.INSTANCE, D_VALUE);
+                }
+                code.op(ARETURN, -1);
+            } else if (node instanceof IfStatement n) {
+                Label otherwise = code.newLabel();
+                Label done = code.newLabel();
+                condition(n.condition);
+                code.jump(IFEQ, otherwise);
+                statements(n.thenBranch);
+                code.jump(GOTO, done);
+                code.mark(otherwise);
+                statements(n.elseBranch);
+                code.mark(done);
+            } else if (node instanceof WhileStatement n) {
+                Label head = code.newLabel();
+                Label exit = code.newLabel();
+                code.mark(head);
+                condition(n.condition);
+                code.jump(IFEQ, exit);
+                charge();
+                loops.push(new Label[] { exit, head });
+                statements(n.body);
+                loops.pop();
+                code.jump(GOTO, head);
+                code.mark(exit);
+            } else if (node instanceof ForStatement n) {
+                forLoop(n);
+            } else if (node instanceof BreakStatement || node instanceof ContinueStatement) {
+                if (loops.isEmpty()) {
+                    throw new Unsupported("break or continue outside a loop");
+                }
+                code.jump(GOTO, loops.peek()[node instanceof BreakStatement ? 0 : 1]);
+            } else if (node instanceof TryStatement n) {
+                tryCatch(n);
+            } else if (node instanceof ScopeCreation) {
+                expression(node);
+                code.op(POP, -1);
+            } else if (node instanceof FunctionDeclaration || node instanceof AST.EventHandler) {
+                // Declarations only run once per event, so they stay on the executor tree
+                linked(node);
+                code.op(POP, -1);
+            } else {
+                throw new Unsupported(node.getClass().getSimpleName());
+            }
+        }
+
+        // Evaluate an expression to an int, 1 if it is truthy; comparisons and logic never box their result
+        private void condition(ASTNode node) {
+            if (node instanceof BinaryExpression n) {
+                switch (n.operator) {
+                    case ">", "<", ">=", "<=" -> {
+                        number(n.left);
+                        number(n.right);
+                        String helper = switch (n.operator) {
+                            case ">" -> "greater";
+                            case "<" -> "less";
+                            case ">=" -> "greaterEqual";
+                            default -> "lessEqual";
+                        };
+                        runtime(helper, "(DD)Z");
+                        return;
+                    }
+                    case "==", "!=" -> {
+                        expression(n.left);
+                        expression(n.right);
+                        code.invoke(INVOKESTATIC, INTERPRETER, "isEqual", "(" + D_VALUE + D_VALUE + ")Z");
+                        if (n.operator.equals("!=")) {
+                            code.pushInt(1);
+                            code.op(IXOR, -1);
+                        }
+                        return;
+                    }
+                    case "&&", "||" -> {
+                        logical(n);
+                        return;
+                    }
+                    default -> {
+                    }
+                }
+            } else if (node instanceof UnaryExpression n && n.operator.equals("!")) {
+                condition(n.operand);
+                code.pushInt(1);
+                code.op(IXOR, -1);
+                return;
+            } else if (node instanceof BooleanLiteral n) {
+                code.pushInt(n.value ? 1 : 0);
+                return;
+            }
+            expression(node);
+            code.invoke(INVOKEVIRTUAL, VALUE, "isTruthy", "()Z");
+        }
+
+        // Evaluate an expression to an unboxed double, keeping nested arithmetic off the heap
+        private void number(ASTNode node) {
+            if (node instanceof NumberLiteral n) {
+                code.ldc(n.value);
+                return;
+            } else if (node instanceof BinaryExpression n) {
+                switch (n.operator) {
+                    case "+" -> {
+                        if (isNumeric(n)) {
+                            number(n.left);
+                            number(n.right);
+                            code.op(DADD, -2);
+                        } else {
+                            expression(n.left);
+                            expression(n.right);
+                            runtime("addNumber", "(" + D_VALUE + D_VALUE + ")D");
+                        }
+                        return;
+                    }
+                    case "-", "*", "%" -> {
+                        number(n.left);
+                        number(n.right);
+                        code.op(n.operator.equals("-") ? DSUB : n.operator.equals("*") ? DMUL : DREM, -2);
+                        return;
+                    }
+                    case "/" -> {
+                        number(n.left);
+                        number(n.right);
+                        runtime("divide", "(DD)D");
+                        return;
+                    }
+                    default -> {
+                    }
+                }
+            } else if (node instanceof UnaryExpression n && n.operator.equals("-")) {
+                number(n.operand);
+                code.op(DNEG, 0);
+                return;
+            }
+            expression(node);
+            code.invoke(INVOKEVIRTUAL, VALUE, "asNumber", "()D");
+        }
+
+        /**
+         * Whether an expression always produces a number, so a sum of two of them can skip the string case.
+         */
+        private static boolean isNumeric(ASTNode node) {
+            if (node instanceof NumberLiteral) {
+                return true;
+            } else if (node instanceof BinaryExpression n) {
+                return switch (n.operator) {
+                    case "-", "*", "/", "%" -> true;
+                    case "+" -> isNumeric(n.left) && isNumeric(n.right);
+                    default -> false;
+                };
+            } else if (node instanceof UnaryExpression n) {
+                return n.operator.equals("-");
+            }
+            return false;
+        }
+
+        private void forLoop(ForStatement n) {
+            boolean overPlayers = n.iterable instanceof MemberExpression member && member.property.equals("players");
+
+            int object = code.newLocal(1);
+            if (overPlayers) {
+                expression(((MemberExpression) n.iterable).object);
+                code.op(DUP, 1);
+                code.astore(object);
+                code.ldc("players");
+                code.invoke(INVOKESTATIC, INTERPRETER, "getMember", "(" + D_VALUE + D_STRING + ")" + D_VALUE);
+            } else {
+                code.op(ACONST_NULL, 1);
+                code.astore(object);
+                expression(n.iterable);
+            }
+            code.aload(object);
+            loadScope();
+            runtime("loopParent", "(" + D_VALUE + D_SCOPE + ")" + D_SCOPE);
+            int parent = code.newLocal(1);
+            code.astore(parent);
+            runtime("iterator", "(" + D_VALUE + ")Ljava/util/Iterator;");
+            int iterator = code.newLocal(1);
+            code.astore(iterator);
+
+            Label head = code.newLabel();
+            Label exit = code.newLabel();
+            code.mark(head);
+            code.aload(iterator);
+            code.invoke(INVOKEINTERFACE, ITERATOR, "hasNext", "()Z");
+            code.jump(IFEQ, exit);
+            charge();
+            code.aload(parent);
+            loadConstant(n.layout, D_LAYOUT);
+            code.ldc(n.variable);
+            code.aload(iterator);
+            code.invoke(INVOKEINTERFACE, ITERATOR, "next", "()Ljava/lang/Object;");
+            runtime("iterationScope", "(" + D_SCOPE + D_LAYOUT + D_STRING + "Ljava/lang/Object;)" + D_SCOPE);
+            int body = code.newLocal(1);
+            code.astore(body);
+
+            int outerScope = scopeLocal;
+            scopeLocal = body;
+            if (overPlayers) {
+                playersLoops++;
+            }
+            loops.push(new Label[] { exit, head });
+            statements(n.body);
+            loops.pop();
+            if (overPlayers) {
+                playersLoops--;
+            }
+            scopeLocal = outerScope;
+
+            code.jump(GOTO, head);
+            code.mark(exit);
+        }
+
+        private void tryCatch(TryStatement n) {
+            int start = code.offset();
+            statements(n.tryBlock);
+            int end = code.offset();
+
+            Label done = code.newLabel();
+            code.jump(GOTO, done);
+            if (end > start) {
+                Label handler = code.newLabel();
+                code.markHandler(handler);
+                loadScope();
+                loadConstant(n.catchLayout, D_LAYOUT);
+                code.ldc(n.errorVariable);
+                runtime("catchScope", "(Ljava/lang/Exception;" + D_SCOPE + D_LAYOUT + D_STRING + ")" + D_SCOPE);
+                int catchScope = code.newLocal(1);
+                code.astore(catchScope);
+
+                int outerScope = scopeLocal;
+                scopeLocal = catchScope;
+                statements(n.catchBlock);
+                scopeLocal = outerScope;
+                code.tryCatch(start, end, handler, "java/lang/Exception");
+            }
+            code.mark(done);
+        }
+
+        // Run a node on the executor tree
+        private void linked(ASTNode node) {
+            loadConstant(linker.link(node), "L" + NODE + ";");
+            loadFrame();
+            code.invoke(INVOKEVIRTUAL, NODE, "execute", "(" + D_FRAME + ")" + D_VALUE);
+        }
+
+        // === Expressions ===
+
+        private void expression(ASTNode node) {
+            if (node instanceof NumberLiteral n) {
+                loadConstant(NumberValue.of(n.value), D_VALUE);
+            } else if (node instanceof StringLiteral n) {
+                loadConstant(new StringValue(n.value), D_VALUE);
+            } else if (node instanceof InterpolatedString n) {
+                loadConstant(n.literals.toArray(new String[0]), "[" + D_STRING);
+                values(n.expressions);
+                code.pushInt(0);
+                code.invoke(INVOKESTATIC, INTERPRETER, "interpolate", "([" + D_STRING + "[Ljava/lang/Object;I)" + D_VALUE);
+            } else if (node instanceof BooleanLiteral n) {
+                loadConstant(BooleanValue.of(n.value), D_VALUE);
+            } else if (node instanceof NullLiteral) {
+                loadConstant(NullValue.INSTANCE, D_VALUE);
+            } else if (node instanceof ListLiteral n) {
+                values(n.elements);
+                runtime("list", "([" + D_VALUE + ")" + D_VALUE);
+            } else if (node instanceof MapLiteral n) {
+                String[] keys = new String[n.entries.size()];
+                List<ASTNode> values = new ArrayList<>(keys.length);
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = n.entries.get(i).key;
+                    values.add(n.entries.get(i).value);
+                }
+                loadConstant(keys, "[" + D_STRING);
+                values(values);
+                runtime("map", "([" + D_STRING + "[" + D_VALUE + ")" + D_VALUE);
+            } else if (node instanceof Identifier n && n.slot >= 0) {
+                loadScope();
+                code.pushInt(n.depth);
+                code.pushInt(n.slot);
+                code.ldc(n.name);
+                code.invoke(INVOKEVIRTUAL, SCOPE, "lookup", "(II" + D_STRING + ")" + D_VALUE);
+            } else if (node instanceof Identifier n) {
+                loadScope();
+                code.ldc(n.name);
+                code.invoke(INVOKEVIRTUAL, SCOPE, "get", "(" + D_STRING + ")" + D_VALUE);
+            } else if (node instanceof MemberExpression n) {
+                loadConstant(new MemberCache(n.property), "L" + MEMBER_CACHE + ";");
+                expression(n.object);
+                code.invoke(INVOKEVIRTUAL, MEMBER_CACHE, "get", "(" + D_VALUE + ")" + D_VALUE);
+            } else if (node instanceof IndexExpression n) {
+                expression(n.object);
+                expression(n.index);
+                code.invoke(INVOKESTATIC, INTERPRETER, "getIndex", "(" + D_VALUE + D_VALUE + ")" + D_VALUE);
+            } else if (node instanceof BinaryExpression n) {
+                binary(n);
+            } else if (node instanceof UnaryExpression n) {
+                switch (n.operator) {
+                    case "!" -> boxCondition(n);
+                    case "-" -> boxNumber(n);
+                    default -> throw new Unsupported(n.operator);
+                }
+            } else if (node instanceof AssignmentExpression n) {
+                assignment(n);
+            } else if (node instanceof CallExpression n) {
+                call(n);
+            } else if (node instanceof ScopeCreation n) {
+                if (n.arguments.size() != 6) {
+                    throw new Unsupported("scope with " + n.arguments.size() + " boundaries");
+                }
+                for (ASTNode argument : n.arguments) {
+                    expression(argument);
+                    code.invoke(INVOKEVIRTUAL, VALUE, "asNumber", "()D");
+                }
+                loadInterpreter();
+                loadScope();
+                runtime("newScope", "(DDDDDD" + D_INTERPRETER + D_SCOPE + ")" + D_VALUE);
+            } else {
+                linked(node);
+            }
+        }
+
+        // Evaluate expressions into a QuillValue[]
+        private void values(List<ASTNode> nodes) {
+            code.pushInt(nodes.size());
+            code.type(ANEWARRAY, VALUE);
+            for (int i = 0; i < nodes.size(); i++) {
+                code.op(DUP, 1);
+                code.pushInt(i);
+                expression(nodes.get(i));
+                code.op(AASTORE, -3);
+            }
+        }
+
+        private void binary(BinaryExpression n) {
+            switch (n.operator) {
+                case "+" -> {
+                    if (isNumeric(n)) {
+                        boxNumber(n);
+                    } else {
+                        expression(n.left);
+                        expression(n.right);
+                        runtime("add", "(" + D_VALUE + D_VALUE + ")" + D_VALUE);
+                    }
+                }
+                case "-", "*", "/", "%" -> boxNumber(n);
+                case "==", "!=", ">", "<", ">=", "<=", "&&", "||" -> boxCondition(n);
+                default -> throw new Unsupported(n.operator);
+            }
+        }
+
+        private void boxNumber(ASTNode node) {
+            number(node);
+            code.invoke(INVOKESTATIC, NUMBER, "of", "(D)L" + NUMBER + ";");
+        }
+
+        private void boxCondition(ASTNode node) {
+            condition(node);
+            code.invoke(INVOKESTATIC, BOOLEAN, "of", "(Z)L" + BOOLEAN + ";");
+        }
+
+        // && and || only evaluate their right side when the left doesn't decide the result
+        private void logical(BinaryExpression n) {
+            boolean isAnd = n.operator.equals("&&");
+            Label decided = code.newLabel();
+            Label done = code.newLabel();
+            condition(n.left);
+            code.jump(isAnd ? IFEQ : IFNE, decided);
+            condition(n.right);
+            code.jump(isAnd ? IFEQ : IFNE, decided);
+            code.pushInt(isAnd ? 1 : 0);
+            code.jump(GOTO, done);
+            code.mark(decided);
+            code.pushInt(isAnd ? 0 : 1);
+            code.mark(done);
+        }
+
+        private void assignment(AssignmentExpression n) {
+            if (n.target instanceof Identifier target && target.slot >= 0) {
+                loadInterpreter();
+                loadScope();
+                code.pushInt(target.depth);
+                code.pushInt(target.slot);
+                code.ldc(target.name);
+                expression(n.value);
+                runtime("assignLocal", "(" + D_INTERPRETER + D_SCOPE + "II" + D_STRING + D_VALUE + ")" + D_VALUE);
+            } else if (n.target instanceof Identifier target) {
+                loadInterpreter();
+                loadScope();
+                code.ldc(target.name);
+                expression(n.value);
+                runtime("assign", "(" + D_INTERPRETER + D_SCOPE + D_STRING + D_VALUE + ")" + D_VALUE);
+            } else if (n.target instanceof MemberExpression target) {
+                expression(n.value);
+                expression(target.object);
+                code.ldc(target.property);
+                runtime("assignMember", "(" + D_VALUE + D_VALUE + D_STRING + ")" + D_VALUE);
+            } else if (n.target instanceof IndexExpression target) {
+                expression(n.value);
+                expression(target.object);
+                expression(target.index);
+                runtime("assignIndex", "(" + D_VALUE + D_VALUE + D_VALUE + ")" + D_VALUE);
+            } else {
+                throw new Unsupported("assignment target");
+            }
+        }
+
+        private void call(CallExpression n) {
+            String name = n.callee instanceof Identifier id ? id.name : null;
+
+            if (name != null) {
+                NamedCall named = new NamedCall(name, n.arguments.size(), interpreter);
+                loadConstant(named, "L" + NAMED_CALL + ";");
+                code.invoke(INVOKEVIRTUAL, NAMED_CALL, "checkPermission", "()V");
+
+                // Built-ins can't be redefined, so they are bound directly
+                QuillInterpreter.BuiltInFunction builtIn = named.builtIn;
+                if (named.fixedArity) {
+                    int count = n.arguments.size();
+                    loadConstant(builtIn, "L" + BUILTIN + ";");
+                    for (ASTNode argument : n.arguments) {
+                        expression(argument);
+                    }
+                    loadScope();
+                    loadInterpreter();
+                    code.invoke(INVOKEINTERFACE, BUILTIN, "call" + count, "(" + D_VALUE.repeat(count) + D_SCOPE + D_INTERPRETER + ")" + D_VALUE);
+                    return;
+                }
+                if (builtIn != null) {
+                    loadConstant(builtIn, "L" + BUILTIN + ";");
+                    values(n.arguments);
+                    runtime("arguments", "([" + D_VALUE + ")" + D_LIST);
+                    loadScope();
+                    loadInterpreter();
+                    code.invoke(INVOKEINTERFACE, BUILTIN, "call", "(" + D_LIST + D_SCOPE + D_INTERPRETER + ")" + D_VALUE);
+                    return;
+                }
+
+                QuillValue global = speculate(name);
+                if (global != null) {
+                    // Use the function the global held at compile time while the guard holds, else look it up again
+                    Label lookup = code.newLabel();
+                    Label resolved = code.newLabel();
+                    loadConstant(guard, "L" + SWITCH_POINT + ";");
+                    code.invoke(INVOKEVIRTUAL, SWITCH_POINT, "hasBeenInvalidated", "()Z");
+                    code.jump(IFNE, lookup);
+                    loadConstant(global, D_VALUE);
+                    code.jump(GOTO, resolved);
+                    code.mark(lookup);
+                    expression(n.callee);
+                    code.mark(resolved);
+                } else {
+                    expression(n.callee);
+                }
+            } else {
+                expression(n.callee);
+            }
+
+            code.aload(FRAME_LOCAL);
+            values(n.arguments);
+            runtime("arguments", "([" + D_VALUE + ")" + D_LIST);
+            runtime("call", "(" + D_VALUE + D_FRAME + D_LIST + ")" + D_VALUE);
+        }
+
+        // === Waits ===
+
+        /**
+         * Whether a call made as a statement might end up waiting.
+         * Calls to global functions are followed into their bodies, and each function followed is assumed like a bound call,
+         * so rebinding its global to one that waits sends the handler back to the interpreter.
+         * Locals are the names bound inside the function the call is in, which shadow any global.
+         */
+        private boolean mayWait(CallExpression call, Set<String> locals, Set<FunctionDeclaration> visited) {
+            if (!(call.callee instanceof Identifier callee) || locals.contains(callee.name)) {
+                return true;
+            }
+            if (interpreter.getBuiltIn(callee.name) != null) {
+                return callee.name.equals("wait");
+            }
+
+            QuillValue value = speculate(callee.name);
+            // Names in a closure's body are looked up from its own scope, which only globals are known not to shadow
+            if (value == null || ((FunctionValue) value).getClosure() != interpreter.getGlobalScope()
+                    || !(((FunctionValue) value).getBody() instanceof FunctionDeclaration declaration)) {
+                return true;
+            }
+            if (!visited.add(declaration)) {
+                return false;
+            }
+
+            Set<String> bound = new HashSet<>(declaration.parameters);
+            collectBindings(declaration.body, bound);
+            return blockMayWait(declaration.body, bound, visited);
+        }
+
+        private boolean blockMayWait(List<ASTNode> statements, Set<String> locals, Set<FunctionDeclaration> visited) {
+            if (statements == null) {
+                return false;
+            }
+            for (ASTNode node : statements) {
+                boolean waits = false;
+                if (node instanceof ExpressionStatement n && n.expression instanceof CallExpression call) {
+                    waits = mayWait(call, locals, visited);
+                } else if (node instanceof IfStatement n) {
+                    waits = blockMayWait(n.thenBranch, locals, visited) || blockMayWait(n.elseBranch, locals, visited);
+                } else if (node instanceof WhileStatement n) {
+                    waits = blockMayWait(n.body, locals, visited);
+                } else if (node instanceof ForStatement n) {
+                    waits = blockMayWait(n.body, locals, visited);
+                } else if (node instanceof TryStatement n) {
+                    waits = blockMayWait(n.tryBlock, locals, visited) || blockMayWait(n.catchBlock, locals, visited);
+                }
+                if (waits) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * The function a call can be bound to, or null if the name has to be looked up on every call.
+         */
+        private QuillValue speculate(String name) {
+            if (playersLoops > 0 || boundNames.contains(name)) {
+                return null;
+            }
+
+            QuillValue value = globals.get(name);
+            if (interpreter.getGlobalScope().getParent() != null || value == null || !value.isFunction()) {
+                return null;
+            }
+            assumptions.put(name, value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.QuillValue.*;
+import me.kmathers.quill.parser.AST.SlotLayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime support called from JIT compiled handlers.
+ * Each helper does exactly what the matching tree executor does, so compiled and interpreted runs behave the same.
+ */
+final class JitRuntime {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    private JitRuntime() {}
+
+    // === Operators ===
+
+    static QuillValue add(QuillValue l, QuillValue r) {
+        if (l.isNumber() && r.isNumber()) {
+            return NumberValue.of(l.asNumber() + r.asNumber());
+        }
+        return new StringValue(l.toString() + r.toString());
+    }
+
+    // + where a number is needed; anything but two numbers fails the way the concatenated string would
+    static double addNumber(QuillValue l, QuillValue r) {
+        if (l.isNumber() && r.isNumber()) {
+            return l.asNumber() + r.asNumber();
+        }
+        return new StringValue(l.toString() + r.toString()).asNumber();
+    }
+
+    static double divide(double l, double r) {
+        if (r == 0) {
+            throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.zero-division"));
+        }
+        return l / r;
+    }
+
+    static boolean greater(double l, double r) {
+        return l > r;
+    }
+
+    static boolean less(double l, double r) {
+        return l < r;
+    }
+
+    static boolean greaterEqual(double l, double r) {
+        return l >= r;
+    }
+
+    static boolean lessEqual(double l, double r) {
+        return l <= r;
+    }
+
+    // === Values ===
+
+    static QuillValue list(QuillValue[] elements) {
+        return new ListValue(new ArrayList<>(Arrays.asList(elements)));
+    }
+
+    static QuillValue map(String[] keys, QuillValue[] values) {
+        Map<String, QuillValue> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return new MapValue(map);
+    }
+
+    static List<QuillValue> arguments(QuillValue[] values) {
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    // === Variables ===
+
+    /**
+     * Define a variable from its persisted value. Returns false if it isn't persisted,
+     * in which case the compiled code evaluates the initializer and calls {@link #define}.
+     */
+    static boolean definePersisted(QuillInterpreter interpreter, ScopeContext scope, String name, int slot, boolean isConst) {
+        QuillValue persisted = interpreter.loadPersisted(name);
+        if (persisted == null) {
+            return false;
+        }
+        bind(scope, name, slot, isConst, persisted);
+        return true;
+    }
+
+    static void define(QuillInterpreter interpreter, ScopeContext scope, String name, int slot, boolean isConst, QuillValue value) {
+        bind(scope, name, slot, isConst, value);
+        interpreter.persistIfTracked(name, value);
+    }
+
+    private static void bind(ScopeContext scope, String name, int slot, boolean isConst, QuillValue value) {
+        if (slot >= 0) {
+            scope.defineSlot(slot, name, value, isConst);
+        } else if (isConst) {
+            scope.defineConst(name, value);
+        } else {
+            scope.define(name, value);
+        }
+    }
+
+    static QuillValue assign(QuillInterpreter interpreter, ScopeContext scope, String name, QuillValue value) {
+        scope.set(name, value);
+        interpreter.persistIfTracked(name, value);
+        return value;
+    }
+
+    static QuillValue assignLocal(QuillInterpreter interpreter, ScopeContext scope, int depth, int slot, String name, QuillValue value) {
+        scope.assign(depth, slot, name, value);
+        interpreter.persistIfTracked(name, value);
+        return value;
+    }
+
+    static QuillValue assignMember(QuillValue value, QuillValue target, String property) {
+        if (target.isScope()) {
+            target.asScope().getScope().set(property, value);
+            return value;
+        }
+
+        if (target.isMap()) {
+            ((MapValue) target).put(property, value);
+            return value;
+        }
+
+        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-assign", target.getType()));
+    }
+
+    static QuillValue assignIndex(QuillValue value, QuillValue target, QuillValue index) {
+        QuillInterpreter.setIndex(target, index, value);
+        return value;
+    }
+
+    // === Calls ===
+
+    static QuillValue call(QuillValue callee, Frame frame, List<QuillValue> args) {
+        return frame.interpreter.callValue(callee, args, frame.budget);
+    }
+
+    static QuillValue newScope(double x1, double y1, double z1, double x2, double y2, double z2, QuillInterpreter interpreter, ScopeContext scope) {
+        ScopeContext globalScope = interpreter.getGlobalScope();
+        String worldName = globalScope.getRegion() != null ?
+            globalScope.getRegion().getWorldName() : "world";
+
+        ScopeContext.Region region = new ScopeContext.Region(x1, y1, z1, x2, y2, z2, worldName);
+        return new ScopeValue(new ScopeContext("subscope", scope, region));
+    }
+
+    // === Control Flow ===
+
+    /**
+     * Parent scope for the iterations of a for loop; loops over scope.players run inside that scope.
+     */
+    static ScopeContext loopParent(QuillValue object, ScopeContext scope) {
+        if (object != null && object.isScope()) {
+            return object.asScope().getScope();
+        }
+        return scope;
+    }
+
+    static Iterator<QuillValue> iterator(QuillValue items) {
+        return items.iterator();
+    }
+
+    static ScopeContext iterationScope(ScopeContext parent, SlotLayout layout, String variable, Object item) {
+        ScopeContext scope = new ScopeContext(parent, layout);
+        scope.bind(0, variable, (QuillValue) item);
+        return scope;
+    }
+
+    static ScopeContext catchScope(Exception error, ScopeContext scope, SlotLayout layout, String variable) {
+        ScopeContext catchScope = new ScopeContext(scope, layout);
+        catchScope.bind(0, variable, new StringValue(error.getMessage()));
+        return catchScope;
+    }
+
+    /**
+     * Tag an error escaping a compiled handler with the position of the statement that raised it.
+     */
+    static RuntimeException locate(RuntimeException error, String chunk, int[] lines, int[] columns, int position) {
+        if (error instanceof ScriptError || position < 0) {
+            return error;
+        }
+        return new ScriptError(error, chunk, lines[position], columns[position]);
+    }
+}
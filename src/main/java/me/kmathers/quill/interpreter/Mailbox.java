@@ -0,0 +1,80 @@
+package me.kmathers.quill.interpreter;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Work queued for one interpreter: events to handle and handlers to resume after a wait.
+ * Anything can post to it, but only one worker drains it at a time, so a script never runs on two threads at once.
+ * A worker takes a batch at a time and then hands the mailbox back to the pool, so a busy script can't hold a thread
+ * while others are waiting.
+ */
+final class Mailbox implements Runnable {
+    // Tasks run per turn on a worker before the mailbox goes to the back of the pool's queue
+    private static final int BATCH = 64;
+
+    private final Executor workers;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // Set while the mailbox is queued on or being drained by a worker
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    Mailbox(Executor workers) {
+        this.workers = workers;
+    }
+
+    void post(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    /**
+     * Run the task on the calling thread straight away, as long as no worker holds the mailbox and nothing is queued ahead of it.
+     * Returns false without running it otherwise.
+     */
+    boolean runNow(Runnable task) {
+        if (!tasks.isEmpty() || !scheduled.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            task.run();
+        } finally {
+            scheduled.set(false);
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+            }
+        } finally {
+            scheduled.set(false);
+            // Anything posted while this turn was finishing still needs a worker
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                workers.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The workers have shut down with the plugin, so the work is dropped
+            }
+        }
+    }
+}
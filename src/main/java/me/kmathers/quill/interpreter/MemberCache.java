@@ -0,0 +1,56 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.interpreter.QuillValue.ValueType;
+
+/**
+ * Inline cache for a single member access site such as player.health.
+ * Remembers the accessor for each receiver type seen at the site, so repeated accesses skip the
+ * type checks and property switch. Sites that see more than a few types go back to the generic lookup.
+ */
+final class MemberCache {
+    // Receiver types cached per site before it is treated as megamorphic
+    private static final int MAX_TYPES = 4;
+
+    /**
+     * Reads one property from receivers of one type.
+     */
+    @FunctionalInterface
+    interface Accessor {
+        QuillValue get(QuillValue object);
+    }
+
+    private record Entry(ValueType type, Accessor accessor, Entry next, int size) {}
+
+    private final String property;
+    // Entries are never modified, so racing threads at worst cache the same type twice
+    private volatile Entry entries;
+    private volatile boolean megamorphic;
+
+    MemberCache(String property) {
+        this.property = property;
+    }
+
+    QuillValue get(QuillValue object) {
+        ValueType type = object.getType();
+        for (Entry entry = entries; entry != null; entry = entry.next) {
+            if (entry.type == type) {
+                return entry.accessor.get(object);
+            }
+        }
+        return miss(object, type);
+    }
+
+    private QuillValue miss(QuillValue object, ValueType type) {
+        Accessor accessor = QuillInterpreter.memberAccessor(type, property);
+        if (!megamorphic) {
+            Entry head = entries;
+            int size = head != null ? head.size : 0;
+            if (size < MAX_TYPES) {
+                entries = new Entry(type, accessor, head, size + 1);
+            } else {
+                megamorphic = true;
+            }
+        }
+        return accessor.get(object);
+    }
+}
@@ -0,0 +1,38 @@
+package me.kmathers.quill.interpreter;
+
+/**
+ * A call site that names its function directly, bound when the script is linked.
+ * Holds the built-in the name refers to, if any, whether it can take the site's arguments directly,
+ * and the script scope's verdict on whether the name may be called, which is only worked out again
+ * after the scope's permissions change.
+ */
+final class NamedCall {
+    final String name;
+    // Null if the name refers to a script function
+    final QuillInterpreter.BuiltInFunction builtIn;
+    // Whether the built-in is called through call0 to call3 rather than with an argument list
+    final boolean fixedArity;
+    private final QuillInterpreter interpreter;
+
+    // Permission epoch the verdict belongs to, shifted left one bit, with the low bit set if the call is allowed
+    private volatile long verdict = -1;
+
+    NamedCall(String name, int argCount, QuillInterpreter interpreter) {
+        this.name = name;
+        this.builtIn = interpreter.getBuiltIn(name);
+        this.fixedArity = builtIn != null && argCount <= 3 && builtIn.accepts(argCount);
+        this.interpreter = interpreter;
+    }
+
+    void checkPermission() {
+        long current = verdict;
+        int epoch = interpreter.getPermissionEpoch();
+        if (current >>> 1 != epoch) {
+            current = ((long) epoch << 1) | (interpreter.isPermitted(name) ? 1 : 0);
+            verdict = current;
+        }
+        if ((current & 1) == 0) {
+            interpreter.checkPermission(name);
+        }
+    }
+}
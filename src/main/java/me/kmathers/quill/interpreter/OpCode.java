@@ -0,0 +1,96 @@
+package me.kmathers.quill.interpreter;
+
+/**
+ * Instruction set for the Quill VM.
+ * Operands follow the opcode inline in the code array; the comment on each opcode lists them.
+ */
+public final class OpCode {
+    private OpCode() {}
+
+    // === Stack ===
+    public static final int CONST = 0;            // constant index
+    public static final int NULL = 1;
+    public static final int POP = 2;
+
+    // === Variables ===
+    public static final int LOAD = 3;             // name index
+    public static final int STORE = 4;            // name index
+    public static final int DECLARE_PERSISTED = 5; // name index, const flag, jump target
+    public static final int DEFINE = 6;           // name index, const flag
+
+    // === Members and Indexes ===
+    public static final int GET_MEMBER = 7;       // member cache constant index
+    public static final int SET_MEMBER = 8;       // property index
+    public static final int GET_INDEX = 9;
+    public static final int SET_INDEX = 10;
+
+    // === Operators ===
+    public static final int ADD = 11;
+    public static final int SUB = 12;
+    public static final int MUL = 13;
+    public static final int DIV = 14;
+    public static final int MOD = 15;
+    public static final int EQ = 16;
+    public static final int NE = 17;
+    public static final int GT = 18;
+    public static final int LT = 19;
+    public static final int GE = 20;
+    public static final int LE = 21;
+    public static final int NOT = 22;
+    public static final int NEG = 23;
+
+    // === Literals ===
+    public static final int LIST = 24;            // element count
+    public static final int MAP = 25;             // key array constant index
+    public static final int INTERPOLATE = 26;     // literal segments constant index
+    public static final int NEW_SCOPE = 27;        // argument count
+
+    // === Calls ===
+    public static final int RESOLVE_CALLEE = 28;  // named call constant index
+    public static final int CALL = 29;            // argument count
+    public static final int CALL_BUILTIN = 30;    // argument count
+    public static final int FUNCTION = 31;        // function template constant index
+    public static final int RETURN = 32;
+    public static final int RETURN_NULL = 33;
+
+    // === Control Flow ===
+    public static final int JUMP = 34;            // target
+    public static final int JUMP_IF_FALSE = 35;   // target
+    public static final int ITER_START = 36;
+    public static final int ITER_PLAYERS = 37;
+    public static final int ITER_NEXT = 38;       // variable index, exit target
+    public static final int POP_SCOPE = 39;
+    public static final int TRY_BEGIN = 40;       // catch target
+    public static final int TRY_END = 41;
+    public static final int CATCH = 42;           // variable index
+    public static final int HANDLER = 43;         // handler template constant index
+    public static final int WAIT = 44;            // named call constant index
+
+    private static final String[] NAMES = {
+        "CONST", "NULL", "POP", "LOAD", "STORE", "DECLARE_PERSISTED", "DEFINE",
+        "GET_MEMBER", "SET_MEMBER", "GET_INDEX", "SET_INDEX",
+        "ADD", "SUB", "MUL", "DIV", "MOD", "EQ", "NE", "GT", "LT", "GE", "LE", "NOT", "NEG",
+        "LIST", "MAP", "INTERPOLATE", "NEW_SCOPE",
+        "RESOLVE_CALLEE", "CALL", "CALL_BUILTIN", "FUNCTION", "RETURN", "RETURN_NULL",
+        "JUMP", "JUMP_IF_FALSE", "ITER_START", "ITER_PLAYERS", "ITER_NEXT", "POP_SCOPE", "TRY_BEGIN", "TRY_END", "CATCH", "HANDLER",
+        "WAIT"
+    };
+
+    private static final int[] OPERANDS = {
+        1, 0, 0, 1, 1, 3, 2,
+        1, 1, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        1, 1, 1, 1,
+        1, 1, 1, 1, 0, 0,
+        1, 1, 0, 0, 2, 0, 1, 0, 1, 1,
+        1
+    };
+
+    public static String name(int op) {
+        return op >= 0 && op < NAMES.length ? NAMES[op] : "UNKNOWN(" + op + ")";
+    }
+
+    public static int operandCount(int op) {
+        return OPERANDS[op];
+    }
+}
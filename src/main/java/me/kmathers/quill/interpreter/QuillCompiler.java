@@ -0,0 +1,492 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.QuillValue.*;
+import me.kmathers.quill.parser.AST;
+import me.kmathers.quill.parser.AST.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a parsed Quill program into bytecode for {@link QuillVM}.
+ * Every function and event handler body becomes its own {@link Chunk}.
+ */
+public class QuillCompiler {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    // Interpreter the chunks run on; calls by name are bound to its built-ins
+    private final QuillInterpreter interpreter;
+
+    public QuillCompiler(QuillInterpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    public Chunk compile(Program program, String name) {
+        Builder builder = new Builder(name);
+        builder.compileBlock(program.statements);
+        builder.emit(OpCode.RETURN_NULL);
+        return builder.build();
+    }
+
+    private static class Loop {
+        final int blockDepth;
+        final List<Integer> breakJumps = new ArrayList<>();
+        final List<Integer> continueJumps = new ArrayList<>();
+
+        Loop(int blockDepth) {
+            this.blockDepth = blockDepth;
+        }
+    }
+
+    // Blocks that must be unwound when break or continue jumps out of them
+    private static final int BLOCK_TRY = 0;
+    private static final int BLOCK_SCOPE = 1;
+
+    private class Builder {
+        private final String name;
+        private int[] code = new int[64];
+        private int size = 0;
+
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndex = new HashMap<>();
+
+        private int depth = 0;
+        private int maxDepth = 0;
+
+        private final List<Integer> lineStarts = new ArrayList<>();
+        private final List<Integer> lines = new ArrayList<>();
+        private final List<Integer> columns = new ArrayList<>();
+        private int line = 0;
+        private int column = 0;
+
+        private final List<Loop> loops = new ArrayList<>();
+        private final List<Integer> blocks = new ArrayList<>();
+
+        Builder(String name) {
+            this.name = name;
+        }
+
+        Chunk build() {
+            return new Chunk(
+                name,
+                Arrays.copyOf(code, size),
+                constants.toArray(),
+                maxDepth,
+                toArray(lineStarts),
+                toArray(lines),
+                toArray(columns)
+            );
+        }
+
+        // === Emission ===
+
+        void emit(int op, int... operands) {
+            if (lineStarts.isEmpty() || lines.get(lines.size() - 1) != line || columns.get(columns.size() - 1) != column) {
+                lineStarts.add(size);
+                lines.add(line);
+                columns.add(column);
+            }
+
+            ensureCapacity(1 + operands.length);
+            code[size++] = op;
+            for (int operand : operands) {
+                code[size++] = operand;
+            }
+        }
+
+        /**
+         * Emit a jump and return the offset of its target operand so it can be patched later.
+         */
+        int emitJump(int op, int... leadingOperands) {
+            int[] operands = Arrays.copyOf(leadingOperands, leadingOperands.length + 1);
+            operands[operands.length - 1] = -1;
+            emit(op, operands);
+            return size - 1;
+        }
+
+        void patch(int operand) {
+            code[operand] = size;
+        }
+
+        void adjust(int delta) {
+            depth += delta;
+            if (depth > maxDepth) {
+                maxDepth = depth;
+            }
+        }
+
+        int constant(Object key, Object value) {
+            Integer index = constantIndex.get(key);
+            if (index == null) {
+                index = constants.size();
+                constants.add(value);
+                constantIndex.put(key, index);
+            }
+            return index;
+        }
+
+        int name(String name) {
+            return constant(List.of("name", name), name);
+        }
+
+        int unique(Object value) {
+            constants.add(value);
+            return constants.size() - 1;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > code.length) {
+                code = Arrays.copyOf(code, Math.max(code.length * 2, size + extra));
+            }
+        }
+
+        private static int[] toArray(List<Integer> list) {
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            return array;
+        }
+
+        // === Statements ===
+
+        void compileBlock(List<ASTNode> statements) {
+            for (ASTNode statement : statements) {
+                compileStatement(statement);
+            }
+        }
+
+        void compileStatement(ASTNode node) {
+            int previousLine = line;
+            int previousColumn = column;
+            line = node.line;
+            column = node.column;
+
+            if (node instanceof VariableDeclaration n) {
+                int nameIndex = name(n.name);
+                int flag = n.isConst ? 1 : 0;
+                int skip = emitJump(OpCode.DECLARE_PERSISTED, nameIndex, flag);
+                if (n.value != null) {
+                    compileExpression(n.value);
+                } else {
+                    emit(OpCode.NULL);
+                    adjust(1);
+                }
+                emit(OpCode.DEFINE, nameIndex, flag);
+                adjust(-1);
+                patch(skip);
+            } else if (node instanceof FunctionDeclaration n) {
+                Builder body = new Builder(n.name);
+                body.compileBlock(n.body);
+                body.emit(OpCode.RETURN_NULL);
+                emit(OpCode.FUNCTION, unique(new Chunk.FunctionTemplate(n, body.build())));
+            } else if (node instanceof ReturnStatement n) {
+                if (n.value != null) {
+                    compileExpression(n.value);
+                    emit(OpCode.RETURN);
+                    adjust(-1);
+                } else {
+                    emit(OpCode.RETURN_NULL);
+                }
+            } else if (node instanceof IfStatement n) {
+                compileExpression(n.condition);
+                int toElse = emitJump(OpCode.JUMP_IF_FALSE);
+                adjust(-1);
+                compileBlock(n.thenBranch);
+                if (n.elseBranch != null) {
+                    int toEnd = emitJump(OpCode.JUMP);
+                    patch(toElse);
+                    compileBlock(n.elseBranch);
+                    patch(toEnd);
+                } else {
+                    patch(toElse);
+                }
+            } else if (node instanceof WhileStatement n) {
+                int start = size;
+                compileExpression(n.condition);
+                int exit = emitJump(OpCode.JUMP_IF_FALSE);
+                adjust(-1);
+
+                Loop loop = new Loop(blocks.size());
+                loops.add(loop);
+                compileBlock(n.body);
+                loops.remove(loops.size() - 1);
+
+                emit(OpCode.JUMP, start);
+                for (int jump : loop.continueJumps) code[jump] = start;
+                patch(exit);
+                for (int jump : loop.breakJumps) patch(jump);
+            } else if (node instanceof ForStatement n) {
+                compileFor(n);
+            } else if (node instanceof BreakStatement) {
+                Loop loop = innermostLoop("break");
+                unwindTo(loop);
+                loop.breakJumps.add(emitJump(OpCode.JUMP));
+            } else if (node instanceof ContinueStatement) {
+                Loop loop = innermostLoop("continue");
+                unwindTo(loop);
+                loop.continueJumps.add(emitJump(OpCode.JUMP));
+            } else if (node instanceof TryStatement n) {
+                int toCatch = emitJump(OpCode.TRY_BEGIN);
+                blocks.add(BLOCK_TRY);
+                compileBlock(n.tryBlock);
+                blocks.remove(blocks.size() - 1);
+                emit(OpCode.TRY_END);
+                int toEnd = emitJump(OpCode.JUMP);
+
+                patch(toCatch);
+                emit(OpCode.CATCH, name(n.errorVariable));
+                blocks.add(BLOCK_SCOPE);
+                compileBlock(n.catchBlock);
+                blocks.remove(blocks.size() - 1);
+                emit(OpCode.POP_SCOPE);
+                patch(toEnd);
+            } else if (node instanceof AST.EventHandler n) {
+                Builder body = new Builder(n.eventName);
+                body.compileBlock(n.body);
+                body.emit(OpCode.RETURN_NULL);
+                emit(OpCode.HANDLER, unique(new Chunk.HandlerTemplate(n, body.build())));
+            } else if (node instanceof ExpressionStatement n) {
+                ASTNode ticks = QuillLinker.waitTicks(n);
+                if (ticks != null) {
+                    compileExpression(ticks);
+                    emit(OpCode.WAIT, unique(new NamedCall("wait", 1, interpreter)));
+                } else {
+                    // A call followed straight by POP is made as a statement, which the VM lets wait
+                    compileExpression(n.expression);
+                    emit(OpCode.POP);
+                }
+                adjust(-1);
+            } else {
+                compileExpression(node);
+                emit(OpCode.POP);
+                adjust(-1);
+            }
+
+            line = previousLine;
+            column = previousColumn;
+        }
+
+        private void compileFor(ForStatement n) {
+            // Loops over scope.players run inside that scope
+            if (n.iterable instanceof MemberExpression member && member.property.equals("players")) {
+                compileExpression(member.object);
+                emit(OpCode.ITER_PLAYERS);
+            } else {
+                compileExpression(n.iterable);
+                emit(OpCode.ITER_START);
+            }
+
+            int start = size;
+            int exit = emitJump(OpCode.ITER_NEXT, name(n.variable));
+
+            // The iteration scope is left by the continue and break landing code below
+            blocks.add(BLOCK_SCOPE);
+            Loop loop = new Loop(blocks.size());
+            loops.add(loop);
+            compileBlock(n.body);
+            loops.remove(loops.size() - 1);
+            blocks.remove(blocks.size() - 1);
+
+            // Continue lands here: leave the iteration scope and fetch the next item
+            for (int jump : loop.continueJumps) patch(jump);
+            emit(OpCode.POP_SCOPE);
+            emit(OpCode.JUMP, start);
+
+            // Break lands here: leave the iteration scope and drop the iterator
+            for (int jump : loop.breakJumps) patch(jump);
+            emit(OpCode.POP_SCOPE);
+            emit(OpCode.POP);
+
+            patch(exit);
+            adjust(-1);
+        }
+
+        // && and || only evaluate their right side when the left doesn't decide the result
+        private void compileLogical(BinaryExpression n) {
+            int trueConstant = constant(List.of("boolean", true), BooleanValue.of(true));
+            int falseConstant = constant(List.of("boolean", false), BooleanValue.of(false));
+            List<Integer> toFalse = new ArrayList<>();
+            List<Integer> toEnd = new ArrayList<>();
+
+            compileExpression(n.left);
+            if (n.operator.equals("&&")) {
+                toFalse.add(emitJump(OpCode.JUMP_IF_FALSE));
+                adjust(-1);
+            } else {
+                int toRight = emitJump(OpCode.JUMP_IF_FALSE);
+                adjust(-1);
+                emit(OpCode.CONST, trueConstant);
+                toEnd.add(emitJump(OpCode.JUMP));
+                patch(toRight);
+            }
+
+            compileExpression(n.right);
+            toFalse.add(emitJump(OpCode.JUMP_IF_FALSE));
+            adjust(-1);
+            emit(OpCode.CONST, trueConstant);
+            toEnd.add(emitJump(OpCode.JUMP));
+
+            for (int jump : toFalse) patch(jump);
+            emit(OpCode.CONST, falseConstant);
+            for (int jump : toEnd) patch(jump);
+            adjust(1);
+        }
+
+        private Loop innermostLoop(String keyword) {
+            if (loops.isEmpty()) {
+                throw new RuntimeException(plugin.translate("quill.error.runtime.compiler.outside-loop", keyword, line));
+            }
+            return loops.get(loops.size() - 1);
+        }
+
+        private void unwindTo(Loop loop) {
+            for (int i = blocks.size() - 1; i >= loop.blockDepth; i--) {
+                emit(blocks.get(i) == BLOCK_TRY ? OpCode.TRY_END : OpCode.POP_SCOPE);
+            }
+        }
+
+        // === Expressions ===
+
+        void compileExpression(ASTNode node) {
+            int previousLine = line;
+            int previousColumn = column;
+            line = node.line;
+            column = node.column;
+
+            if (node instanceof NumberLiteral n) {
+                emit(OpCode.CONST, constant(List.of("number", n.value), NumberValue.of(n.value)));
+                adjust(1);
+            } else if (node instanceof StringLiteral n) {
+                emit(OpCode.CONST, constant(List.of("string", n.value), new StringValue(n.value)));
+                adjust(1);
+            } else if (node instanceof InterpolatedString n) {
+                for (ASTNode expression : n.expressions) {
+                    compileExpression(expression);
+                }
+                emit(OpCode.INTERPOLATE, constant(List.of("literals", n.literals), n.literals.toArray(new String[0])));
+                adjust(1 - n.expressions.size());
+            } else if (node instanceof BooleanLiteral n) {
+                emit(OpCode.CONST, constant(List.of("boolean", n.value), BooleanValue.of(n.value)));
+                adjust(1);
+            } else if (node instanceof NullLiteral) {
+                emit(OpCode.NULL);
+                adjust(1);
+            } else if (node instanceof ListLiteral n) {
+                for (ASTNode element : n.elements) {
+                    compileExpression(element);
+                }
+                emit(OpCode.LIST, n.elements.size());
+                adjust(1 - n.elements.size());
+            } else if (node instanceof MapLiteral n) {
+                String[] keys = new String[n.entries.size()];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = n.entries.get(i).key;
+                    compileExpression(n.entries.get(i).value);
+                }
+                emit(OpCode.MAP, unique(keys));
+                adjust(1 - keys.length);
+            } else if (node instanceof Identifier n) {
+                emit(OpCode.LOAD, name(n.name));
+                adjust(1);
+            } else if (node instanceof MemberExpression n) {
+                compileExpression(n.object);
+                emit(OpCode.GET_MEMBER, unique(new MemberCache(n.property)));
+            } else if (node instanceof IndexExpression n) {
+                compileExpression(n.object);
+                compileExpression(n.index);
+                emit(OpCode.GET_INDEX);
+                adjust(-1);
+            } else if (node instanceof BinaryExpression n && (n.operator.equals("&&") || n.operator.equals("||"))) {
+                compileLogical(n);
+            } else if (node instanceof BinaryExpression n) {
+                compileExpression(n.left);
+                compileExpression(n.right);
+                emit(binaryOp(n.operator));
+                adjust(-1);
+            } else if (node instanceof UnaryExpression n) {
+                compileExpression(n.operand);
+                switch (n.operator) {
+                    case "!": emit(OpCode.NOT); break;
+                    case "-": emit(OpCode.NEG); break;
+                    default:
+                        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-op", "unary", n.operator));
+                }
+            } else if (node instanceof AssignmentExpression n) {
+                compileAssignment(n);
+            } else if (node instanceof CallExpression n) {
+                NamedCall named = null;
+                if (n.callee instanceof Identifier callee) {
+                    named = new NamedCall(callee.name, n.arguments.size(), interpreter);
+                    emit(OpCode.RESOLVE_CALLEE, unique(named));
+                    adjust(1);
+                } else {
+                    compileExpression(n.callee);
+                }
+                for (ASTNode argument : n.arguments) {
+                    compileExpression(argument);
+                }
+                emit(named != null && named.fixedArity ? OpCode.CALL_BUILTIN : OpCode.CALL, n.arguments.size());
+                adjust(-n.arguments.size());
+            } else if (node instanceof ScopeCreation n) {
+                if (n.arguments.size() == 6) {
+                    for (ASTNode argument : n.arguments) {
+                        compileExpression(argument);
+                    }
+                    emit(OpCode.NEW_SCOPE, 6);
+                    adjust(-5);
+                } else {
+                    // Wrong argument count is reported when the statement runs, like the tree engine
+                    emit(OpCode.NEW_SCOPE, n.arguments.size());
+                    adjust(1);
+                }
+            } else {
+                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-ast", node.getClass().getName()));
+            }
+
+            line = previousLine;
+            column = previousColumn;
+        }
+
+        private void compileAssignment(AssignmentExpression n) {
+            compileExpression(n.value);
+
+            if (n.target instanceof Identifier target) {
+                emit(OpCode.STORE, name(target.name));
+            } else if (n.target instanceof MemberExpression target) {
+                compileExpression(target.object);
+                emit(OpCode.SET_MEMBER, name(target.property));
+                adjust(-1);
+            } else if (n.target instanceof IndexExpression target) {
+                compileExpression(target.object);
+                compileExpression(target.index);
+                emit(OpCode.SET_INDEX);
+                adjust(-2);
+            } else {
+                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.invalid-assignee"));
+            }
+        }
+
+        private static int binaryOp(String operator) {
+            switch (operator) {
+                case "+": return OpCode.ADD;
+                case "-": return OpCode.SUB;
+                case "*": return OpCode.MUL;
+                case "/": return OpCode.DIV;
+                case "%": return OpCode.MOD;
+                case "==": return OpCode.EQ;
+                case "!=": return OpCode.NE;
+                case ">": return OpCode.GT;
+                case "<": return OpCode.LT;
+                case ">=": return OpCode.GE;
+                case "<=": return OpCode.LE;
+                default:
+                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-op", "binary", operator));
+            }
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package me.kmathers.quill.interpreter;
 
-import me.kmathers.quill.parser.AST;
 import me.kmathers.quill.parser.AST.*;
 import me.kmathers.quill.parser.QuillParser;
+import me.kmathers.quill.parser.QuillResolver;
 import me.kmathers.quill.utils.Scope;
 import me.kmathers.quill.Quill;
 import me.kmathers.quill.QuillScopeManager;
@@ -76,377 +76,203 @@ import me.kmathers.quill.interpreter.BuiltInWorldFuncs.SetWeatherFunction;
 import me.kmathers.quill.interpreter.BuiltInWorldFuncs.SpawnEntityFunction;
 import me.kmathers.quill.interpreter.BuiltInWorldFuncs.StrikeLightningFunction;
 import me.kmathers.quill.interpreter.QuillValue.*;
-import me.kmathers.quill.lexer.QuillLexer;
-import me.kmathers.quill.lexer.QuillLexer.Token;
 
 import org.bukkit.entity.Player;
 
+import java.lang.invoke.SwitchPoint;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Tree-walking interpreter for Quill.
- * Executes AST nodes and manages runtime state.
+ * Interpreter for Quill.
+ * Links AST nodes into an executor tree and manages runtime state.
  */
 public class QuillInterpreter {
     private ScopeContext globalScope;
-    private ScopeContext currentScope;
     private Map<String, BuiltInFunction> builtIns;
-    private Map<String, List<EventHandler>> eventHandlers;
+    private Map<String, List<Handler>> eventHandlers;
+    // Event context names read by any handler of each event
+    private final Map<String, Set<String>> contextReads = new HashMap<>();
     private Scope permissionScope;
-    
-    private static class ReturnSignal extends RuntimeException {
-        final QuillValue value;
-        ReturnSignal(QuillValue value) { this.value = value; }
-    }
-    
-    private static class BreakSignal extends RuntimeException {}
-    private static class ContinueSignal extends RuntimeException {}
+    private final ExecutionEngine engine;
+    private final QuillLinker linker = new QuillLinker(this);
+    private final int jitThreshold;
+    private final long stepBudget;
+    private final long timeBudget;
+    private final Map<String, List<SwitchPoint>> globalAssumptions = new ConcurrentHashMap<>();
+    // Set once the script is unloaded, so handlers still waiting are dropped instead of resumed
+    private volatile boolean stopped;
+    // Events and resumed waits for this script, run one at a time on the dispatcher's workers
+    private final Mailbox mailbox;
     
     private static Quill plugin = Quill.getPlugin(Quill.class);
+    private static WaitScheduler waits = new WaitScheduler();
 
     public QuillInterpreter(ScopeContext globalScope, QuillScopeManager scopeManager) {
         this.globalScope = globalScope;
-        this.currentScope = globalScope;
         this.builtIns = new HashMap<>();
         this.eventHandlers = new HashMap<>();
         this.permissionScope = scopeManager.getScope(globalScope.getName());
+        this.engine = permissionScope != null && permissionScope.getEngine() != null
+            ? permissionScope.getEngine()
+            : plugin.getDefaultEngine();
+        this.jitThreshold = plugin.getJitThreshold();
+        this.stepBudget = plugin.getStepBudget();
+        this.timeBudget = plugin.getTimeBudget();
+        this.mailbox = new Mailbox(plugin.getDispatcher().getWorkers());
+        globalScope.setBindingListener(this::globalBound);
         registerBuiltIns();
     }
     
     // === Main Evaluation ===
     
     public void execute(Program program) {
-        for (ASTNode statement : program.statements) {
-            evaluate(statement);
+        new QuillOptimizer(linker).optimize(program);
+        new QuillResolver().resolve(program);
+        // Loading runs once, often before the JVM has warmed up, so only its steps are limited
+        Frame frame = new Frame(this, globalScope, newBudget(0));
+        try {
+            if (engine == ExecutionEngine.VM) {
+                Chunk chunk = new QuillCompiler(this).compile(program, globalScope.getName());
+                chunk.run(frame);
+            } else {
+                Exec.Node[] code = linker.link(program);
+                Exec.runBlock(code, frame);
+            }
+        } catch (Suspension e) {
+            // Handlers are registered as loading runs, so it has to finish in one go
+            throw Suspension.misplaced();
+        } catch (Budget.Exceeded e) {
+            budgetExceeded(e);
+            throw new RuntimeException(e.getMessage());
         }
     }
     
+    /**
+     * Evaluate a single AST node against the global scope.
+     */
     public QuillValue evaluate(ASTNode node) {
         if (node == null) {
             return NullValue.INSTANCE;
         }
-        
-        // Literals
-        if (node instanceof NumberLiteral) {
-            return evaluateNumberLiteral((NumberLiteral) node);
-        } else if (node instanceof StringLiteral) {
-            return evaluateStringLiteral((StringLiteral) node);
-        } else if (node instanceof BooleanLiteral) {
-            return evaluateBooleanLiteral((BooleanLiteral) node);
-        } else if (node instanceof NullLiteral) {
-            return NullValue.INSTANCE;
-        } else if (node instanceof ListLiteral) {
-            return evaluateListLiteral((ListLiteral) node);
-        } else if (node instanceof MapLiteral) {
-            return evaluateMapLiteral((MapLiteral) node);
-        }
-        
-        // Identifiers and member access
-        else if (node instanceof Identifier) {
-            return evaluateIdentifier((Identifier) node);
-        } else if (node instanceof MemberExpression) {
-            return evaluateMemberExpression((MemberExpression) node);
-        } else if (node instanceof IndexExpression) {
-            return evaluateIndexExpression((IndexExpression) node);
-        }
-        
-        // Expressions
-        else if (node instanceof BinaryExpression) {
-            return evaluateBinaryExpression((BinaryExpression) node);
-        } else if (node instanceof UnaryExpression) {
-            return evaluateUnaryExpression((UnaryExpression) node);
-        } else if (node instanceof AssignmentExpression) {
-            return evaluateAssignmentExpression((AssignmentExpression) node);
-        } else if (node instanceof CallExpression) {
-            CallExpression call = (CallExpression) node;
-            
-            String functionName = null;
-            if (call.callee instanceof Identifier) {
-                functionName = ((Identifier) call.callee).name;
-            }
-            
-            if (permissionScope != null && !(permissionScope.getName().equals("global"))) {
-                if (functionName != null && !permissionScope.hasPermission(functionName)) {
-                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.missing-permission", permissionScope.getName(), functionName));
-                }
-            }
-            
-            return evaluateCallExpression(call);
-        }
-        
-        // Statements
-        else if (node instanceof VariableDeclaration) {
-            return evaluateVariableDeclaration((VariableDeclaration) node);
-        } else if (node instanceof FunctionDeclaration) {
-            return evaluateFunctionDeclaration((FunctionDeclaration) node);
-        } else if (node instanceof ReturnStatement) {
-            return evaluateReturnStatement((ReturnStatement) node);
-        } else if (node instanceof IfStatement) {
-            return evaluateIfStatement((IfStatement) node);
-        } else if (node instanceof WhileStatement) {
-            return evaluateWhileStatement((WhileStatement) node);
-        } else if (node instanceof ForStatement) {
-            return evaluateForStatement((ForStatement) node);
-        } else if (node instanceof BreakStatement) {
-            throw new BreakSignal();
-        } else if (node instanceof ContinueStatement) {
-            throw new ContinueSignal();
-        } else if (node instanceof TryStatement) {
-            return evaluateTryStatement((TryStatement) node);
-        } else if (node instanceof EventHandler) {
-            return evaluateEventHandler((EventHandler) node);
-        } else if (node instanceof ScopeCreation) {
-            return evaluateScopeCreation((ScopeCreation) node);
-        } else if (node instanceof ExpressionStatement) {
-            return evaluate(((ExpressionStatement) node).expression);
+        try {
+            return linker.link(node).execute(new Frame(this, globalScope));
+        } catch (Suspension e) {
+            throw Suspension.misplaced();
         }
-        
-        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-ast", node.getClass().getName()));
     }
     
-    // === Literal Evaluation ===
-    
-    private QuillValue evaluateNumberLiteral(NumberLiteral node) {
-        return new NumberValue(node.value);
-    }
+    // === String Interpolation ===
 
-    @SuppressWarnings("unused")
-    private QuillValue evaluateStringLiteral(StringLiteral node) {
-        String result = node.value;
-        int start = 0;
-        while ((start = result.indexOf('{', start)) != -1) {
-            int end = result.indexOf('}', start);
-            if (end == -1) break;
+    /**
+     * Starting size for an interpolated string's builder: its literal text plus some room for each value.
+     */
+    static int interpolationCapacity(String[] literals) {
+        int capacity = 16 * (literals.length - 1);
+        for (String literal : literals) {
+            capacity += literal.length();
+        }
+        return capacity;
+    }
+    
+    /**
+     * Join the literal segments of an interpolated string with the values of its placeholders,
+     * read from values starting at offset.
+     */
+    static QuillValue interpolate(String[] literals, Object[] values, int offset) {
+        StringBuilder sb = new StringBuilder(interpolationCapacity(literals));
+        sb.append(literals[0]);
+        for (int i = 1; i < literals.length; i++) {
+            sb.append(values[offset + i - 1].toString());
+            sb.append(literals[i]);
+        }
+        return new StringValue(sb.toString());
+    }
+    
+    // === Member and Index Access ===
+    
+    static QuillValue getMember(QuillValue object, String property) {
+        return memberAccessor(object.getType(), property).get(object);
+    }
+    
+    /**
+     * Accessor for one property of values of one type, as cached by member access sites.
+     */
+    static MemberCache.Accessor memberAccessor(ValueType type, String property) {
+        switch (type) {
+            case SCOPE:
+                switch (property) {
+                    case "players": return object -> new PlayerListValue(object.asScope().getScope().getPlayerView());
+                    case "region": return object -> {
+                        ScopeContext.Region region = object.asScope().getScope().getRegion();
+                        if (region == null) return NullValue.INSTANCE;
+                        
+                        return new RegionValue(
+                            region.getX1(),
+                            region.getY1(),
+                            region.getZ1(),
+                            region.getX2(),
+                            region.getY2(),
+                            region.getZ2()
+                        );
+                    };
+                    default: return object -> object.asScope().getScope().get(property);
+                }
             
-            String expression = result.substring(start + 1, end);
-            QuillValue value;
+            case PLAYER:
+                switch (property) {
+                    case "name": return object -> new StringValue(object.asPlayer().getName());
+                    case "health": return object -> NumberValue.of(object.asPlayer().getHealth());
+                    case "hunger": return object -> NumberValue.of(object.asPlayer().getFoodLevel());
+                    case "location": return object -> new LocationValue(object.asPlayer().getLocation());
+                    case "gamemode": return object -> new StringValue(object.asPlayer().getGameMode().name().toLowerCase());
+                    case "flying": return object -> BooleanValue.of(object.asPlayer().isFlying());
+                    case "online": return object -> BooleanValue.of(object.asPlayer().isOnline());
+                    default: return unknownProperty("player", property);
+                }
             
-            try {
-                // Parse and evaluate the expression as Quill code
-                QuillLexer lexer = new QuillLexer(expression);
-                List<Token> tokens = lexer.tokenize();
-                QuillParser parser = new QuillParser(tokens);
-                ASTNode expr = parser.parseExpression();
-                
-                value = evaluate(expr);
-            } catch (Exception e) {
-                if (expression.contains(".")) {
-                    String[] parts = expression.split("\\.", 2);
-                    String objectName = parts[0];
-                    String propertyName = parts[1];
-                    
-                    try {
-                        QuillValue object = currentScope.get(objectName);
-                        
-                        String[] allParts = expression.split("\\.");
-                        QuillValue current = currentScope.get(allParts[0]);
-                        
-                        for (int i = 1; i < allParts.length; i++) {
-                            String prop = allParts[i];
-                            
-                            if (current.isScope()) {
-                                ScopeContext scope = current.asScope().getScope();
-                                if (prop.equals("players")) {
-                                    List<QuillValue> players = scope.getPlayers().stream()
-                                        .map(PlayerValue::new)
-                                        .collect(java.util.stream.Collectors.toList());
-                                    current = new ListValue(players);
-                                } else if (prop.equals("region")) {
-                                    ScopeContext.Region region = scope.getRegion();
-                                    if (region == null) {
-                                        current = NullValue.INSTANCE;
-                                    } else {
-                                        current = new RegionValue(
-                                            region.getX1(), region.getY1(), region.getZ1(),
-                                            region.getX2(), region.getY2(), region.getZ2()
-                                        );
-                                    }
-                                } else {
-                                    current = scope.get(prop);
-                                }
-                            } else if (current.isPlayer()) {
-                                Player player = current.asPlayer();
-                                switch (prop) {
-                                    case "name": current = new StringValue(player.getName()); break;
-                                    case "health": current = new NumberValue(player.getHealth()); break;
-                                    case "hunger": current = new NumberValue(player.getFoodLevel()); break;
-                                    case "location": current = new LocationValue(player.getLocation()); break;
-                                    case "gamemode": current = new StringValue(player.getGameMode().name().toLowerCase()); break;
-                                    case "flying": current = new BooleanValue(player.isFlying()); break;
-                                    case "online": current = new BooleanValue(player.isOnline()); break;
-                                    default:
-                                        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "player", prop));
-                                }
-                            } else if (current.isLocation()) {
-                                org.bukkit.Location loc = current.asLocation();
-                                switch (prop) {
-                                    case "x": current = new NumberValue(loc.getX()); break;
-                                    case "y": current = new NumberValue(loc.getY()); break;
-                                    case "z": current = new NumberValue(loc.getZ()); break;
-                                    case "world": current = new WorldValue(loc.getWorld()); break;
-                                    default:
-                                        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "location", prop));
-                                }
-                            } else if (current.isItem()) {
-                                org.bukkit.inventory.ItemStack item = current.asItem();
-                                switch (prop) {
-                                    case "type": current = new StringValue(item.getType().name().toLowerCase()); break;
-                                    case "amount": current = new NumberValue(item.getAmount()); break;
-                                    default:
-                                        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "item", prop));
-                                }
-                            } else if (current.isEntity()) {
-                                org.bukkit.entity.Entity entity = current.asEntity();
-                                switch (prop) {
-                                    case "type": current = new StringValue(entity.getType().name().toLowerCase()); break;
-                                    case "location": current = new LocationValue(entity.getLocation()); break;
-                                    case "alive": current = new BooleanValue(!entity.isDead()); break;
-                                    default:
-                                        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "entity", prop));
-                                }
-                            } else if (current.isMap()) {
-                                MapValue mapValue = (MapValue) current;
-                                current = mapValue.get(prop);
-                            } else {
-                                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-prop", prop, current.getType()));
-                            }
-                        }
-                        
-                        value = current;
-                    } catch (RuntimeException ex) {
-                        value = currentScope.get(expression);
-                    }
-                } else {
-                    value = currentScope.get(expression);
+            case LOCATION:
+                switch (property) {
+                    case "x": return object -> NumberValue.of(object.asLocation().getX());
+                    case "y": return object -> NumberValue.of(object.asLocation().getY());
+                    case "z": return object -> NumberValue.of(object.asLocation().getZ());
+                    case "world": return object -> new WorldValue(object.asLocation().getWorld());
+                    default: return unknownProperty("location", property);
                 }
-            }
             
-            String replacement = value.toString();
-            result = result.substring(0, start) + replacement + result.substring(end + 1);
-            start += replacement.length();
-        }
-        return new StringValue(result);
-    }
-    
-    private QuillValue evaluateBooleanLiteral(BooleanLiteral node) {
-        return new BooleanValue(node.value);
-    }
-    
-    private QuillValue evaluateListLiteral(ListLiteral node) {
-        List<QuillValue> elements = new ArrayList<>();
-        for (ASTNode element : node.elements) {
-            elements.add(evaluate(element));
-        }
-        return new ListValue(elements);
-    }
-    
-    private QuillValue evaluateMapLiteral(MapLiteral node) {
-        AST.MapLiteral mapLiteral = (AST.MapLiteral) node;
-        Map<String, QuillValue> map = new HashMap<>();
-        
-        for (AST.MapLiteral.MapEntry entry : mapLiteral.entries) {
-            QuillValue value = evaluate(entry.value);
-            map.put(entry.key, value);
+            case ITEM:
+                switch (property) {
+                    case "type": return object -> new StringValue(object.asItem().getType().name().toLowerCase());
+                    case "amount": return object -> NumberValue.of(object.asItem().getAmount());
+                    default: return unknownProperty("item", property);
+                }
+            
+            case ENTITY:
+                switch (property) {
+                    case "type": return object -> new StringValue(object.asEntity().getType().name().toLowerCase());
+                    case "location": return object -> new LocationValue(object.asEntity().getLocation());
+                    case "alive": return object -> BooleanValue.of(!object.asEntity().isDead());
+                    default: return unknownProperty("entity", property);
+                }
+            
+            case MAP:
+                return object -> ((MapValue) object).get(property);
+            
+            default:
+                return object -> {
+                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-prop", property, object.getType()));
+                };
         }
-        
-        return new MapValue(map);
-    }
-    
-    // === Identifier and Member Access ===
-    
-    private QuillValue evaluateIdentifier(Identifier node) {
-        return currentScope.get(node.name);
     }
     
-    private QuillValue evaluateMemberExpression(MemberExpression node) {
-        QuillValue object = evaluate(node.object);
-        
-        if (object.isScope()) {
-            ScopeContext scope = object.asScope().getScope();
-            
-            if (node.property.equals("players")) {
-                List<QuillValue> players = scope.getPlayers().stream()
-                    .map(PlayerValue::new)
-                    .collect(Collectors.toList());
-                return new ListValue(players);
-            } else if (node.property.equals("region")) {
-                ScopeContext.Region region = scope.getRegion();
-                if (region == null) return NullValue.INSTANCE;
-                
-                return new RegionValue(
-                    region.getX1(),
-                    region.getY1(),
-                    region.getZ1(),
-                    region.getX2(),
-                    region.getY2(),
-                    region.getZ2()
-                );
-            } else {
-                return scope.get(node.property);
-            }
-        }
-        
-        if (object.isPlayer()) {
-            Player player = object.asPlayer();
-            switch (node.property) {
-                case "name": return new StringValue(player.getName());
-                case "health": return new NumberValue(player.getHealth());
-                case "hunger": return new NumberValue(player.getFoodLevel());
-                case "location": return new LocationValue(player.getLocation());
-                case "gamemode": return new StringValue(player.getGameMode().name().toLowerCase());
-                case "flying": return new BooleanValue(player.isFlying());
-                case "online": return new BooleanValue(player.isOnline());
-                default:
-                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "player", node.property));
-            }
-        }
-        
-        if (object.isLocation()) {
-            org.bukkit.Location loc = object.asLocation();
-            switch (node.property) {
-                case "x": return new NumberValue(loc.getX());
-                case "y": return new NumberValue(loc.getY());
-                case "z": return new NumberValue(loc.getZ());
-                case "world": return new WorldValue(loc.getWorld());
-                default:
-                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "location", node.property));
-            }
-        }
-        
-        if (object.isItem()) {
-            org.bukkit.inventory.ItemStack item = object.asItem();
-            switch (node.property) {
-                case "type": return new StringValue(item.getType().name().toLowerCase());
-                case "amount": return new NumberValue(item.getAmount());
-                default:
-                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "item", node.property));
-            }
-        }
-        
-        if (object.isEntity()) {
-            org.bukkit.entity.Entity entity = object.asEntity();
-            switch (node.property) {
-                case "type": return new StringValue(entity.getType().name().toLowerCase());
-                case "location": return new LocationValue(entity.getLocation());
-                case "alive": return new BooleanValue(!entity.isDead());
-                default:
-                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", "entity", node.property));
-            }
-        }
-        
-        if (object.isMap()) {
-            MapValue mapValue = (MapValue) object;
-            return mapValue.get(node.property);
-        }
-
-        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-prop", node.property, object.getType()));
+    private static MemberCache.Accessor unknownProperty(String typeName, String property) {
+        return object -> {
+            throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-prop", typeName, property));
+        };
     }
     
-    private QuillValue evaluateIndexExpression(IndexExpression node) {
-        QuillValue object = evaluate(node.object);
-        QuillValue index = evaluate(node.index);
-        
+    static QuillValue getIndex(QuillValue object, QuillValue index) {
         if (object.isMap()) {
             String key = index.asString();
             return object.asMap().getOrDefault(key, NullValue.INSTANCE);
@@ -461,56 +287,27 @@ public class QuillInterpreter {
         
         throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-index", object.getType()));
     }
-
-    // === Binary Expressions ===
     
-    private QuillValue evaluateBinaryExpression(BinaryExpression node) {
-        QuillValue left = evaluate(node.left);
-        QuillValue right = evaluate(node.right);
-        
-        switch (node.operator) {
-            case "+":
-                if (left.isNumber() && right.isNumber()) {
-                    return new NumberValue(left.asNumber() + right.asNumber());
-                }
-                return new StringValue(left.toString() + right.toString());
-                
-            case "-":
-                return new NumberValue(left.asNumber() - right.asNumber());
-            case "*":
-                return new NumberValue(left.asNumber() * right.asNumber());
-            case "/":
-                if (right.asNumber() == 0) {
-                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.zero-division"));
-                }
-                return new NumberValue(left.asNumber() / right.asNumber());
-            case "%":
-                return new NumberValue(left.asNumber() % right.asNumber());
-                
-            case "==":
-                return new BooleanValue(isEqual(left, right));
-            case "!=":
-                return new BooleanValue(!isEqual(left, right));
-            case ">":
-                return new BooleanValue(left.asNumber() > right.asNumber());
-            case "<":
-                return new BooleanValue(left.asNumber() < right.asNumber());
-            case ">=":
-                return new BooleanValue(left.asNumber() >= right.asNumber());
-            case "<=":
-                return new BooleanValue(left.asNumber() <= right.asNumber());
-                
-            case "&&":
-                return new BooleanValue(left.isTruthy() && right.isTruthy());
-            case "||":
-                return new BooleanValue(left.isTruthy() || right.isTruthy());
-                
-            default:
-                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-op", "binary", node.operator));
+    static void setIndex(QuillValue object, QuillValue index, QuillValue value) {
+        if (object.isMap()) {
+            String key = index.asString();
+            MapValue mapValue = (MapValue) object;
+            mapValue.put(key, value);
+            return;
+        } else if (object.isList()) {
+            int idx = (int) index.asNumber();
+            List<QuillValue> list = object.asList();
+            if (idx < 0 || idx >= list.size()) {
+                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.index-out-of-bounds", idx, list.size()));
+            }
+            list.set(idx, value);
+            return;
         }
+        
+        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-index", object.getType()));
     }
     
-    private boolean isEqual(QuillValue left, QuillValue right) {
+    static boolean isEqual(QuillValue left, QuillValue right) {
         if (left.isNull() && right.isNull()) return true;
         if (left.isNull() || right.isNull()) return false;
         if (left.getType() != right.getType()) return false;
@@ -522,361 +319,277 @@ public class QuillInterpreter {
         return left.getValue() == right.getValue();
     }
     
-    // === Unary Expressions ===
+    // === Function Calls ===
     
-    private QuillValue evaluateUnaryExpression(UnaryExpression node) {
-        QuillValue operand = evaluate(node.operand);
-        
-        switch (node.operator) {
-            case "!":
-                return new BooleanValue(!operand.isTruthy());
-            case "-":
-                return new NumberValue(-operand.asNumber());
-            default:
-                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-op", "unary", node.operator));
+    void checkPermission(String functionName) {
+        if (!isPermitted(functionName)) {
+            throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.missing-permission", permissionScope.getName(), functionName));
         }
     }
     
-    // === Assignment ===
-    private QuillValue evaluateAssignmentExpression(AssignmentExpression node) {
-        QuillValue value = evaluate(node.value);
-        
-        if (node.target instanceof Identifier) {
-            String name = ((Identifier) node.target).name;
-            currentScope.set(name, value);
-            
-            if (permissionScope != null && permissionScope.getPersistentVars().containsKey(name)) {
-                Object javaValue = convertQuillValueToObject(value);
-                permissionScope.setPersistentVar(name, javaValue);
-                Quill.getPlugin(Quill.class).getScopeManager().saveScope(
-                    permissionScope, 
-                    permissionScope.getName() + ".yml"
-                );
-            }
-            
-            return value;
-        } else if (node.target instanceof MemberExpression) {
-            MemberExpression member = (MemberExpression) node.target;
-            QuillValue object = evaluate(member.object);
-            
-            if (object.isScope()) {
-                ScopeContext scope = object.asScope().getScope();
-                scope.set(member.property, value);
-                return value;
-            }
-            
-            if (object.isMap()) {
-                MapValue mapValue = (MapValue) object;
-                mapValue.put(member.property, value);
-                return value;
-            }
-            
-            throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-assign", object.getType()));
-        } else if (node.target instanceof IndexExpression) {
-            IndexExpression indexExpr = (IndexExpression) node.target;
-            QuillValue object = evaluate(indexExpr.object);
-            QuillValue index = evaluate(indexExpr.index);
-            
-            if (object.isMap()) {
-                String key = index.asString();
-                MapValue mapValue = (MapValue) object;
-                mapValue.put(key, value);
-                return value;
-            } else if (object.isList()) {
-                int idx = (int) index.asNumber();
-                List<QuillValue> list = object.asList();
-                if (idx < 0 || idx >= list.size()) {
-                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.index-out-of-bounds", idx, list.size()));
-                }
-                list.set(idx, value);
-                return value;
-            }
-            
-            throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-index", object.getType()));
+    boolean isPermitted(String functionName) {
+        if (permissionScope == null || permissionScope.getName().equals("global")) {
+            return true;
         }
-                
-        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.invalid-assignee"));
+        return permissionScope.hasPermission(functionName);
     }
     
-    // === Function Calls ===
+    /**
+     * Changes whenever the permissions of this script's scope change, so call sites know to check them again.
+     */
+    int getPermissionEpoch() {
+        return permissionScope != null ? permissionScope.getPermissionEpoch() : 0;
+    }
     
-    private QuillValue evaluateCallExpression(CallExpression node) {
-        if (node.callee instanceof Identifier) {
-            String name = ((Identifier) node.callee).name;
-            if (builtIns.containsKey(name)) {
-                List<QuillValue> args = new ArrayList<>();
-                for (ASTNode arg : node.arguments) {
-                    args.add(evaluate(arg));
-                }
-                return builtIns.get(name).call(args, currentScope, this);
-            }
+    BuiltInFunction getBuiltIn(String name) {
+        return builtIns.get(name);
+    }
+    
+    QuillValue callValue(QuillValue callee, List<QuillValue> args, Budget budget) {
+        try {
+            return callStatement(callee, args, budget);
+        } catch (Suspension e) {
+            // The rest of the expression the call is part of can't be saved, so it can't wait
+            throw Suspension.misplaced();
+        }
+    }
+    
+    /**
+     * Call a function whose result is discarded, letting a wait inside it suspend the caller as well.
+     */
+    QuillValue callStatement(QuillValue callee, List<QuillValue> args, Budget budget) {
+        if (callee.isFunction()) {
+            return callFunction((FunctionValue) callee, args, budget);
         }
         
-        QuillValue callee = evaluate(node.callee);
-        List<QuillValue> args = new ArrayList<>();
-        for (ASTNode arg : node.arguments) {
-            args.add(evaluate(arg));
+        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.not-func", callee.getType()));
+    }
+    
+    QuillValue callFunction(FunctionValue func, List<QuillValue> args, Budget budget) {
+        ScopeContext funcScope = new ScopeContext(func.getClosure(), func.getCode().layout());
+        
+        if (args.size() != func.getParameters().size()) {
+            throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "function " + func.getName(), String.valueOf(func.getParameters().size()), "function(...)"));
         }
         
-        if (node.callee instanceof Identifier) {
-            String name = ((Identifier) node.callee).name;
-            if (builtIns.containsKey(name)) {
-                return builtIns.get(name).call(args, currentScope, this);
-            }
+        // The resolver lays parameters out first, so parameter i is slot i
+        for (int i = 0; i < args.size(); i++) {
+            funcScope.bind(i, func.getParameters().get(i), args.get(i));
         }
         
-        if (callee.isFunction()) {
-            FunctionValue func = (FunctionValue) callee;
-            
-            ScopeContext funcScope = new ScopeContext(func.getClosure());
-            
-            if (args.size() != func.getParameters().size()) {
-                throw new RuntimeException(plugin.translate("quill.error.developer.arguments.requires-multiple", "function " + func.getName(), String.valueOf(func.getParameters().size()), "function(...)"));
-            }
-            
-            for (int i = 0; i < args.size(); i++) {
-                funcScope.define(func.getParameters().get(i), args.get(i));
-            }
-            
-            ScopeContext previousScope = currentScope;
-            currentScope = funcScope;
-            
-            try {
-                if (func.getBody() instanceof me.kmathers.quill.parser.AST.FunctionDeclaration) {
-                    FunctionDeclaration funcDecl = (FunctionDeclaration) func.getBody();
-                    for (ASTNode statement : funcDecl.body) {
-                        evaluate(statement);
-                    }
-                }
-                return NullValue.INSTANCE;
-            } catch (ReturnSignal ret) {
-                return ret.value;
-            } finally {
-                currentScope = previousScope;
-            }
+        return enter(func.getCode(), new Frame(this, funcScope, budget), null);
+    }
+    
+    /**
+     * Carry on a call made as a statement that was suspended by a wait.
+     */
+    void resumeCall(Suspension suspension) {
+        SuspendedCall call = (SuspendedCall) suspension.restore();
+        enter(call.code, call.frame, suspension);
+    }
+    
+    // Run a function body, or carry it on if resumed is set
+    private QuillValue enter(Executable code, Frame frame, Suspension resumed) {
+        QuillValue result;
+        frame.budget.enter();
+        try {
+            result = resumed == null ? code.run(frame) : code.resume(frame, resumed);
+        } catch (Suspension s) {
+            s.save(new SuspendedCall(code, frame));
+            throw s;
+        } finally {
+            frame.budget.exit();
         }
+        return result != null ? result : NullValue.INSTANCE;
+    }
+    
+    // A function body a wait suspended, and the frame it was running in
+    private static class SuspendedCall {
+        final Executable code;
+        final Frame frame;
         
-        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.not-func", callee.getType()));
+        SuspendedCall(Executable code, Frame frame) {
+            this.code = code;
+            this.frame = frame;
+        }
     }
     
-    // === Statements ===
+    // === Persistence ===
     
-    private QuillValue evaluateVariableDeclaration(VariableDeclaration node) {
-        if (permissionScope != null && permissionScope.getPersistentVars().containsKey(node.name)) {
-            Object storedValue = permissionScope.getPersistentVars().get(node.name);
-            
+    /**
+     * Look up the stored value of a persistent variable, or null if it is not persisted.
+     */
+    QuillValue loadPersisted(String name) {
+        if (permissionScope != null && permissionScope.hasPersistentVar(name)) {
+            Object storedValue = permissionScope.getPersistentVar(name);
             if (storedValue != null) {
-                QuillValue persistedValue = convertObjectToQuillValue(storedValue);
-
-                if (node.isConst) {
-                    currentScope.defineConst(node.name, persistedValue);
-                } else {
-                    currentScope.define(node.name, persistedValue);
-                }
-                return NullValue.INSTANCE;
+                return convertObjectToQuillValue(storedValue);
             }
         }
-        
-        QuillValue value = evaluate(node.value);
-
-            if (node.isConst) {
-                currentScope.defineConst(node.name, value);
-            } else {
-                currentScope.define(node.name, value);
-            }
-        
-        if (permissionScope != null && permissionScope.getPersistentVars().containsKey(node.name)) {
+        return null;
+    }
+    
+    void persistIfTracked(String name, QuillValue value) {
+        if (permissionScope != null && permissionScope.hasPersistentVar(name)) {
             Object javaValue = convertQuillValueToObject(value);
-            permissionScope.setPersistentVar(node.name, javaValue);
-            Quill.getPlugin(Quill.class).getScopeManager().saveScope(
-                permissionScope, 
-                permissionScope.getName() + ".yml"
-            );
+            permissionScope.setPersistentVar(name, javaValue);
+            Quill.getPlugin(Quill.class).getScopeManager().markDirty(permissionScope, name);
         }
+    }
+    
+    // === Event Handling ===
+    
+    // A registered event handler, with the names its body looks up by name
+    private static class Handler {
+        final Executable code;
+        final String[] reads;
         
-        return NullValue.INSTANCE;
+        Handler(Executable code, String[] reads) {
+            this.code = code;
+            this.reads = reads;
+        }
     }
     
-    private QuillValue evaluateFunctionDeclaration(FunctionDeclaration node) {
-        FunctionValue func = new FunctionValue(
-            node.name,
-            node.parameters,
-            node,
-            currentScope
-        );
-        currentScope.define(node.name, func);
-        return NullValue.INSTANCE;
+    void registerHandler(EventHandler source, Executable body) {
+        Executable handler = body;
+        if (jitThreshold > 0) {
+            // VM handlers report error positions, so their compiled code does too
+            handler = new TieredHandler(source, body, engine == ExecutionEngine.VM ? source.eventName : null, jitThreshold);
+        }
+        eventHandlers.computeIfAbsent(source.eventName, k -> new ArrayList<>()).add(new Handler(handler, source.reads));
+        contextReads.computeIfAbsent(source.eventName, k -> new HashSet<>()).addAll(Arrays.asList(source.reads));
     }
     
-    private QuillValue evaluateReturnStatement(ReturnStatement node) {
-        QuillValue value = node.value != null ? evaluate(node.value) : NullValue.INSTANCE;
-        throw new ReturnSignal(value);
+    /**
+     * Names this script's handlers for the event might read from its context; nothing else in the context needs building.
+     */
+    public Set<String> getContextReads(String eventName) {
+        return contextReads.getOrDefault(eventName, Collections.emptySet());
     }
     
-    private QuillValue evaluateIfStatement(IfStatement node) {
-        QuillValue condition = evaluate(node.condition);
-        
-        if (condition.isTruthy()) {
-            for (ASTNode statement : node.thenBranch) {
-                evaluate(statement);
-            }
-        } else if (node.elseBranch != null) {
-            for (ASTNode statement : node.elseBranch) {
-                evaluate(statement);
+    /**
+     * Queue an event for this script's handlers; it runs on a dispatcher worker after any events posted before it.
+     */
+    public void post(String eventName, Map<String, QuillValue> eventContext) {
+        mailbox.post(() -> {
+            if (!stopped) {
+                triggerEvent(eventName, eventContext);
             }
-        }
-        
-        return NullValue.INSTANCE;
+        });
     }
     
-    private QuillValue evaluateWhileStatement(WhileStatement node) {
-        try {
-            while (evaluate(node.condition).isTruthy()) {
-                try {
-                    for (ASTNode statement : node.body) {
-                        evaluate(statement);
-                    }
-                } catch (ContinueSignal c) {
-                    continue;
-                }
+    /**
+     * Run an event's handlers right away on the calling thread, so they can still cancel it, stopping any that run past the deadline.
+     * Returns false without running them if the script is busy elsewhere, in which case the event should be posted instead.
+     */
+    public boolean runNow(String eventName, Map<String, QuillValue> eventContext, long deadline) {
+        return mailbox.runNow(() -> {
+            if (!stopped) {
+                triggerEvent(eventName, eventContext, deadline);
             }
-        } catch (BreakSignal b) {
-            // Break out of loop
-        }
-        
-        return NullValue.INSTANCE;
+        });
     }
     
-
-    private QuillValue evaluateForStatement(ForStatement node) {
-        QuillValue iterable = evaluate(node.iterable);
-        
-        if (!iterable.isList()) {
-            throw new RuntimeException(plugin.translate("quill.error.user.value.expected", "list", iterable.getType()));
-        }
-        
-        List<QuillValue> items = iterable.asList();
-        
-        boolean isSubscopeIteration = false;
-        ScopeContext subscope = null;
+    public void triggerEvent(String eventName, Map<String, QuillValue> eventContext) {
+        triggerEvent(eventName, eventContext, 0);
+    }
+    
+    // Run the handlers for an event, held to the given System.nanoTime() deadline unless it is 0
+    private void triggerEvent(String eventName, Map<String, QuillValue> eventContext, long deadline) {
+        List<Handler> handlers = eventHandlers.get(eventName);
+        if (handlers == null || handlers.isEmpty()) return;
         
-        if (node.iterable instanceof MemberExpression) {
-            MemberExpression member = (MemberExpression) node.iterable;
-            if (member.property.equals("players")) {
-                QuillValue obj = evaluate(member.object);
-                if (obj.isScope()) {
-                    isSubscopeIteration = true;
-                    subscope = obj.asScope().getScope();
+        for (Handler entry : handlers) {
+            Executable handler = entry.code;
+            ScopeContext eventScope = new ScopeContext(globalScope, handler.layout());
+            // Context the handler never names can't be seen by it, so it is left out
+            for (String name : entry.reads) {
+                QuillValue value = eventContext.get(name);
+                if (value != null) {
+                    eventScope.define(name, value);
                 }
             }
-        }
-        
-        try {
-            for (QuillValue item : items) {
-                ScopeContext iterationScope = isSubscopeIteration 
-                    ? new ScopeContext(subscope)
-                    : new ScopeContext(currentScope);
-                
-                ScopeContext previousScope = currentScope;
-                currentScope = iterationScope;
-                
-                try {
-                    currentScope.define(node.variable, item);
-                    
-                    try {
-                        for (ASTNode statement : node.body) {
-                            evaluate(statement);
-                        }
-                    } catch (ContinueSignal c) {
-                        continue;
-                    }
-                } finally {
-                    currentScope = previousScope;
-                }
+            
+            Budget budget = newBudget();
+            if (deadline != 0) {
+                budget.limitTo(deadline);
             }
-        } catch (BreakSignal b) {
-            // Break out of loop
+            runHandler(eventName, handler, new Frame(this, eventScope, budget), null);
         }
-        
-        return NullValue.INSTANCE;
     }
-
-    private QuillValue evaluateTryStatement(TryStatement node) {
+    
+    // Run a handler, or carry it on if resumed is set; a wait leaves it queued to resume once its ticks have passed
+    private void runHandler(String eventName, Executable handler, Frame frame, Suspension resumed) {
         try {
-            for (ASTNode statement : node.tryBlock) {
-                evaluate(statement);
-            }
-        } catch (Exception e) {
-            ScopeContext catchScope = new ScopeContext(currentScope);
-            catchScope.define(node.errorVariable, new StringValue(e.getMessage()));
-            
-            ScopeContext previousScope = currentScope;
-            currentScope = catchScope;
-            
-            try {
-                for (ASTNode statement : node.catchBlock) {
-                    evaluate(statement);
+            if (resumed == null) {
+                handler.run(frame);
+            } else {
+                handler.resume(frame, resumed);
+            }
+        } catch (Suspension s) {
+            // Resumes go through the mailbox too, so they never overlap the script's other handlers
+            waits.schedule(s.getTicks(), () -> mailbox.post(() -> {
+                if (!stopped) {
+                    frame.budget.renew();
+                    runHandler(eventName, handler, frame, s);
                 }
-            } finally {
-                currentScope = previousScope;
-            }
+            }));
+        } catch (Budget.Exceeded e) {
+            budgetExceeded(e);
+        } catch (Exception e) {
+            // Log error but continue with other handlers
+            plugin.getLogger().severe("Error in event handler " + eventName + ": " + ScriptError.describe(e));
+            e.printStackTrace();
         }
-        
-        return NullValue.INSTANCE;
     }
     
-    private QuillValue evaluateEventHandler(EventHandler node) {
-        eventHandlers.computeIfAbsent(node.eventName, k -> new ArrayList<>()).add(node);
-        return NullValue.INSTANCE;
+    /**
+     * Stop the script once it is unloaded; handlers it has waiting are dropped rather than resumed.
+     */
+    public void stop() {
+        stopped = true;
     }
     
-    private QuillValue evaluateScopeCreation(ScopeCreation node) {
-        if (node.arguments.size() != 6) {
-            throw new RuntimeException(plugin.translate("quill.error.user.scope.wrong-boundary-list-size"));
+    // === Budgets ===
+    
+    /**
+     * Budget for a new run of this script, using its scope's step limit if it sets one.
+     */
+    Budget newBudget() {
+        return newBudget(timeBudget);
+    }
+    
+    private Budget newBudget(long timeLimit) {
+        Long steps = permissionScope != null ? permissionScope.getStepBudget() : null;
+        return new Budget(globalScope.getName(), steps != null ? steps : stepBudget, timeLimit);
+    }
+    
+    private void budgetExceeded(Budget.Exceeded e) {
+        plugin.getLogger().warning(e.getMessage());
+        if (permissionScope == null) return;
+        // Running out of the tick's shared time isn't the script's fault, so it isn't counted against its budget
+        if (e.isTickShare()) {
+            permissionScope.recordTickShareExceeded();
+        } else {
+            permissionScope.recordBudgetExceeded();
         }
-        
-        double x1 = evaluate(node.arguments.get(0)).asNumber();
-        double y1 = evaluate(node.arguments.get(1)).asNumber();
-        double z1 = evaluate(node.arguments.get(2)).asNumber();
-        double x2 = evaluate(node.arguments.get(3)).asNumber();
-        double y2 = evaluate(node.arguments.get(4)).asNumber();
-        double z2 = evaluate(node.arguments.get(5)).asNumber();
-        
-        String worldName = globalScope.getRegion() != null ? 
-            globalScope.getRegion().getWorldName() : "world";
-        
-        ScopeContext.Region region = new ScopeContext.Region(x1, y1, z1, x2, y2, z2, worldName);
-        ScopeContext newScope = new ScopeContext("subscope", currentScope, region);
-        
-        return new ScopeValue(newScope);
     }
     
-    // === Event Handling ===
+    // === JIT ===
     
-    public void triggerEvent(String eventName, Map<String, QuillValue> eventContext) {
-        List<EventHandler> handlers = eventHandlers.get(eventName);
-        if (handlers == null || handlers.isEmpty()) return;
+    /**
+     * Invalidate the guard once the named global is rebound to a different value.
+     */
+    void assumeGlobal(String name, SwitchPoint guard) {
+        globalAssumptions.computeIfAbsent(name, k -> new CopyOnWriteArrayList<>()).add(guard);
+    }
+    
+    private void globalBound(String name, QuillValue previous, QuillValue value) {
+        if (previous == value) return;
         
-        for (EventHandler handler : handlers) {
-            ScopeContext eventScope = new ScopeContext(globalScope);
-            for (Map.Entry<String, QuillValue> entry : eventContext.entrySet()) {
-                eventScope.define(entry.getKey(), entry.getValue());
-            }
-            
-            ScopeContext previousScope = currentScope;
-            currentScope = eventScope;
-            
-            try {
-                for (ASTNode statement : handler.body) {
-                    evaluate(statement);
-                }
-            } catch (Exception e) {
-                // Log error but continue with other handlers
-                plugin.getLogger().severe("Error in event handler " + eventName + ": " + e.getMessage());
-                e.printStackTrace();
-            } finally {
-                currentScope = previousScope;
-            }
+        List<SwitchPoint> guards = globalAssumptions.remove(name);
+        if (guards != null) {
+            SwitchPoint.invalidateAll(guards.toArray(new SwitchPoint[0]));
         }
     }
     
@@ -966,19 +679,87 @@ public class QuillInterpreter {
         builtIns.put("item", new BuiltInConstructorFuncs.ItemFunction());
     }
     
+    /**
+     * A function provided by Quill itself.
+     * Built-ins can also take their arguments directly through call0 to call3, which saves building an argument list.
+     * Call sites check accepts once when they are linked and use call for any other argument count.
+     */
     public interface BuiltInFunction {
         QuillValue call(List<QuillValue> args, ScopeContext scope, QuillInterpreter interpreter);
+
+        /**
+         * Whether the fixed-arity entry point for this many arguments can be used without checking them again.
+         */
+        default boolean accepts(int argCount) {
+            return false;
+        }
+
+        default QuillValue call0(ScopeContext scope, QuillInterpreter interpreter) {
+            return call(List.of(), scope, interpreter);
+        }
+
+        default QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter) {
+            return call(List.of(arg0), scope, interpreter);
+        }
+
+        default QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter) {
+            return call(List.of(arg0, arg1), scope, interpreter);
+        }
+
+        default QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter) {
+            return call(List.of(arg0, arg1, arg2), scope, interpreter);
+        }
+    }
+
+    public interface NullaryFunction extends BuiltInFunction {
+        @Override
+        QuillValue call0(ScopeContext scope, QuillInterpreter interpreter);
+
+        @Override
+        default boolean accepts(int argCount) {
+            return argCount == 0;
+        }
+    }
+
+    public interface UnaryFunction extends BuiltInFunction {
+        @Override
+        QuillValue call1(QuillValue arg0, ScopeContext scope, QuillInterpreter interpreter);
+
+        @Override
+        default boolean accepts(int argCount) {
+            return argCount == 1;
+        }
+    }
+
+    public interface BinaryFunction extends BuiltInFunction {
+        @Override
+        QuillValue call2(QuillValue arg0, QuillValue arg1, ScopeContext scope, QuillInterpreter interpreter);
+
+        @Override
+        default boolean accepts(int argCount) {
+            return argCount == 2;
+        }
+    }
+
+    public interface TernaryFunction extends BuiltInFunction {
+        @Override
+        QuillValue call3(QuillValue arg0, QuillValue arg1, QuillValue arg2, ScopeContext scope, QuillInterpreter interpreter);
+
+        @Override
+        default boolean accepts(int argCount) {
+            return argCount == 3;
+        }
     }
 
     private QuillValue convertObjectToQuillValue(Object obj) {
         if (obj == null) {
             return NullValue.INSTANCE;
         } else if (obj instanceof Number) {
-            return new NumberValue(((Number) obj).doubleValue());
+            return NumberValue.of(((Number) obj).doubleValue());
         } else if (obj instanceof String) {
             return new StringValue((String) obj);
         } else if (obj instanceof Boolean) {
-            return new BooleanValue((Boolean) obj);
+            return BooleanValue.of((Boolean) obj);
         } else if (obj instanceof List) {
             List<?> list = (List<?>) obj;
             List<QuillValue> elements = new ArrayList<>();
@@ -1040,6 +821,10 @@ public class QuillInterpreter {
         return globalScope;
     }
 
+    public ExecutionEngine getEngine() {
+        return engine;
+    }
+
     public Set<String> getRegisteredEvents() {
         return eventHandlers.keySet();
     }
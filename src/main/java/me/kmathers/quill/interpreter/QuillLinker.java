@@ -0,0 +1,214 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.parser.AST;
+import me.kmathers.quill.parser.AST.*;
+
+import java.util.List;
+
+/**
+ * Links a parsed AST into an executor tree.
+ * Node kinds, operators and assignment targets are resolved once here instead of on every evaluation.
+ */
+public class QuillLinker {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    // Interpreter the linked code runs on; calls by name are bound to its built-ins
+    private final QuillInterpreter interpreter;
+    // Loops enclosing the node being linked, within the current function or handler
+    private int loopDepth;
+
+    public QuillLinker(QuillInterpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    public Exec.Node[] link(Program program) {
+        return linkBlock(program.statements);
+    }
+
+    public Exec.Node[] linkBlock(List<ASTNode> statements) {
+        if (statements == null) {
+            return null;
+        }
+
+        Exec.Node[] linked = new Exec.Node[statements.size()];
+        for (int i = 0; i < linked.length; i++) {
+            linked[i] = link(statements.get(i));
+        }
+        return linked;
+    }
+
+    public Exec.Node link(ASTNode node) {
+        // Literals
+        if (node instanceof AST.NumberLiteral n) {
+            return new Exec.NumberLiteral(n);
+        } else if (node instanceof AST.StringLiteral n) {
+            return new Exec.StringLiteral(n);
+        } else if (node instanceof AST.InterpolatedString n) {
+            return new Exec.InterpolatedString(n, linkBlock(n.expressions));
+        } else if (node instanceof AST.BooleanLiteral n) {
+            return new Exec.BooleanLiteral(n);
+        } else if (node instanceof AST.NullLiteral n) {
+            return new Exec.NullLiteral(n);
+        } else if (node instanceof AST.ListLiteral n) {
+            return new Exec.ListLiteral(n, linkBlock(n.elements));
+        } else if (node instanceof AST.MapLiteral n) {
+            String[] keys = new String[n.entries.size()];
+            Exec.Node[] values = new Exec.Node[n.entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = n.entries.get(i).key;
+                values[i] = link(n.entries.get(i).value);
+            }
+            return new Exec.MapLiteral(n, keys, values);
+        }
+
+        // Identifiers and member access
+        else if (node instanceof AST.Identifier n) {
+            return n.slot >= 0 ? new Exec.LocalIdentifier(n) : new Exec.Identifier(n);
+        } else if (node instanceof AST.MemberExpression n) {
+            return new Exec.MemberExpression(n, link(n.object));
+        } else if (node instanceof AST.IndexExpression n) {
+            return new Exec.IndexExpression(n, link(n.object), link(n.index));
+        }
+
+        // Expressions
+        else if (node instanceof AST.BinaryExpression n) {
+            return linkBinary(n);
+        } else if (node instanceof AST.UnaryExpression n) {
+            return linkUnary(n);
+        } else if (node instanceof AST.AssignmentExpression n) {
+            return linkAssignment(n);
+        } else if (node instanceof AST.CallExpression n) {
+            NamedCall named = n.callee instanceof AST.Identifier id ? new NamedCall(id.name, n.arguments.size(), interpreter) : null;
+            return new Exec.Call(n, named, link(n.callee), linkBlock(n.arguments));
+        }
+
+        // Statements
+        else if (node instanceof AST.VariableDeclaration n) {
+            return new Exec.VariableDeclaration(n, n.value != null ? link(n.value) : null);
+        } else if (node instanceof AST.FunctionDeclaration n) {
+            return new Exec.FunctionDeclaration(n, linkBody(n.body));
+        } else if (node instanceof AST.ReturnStatement n) {
+            return new Exec.Return(n, n.value != null ? link(n.value) : null);
+        } else if (node instanceof AST.IfStatement n) {
+            return new Exec.If(n, link(n.condition), linkBlock(n.thenBranch), linkBlock(n.elseBranch));
+        } else if (node instanceof AST.WhileStatement n) {
+            return new Exec.While(n, link(n.condition), linkLoopBody(n.body));
+        } else if (node instanceof AST.ForStatement n) {
+            return new Exec.For(n, link(n.iterable), linkLoopBody(n.body));
+        } else if (node instanceof AST.BreakStatement n) {
+            checkInLoop("break", n);
+            return new Exec.Break(n);
+        } else if (node instanceof AST.ContinueStatement n) {
+            checkInLoop("continue", n);
+            return new Exec.Continue(n);
+        } else if (node instanceof AST.TryStatement n) {
+            return new Exec.Try(n, linkBlock(n.tryBlock), linkBlock(n.catchBlock));
+        } else if (node instanceof AST.EventHandler n) {
+            return new Exec.EventHandler(n, linkBody(n.body));
+        } else if (node instanceof AST.ScopeCreation n) {
+            return new Exec.ScopeCreation(n, linkBlock(n.arguments));
+        } else if (node instanceof AST.ExpressionStatement n) {
+            ASTNode ticks = waitTicks(n);
+            if (ticks != null) {
+                return new Exec.Wait(n, new NamedCall("wait", 1, interpreter), link(ticks));
+            }
+            return new Exec.ExpressionStatement(n, link(n.expression));
+        }
+
+        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-ast", node == null ? "null" : node.getClass().getName()));
+    }
+
+    /**
+     * The tick count of a wait statement, or null if the statement is anything else.
+     * Built-ins can't be redefined, so the name alone says the call is to wait.
+     */
+    static ASTNode waitTicks(AST.ExpressionStatement statement) {
+        if (statement.expression instanceof AST.CallExpression call
+                && call.callee instanceof AST.Identifier callee
+                && callee.name.equals("wait")
+                && call.arguments.size() == 1) {
+            return call.arguments.get(0);
+        }
+        return null;
+    }
+
+    // === Blocks ===
+
+    // A function or handler body, where break and continue can't reach any outer loop
+    private Exec.Node[] linkBody(List<ASTNode> statements) {
+        int outer = loopDepth;
+        loopDepth = 0;
+        try {
+            return linkBlock(statements);
+        } finally {
+            loopDepth = outer;
+        }
+    }
+
+    private Exec.Node[] linkLoopBody(List<ASTNode> statements) {
+        loopDepth++;
+        try {
+            return linkBlock(statements);
+        } finally {
+            loopDepth--;
+        }
+    }
+
+    private void checkInLoop(String keyword, ASTNode node) {
+        if (loopDepth == 0) {
+            throw new RuntimeException(plugin.translate("quill.error.runtime.compiler.outside-loop", keyword, node.line));
+        }
+    }
+
+    private Exec.Node linkBinary(BinaryExpression node) {
+        Exec.Node left = link(node.left);
+        Exec.Node right = link(node.right);
+
+        switch (node.operator) {
+            case "+": return new Exec.Add(node, left, right);
+            case "-": return new Exec.Subtract(node, left, right);
+            case "*": return new Exec.Multiply(node, left, right);
+            case "/": return new Exec.Divide(node, left, right);
+            case "%": return new Exec.Modulo(node, left, right);
+            case "==": return new Exec.Equal(node, left, right);
+            case "!=": return new Exec.NotEqual(node, left, right);
+            case ">": return new Exec.Greater(node, left, right);
+            case "<": return new Exec.Less(node, left, right);
+            case ">=": return new Exec.GreaterEqual(node, left, right);
+            case "<=": return new Exec.LessEqual(node, left, right);
+            case "&&": return new Exec.And(node, left, right);
+            case "||": return new Exec.Or(node, left, right);
+            default:
+                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-op", "binary", node.operator));
+        }
+    }
+
+    private Exec.Node linkUnary(UnaryExpression node) {
+        Exec.Node operand = link(node.operand);
+
+        switch (node.operator) {
+            case "!": return new Exec.Not(node, operand);
+            case "-": return new Exec.Negate(node, operand);
+            default:
+                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.unknown-op", "unary", node.operator));
+        }
+    }
+
+    private Exec.Node linkAssignment(AssignmentExpression node) {
+        Exec.Node value = link(node.value);
+
+        if (node.target instanceof AST.Identifier target) {
+            if (target.slot >= 0) {
+                return new Exec.AssignLocal(node, target, value);
+            }
+            return new Exec.AssignVariable(node, target.name, value);
+        } else if (node.target instanceof AST.MemberExpression target) {
+            return new Exec.AssignMember(node, link(target.object), target.property, value);
+        } else if (node.target instanceof AST.IndexExpression target) {
+            return new Exec.AssignIndex(node, link(target.object), link(target.index), value);
+        }
+
+        throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.invalid-assignee"));
+    }
+}
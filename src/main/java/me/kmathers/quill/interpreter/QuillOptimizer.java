@@ -0,0 +1,196 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.interpreter.QuillValue.*;
+import me.kmathers.quill.parser.AST.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites a parsed program before it runs.
+ * Operators whose operands are all literals are folded by running them once through the same executors
+ * the script would use, and if and while statements with a literal condition are reduced to the branch that runs.
+ */
+public class QuillOptimizer {
+    private final QuillLinker linker;
+
+    public QuillOptimizer(QuillLinker linker) {
+        this.linker = linker;
+    }
+
+    public void optimize(Program program) {
+        program.statements = optimizeBlock(program.statements);
+    }
+
+    // === Statements ===
+
+    private List<ASTNode> optimizeBlock(List<ASTNode> statements) {
+        if (statements == null) {
+            return null;
+        }
+
+        List<ASTNode> optimized = new ArrayList<>(statements.size());
+        for (ASTNode statement : statements) {
+            if (statement instanceof IfStatement n) {
+                QuillValue condition = constant(n.condition = optimize(n.condition));
+                if (condition != null) {
+                    // An if doesn't open a scope, so the branch that runs can take its place
+                    List<ASTNode> branch = condition.isTruthy() ? n.thenBranch : n.elseBranch;
+                    if (branch != null) {
+                        optimized.addAll(optimizeBlock(branch));
+                    }
+                    continue;
+                }
+            } else if (statement instanceof WhileStatement n) {
+                QuillValue condition = constant(n.condition = optimize(n.condition));
+                if (condition != null && !condition.isTruthy()) {
+                    continue;
+                }
+            }
+            optimized.add(optimize(statement));
+        }
+        return optimized;
+    }
+
+    // === Nodes ===
+
+    private ASTNode optimize(ASTNode node) {
+        if (node == null) {
+            return null;
+        }
+
+        if (node instanceof BinaryExpression n) {
+            n.left = optimize(n.left);
+            n.right = optimize(n.right);
+            // A literal left side can decide && and || on its own, however the right side turns out
+            if (n.operator.equals("&&") || n.operator.equals("||")) {
+                QuillValue left = constant(n.left);
+                if (left != null && left.isTruthy() == n.operator.equals("||")) {
+                    return literal(BooleanValue.of(left.isTruthy()), n);
+                }
+            }
+            return fold(n, n.left, n.right);
+        } else if (node instanceof UnaryExpression n) {
+            n.operand = optimize(n.operand);
+            return fold(n, n.operand);
+        } else if (node instanceof InterpolatedString n) {
+            optimizeAll(n.expressions);
+            return foldInterpolation(n);
+        } else if (node instanceof ListLiteral n) {
+            optimizeAll(n.elements);
+        } else if (node instanceof MapLiteral n) {
+            for (MapLiteral.MapEntry entry : n.entries) {
+                entry.value = optimize(entry.value);
+            }
+        } else if (node instanceof MemberExpression n) {
+            n.object = optimize(n.object);
+        } else if (node instanceof IndexExpression n) {
+            n.object = optimize(n.object);
+            n.index = optimize(n.index);
+        } else if (node instanceof AssignmentExpression n) {
+            n.target = optimize(n.target);
+            n.value = optimize(n.value);
+        } else if (node instanceof CallExpression n) {
+            n.callee = optimize(n.callee);
+            optimizeAll(n.arguments);
+        } else if (node instanceof VariableDeclaration n) {
+            n.value = optimize(n.value);
+        } else if (node instanceof FunctionDeclaration n) {
+            n.body = optimizeBlock(n.body);
+        } else if (node instanceof ReturnStatement n) {
+            n.value = optimize(n.value);
+        } else if (node instanceof IfStatement n) {
+            n.condition = optimize(n.condition);
+            n.thenBranch = optimizeBlock(n.thenBranch);
+            n.elseBranch = optimizeBlock(n.elseBranch);
+        } else if (node instanceof WhileStatement n) {
+            n.condition = optimize(n.condition);
+            n.body = optimizeBlock(n.body);
+        } else if (node instanceof ForStatement n) {
+            n.iterable = optimize(n.iterable);
+            n.body = optimizeBlock(n.body);
+        } else if (node instanceof TryStatement n) {
+            n.tryBlock = optimizeBlock(n.tryBlock);
+            n.catchBlock = optimizeBlock(n.catchBlock);
+        } else if (node instanceof EventHandler n) {
+            n.body = optimizeBlock(n.body);
+        } else if (node instanceof ScopeCreation n) {
+            optimizeAll(n.arguments);
+        } else if (node instanceof ExpressionStatement n) {
+            n.expression = optimize(n.expression);
+        }
+        return node;
+    }
+
+    private void optimizeAll(List<ASTNode> nodes) {
+        if (nodes == null) {
+            return;
+        }
+
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.set(i, optimize(nodes.get(i)));
+        }
+    }
+
+    // === Folding ===
+
+    private ASTNode fold(ASTNode node, ASTNode... operands) {
+        for (ASTNode operand : operands) {
+            if (constant(operand) == null) {
+                return node;
+            }
+        }
+
+        QuillValue value;
+        try {
+            // Literal operands never touch the frame
+            value = linker.link(node).execute(null);
+        } catch (RuntimeException e) {
+            // Leave it to fail when it runs, where the error gets its position
+            return node;
+        }
+
+        ASTNode folded = literal(value, node);
+        return folded != null ? folded : node;
+    }
+
+    private ASTNode foldInterpolation(InterpolatedString node) {
+        StringBuilder sb = new StringBuilder(node.literals.get(0));
+        for (int i = 0; i < node.expressions.size(); i++) {
+            QuillValue value = constant(node.expressions.get(i));
+            if (value == null) {
+                return node;
+            }
+            sb.append(value.toString());
+            sb.append(node.literals.get(i + 1));
+        }
+        return new StringLiteral(sb.toString(), node.line, node.column);
+    }
+
+    // Value of a literal node, or null if the node isn't one
+    private static QuillValue constant(ASTNode node) {
+        if (node instanceof NumberLiteral n) {
+            return NumberValue.of(n.value);
+        } else if (node instanceof StringLiteral n) {
+            return new StringValue(n.value);
+        } else if (node instanceof BooleanLiteral n) {
+            return BooleanValue.of(n.value);
+        } else if (node instanceof NullLiteral) {
+            return NullValue.INSTANCE;
+        }
+        return null;
+    }
+
+    private static ASTNode literal(QuillValue value, ASTNode at) {
+        if (value.isNumber()) {
+            return new NumberLiteral(value.asNumber(), at.line, at.column);
+        } else if (value.isString()) {
+            return new StringLiteral(value.asString(), at.line, at.column);
+        } else if (value.isBoolean()) {
+            return new BooleanLiteral(value.asBoolean(), at.line, at.column);
+        } else if (value.isNull()) {
+            return new NullLiteral(at.line, at.column);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,522 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.QuillValue.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stack-based virtual machine for compiled Quill bytecode.
+ * Runs one {@link Chunk} per call; function calls re-enter through {@link Executable#run}.
+ * A chunk suspended by a wait saves its registers and operand stack, and picks up from them when it resumes.
+ */
+public final class QuillVM {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    private QuillVM() {}
+
+    // Iterator state kept on the operand stack while a for loop runs
+    private static class LoopState {
+        final Iterator<QuillValue> items;
+        final ScopeContext parent;
+
+        LoopState(Iterator<QuillValue> items, ScopeContext parent) {
+            this.items = items;
+            this.parent = parent;
+        }
+    }
+
+    // Registers and stacks of a chunk a wait suspended
+    private static class Paused {
+        final int start;
+        final int pc;
+        final Object[] stack;
+        final int sp;
+        final ScopeContext scope;
+        final ScopeContext[] scopes;
+        final int scopeDepth;
+        final int[] handlers;
+        final int handlerCount;
+
+        Paused(int start, int pc, Object[] stack, int sp, ScopeContext scope, ScopeContext[] scopes, int scopeDepth, int[] handlers, int handlerCount) {
+            this.start = start;
+            this.pc = pc;
+            this.stack = stack;
+            this.sp = sp;
+            this.scope = scope;
+            this.scopes = scopes;
+            this.scopeDepth = scopeDepth;
+            this.handlers = handlers;
+            this.handlerCount = handlerCount;
+        }
+    }
+
+    public static QuillValue run(Chunk chunk, Frame frame) {
+        return run(chunk, frame, null, null);
+    }
+
+    static QuillValue resume(Chunk chunk, Frame frame, Suspension suspension) {
+        return run(chunk, frame, (Paused) suspension.restore(), suspension);
+    }
+
+    private static QuillValue run(Chunk chunk, Frame frame, Paused paused, Suspension resumed) {
+        QuillInterpreter interpreter = frame.interpreter;
+        final int[] code = chunk.code;
+        final Object[] constants = chunk.constants;
+
+        Object[] stack;
+        int sp;
+        ScopeContext scope;
+        ScopeContext[] scopes;
+        int scopeDepth;
+        // Active try blocks as (catch target, stack pointer, scope depth) triples
+        int[] handlers;
+        int handlerCount;
+        int pc;
+        int start;
+        // A statement call the chunk was suspended in, to carry on before the instruction after it
+        Suspension resuming = null;
+
+        if (paused == null) {
+            stack = new Object[chunk.maxStack + 1];
+            sp = 0;
+            scope = frame.scope;
+            scopes = new ScopeContext[4];
+            scopeDepth = 0;
+            handlers = new int[6];
+            handlerCount = 0;
+            pc = 0;
+            start = 0;
+        } else {
+            stack = paused.stack;
+            sp = paused.sp;
+            scope = paused.scope;
+            scopes = paused.scopes;
+            scopeDepth = paused.scopeDepth;
+            handlers = paused.handlers;
+            handlerCount = paused.handlerCount;
+            pc = paused.pc;
+            start = paused.start;
+            if (code[start] == OpCode.CALL) {
+                resuming = resumed;
+            }
+        }
+        RuntimeException caught = null;
+
+        while (true) {
+            try {
+                if (resuming != null) {
+                    Suspension suspension = resuming;
+                    resuming = null;
+                    interpreter.resumeCall(suspension);
+                    stack[sp - 1] = NullValue.INSTANCE;
+                }
+                while (true) {
+                    start = pc;
+                    switch (code[pc++]) {
+                        // === Stack ===
+                        case OpCode.CONST:
+                            stack[sp++] = constants[code[pc++]];
+                            break;
+                        case OpCode.NULL:
+                            stack[sp++] = NullValue.INSTANCE;
+                            break;
+                        case OpCode.POP:
+                            stack[--sp] = null;
+                            break;
+
+                        // === Variables ===
+                        case OpCode.LOAD:
+                            stack[sp++] = scope.get((String) constants[code[pc++]]);
+                            break;
+                        case OpCode.STORE: {
+                            String name = (String) constants[code[pc++]];
+                            QuillValue value = (QuillValue) stack[sp - 1];
+                            scope.set(name, value);
+                            interpreter.persistIfTracked(name, value);
+                            break;
+                        }
+                        case OpCode.DECLARE_PERSISTED: {
+                            String name = (String) constants[code[pc++]];
+                            boolean isConst = code[pc++] != 0;
+                            int skip = code[pc++];
+                            QuillValue persisted = interpreter.loadPersisted(name);
+                            if (persisted != null) {
+                                define(scope, name, persisted, isConst);
+                                pc = skip;
+                            }
+                            break;
+                        }
+                        case OpCode.DEFINE: {
+                            String name = (String) constants[code[pc++]];
+                            boolean isConst = code[pc++] != 0;
+                            QuillValue value = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            define(scope, name, value, isConst);
+                            interpreter.persistIfTracked(name, value);
+                            break;
+                        }
+
+                        // === Members and Indexes ===
+                        case OpCode.GET_MEMBER:
+                            stack[sp - 1] = ((MemberCache) constants[code[pc++]]).get((QuillValue) stack[sp - 1]);
+                            break;
+                        case OpCode.SET_MEMBER: {
+                            String property = (String) constants[code[pc++]];
+                            QuillValue target = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            QuillValue value = (QuillValue) stack[sp - 1];
+                            if (target.isScope()) {
+                                target.asScope().getScope().set(property, value);
+                            } else if (target.isMap()) {
+                                ((MapValue) target).put(property, value);
+                            } else {
+                                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.cannot-assign", target.getType()));
+                            }
+                            break;
+                        }
+                        case OpCode.GET_INDEX: {
+                            QuillValue index = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = QuillInterpreter.getIndex((QuillValue) stack[sp - 1], index);
+                            break;
+                        }
+                        case OpCode.SET_INDEX: {
+                            QuillValue index = (QuillValue) stack[--sp];
+                            QuillValue target = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp + 1] = null;
+                            QuillInterpreter.setIndex(target, index, (QuillValue) stack[sp - 1]);
+                            break;
+                        }
+
+                        // === Operators ===
+                        case OpCode.ADD: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            QuillValue left = (QuillValue) stack[sp - 1];
+                            stack[sp] = null;
+                            if (left.isNumber() && right.isNumber()) {
+                                stack[sp - 1] = NumberValue.of(left.asNumber() + right.asNumber());
+                            } else {
+                                stack[sp - 1] = new StringValue(left.toString() + right.toString());
+                            }
+                            break;
+                        }
+                        case OpCode.SUB: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = NumberValue.of(((QuillValue) stack[sp - 1]).asNumber() - right.asNumber());
+                            break;
+                        }
+                        case OpCode.MUL: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = NumberValue.of(((QuillValue) stack[sp - 1]).asNumber() * right.asNumber());
+                            break;
+                        }
+                        case OpCode.DIV: {
+                            double right = ((QuillValue) stack[--sp]).asNumber();
+                            stack[sp] = null;
+                            if (right == 0) {
+                                throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.zero-division"));
+                            }
+                            stack[sp - 1] = NumberValue.of(((QuillValue) stack[sp - 1]).asNumber() / right);
+                            break;
+                        }
+                        case OpCode.MOD: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = NumberValue.of(((QuillValue) stack[sp - 1]).asNumber() % right.asNumber());
+                            break;
+                        }
+                        case OpCode.EQ: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = BooleanValue.of(QuillInterpreter.isEqual((QuillValue) stack[sp - 1], right));
+                            break;
+                        }
+                        case OpCode.NE: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = BooleanValue.of(!QuillInterpreter.isEqual((QuillValue) stack[sp - 1], right));
+                            break;
+                        }
+                        case OpCode.GT: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = BooleanValue.of(((QuillValue) stack[sp - 1]).asNumber() > right.asNumber());
+                            break;
+                        }
+                        case OpCode.LT: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = BooleanValue.of(((QuillValue) stack[sp - 1]).asNumber() < right.asNumber());
+                            break;
+                        }
+                        case OpCode.GE: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = BooleanValue.of(((QuillValue) stack[sp - 1]).asNumber() >= right.asNumber());
+                            break;
+                        }
+                        case OpCode.LE: {
+                            QuillValue right = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            stack[sp - 1] = BooleanValue.of(((QuillValue) stack[sp - 1]).asNumber() <= right.asNumber());
+                            break;
+                        }
+                        case OpCode.NOT:
+                            stack[sp - 1] = BooleanValue.of(!((QuillValue) stack[sp - 1]).isTruthy());
+                            break;
+                        case OpCode.NEG:
+                            stack[sp - 1] = NumberValue.of(-((QuillValue) stack[sp - 1]).asNumber());
+                            break;
+
+                        // === Literals ===
+                        case OpCode.LIST: {
+                            int count = code[pc++];
+                            List<QuillValue> elements = new ArrayList<>(count);
+                            for (int i = sp - count; i < sp; i++) {
+                                elements.add((QuillValue) stack[i]);
+                            }
+                            Arrays.fill(stack, sp - count, sp, null);
+                            sp -= count;
+                            stack[sp++] = new ListValue(elements);
+                            break;
+                        }
+                        case OpCode.MAP: {
+                            String[] keys = (String[]) constants[code[pc++]];
+                            Map<String, QuillValue> map = new HashMap<>();
+                            int base = sp - keys.length;
+                            for (int i = 0; i < keys.length; i++) {
+                                map.put(keys[i], (QuillValue) stack[base + i]);
+                            }
+                            Arrays.fill(stack, base, sp, null);
+                            sp = base;
+                            stack[sp++] = new MapValue(map);
+                            break;
+                        }
+                        case OpCode.INTERPOLATE: {
+                            String[] literals = (String[]) constants[code[pc++]];
+                            int base = sp - (literals.length - 1);
+                            QuillValue result = QuillInterpreter.interpolate(literals, stack, base);
+                            Arrays.fill(stack, base, sp, null);
+                            sp = base;
+                            stack[sp++] = result;
+                            break;
+                        }
+                        case OpCode.NEW_SCOPE: {
+                            int count = code[pc++];
+                            if (count != 6) {
+                                throw new RuntimeException(plugin.translate("quill.error.user.scope.wrong-boundary-list-size"));
+                            }
+                            int base = sp - 6;
+                            double[] bounds = new double[6];
+                            for (int i = 0; i < 6; i++) {
+                                bounds[i] = ((QuillValue) stack[base + i]).asNumber();
+                            }
+                            Arrays.fill(stack, base, sp, null);
+                            sp = base;
+
+                            ScopeContext globalScope = interpreter.getGlobalScope();
+                            String worldName = globalScope.getRegion() != null ?
+                                globalScope.getRegion().getWorldName() : "world";
+                            ScopeContext.Region region = new ScopeContext.Region(
+                                bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5], worldName);
+                            stack[sp++] = new ScopeValue(new ScopeContext("subscope", scope, region));
+                            break;
+                        }
+
+                        // === Calls ===
+                        case OpCode.RESOLVE_CALLEE: {
+                            NamedCall named = (NamedCall) constants[code[pc++]];
+                            named.checkPermission();
+                            stack[sp++] = named.builtIn != null ? named.builtIn : scope.get(named.name);
+                            break;
+                        }
+                        case OpCode.CALL: {
+                            int count = code[pc++];
+                            List<QuillValue> args = new ArrayList<>(count);
+                            for (int i = sp - count; i < sp; i++) {
+                                args.add((QuillValue) stack[i]);
+                            }
+                            Arrays.fill(stack, sp - count, sp, null);
+                            sp -= count;
+
+                            Object callee = stack[sp - 1];
+                            if (callee instanceof QuillInterpreter.BuiltInFunction builtIn) {
+                                stack[sp - 1] = builtIn.call(args, scope, interpreter);
+                            } else if (code[pc] == OpCode.POP) {
+                                // The result is dropped, so the call is a statement and may wait
+                                stack[sp - 1] = interpreter.callStatement((QuillValue) callee, args, frame.budget);
+                            } else {
+                                stack[sp - 1] = interpreter.callValue((QuillValue) callee, args, frame.budget);
+                            }
+                            break;
+                        }
+                        case OpCode.CALL_BUILTIN: {
+                            int count = code[pc++];
+                            QuillInterpreter.BuiltInFunction builtIn = (QuillInterpreter.BuiltInFunction) stack[sp - count - 1];
+                            QuillValue result;
+                            switch (count) {
+                                case 0:
+                                    result = builtIn.call0(scope, interpreter);
+                                    break;
+                                case 1:
+                                    result = builtIn.call1((QuillValue) stack[sp - 1], scope, interpreter);
+                                    break;
+                                case 2:
+                                    result = builtIn.call2((QuillValue) stack[sp - 2], (QuillValue) stack[sp - 1], scope, interpreter);
+                                    break;
+                                default:
+                                    result = builtIn.call3((QuillValue) stack[sp - 3], (QuillValue) stack[sp - 2], (QuillValue) stack[sp - 1], scope, interpreter);
+                                    break;
+                            }
+                            Arrays.fill(stack, sp - count, sp, null);
+                            sp -= count;
+                            stack[sp - 1] = result;
+                            break;
+                        }
+                        case OpCode.FUNCTION: {
+                            Chunk.FunctionTemplate template = (Chunk.FunctionTemplate) constants[code[pc++]];
+                            String name = template.declaration.name;
+                            scope.define(name, new FunctionValue(name, template.declaration.parameters, template.declaration, template.body, scope));
+                            break;
+                        }
+                        case OpCode.RETURN:
+                            return (QuillValue) stack[sp - 1];
+                        case OpCode.RETURN_NULL:
+                            return null;
+
+                        // === Control Flow ===
+                        case OpCode.JUMP: {
+                            int target = code[pc];
+                            if (target < pc) {
+                                // Jumping back means another loop iteration
+                                frame.budget.charge();
+                            }
+                            pc = target;
+                            break;
+                        }
+                        case OpCode.JUMP_IF_FALSE: {
+                            QuillValue condition = (QuillValue) stack[--sp];
+                            stack[sp] = null;
+                            pc = condition.isTruthy() ? pc + 1 : code[pc];
+                            break;
+                        }
+                        case OpCode.ITER_START:
+                            stack[sp - 1] = startLoop((QuillValue) stack[sp - 1], null);
+                            break;
+                        case OpCode.ITER_PLAYERS: {
+                            QuillValue object = (QuillValue) stack[sp - 1];
+                            ScopeContext parent = object.isScope() ? object.asScope().getScope() : null;
+                            stack[sp - 1] = startLoop(QuillInterpreter.getMember(object, "players"), parent);
+                            break;
+                        }
+                        case OpCode.ITER_NEXT: {
+                            String variable = (String) constants[code[pc++]];
+                            int exit = code[pc++];
+                            LoopState loop = (LoopState) stack[sp - 1];
+                            if (!loop.items.hasNext()) {
+                                stack[--sp] = null;
+                                pc = exit;
+                                break;
+                            }
+                            ScopeContext iterationScope = new ScopeContext(loop.parent != null ? loop.parent : scope);
+                            iterationScope.define(variable, loop.items.next());
+                            if (scopeDepth == scopes.length) {
+                                scopes = Arrays.copyOf(scopes, scopeDepth * 2);
+                            }
+                            scopes[scopeDepth++] = scope;
+                            scope = iterationScope;
+                            break;
+                        }
+                        case OpCode.POP_SCOPE:
+                            scope = scopes[--scopeDepth];
+                            scopes[scopeDepth] = null;
+                            break;
+                        case OpCode.TRY_BEGIN: {
+                            if (handlerCount * 3 == handlers.length) {
+                                handlers = Arrays.copyOf(handlers, handlers.length * 2);
+                            }
+                            handlers[handlerCount * 3] = code[pc++];
+                            handlers[handlerCount * 3 + 1] = sp;
+                            handlers[handlerCount * 3 + 2] = scopeDepth;
+                            handlerCount++;
+                            break;
+                        }
+                        case OpCode.TRY_END:
+                            handlerCount--;
+                            break;
+                        case OpCode.CATCH: {
+                            ScopeContext catchScope = new ScopeContext(scope);
+                            catchScope.define((String) constants[code[pc++]], new StringValue(caught.getMessage()));
+                            caught = null;
+                            if (scopeDepth == scopes.length) {
+                                scopes = Arrays.copyOf(scopes, scopeDepth * 2);
+                            }
+                            scopes[scopeDepth++] = scope;
+                            scope = catchScope;
+                            break;
+                        }
+                        case OpCode.HANDLER: {
+                            Chunk.HandlerTemplate template = (Chunk.HandlerTemplate) constants[code[pc++]];
+                            interpreter.registerHandler(template.declaration, template.body);
+                            break;
+                        }
+                        case OpCode.WAIT: {
+                            NamedCall named = (NamedCall) constants[code[pc++]];
+                            named.checkPermission();
+                            int ticks = BuiltInUtilFuncs.WaitFunction.ticks((QuillValue) stack[--sp]);
+                            stack[sp] = null;
+                            if (ticks > 0) {
+                                throw new Suspension(ticks);
+                            }
+                            break;
+                        }
+
+                        default:
+                            throw new IllegalStateException("Unknown opcode " + code[start] + " at " + start + " in " + chunk.name);
+                    }
+                }
+            } catch (Suspension s) {
+                s.save(new Paused(start, pc, stack, sp, scope, scopes, scopeDepth, handlers, handlerCount));
+                throw s;
+            } catch (RuntimeException e) {
+                if (handlerCount == 0) {
+                    throw e instanceof ScriptError ? e : new ScriptError(e, chunk.name, chunk.lineAt(start), chunk.columnAt(start));
+                }
+
+                handlerCount--;
+                pc = handlers[handlerCount * 3];
+                int handlerSp = handlers[handlerCount * 3 + 1];
+                Arrays.fill(stack, handlerSp, sp, null);
+                sp = handlerSp;
+                int handlerScopeDepth = handlers[handlerCount * 3 + 2];
+                while (scopeDepth > handlerScopeDepth) {
+                    scope = scopes[--scopeDepth];
+                    scopes[scopeDepth] = null;
+                }
+                caught = e;
+            }
+        }
+    }
+
+    private static void define(ScopeContext scope, String name, QuillValue value, boolean isConst) {
+        if (isConst) {
+            scope.defineConst(name, value);
+        } else {
+            scope.define(name, value);
+        }
+    }
+
+    // Iterations run in parent, or in the current scope if it is null
+    private static LoopState startLoop(QuillValue items, ScopeContext parent) {
+        return new LoopState(items.iterator(), parent);
+    }
+}
@@ -9,8 +9,13 @@ import org.bukkit.inventory.ItemStack;
 
 import org.bukkit.World;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public abstract class QuillValue {
     private static Quill plugin = Quill.getPlugin(Quill.class);
@@ -160,6 +165,37 @@ public abstract class QuillValue {
         return true;
     }
     
+    // === Iteration ===
+    
+    /**
+     * Items a for loop visits: a list's elements or a map's keys.
+     */
+    public Iterator<QuillValue> iterator() {
+        if (isMap()) {
+            return keys(asMap());
+        }
+        return asList().iterator();
+    }
+    
+    private static Iterator<QuillValue> keys(Map<String, QuillValue> map) {
+        Iterator<String> keys = map.keySet().iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+            
+            @Override
+            public QuillValue next() {
+                try {
+                    return new StringValue(keys.next());
+                } catch (ConcurrentModificationException e) {
+                    throw new RuntimeException(plugin.translate("quill.error.runtime.interpreter.map-modified"));
+                }
+            }
+        };
+    }
+    
     // === String Representation ===
     
     @Override
@@ -172,17 +208,46 @@ public abstract class QuillValue {
     // === Concrete Value Types ===
     
     public static class NumberValue extends QuillValue {
+        // Whole numbers in this range are shared rather than allocated each time they are produced
+        private static final int CACHE_LOW = -128;
+        private static final int CACHE_HIGH = 1024;
+        private static final NumberValue[] CACHE = new NumberValue[CACHE_HIGH - CACHE_LOW + 1];
+        private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+        static {
+            for (int i = 0; i < CACHE.length; i++) {
+                CACHE[i] = new NumberValue(i + CACHE_LOW);
+            }
+        }
+
         private final double value;
         
         public NumberValue(double value) {
             this.value = value;
         }
+
+        /**
+         * A number value, shared with other uses of the same small whole number.
+         */
+        public static NumberValue of(double value) {
+            int whole = (int) value;
+            if (whole == value && whole >= CACHE_LOW && whole <= CACHE_HIGH && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO) {
+                return CACHE[whole - CACHE_LOW];
+            }
+            return new NumberValue(value);
+        }
         
         @Override
         public ValueType getType() { return ValueType.NUMBER; }
         
         @Override
         public Object getValue() { return value; }
+
+        @Override
+        public double asNumber() { return value; }
+
+        @Override
+        public boolean isTruthy() { return value != 0; }
         
         @Override
         public String toString() { 
@@ -208,17 +273,30 @@ public abstract class QuillValue {
     }
     
     public static class BooleanValue extends QuillValue {
+        public static final BooleanValue TRUE = new BooleanValue(true);
+        public static final BooleanValue FALSE = new BooleanValue(false);
+
         private final boolean value;
         
         public BooleanValue(boolean value) {
             this.value = value;
         }
+
+        public static BooleanValue of(boolean value) {
+            return value ? TRUE : FALSE;
+        }
         
         @Override
         public ValueType getType() { return ValueType.BOOLEAN; }
         
         @Override
         public Object getValue() { return value; }
+
+        @Override
+        public boolean asBoolean() { return value; }
+
+        @Override
+        public boolean isTruthy() { return value; }
         
         @Override
         public String toString() { return String.valueOf(value); }
@@ -339,6 +417,108 @@ public abstract class QuillValue {
         }
     }
     
+    /**
+     * A list whose elements are produced as a for loop asks for them, so looping over it takes no extra memory
+     * and breaking out early skips the rest. The elements are only collected into a real list when the value
+     * is used as one, such as by indexing it or passing it to len() or append().
+     */
+    public abstract static class LazyListValue extends QuillValue {
+        private List<QuillValue> elements;
+        
+        /**
+         * A fresh pass over the elements.
+         */
+        protected abstract Iterator<QuillValue> produce();
+        
+        @Override
+        public ValueType getType() { return ValueType.LIST; }
+        
+        @Override
+        public synchronized Object getValue() {
+            if (elements == null) {
+                List<QuillValue> collected = new ArrayList<>();
+                produce().forEachRemaining(collected::add);
+                elements = collected;
+            }
+            return elements;
+        }
+        
+        @Override
+        public Iterator<QuillValue> iterator() {
+            List<QuillValue> collected;
+            synchronized (this) {
+                collected = elements;
+            }
+            return collected != null ? collected.iterator() : produce();
+        }
+        
+        @Override
+        public boolean isTruthy() { return iterator().hasNext(); }
+    }
+    
+    /**
+     * The whole numbers from start up to but not including end, counting down if end is below start.
+     */
+    public static class RangeValue extends LazyListValue {
+        private final int start;
+        private final int end;
+        
+        public RangeValue(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        protected Iterator<QuillValue> produce() {
+            int step = start <= end ? 1 : -1;
+            return new Iterator<>() {
+                private int next = start;
+                
+                @Override
+                public boolean hasNext() {
+                    return next != end;
+                }
+                
+                @Override
+                public QuillValue next() {
+                    if (next == end) {
+                        throw new NoSuchElementException();
+                    }
+                    QuillValue value = NumberValue.of(next);
+                    next += step;
+                    return value;
+                }
+            };
+        }
+    }
+    
+    /**
+     * Players in a live collection, such as a scope's players, wrapped as they are visited.
+     */
+    public static class PlayerListValue extends LazyListValue {
+        private final Collection<? extends Player> players;
+        
+        public PlayerListValue(Collection<? extends Player> players) {
+            this.players = players;
+        }
+        
+        @Override
+        protected Iterator<QuillValue> produce() {
+            Iterator<? extends Player> iterator = players.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+                
+                @Override
+                public QuillValue next() {
+                    return new PlayerValue(iterator.next());
+                }
+            };
+        }
+    }
+    
     public static class EntityValue extends QuillValue {
         private final Entity entity;
         
@@ -362,14 +542,17 @@ public abstract class QuillValue {
         private final String name;
         private final List<String> parameters;
         private final me.kmathers.quill.parser.AST.ASTNode body;
+        private final Executable code;
         private final ScopeContext closure;
         
         public FunctionValue(String name, List<String> parameters, 
                            me.kmathers.quill.parser.AST.ASTNode body, 
+                           Executable code,
                            ScopeContext closure) {
             this.name = name;
             this.parameters = parameters;
             this.body = body;
+            this.code = code;
             this.closure = closure;
         }
         
@@ -382,6 +565,7 @@ public abstract class QuillValue {
         public String getName() { return name; }
         public List<String> getParameters() { return parameters; }
         public me.kmathers.quill.parser.AST.ASTNode getBody() { return body; }
+        public Executable getCode() { return code; }
         public ScopeContext getClosure() { return closure; }
         
         @Override
@@ -1,11 +1,13 @@
 package me.kmathers.quill.interpreter;
 
 import me.kmathers.quill.Quill;
+import me.kmathers.quill.parser.AST.SlotLayout;
 
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a scope context in Quill.
@@ -15,43 +17,58 @@ public class ScopeContext {
     private static Quill plugin = Quill.getPlugin(Quill.class);
     private final String name;
     private final ScopeContext parent;
-    private final Map<String, QuillValue> variables;
-    private final Set<String> consts;
-    private final Map<String, ScopeContext> subscopes;
+    // Created on the first variable, const or subscope that isn't in a slot, so most frames never need them
+    private Map<String, QuillValue> variables;
+    private Set<String> consts;
+    private Map<String, ScopeContext> subscopes;
     private final Set<Player> players;
     private Region region;
+    private BindingListener bindingListener;
+    // Resolved locals; names in the layout never go into the variables map
+    private final SlotLayout layout;
+    private final QuillValue[] slots;
+    
+    /**
+     * Notified whenever a variable is bound in a scope, with the value it replaced (null if it is new).
+     */
+    interface BindingListener {
+        void bound(String name, QuillValue previous, QuillValue value);
+    }
     
     // Root scopes
     public ScopeContext(String name, Region region) {
         this.name = name;
         this.parent = null;
-        this.variables = new HashMap<>();
-        this.consts = new HashSet<>();
-        this.subscopes = new HashMap<>();
-        this.players = new HashSet<>();
+        this.players = ConcurrentHashMap.newKeySet();
         this.region = region;
+        this.layout = null;
+        this.slots = null;
     }
     
     // Subscopes
     public ScopeContext(String name, ScopeContext parent, Region region) {
         this.name = name;
         this.parent = parent;
-        this.variables = new HashMap<>();
-        this.consts = new HashSet<>();
-        this.subscopes = new HashMap<>();
-        this.players = new HashSet<>();
+        this.players = ConcurrentHashMap.newKeySet();
         this.region = region;
+        this.layout = null;
+        this.slots = null;
     }
     
     // Nested execution (functions etc)
     public ScopeContext(ScopeContext parent) {
+        this(parent, null);
+    }
+    
+    // Nested execution with variables laid out by the resolver
+    public ScopeContext(ScopeContext parent, SlotLayout layout) {
         this.name = "anonymous";
         this.parent = parent;
-        this.variables = new HashMap<>();
-        this.consts = new HashSet<>();
-        this.subscopes = new HashMap<>();
-        this.players = new HashSet<>();
+        // Only named scopes hold players; anonymous frames share an empty set
+        this.players = Collections.emptySet();
         this.region = parent != null ? parent.region : null;
+        this.layout = layout;
+        this.slots = layout != null ? new QuillValue[layout.names.length] : null;
     }
     
     // === Variable Management ===
@@ -61,22 +78,47 @@ public class ScopeContext {
      * Throws if variable already exists in this scope.
      */
     public void define(String name, QuillValue value) {
-        if (variables.containsKey(name)) {
+        int slot = slotIndex(name);
+        if (isDefinedHere(name, slot)) {
             throw new RuntimeException(plugin.translate("quill.error.user.scope.already-defined", name));
         }
-        variables.put(name, value);
+        store(name, slot, value);
     }
     
     public void defineConst(String name, QuillValue value) {
-        if (variables.containsKey(name)) {
+        int slot = slotIndex(name);
+        if (isDefinedHere(name, slot)) {
             throw new RuntimeException(plugin.translate("quill.error.user.scope.already-defined", name));
         }
-        variables.put(name, value);
+        store(name, slot, value);
+        addConst(name);
+    }
+
+    /**
+     * Bind a variable the resolver gave a fixed slot, like a parameter, loop variable or catch variable, in a scope that was just created.
+     * Scopes without a layout define it by name instead.
+     */
+    void bind(int slot, String name, QuillValue value) {
+        if (slots != null) {
+            slots[slot] = value;
+        } else {
+            define(name, value);
+        }
+    }
+
+    private void addConst(String name) {
+        if (consts == null) {
+            consts = new HashSet<>();
+        }
         consts.add(name);
     }
 
+    private boolean isConstHere(String name) {
+        return consts != null && consts.contains(name);
+    }
+
     private boolean isConst(String name) {
-        if (consts.contains(name)) {
+        if (isConstHere(name)) {
             return true;
         }
         if (parent != null && parent.has(name)) {
@@ -91,12 +133,13 @@ public class ScopeContext {
      * If not found anywhere, defines it in the current scope.
      */
     public void set(String name, QuillValue value) {
-        if (consts.contains(name)) {
+        if (isConstHere(name)) {
             throw new RuntimeException(plugin.translate("quill.error.user.scope.cannot-const", name));
         }
 
-        if (variables.containsKey(name)) {
-            variables.put(name, value);
+        int slot = slotIndex(name);
+        if (isDefinedHere(name, slot)) {
+            store(name, slot, value);
             return;
         }
         
@@ -117,7 +160,34 @@ public class ScopeContext {
             }
         }
         
-        variables.put(name, value);
+        store(name, slot, value);
+    }
+    
+    private void store(String name, int slot, QuillValue value) {
+        if (slot >= 0) {
+            slots[slot] = value;
+            return;
+        }
+        
+        if (variables == null) {
+            variables = new HashMap<>();
+        }
+        QuillValue previous = variables.put(name, value);
+        if (bindingListener != null) {
+            bindingListener.bound(name, previous, value);
+        }
+    }
+    
+    private int slotIndex(String name) {
+        return layout != null ? layout.slotOf(name) : -1;
+    }
+    
+    private boolean isDefinedHere(String name, int slot) {
+        return slot >= 0 ? slots[slot] != null : variables != null && variables.containsKey(name);
+    }
+    
+    void setBindingListener(BindingListener listener) {
+        this.bindingListener = listener;
     }
     
     /**
@@ -125,8 +195,16 @@ public class ScopeContext {
      * Looks up the scope chain until found.
      */
     public QuillValue get(String name) {
-        if (variables.containsKey(name)) {
-            return variables.get(name);
+        int slot = slotIndex(name);
+        if (slot >= 0) {
+            if (slots[slot] != null) {
+                return slots[slot];
+            }
+        } else if (variables != null) {
+            QuillValue value = variables.get(name);
+            if (value != null || variables.containsKey(name)) {
+                return value;
+            }
         }
         
         if (parent != null) {
@@ -136,11 +214,52 @@ public class ScopeContext {
     throw new RuntimeException(plugin.translate("quill.error.user.scope.undefined", name));
     }
     
+    // === Resolved Variables ===
+    
+    /**
+     * Read the local the resolver placed at (depth, slot).
+     * While the slot is still empty the name is looked up as usual, the same as before it was declared.
+     */
+    QuillValue lookup(int depth, int slot, String name) {
+        QuillValue value = ancestor(depth).slots[slot];
+        return value != null ? value : get(name);
+    }
+    
+    /**
+     * Assign the local the resolver placed at (depth, slot), falling back to {@link #set} if it isn't a plain defined variable.
+     */
+    void assign(int depth, int slot, String name, QuillValue value) {
+        ScopeContext scope = ancestor(depth);
+        if (scope.slots[slot] != null && !scope.isConstHere(name)) {
+            scope.slots[slot] = value;
+            return;
+        }
+        set(name, value);
+    }
+    
+    void defineSlot(int slot, String name, QuillValue value, boolean isConst) {
+        if (slots[slot] != null) {
+            throw new RuntimeException(plugin.translate("quill.error.user.scope.already-defined", name));
+        }
+        slots[slot] = value;
+        if (isConst) {
+            addConst(name);
+        }
+    }
+    
+    private ScopeContext ancestor(int depth) {
+        ScopeContext scope = this;
+        for (int i = 0; i < depth; i++) {
+            scope = scope.parent;
+        }
+        return scope;
+    }
+    
     /**
      * Check if a variable exists in this scope or parent scopes.
      */
     public boolean has(String name) {
-        if (variables.containsKey(name)) {
+        if (isDefinedHere(name, slotIndex(name))) {
             return true;
         }
         if (parent != null) {
@@ -155,6 +274,9 @@ public class ScopeContext {
      * Register a subscope with a name.
      */
     public void registerSubscope(String name, ScopeContext subscope) {
+        if (subscopes == null) {
+            subscopes = new HashMap<>();
+        }
         subscopes.put(name, subscope);
     }
     
@@ -162,14 +284,14 @@ public class ScopeContext {
      * Get a subscope by name.
      */
     public ScopeContext getSubscope(String name) {
-        return subscopes.get(name);
+        return subscopes != null ? subscopes.get(name) : null;
     }
     
     /**
      * Check if a subscope exists.
      */
     public boolean hasSubscope(String name) {
-        return subscopes.containsKey(name);
+        return subscopes != null && subscopes.containsKey(name);
     }
     
     // === Player Management ===
@@ -195,6 +317,13 @@ public class ScopeContext {
         return players.contains(player);
     }
     
+    /**
+     * Live, read-only view of the players in this scope, which is safe to iterate while players join and leave.
+     */
+    public Set<Player> getPlayerView() {
+        return Collections.unmodifiableSet(players);
+    }
+    
     /**
      * Get all players in this scope.
      */
@@ -268,14 +397,22 @@ public class ScopeContext {
     }
     
     public Map<String, QuillValue> getVariables() {
-        return new HashMap<>(variables);
+        Map<String, QuillValue> all = variables != null ? new HashMap<>(variables) : new HashMap<>();
+        if (layout != null) {
+            for (int i = 0; i < layout.names.length; i++) {
+                if (slots[i] != null) {
+                    all.put(layout.names[i], slots[i]);
+                }
+            }
+        }
+        return all;
     }
     
     // === Debugging ===
     
     @Override
     public String toString() {
-        return "Scope(" + name + ", vars=" + variables.size() + ", players=" + players.size() + ")";
+        return "Scope(" + name + ", vars=" + (variables != null ? variables.size() : 0) + ", players=" + players.size() + ")";
     }
     
     /**
@@ -0,0 +1,45 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+
+/**
+ * A runtime error tagged with the script position it was raised at.
+ * The message is left untouched so catch blocks see the same text the original error carried.
+ */
+public class ScriptError extends RuntimeException {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    private final String chunk;
+    private final int line;
+    private final int column;
+
+    public ScriptError(RuntimeException cause, String chunk, int line, int column) {
+        super(cause.getMessage(), cause);
+        this.chunk = chunk;
+        this.line = line;
+        this.column = column;
+    }
+
+    public String getChunk() {
+        return chunk;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Describe an error for the console, including its script position when one is known.
+     */
+    public static String describe(Throwable error) {
+        String message = String.valueOf(error.getMessage());
+        if (error instanceof ScriptError located) {
+            return plugin.translate("quill.error.runtime.interpreter.at-position", message, located.chunk, located.line, located.column);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,51 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+
+import java.util.ArrayDeque;
+
+/**
+ * Thrown by wait() to suspend the running handler until a number of ticks have passed.
+ * As it unwinds, each construct it passes through saves where it was, innermost first,
+ * so resuming can re-enter them outermost first and carry on from the statement after the wait.
+ * An Error rather than a RuntimeException, since script try blocks catch runtime exceptions and must not swallow it.
+ */
+public final class Suspension extends Error {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    private final int ticks;
+    private final ArrayDeque<Object> continuation = new ArrayDeque<>();
+
+    Suspension(int ticks) {
+        super(null, null, false, false);
+        this.ticks = ticks;
+    }
+
+    /**
+     * Ticks to wait before resuming.
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Record the state of a construct being unwound; the next enclosing construct saves after it.
+     */
+    void save(Object state) {
+        continuation.push(state);
+    }
+
+    /**
+     * Take back the state the outermost construct not yet resumed saved.
+     */
+    Object restore() {
+        return continuation.pop();
+    }
+
+    /**
+     * The error reported when a wait is reached somewhere it can't suspend from, such as inside an expression.
+     */
+    static RuntimeException misplaced() {
+        return new RuntimeException(plugin.translate("quill.error.runtime.interpreter.wait-misplaced"));
+    }
+}
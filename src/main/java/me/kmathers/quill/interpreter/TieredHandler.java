@@ -0,0 +1,145 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.parser.AST;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An event handler that starts out interpreted and moves to JIT compiled code once it gets hot.
+ * Compiling happens on a background thread, and the handler keeps being interpreted until the code is ready,
+ * so a run that gets it hot costs no more than any other; it may be on the main thread, inside the tick's share of time.
+ * Goes back to the interpreter whenever an assumption the compiled code was built on stops holding.
+ */
+class TieredHandler implements Executable {
+    // Handlers that keep getting deoptimised stay interpreted after this many compiles
+    private static final int MAX_COMPILES = 4;
+    // Compiles one handler at a time; its thread exits while there is nothing to compile, so none is left behind on disable
+    private static final ExecutorService COMPILER = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+        Thread thread = new Thread(task, "Quill JIT Compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AST.EventHandler source;
+    private final Executable baseline;
+    private final String chunk;
+    private final int threshold;
+
+    // Not synchronised; a lost update only moves compilation back a few events
+    private int invocations;
+    private int compiles;
+    // Set while a compile is queued or running
+    private boolean compiling;
+    // Finished code, installed by the next run since only a run can check it against its event scope
+    private volatile JitCompiler.Compiled pending;
+    private volatile JitCompiler.Compiled compiled;
+
+    TieredHandler(AST.EventHandler source, Executable baseline, String chunk, int threshold) {
+        this.source = source;
+        this.baseline = baseline;
+        this.chunk = chunk;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public AST.SlotLayout layout() {
+        return source.layout;
+    }
+
+    @Override
+    public QuillValue run(Frame frame) {
+        JitCompiler.Compiled current = compiled;
+        if (current == null && pending != null) {
+            install(frame);
+            current = compiled;
+        }
+        if (current != null) {
+            if (!current.guard.hasBeenInvalidated()) {
+                return current.code.run(frame);
+            }
+            deoptimize();
+        }
+
+        if (++invocations == threshold) {
+            startCompile(frame.interpreter);
+        }
+        return baseline.run(frame);
+    }
+
+    @Override
+    public QuillValue resume(Frame frame, Suspension suspension) {
+        // Handlers that can wait are never compiled, so only the baseline can have been suspended
+        return baseline.resume(frame, suspension);
+    }
+
+    // Queue a compile of the handler; the globals it reads are copied here, on the thread that runs the script
+    private synchronized void startCompile(QuillInterpreter interpreter) {
+        if (compiled != null || pending != null || compiling || compiles >= MAX_COMPILES) {
+            return;
+        }
+        compiles++;
+        compiling = true;
+        Map<String, QuillValue> globals = interpreter.getGlobalScope().getVariables();
+        COMPILER.execute(() -> compile(interpreter, globals));
+    }
+
+    private void compile(QuillInterpreter interpreter, Map<String, QuillValue> globals) {
+        JitCompiler.Compiled result;
+        try {
+            result = new JitCompiler().compile(source, interpreter, globals, chunk);
+        } catch (RuntimeException e) {
+            // A bug in the compiler rather than something it doesn't support, so it shouldn't pass quietly
+            Quill plugin = Quill.getPlugin(Quill.class);
+            plugin.getLogger().warning(plugin.translate("quill.error.runtime.compiler.jit-failed", source.eventName, interpreter.getGlobalScope().getName(), e));
+            e.printStackTrace();
+            result = null;
+        }
+
+        synchronized (this) {
+            compiling = false;
+            if (result == null) {
+                // Keep interpreting
+                compiles = MAX_COMPILES;
+            } else {
+                pending = result;
+            }
+        }
+    }
+
+    // Start using the finished code, checking its assumptions against the event scope of the run installing it
+    private synchronized void install(Frame frame) {
+        JitCompiler.Compiled result = pending;
+        pending = null;
+        if (result == null) {
+            return;
+        }
+        QuillInterpreter interpreter = frame.interpreter;
+
+        for (String name : result.assumptions.keySet()) {
+            interpreter.assumeGlobal(name, result.guard);
+        }
+        // A global was rebound since it was copied, before the guard was registered; compile again once hot again
+        if (!result.holds(interpreter.getGlobalScope())) {
+            invocations = 0;
+            return;
+        }
+        // The event's context hides a global the code assumed, and it will every time this event fires
+        if (!result.holds(frame.scope)) {
+            compiles = MAX_COMPILES;
+            return;
+        }
+        compiled = result;
+    }
+
+    private synchronized void deoptimize() {
+        if (compiled != null && compiled.guard.hasBeenInvalidated()) {
+            compiled = null;
+            invocations = 0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package me.kmathers.quill.interpreter;
+
+import me.kmathers.quill.Quill;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Resumes handlers suspended by wait() once their ticks have passed.
+ * All waits share one repeating task that only runs while something is waiting,
+ * so a suspended handler costs a queue entry rather than a task or a thread of its own.
+ * Resumed handlers run off the server thread, like handlers started by events.
+ */
+final class WaitScheduler {
+    private static Quill plugin = Quill.getPlugin(Quill.class);
+
+    private static class Entry implements Comparable<Entry> {
+        final long due;
+        // Breaks ties so waits that end on the same tick resume in the order they started
+        final long order;
+        final Runnable resume;
+
+        Entry(long due, long order, Runnable resume) {
+            this.due = due;
+            this.order = order;
+            this.resume = resume;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return due != other.due ? Long.compare(due, other.due) : Long.compare(order, other.order);
+        }
+    }
+
+    private final PriorityQueue<Entry> waiting = new PriorityQueue<>();
+    private long tick;
+    private long order;
+    private BukkitTask task;
+
+    /**
+     * Run resume after the given number of ticks.
+     */
+    synchronized void schedule(int ticks, Runnable resume) {
+        waiting.add(new Entry(tick + ticks, order++, resume));
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::tick, 1, 1);
+        }
+    }
+
+    private void tick() {
+        List<Runnable> due = new ArrayList<>();
+        synchronized (this) {
+            tick++;
+            while (!waiting.isEmpty() && waiting.peek().due <= tick) {
+                due.add(waiting.poll().resume);
+            }
+            if (waiting.isEmpty() && task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+
+        // Outside the lock, since resumed handlers may wait again
+        for (Runnable resume : due) {
+            resume.run();
+        }
+    }
+}
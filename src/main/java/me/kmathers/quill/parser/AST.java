@@ -1,6 +1,8 @@
 package me.kmathers.quill.parser;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AST {
     
@@ -15,6 +17,26 @@ public class AST {
         }
     }
     
+    // Slot names of a runtime scope as the resolver laid them out, with each name's slot so lookups by name don't scan
+    public static final class SlotLayout {
+        public final String[] names;
+        private final Map<String, Integer> slots;
+        
+        public SlotLayout(String[] names) {
+            this.names = names;
+            this.slots = new HashMap<>(names.length * 2);
+            for (int i = 0; i < names.length; i++) {
+                slots.putIfAbsent(names[i], i);
+            }
+        }
+        
+        // The name's slot, or -1 if it isn't laid out here
+        public int slotOf(String name) {
+            Integer slot = slots.get(name);
+            return slot != null ? slot : -1;
+        }
+    }
+    
     // Program - root node containing all statements
     public static class Program extends ASTNode {
         public List<ASTNode> statements;
@@ -44,6 +66,18 @@ public class AST {
         }
     }
     
+    // A string with {expression} placeholders; literals has one more entry than expressions
+    public static class InterpolatedString extends ASTNode {
+        public List<String> literals;
+        public List<ASTNode> expressions;
+        
+        public InterpolatedString(List<String> literals, List<ASTNode> expressions, int line, int column) {
+            super(line, column);
+            this.literals = literals;
+            this.expressions = expressions;
+        }
+    }
+    
     public static class BooleanLiteral extends ASTNode {
         public boolean value;
         
@@ -91,6 +125,9 @@ public class AST {
     
     public static class Identifier extends ASTNode {
         public String name;
+        // Set by the resolver: scopes up and slot index, or -1 if looked up by name
+        public int depth = -1;
+        public int slot = -1;
         
         public Identifier(String name, int line, int column) {
             super(line, column);
@@ -174,6 +211,7 @@ public class AST {
         public String name;
         public ASTNode value;
         public boolean isConst;
+        public int slot = -1;
         
         public VariableDeclaration(String name, ASTNode value, boolean isConst, int line, int column) {
             super(line, column);
@@ -187,6 +225,9 @@ public class AST {
         public String name;
         public List<String> parameters;
         public List<ASTNode> body;
+        public int slot = -1;
+        // Slots of the scope a call runs in, parameters first
+        public SlotLayout layout;
         
         public FunctionDeclaration(String name, List<String> parameters, List<ASTNode> body, int line, int column) {
             super(line, column);
@@ -233,6 +274,8 @@ public class AST {
         public String variable;
         public ASTNode iterable;
         public List<ASTNode> body;
+        // Slots of each iteration's scope, loop variable first
+        public SlotLayout layout;
         
         public ForStatement(String variable, ASTNode iterable, List<ASTNode> body, int line, int column) {
             super(line, column);
@@ -258,6 +301,8 @@ public class AST {
         public List<ASTNode> tryBlock;
         public String errorVariable;
         public List<ASTNode> catchBlock;
+        // Slots of the catch block's scope, error variable first
+        public SlotLayout catchLayout;
         
         public TryStatement(List<ASTNode> tryBlock, String errorVariable, List<ASTNode> catchBlock, int line, int column) {
             super(line, column);
@@ -272,6 +317,9 @@ public class AST {
     public static class EventHandler extends ASTNode {
         public String eventName;
         public List<ASTNode> body;
+        public SlotLayout layout;
+        // Names the body looks up by name, which covers every event context variable it reads
+        public String[] reads;
         
         public EventHandler(String eventName, List<ASTNode> body, int line, int column) {
             super(line, column);
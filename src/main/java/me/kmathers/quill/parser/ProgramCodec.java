@@ -0,0 +1,420 @@
+package me.kmathers.quill.parser;
+
+import me.kmathers.quill.parser.AST.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a parsed program to a compact binary form and reads it back, so a script that hasn't changed can skip the lexer and parser.
+ * Only what the parser produces is written; slots and layouts are filled in again by the resolver when the program runs.
+ * Each distinct string is written once and referred to by index after that, since the same names come up all through a script,
+ * and counts and positions are written in as few bytes as their size needs, so most take one.
+ */
+public final class ProgramCodec {
+    // Bump whenever a node gains, loses or reorders a field, or the parser starts rejecting something it used to accept,
+    // so older encodings are never read
+    public static final int FORMAT_VERSION = 1;
+
+    // One tag per node type; 0 stands for a missing node
+    private static final byte NONE = 0;
+    private static final byte NUMBER = 1;
+    private static final byte STRING = 2;
+    private static final byte INTERPOLATED = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte NULL = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+    private static final byte IDENTIFIER = 8;
+    private static final byte MEMBER = 9;
+    private static final byte INDEX = 10;
+    private static final byte BINARY = 11;
+    private static final byte UNARY = 12;
+    private static final byte ASSIGN = 13;
+    private static final byte CALL = 14;
+    private static final byte VARIABLE = 15;
+    private static final byte FUNCTION = 16;
+    private static final byte RETURN = 17;
+    private static final byte IF = 18;
+    private static final byte WHILE = 19;
+    private static final byte FOR = 20;
+    private static final byte BREAK = 21;
+    private static final byte CONTINUE = 22;
+    private static final byte TRY = 23;
+    private static final byte EVENT = 24;
+    private static final byte SCOPE = 25;
+    private static final byte EXPRESSION = 26;
+
+    // String references: a missing string, one written out in full, or FIRST_INDEX plus the index of one written earlier
+    private static final int NO_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int FIRST_INDEX = 2;
+
+    private ProgramCodec() {}
+
+    /**
+     * Write a program as the parser left it, before it has been run.
+     */
+    public static void write(Program program, DataOutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        writer.varInt(program.line);
+        writer.varInt(program.column);
+        writer.nodes(program.statements);
+    }
+
+    /**
+     * Read a program written by {@link #write}.
+     */
+    public static Program read(DataInputStream in) throws IOException {
+        Reader reader = new Reader(in);
+        Program program = new Program(reader.varInt(), reader.varInt());
+        program.statements = reader.nodes();
+        return program;
+    }
+
+    private static final class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void nodes(List<ASTNode> nodes) throws IOException {
+            if (nodes == null) {
+                varInt(0);
+                return;
+            }
+            varInt(nodes.size() + 1);
+            for (ASTNode node : nodes) {
+                node(node);
+            }
+        }
+
+        void strings(List<String> values) throws IOException {
+            if (values == null) {
+                varInt(0);
+                return;
+            }
+            varInt(values.size() + 1);
+            for (String value : values) {
+                string(value);
+            }
+        }
+
+        void string(String value) throws IOException {
+            if (value == null) {
+                varInt(NO_STRING);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                varInt(index + FIRST_INDEX);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varInt(NEW_STRING);
+            varInt(bytes.length);
+            out.write(bytes);
+        }
+
+        // Seven bits a byte, low bits first, with the top bit set on every byte but the last
+        void varInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        void node(ASTNode node) throws IOException {
+            if (node == null) {
+                out.writeByte(NONE);
+                return;
+            }
+            out.writeByte(tag(node));
+            varInt(node.line);
+            varInt(node.column);
+
+            if (node instanceof NumberLiteral n) {
+                out.writeDouble(n.value);
+            } else if (node instanceof StringLiteral n) {
+                string(n.value);
+            } else if (node instanceof InterpolatedString n) {
+                strings(n.literals);
+                nodes(n.expressions);
+            } else if (node instanceof BooleanLiteral n) {
+                out.writeBoolean(n.value);
+            } else if (node instanceof ListLiteral n) {
+                nodes(n.elements);
+            } else if (node instanceof MapLiteral n) {
+                varInt(n.entries.size());
+                for (MapLiteral.MapEntry entry : n.entries) {
+                    string(entry.key);
+                    node(entry.value);
+                }
+            } else if (node instanceof Identifier n) {
+                string(n.name);
+            } else if (node instanceof MemberExpression n) {
+                node(n.object);
+                string(n.property);
+            } else if (node instanceof IndexExpression n) {
+                node(n.object);
+                node(n.index);
+            } else if (node instanceof BinaryExpression n) {
+                node(n.left);
+                string(n.operator);
+                node(n.right);
+            } else if (node instanceof UnaryExpression n) {
+                string(n.operator);
+                node(n.operand);
+            } else if (node instanceof AssignmentExpression n) {
+                node(n.target);
+                node(n.value);
+            } else if (node instanceof CallExpression n) {
+                node(n.callee);
+                nodes(n.arguments);
+            } else if (node instanceof VariableDeclaration n) {
+                string(n.name);
+                node(n.value);
+                out.writeBoolean(n.isConst);
+            } else if (node instanceof FunctionDeclaration n) {
+                string(n.name);
+                strings(n.parameters);
+                nodes(n.body);
+            } else if (node instanceof ReturnStatement n) {
+                node(n.value);
+            } else if (node instanceof IfStatement n) {
+                node(n.condition);
+                nodes(n.thenBranch);
+                nodes(n.elseBranch);
+            } else if (node instanceof WhileStatement n) {
+                node(n.condition);
+                nodes(n.body);
+            } else if (node instanceof ForStatement n) {
+                string(n.variable);
+                node(n.iterable);
+                nodes(n.body);
+            } else if (node instanceof TryStatement n) {
+                nodes(n.tryBlock);
+                string(n.errorVariable);
+                nodes(n.catchBlock);
+            } else if (node instanceof EventHandler n) {
+                string(n.eventName);
+                nodes(n.body);
+            } else if (node instanceof ScopeCreation n) {
+                nodes(n.arguments);
+            } else if (node instanceof ExpressionStatement n) {
+                node(n.expression);
+            }
+        }
+
+        private static byte tag(ASTNode node) throws IOException {
+            if (node instanceof NumberLiteral) return NUMBER;
+            if (node instanceof StringLiteral) return STRING;
+            if (node instanceof InterpolatedString) return INTERPOLATED;
+            if (node instanceof BooleanLiteral) return BOOLEAN;
+            if (node instanceof NullLiteral) return NULL;
+            if (node instanceof ListLiteral) return LIST;
+            if (node instanceof MapLiteral) return MAP;
+            if (node instanceof Identifier) return IDENTIFIER;
+            if (node instanceof MemberExpression) return MEMBER;
+            if (node instanceof IndexExpression) return INDEX;
+            if (node instanceof BinaryExpression) return BINARY;
+            if (node instanceof UnaryExpression) return UNARY;
+            if (node instanceof AssignmentExpression) return ASSIGN;
+            if (node instanceof CallExpression) return CALL;
+            if (node instanceof VariableDeclaration) return VARIABLE;
+            if (node instanceof FunctionDeclaration) return FUNCTION;
+            if (node instanceof ReturnStatement) return RETURN;
+            if (node instanceof IfStatement) return IF;
+            if (node instanceof WhileStatement) return WHILE;
+            if (node instanceof ForStatement) return FOR;
+            if (node instanceof BreakStatement) return BREAK;
+            if (node instanceof ContinueStatement) return CONTINUE;
+            if (node instanceof TryStatement) return TRY;
+            if (node instanceof EventHandler) return EVENT;
+            if (node instanceof ScopeCreation) return SCOPE;
+            if (node instanceof ExpressionStatement) return EXPRESSION;
+            throw new IOException("Unknown node " + node.getClass().getSimpleName());
+        }
+    }
+
+    private static final class Reader {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        List<ASTNode> nodes() throws IOException {
+            int size = varInt() - 1;
+            if (size < 0) {
+                return null;
+            }
+            List<ASTNode> nodes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                nodes.add(node());
+            }
+            return nodes;
+        }
+
+        List<String> strings() throws IOException {
+            int size = varInt() - 1;
+            if (size < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(string());
+            }
+            return values;
+        }
+
+        String string() throws IOException {
+            int ref = varInt();
+            if (ref == NO_STRING) {
+                return null;
+            }
+            if (ref == NEW_STRING) {
+                byte[] bytes = new byte[varInt()];
+                in.readFully(bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                strings.add(value);
+                return value;
+            }
+            int index = ref - FIRST_INDEX;
+            if (index < 0 || index >= strings.size()) {
+                throw new IOException("Bad string reference " + ref);
+            }
+            return strings.get(index);
+        }
+
+        int varInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = in.readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed number");
+        }
+
+        ASTNode node() throws IOException {
+            byte tag = in.readByte();
+            if (tag == NONE) {
+                return null;
+            }
+            int line = varInt();
+            int column = varInt();
+
+            switch (tag) {
+                case NUMBER:
+                    return new NumberLiteral(in.readDouble(), line, column);
+                case STRING:
+                    return new StringLiteral(string(), line, column);
+                case INTERPOLATED: {
+                    List<String> literals = strings();
+                    return new InterpolatedString(literals, nodes(), line, column);
+                }
+                case BOOLEAN:
+                    return new BooleanLiteral(in.readBoolean(), line, column);
+                case NULL:
+                    return new NullLiteral(line, column);
+                case LIST:
+                    return new ListLiteral(nodes(), line, column);
+                case MAP: {
+                    int size = varInt();
+                    List<MapLiteral.MapEntry> entries = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        String key = string();
+                        entries.add(new MapLiteral.MapEntry(key, node()));
+                    }
+                    return new MapLiteral(entries, line, column);
+                }
+                case IDENTIFIER:
+                    return new Identifier(string(), line, column);
+                case MEMBER: {
+                    ASTNode object = node();
+                    return new MemberExpression(object, string(), line, column);
+                }
+                case INDEX: {
+                    ASTNode object = node();
+                    return new IndexExpression(object, node(), line, column);
+                }
+                case BINARY: {
+                    ASTNode left = node();
+                    String operator = string();
+                    return new BinaryExpression(left, operator, node(), line, column);
+                }
+                case UNARY: {
+                    String operator = string();
+                    return new UnaryExpression(operator, node(), line, column);
+                }
+                case ASSIGN: {
+                    ASTNode target = node();
+                    return new AssignmentExpression(target, node(), line, column);
+                }
+                case CALL: {
+                    ASTNode callee = node();
+                    return new CallExpression(callee, nodes(), line, column);
+                }
+                case VARIABLE: {
+                    String name = string();
+                    ASTNode value = node();
+                    return new VariableDeclaration(name, value, in.readBoolean(), line, column);
+                }
+                case FUNCTION: {
+                    String name = string();
+                    List<String> parameters = strings();
+                    return new FunctionDeclaration(name, parameters, nodes(), line, column);
+                }
+                case RETURN:
+                    return new ReturnStatement(node(), line, column);
+                case IF: {
+                    ASTNode condition = node();
+                    List<ASTNode> thenBranch = nodes();
+                    return new IfStatement(condition, thenBranch, nodes(), line, column);
+                }
+                case WHILE: {
+                    ASTNode condition = node();
+                    return new WhileStatement(condition, nodes(), line, column);
+                }
+                case FOR: {
+                    String variable = string();
+                    ASTNode iterable = node();
+                    return new ForStatement(variable, iterable, nodes(), line, column);
+                }
+                case BREAK:
+                    return new BreakStatement(line, column);
+                case CONTINUE:
+                    return new ContinueStatement(line, column);
+                case TRY: {
+                    List<ASTNode> tryBlock = nodes();
+                    String errorVariable = string();
+                    return new TryStatement(tryBlock, errorVariable, nodes(), line, column);
+                }
+                case EVENT: {
+                    String eventName = string();
+                    return new EventHandler(eventName, nodes(), line, column);
+                }
+                case SCOPE:
+                    return new ScopeCreation(nodes(), line, column);
+                case EXPRESSION:
+                    return new ExpressionStatement(node(), line, column);
+                default:
+                    throw new IOException("Unknown node tag " + tag);
+            }
+        }
+    }
+}
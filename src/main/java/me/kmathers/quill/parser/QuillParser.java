@@ -1,6 +1,7 @@
 package me.kmathers.quill.parser;
 
 import me.kmathers.quill.Quill;
+import me.kmathers.quill.lexer.QuillLexer;
 import me.kmathers.quill.lexer.QuillLexer.Token;
 import me.kmathers.quill.lexer.QuillLexer.TokenType;
 import me.kmathers.quill.parser.AST.*;
@@ -138,6 +139,10 @@ public class QuillParser {
                     position++;
                 }
                 Token param = consume(TokenType.Identifier);
+                // Each parameter gets its own slot, so a name can't be taken twice
+                if (parameters.contains(param.value)) {
+                    throw new ParseException(Quill.getPlugin(Quill.class).translate("quill.error.runtime.parser.duplicate-parameter", param.value, name.value, param.line));
+                }
                 parameters.add(param.value);
             } while (check(TokenType.Comma));
         }
@@ -388,7 +393,7 @@ public class QuillParser {
                 
             case StringLiteral:
                 position++;
-                return new StringLiteral(token.value, token.line, token.column);
+                return parseStringLiteral(token);
                 
             case True:
                 position++;
@@ -494,6 +499,46 @@ public class QuillParser {
         return new MapLiteral(entries, openBrace.line, openBrace.column);
     }
 
+    // === String Interpolation ===
+    
+    private ASTNode parseStringLiteral(Token token) {
+        String value = token.value;
+        List<String> literals = new ArrayList<>();
+        List<ASTNode> expressions = new ArrayList<>();
+        
+        int last = 0;
+        int start;
+        while ((start = value.indexOf('{', last)) != -1) {
+            int end = value.indexOf('}', start);
+            if (end == -1) break;
+            
+            literals.add(value.substring(last, start));
+            expressions.add(parsePlaceholder(value.substring(start + 1, end), token));
+            last = end + 1;
+        }
+        
+        if (expressions.isEmpty()) {
+            return new StringLiteral(value, token.line, token.column);
+        }
+        literals.add(value.substring(last));
+        return new InterpolatedString(literals, expressions, token.line, token.column);
+    }
+    
+    private ASTNode parsePlaceholder(String expression, Token token) {
+        try {
+            List<Token> tokens = new QuillLexer(expression).tokenize();
+            // Report errors at the string literal rather than inside the placeholder
+            for (Token t : tokens) {
+                t.line = token.line;
+                t.column = token.column;
+            }
+            return new QuillParser(tokens).parseExpression();
+        } catch (Exception e) {
+            // Not an expression, so look it up as a variable with exactly that name
+            return new Identifier(expression, token.line, token.column);
+        }
+    }
+    
     // === Exception Class ===
     
     public static class ParseException extends Exception {
@@ -0,0 +1,185 @@
+package me.kmathers.quill.parser;
+
+import me.kmathers.quill.parser.AST.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves local variables to slot addresses after parsing.
+ * Every function call, event, loop iteration and catch block runs in its own scope; the names declared in it
+ * are laid out in slots, and identifiers that refer to one of them get a (depth, slot) address.
+ * Globals, event context variables and anything reached through a scope.players loop stay looked up by name,
+ * and each event handler keeps a list of those names so events only need to build the context it reads.
+ */
+public class QuillResolver {
+
+    // Names declared in one runtime scope
+    private static class Layout {
+        // Null when the enclosing scope is only known at runtime
+        final Layout parent;
+        final List<String> names = new ArrayList<>();
+
+        Layout(Layout parent) {
+            this.parent = parent;
+        }
+
+        int declare(String name) {
+            int slot = names.indexOf(name);
+            if (slot == -1) {
+                names.add(name);
+                slot = names.size() - 1;
+            }
+            return slot;
+        }
+    }
+
+    // Scope statements are currently declared in, or null at the top level
+    private Layout current;
+    // Names looked up by name in the event handler being resolved, or null outside one
+    private Set<String> reads;
+
+    public void resolve(Program program) {
+        current = null;
+        reads = null;
+        resolveBlock(program.statements);
+    }
+
+    // === Scopes ===
+
+    private SlotLayout resolveScope(Layout layout, List<ASTNode> body) {
+        Layout outer = current;
+        current = layout;
+        declare(body);
+        resolveBlock(body);
+        current = outer;
+        return new SlotLayout(layout.names.toArray(new String[0]));
+    }
+
+    // Give every declaration in the current scope a slot before resolving uses, so later declarations are found too
+    private void declare(List<ASTNode> statements) {
+        if (statements == null) {
+            return;
+        }
+
+        for (ASTNode node : statements) {
+            if (node instanceof VariableDeclaration n) {
+                n.slot = current != null ? current.declare(n.name) : -1;
+            } else if (node instanceof FunctionDeclaration n) {
+                n.slot = current != null ? current.declare(n.name) : -1;
+            } else if (node instanceof IfStatement n) {
+                declare(n.thenBranch);
+                declare(n.elseBranch);
+            } else if (node instanceof WhileStatement n) {
+                declare(n.body);
+            } else if (node instanceof TryStatement n) {
+                declare(n.tryBlock);
+            }
+        }
+    }
+
+    private void resolveBlock(List<ASTNode> statements) {
+        if (statements == null) {
+            return;
+        }
+
+        for (ASTNode statement : statements) {
+            resolve(statement);
+        }
+    }
+
+    // === Nodes ===
+
+    private void resolve(ASTNode node) {
+        if (node == null) {
+            return;
+        }
+
+        if (node instanceof Identifier n) {
+            lookup(n);
+        } else if (node instanceof InterpolatedString n) {
+            resolveBlock(n.expressions);
+        } else if (node instanceof ListLiteral n) {
+            resolveBlock(n.elements);
+        } else if (node instanceof MapLiteral n) {
+            for (MapLiteral.MapEntry entry : n.entries) {
+                resolve(entry.value);
+            }
+        } else if (node instanceof MemberExpression n) {
+            resolve(n.object);
+        } else if (node instanceof IndexExpression n) {
+            resolve(n.object);
+            resolve(n.index);
+        } else if (node instanceof BinaryExpression n) {
+            resolve(n.left);
+            resolve(n.right);
+        } else if (node instanceof UnaryExpression n) {
+            resolve(n.operand);
+        } else if (node instanceof AssignmentExpression n) {
+            resolve(n.target);
+            resolve(n.value);
+        } else if (node instanceof CallExpression n) {
+            resolve(n.callee);
+            resolveBlock(n.arguments);
+        } else if (node instanceof VariableDeclaration n) {
+            resolve(n.value);
+        } else if (node instanceof FunctionDeclaration n) {
+            Layout layout = new Layout(current);
+            for (String parameter : n.parameters) {
+                layout.declare(parameter);
+            }
+            n.layout = resolveScope(layout, n.body);
+        } else if (node instanceof ReturnStatement n) {
+            resolve(n.value);
+        } else if (node instanceof IfStatement n) {
+            resolve(n.condition);
+            resolveBlock(n.thenBranch);
+            resolveBlock(n.elseBranch);
+        } else if (node instanceof WhileStatement n) {
+            resolve(n.condition);
+            resolveBlock(n.body);
+        } else if (node instanceof ForStatement n) {
+            resolve(n.iterable);
+            // Loops over scope.players run inside that scope, which is only known at runtime
+            boolean overPlayers = n.iterable instanceof MemberExpression member && member.property.equals("players");
+            Layout layout = new Layout(overPlayers ? null : current);
+            layout.declare(n.variable);
+            n.layout = resolveScope(layout, n.body);
+        } else if (node instanceof TryStatement n) {
+            resolveBlock(n.tryBlock);
+            Layout layout = new Layout(current);
+            layout.declare(n.errorVariable);
+            n.catchLayout = resolveScope(layout, n.catchBlock);
+        } else if (node instanceof EventHandler n) {
+            // Handlers run in a fresh scope under the global one, wherever they are declared
+            Set<String> outer = reads;
+            reads = new LinkedHashSet<>();
+            n.layout = resolveScope(new Layout(null), n.body);
+            n.reads = reads.toArray(new String[0]);
+            reads = outer;
+        } else if (node instanceof ScopeCreation n) {
+            resolveBlock(n.arguments);
+        } else if (node instanceof ExpressionStatement n) {
+            resolve(n.expression);
+        }
+    }
+
+    private void lookup(Identifier node) {
+        int depth = 0;
+        for (Layout layout = current; layout != null; layout = layout.parent, depth++) {
+            int slot = layout.names.indexOf(node.name);
+            if (slot != -1) {
+                node.depth = depth;
+                node.slot = slot;
+                return;
+            }
+        }
+        node.depth = -1;
+        node.slot = -1;
+        if (reads != null) {
+            reads.add(node.name);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package me.kmathers.quill.storage;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.ExecutionEngine;
+import me.kmathers.quill.utils.Scope;
+import me.kmathers.quill.utils.SecurityConfig.SecurityMode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores each scope as a snapshot of everything in it plus a journal of the persistent variable changes made since.
+ * Changing a variable appends one record to the journal, so a write costs as much as the change rather than the whole scope,
+ * and once the journal outgrows the snapshot the two are folded into a new snapshot.
+ * Snapshots are written to a temporary file and renamed over the old one, and journal records carry a checksum,
+ * so a crash part way through a write leaves the last good state to load.
+ * Scopes saved as .yml by the YAML store can be converted with {@link #convertYaml()}, which leaves the .yml files alone.
+ */
+public class BinaryScopeStore implements ScopeStore {
+    private static final String SNAPSHOT = ".qsnap";
+    private static final String JOURNAL = ".qlog";
+    private static final String TEMP = ".tmp";
+    private static final int SNAPSHOT_MAGIC = 0x51534E50; // QSNP
+    private static final int JOURNAL_MAGIC = 0x514C4F47;  // QLOG
+    private static final int FORMAT_VERSION = 1;
+    private static final int JOURNAL_HEADER_BYTES = 16;
+    // Journals are folded into a snapshot once they are at least this big and bigger than the snapshot
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+    // Journal records this big or bigger are compressed when compression is on
+    private static final int COMPRESS_RECORD_BYTES = 256;
+    private static final byte FLAG_COMPRESSED = 1;
+
+    private final Quill plugin;
+    private final File scopesDir;
+    private final Logger logger;
+    private final boolean compress;
+    // What is on disk for each scope saved or loaded since startup
+    private final Map<String, Stored> stored = new ConcurrentHashMap<>();
+
+    private static class Stored {
+        // Bumped by every snapshot; a journal only applies to the snapshot with the same generation
+        long generation;
+        long snapshotBytes;
+        // -1 when the journal on disk belongs to an older snapshot and has to be started again
+        long journalBytes = -1;
+    }
+
+    public BinaryScopeStore(Quill plugin, File scopesDir, Logger logger, boolean compress) {
+        this.plugin = plugin;
+        this.scopesDir = scopesDir;
+        this.logger = logger;
+        this.compress = compress;
+    }
+
+    // === Loading ===
+
+    @Override
+    public List<Scope> loadAll() throws IOException {
+        File[] files = scopesDir.listFiles();
+        if (files == null) {
+            throw new IOException(plugin.translate("quill.scope-manager.file.read-fail", scopesDir.getName()));
+        }
+
+        List<File> toLoad = new ArrayList<>();
+        for (File file : files) {
+            String filename = file.getName();
+            if (filename.endsWith(TEMP)) {
+                // Left over from a write that never finished; the file it was replacing is still intact
+                file.delete();
+            } else if (filename.endsWith(SNAPSHOT)) {
+                toLoad.add(file);
+            }
+        }
+
+        // Each scope has its own files, so they are read side by side
+        List<Scope> loaded = toLoad.parallelStream()
+            .map(file -> loadScope(file.getName().substring(0, file.getName().length() - SNAPSHOT.length())))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        logger.info(plugin.translate("quill.scope-manager.file.loaded", loaded.size(), toLoad.size()));
+        return loaded;
+    }
+
+    private Scope loadScope(String name) {
+        File snapshotFile = new File(scopesDir, name + SNAPSHOT);
+        try {
+            Stored files = new Stored();
+            Scope scope = readSnapshot(snapshotFile, files);
+            replayJournal(new File(scopesDir, name + JOURNAL), scope, files);
+            stored.put(scope.getName(), files);
+
+            logger.info(plugin.translate("quill.scope-manager.status.loaded-success", scope.getName()));
+            return scope;
+        } catch (Exception e) {
+            logger.severe(plugin.translate("quill.scope-manager.file.read-fail", snapshotFile.getName()));
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Snapshot every scope saved as .yml that has no snapshot yet.
+     * The .yml files are left as they are, so switching back to YAML storage still finds them; once a scope has a snapshot it is loaded from that.
+     */
+    public void convertYaml() {
+        File[] files = scopesDir.listFiles((dir, filename) -> filename.endsWith(".yml")
+            && !new File(dir, filename.substring(0, filename.length() - ".yml".length()) + SNAPSHOT).exists());
+        if (files == null || files.length == 0) return;
+
+        YamlScopeStore yaml = new YamlScopeStore(plugin, scopesDir, logger);
+        for (File file : files) {
+            Scope scope = yaml.loadScope(file.getName());
+            // A file named differently from its scope must not overwrite the scope's newer snapshot
+            if (scope == null || exists(scope.getName())) continue;
+            try {
+                save(scope);
+                logger.info(plugin.translate("quill.scope-manager.file.converted", scope.getName()));
+            } catch (IOException e) {
+                logger.severe(plugin.translate("quill.scope-manager.file.write-fail", scope.getName() + SNAPSHOT));
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Scope readSnapshot(File file, Stored files) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException(plugin.translate("quill.scope-manager.format.invalid-format", file.getName()));
+        }
+        files.generation = in.readLong();
+        byte flags = in.readByte();
+        int crc = in.readInt();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        if (crc(flags, payload) != crc) {
+            throw new IOException(plugin.translate("quill.scope-manager.format.invalid-format", file.getName()));
+        }
+        files.snapshotBytes = bytes.length;
+        return decodeScope(new DataInputStream(new ByteArrayInputStream((flags & FLAG_COMPRESSED) != 0 ? inflate(payload) : payload)));
+    }
+
+    // Apply the journal's records to a freshly read snapshot, cutting off a record torn by a crash
+    private void replayJournal(File file, Scope scope, Stored files) throws IOException {
+        if (!file.exists()) return;
+
+        long good;
+        long length = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (length < JOURNAL_HEADER_BYTES || in.readInt() != JOURNAL_MAGIC || in.readInt() != FORMAT_VERSION
+                    || in.readLong() != files.generation) {
+                // Written for an older snapshot, which already holds everything in it
+                return;
+            }
+            good = JOURNAL_HEADER_BYTES;
+            while (good < length) {
+                try {
+                    int size = in.readInt();
+                    int crc = in.readInt();
+                    byte flags = in.readByte();
+                    if (size < 0 || size > length - good - 9) break;
+                    byte[] payload = new byte[size];
+                    in.readFully(payload);
+                    if (crc(flags, payload) != crc) break;
+
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(
+                        (flags & FLAG_COMPRESSED) != 0 ? inflate(payload) : payload));
+                    String name = ValueCodec.readString(record);
+                    if (scope.hasPersistentVar(name)) {
+                        scope.setPersistentVar(name, ValueCodec.readValue(record));
+                    }
+                    good += 9 + size;
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+
+        if (good < length) {
+            logger.warning(plugin.translate("quill.scope-manager.file.journal-truncated", file.getName(), length - good));
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(good);
+            }
+        }
+        files.journalBytes = good;
+    }
+
+    // === Saving ===
+
+    @Override
+    public void save(Scope scope) throws IOException {
+        Stored files = stored.computeIfAbsent(scope.getName(), k -> new Stored());
+        long generation = files.generation + 1;
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        encodeScope(scope, new DataOutputStream(payload));
+        byte flags = compress ? FLAG_COMPRESSED : 0;
+        byte[] body = compress ? deflate(payload.toByteArray()) : payload.toByteArray();
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream(body.length + 29);
+        DataOutputStream out = new DataOutputStream(snapshot);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(generation);
+        out.writeByte(flags);
+        out.writeInt(crc(flags, body));
+        out.writeInt(body.length);
+        out.write(body);
+
+        writeAtomically(new File(scopesDir, scope.getName() + SNAPSHOT), snapshot.toByteArray());
+        files.generation = generation;
+        files.snapshotBytes = snapshot.size();
+        // Until a new journal is in place the old one is ignored, since its generation no longer matches
+        files.journalBytes = -1;
+        writeAtomically(new File(scopesDir, scope.getName() + JOURNAL), journalHeader(generation));
+        files.journalBytes = JOURNAL_HEADER_BYTES;
+    }
+
+    @Override
+    public void saveVars(Scope scope, Map<String, Object> vars) throws IOException {
+        Stored files = stored.get(scope.getName());
+        if (files == null || files.journalBytes < 0) {
+            save(scope);
+            return;
+        }
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        for (Map.Entry<String, Object> var : vars.entrySet()) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream record = new DataOutputStream(payload);
+            ValueCodec.writeString(record, var.getKey());
+            ValueCodec.writeValue(record, var.getValue());
+
+            boolean compressed = compress && payload.size() >= COMPRESS_RECORD_BYTES;
+            byte flags = compressed ? FLAG_COMPRESSED : 0;
+            byte[] body = compressed ? deflate(payload.toByteArray()) : payload.toByteArray();
+            out.writeInt(body.length);
+            out.writeInt(crc(flags, body));
+            out.writeByte(flags);
+            out.write(body);
+        }
+
+        try (FileChannel channel = FileChannel.open(new File(scopesDir, scope.getName() + JOURNAL).toPath(),
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Part of a record may have made it to disk, so start over from a snapshot rather than append after it
+            save(scope);
+            return;
+        }
+
+        files.journalBytes += records.size();
+        if (files.journalBytes >= MIN_COMPACT_BYTES && files.journalBytes > files.snapshotBytes) {
+            save(scope);
+        }
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return new File(scopesDir, name + SNAPSHOT).exists();
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        stored.remove(name);
+        new File(scopesDir, name + JOURNAL).delete();
+        if (!new File(scopesDir, name + SNAPSHOT).delete()) {
+            throw new IOException(plugin.translate("quill.scope-manager.file.delete-fail", name));
+        }
+    }
+
+    private static byte[] journalHeader(long generation) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(JOURNAL_HEADER_BYTES);
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(JOURNAL_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(generation);
+        return header.toByteArray();
+    }
+
+    // Write the whole file beside the target, flush it to disk and rename it over the target
+    private static void writeAtomically(File target, byte[] bytes) throws IOException {
+        Path temp = target.toPath().resolveSibling(target.getName() + TEMP);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // === Encoding ===
+
+    private static void encodeScope(Scope scope, DataOutputStream out) throws IOException {
+        ValueCodec.writeString(out, scope.getName());
+        out.writeLong(scope.getOwner().getMostSignificantBits());
+        out.writeLong(scope.getOwner().getLeastSignificantBits());
+        for (Double coord : scope.getBoundaries()) {
+            out.writeDouble(coord);
+        }
+        ValueCodec.writeString(out, scope.getSecurityMode().name());
+
+        List<String> funcs = scope.getFuncs() != null ? new ArrayList<>(scope.getFuncs()) : new ArrayList<>();
+        out.writeInt(funcs.size());
+        for (String func : funcs) {
+            ValueCodec.writeString(out, func);
+        }
+
+        List<UUID> players = scope.getPlayers();
+        out.writeInt(players.size());
+        for (UUID player : players) {
+            out.writeLong(player.getMostSignificantBits());
+            out.writeLong(player.getLeastSignificantBits());
+        }
+
+        out.writeBoolean(scope.getEngine() != null);
+        if (scope.getEngine() != null) {
+            ValueCodec.writeString(out, scope.getEngine().name());
+        }
+        out.writeBoolean(scope.getStepBudget() != null);
+        if (scope.getStepBudget() != null) {
+            out.writeLong(scope.getStepBudget());
+        }
+        out.writeBoolean(scope.getMoveSampleRate() != null);
+        if (scope.getMoveSampleRate() != null) {
+            out.writeInt(scope.getMoveSampleRate());
+        }
+
+        Map<String, Object> vars = scope.snapshotPersistentVars();
+        out.writeInt(vars.size());
+        for (Map.Entry<String, Object> var : vars.entrySet()) {
+            ValueCodec.writeString(out, var.getKey());
+            ValueCodec.writeValue(out, var.getValue());
+        }
+    }
+
+    private static Scope decodeScope(DataInputStream in) throws IOException {
+        String name = ValueCodec.readString(in);
+        UUID owner = new UUID(in.readLong(), in.readLong());
+        List<Double> boundaries = new ArrayList<>(6);
+        for (int i = 0; i < 6; i++) {
+            boundaries.add(in.readDouble());
+        }
+        SecurityMode mode = SecurityMode.valueOf(ValueCodec.readString(in));
+
+        int funcCount = in.readInt();
+        List<String> funcs = new ArrayList<>(funcCount);
+        for (int i = 0; i < funcCount; i++) {
+            funcs.add(ValueCodec.readString(in));
+        }
+
+        int playerCount = in.readInt();
+        List<UUID> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            players.add(new UUID(in.readLong(), in.readLong()));
+        }
+
+        ExecutionEngine engine = in.readBoolean() ? ExecutionEngine.fromName(ValueCodec.readString(in)) : null;
+        Long stepBudget = in.readBoolean() ? in.readLong() : null;
+        Integer moveSampleRate = in.readBoolean() ? in.readInt() : null;
+
+        int varCount = in.readInt();
+        Map<String, Object> vars = new HashMap<>();
+        for (int i = 0; i < varCount; i++) {
+            vars.put(ValueCodec.readString(in), ValueCodec.readValue(in));
+        }
+
+        Scope scope = new Scope(name, owner, boundaries, mode);
+        scope.setFuncs(funcs);
+        scope.setPlayers(players);
+        scope.setPersistentVars(vars);
+        scope.setEngine(engine);
+        scope.setStepBudget(stepBudget);
+        scope.setMoveSampleRate(moveSampleRate);
+        return scope;
+    }
+
+    private static int crc(byte flags, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(flags);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] deflate(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) throws IOException {
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return inflater.readAllBytes();
+        }
+    }
+}
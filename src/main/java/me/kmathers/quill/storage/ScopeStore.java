@@ -0,0 +1,49 @@
+package me.kmathers.quill.storage;
+
+import me.kmathers.quill.utils.Scope;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where scopes are kept between restarts.
+ * The scope manager only calls a store from one thread at a time.
+ */
+public interface ScopeStore {
+    /**
+     * Every stored scope. Scopes that can't be read are logged and left out.
+     */
+    List<Scope> loadAll() throws IOException;
+
+    /**
+     * Write everything about a scope.
+     */
+    void save(Scope scope) throws IOException;
+
+    /**
+     * Write new values for some of a scope's persistent variables.
+     * Stores that can't write part of a scope write all of it.
+     */
+    void saveVars(Scope scope, Map<String, Object> vars) throws IOException;
+
+    /**
+     * Write everything about each of the scopes, as importing from another store does.
+     */
+    default void saveAll(Collection<Scope> scopes) throws IOException {
+        for (Scope scope : scopes) {
+            save(scope);
+        }
+    }
+
+    boolean exists(String name);
+
+    void delete(String name) throws IOException;
+
+    /**
+     * Release anything the store holds open.
+     */
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,311 @@
+package me.kmathers.quill.storage;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.ExecutionEngine;
+import me.kmathers.quill.utils.Scope;
+import me.kmathers.quill.utils.SecurityConfig.SecurityMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stores every scope in one SQLite database, using the driver the server ships with.
+ * Scopes, their functions, players and persistent variables each get a table, so a change only touches its own rows,
+ * and every save is one transaction of batched prepared statements.
+ */
+public class SqlScopeStore implements ScopeStore {
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS scopes ("
+            + "name TEXT PRIMARY KEY, owner TEXT NOT NULL, "
+            + "x1 REAL NOT NULL, y1 REAL NOT NULL, z1 REAL NOT NULL, x2 REAL NOT NULL, y2 REAL NOT NULL, z2 REAL NOT NULL, "
+            + "mode TEXT NOT NULL, engine TEXT, budget INTEGER, move_rate INTEGER)",
+        "CREATE INDEX IF NOT EXISTS scopes_owner ON scopes (owner)",
+        "CREATE TABLE IF NOT EXISTS scope_funcs (scope TEXT NOT NULL, func TEXT NOT NULL, PRIMARY KEY (scope, func))",
+        "CREATE TABLE IF NOT EXISTS scope_players (scope TEXT NOT NULL, player TEXT NOT NULL, PRIMARY KEY (scope, player))",
+        "CREATE INDEX IF NOT EXISTS scope_players_player ON scope_players (player)",
+        "CREATE TABLE IF NOT EXISTS scope_vars (scope TEXT NOT NULL, name TEXT NOT NULL, value BLOB, PRIMARY KEY (scope, name))"
+    };
+    private static final String[] CHILD_TABLES = {"scope_funcs", "scope_players", "scope_vars"};
+
+    private final Quill plugin;
+    private final Logger logger;
+    private final Connection connection;
+
+    public SqlScopeStore(Quill plugin, File database, Logger logger) throws SQLException {
+        this.plugin = plugin;
+        this.logger = logger;
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + database.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            // Write ahead logging keeps a crash mid-commit from touching what was already committed
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @Override
+    public List<Scope> loadAll() throws IOException {
+        try {
+            Map<String, Scope> loaded = new LinkedHashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT * FROM scopes")) {
+                while (rows.next()) {
+                    Scope scope = readScope(rows);
+                    if (scope != null) {
+                        loaded.put(scope.getName(), scope);
+                    }
+                }
+            }
+
+            Map<String, List<String>> funcs = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT scope, func FROM scope_funcs")) {
+                while (rows.next()) {
+                    funcs.computeIfAbsent(rows.getString(1), k -> new ArrayList<>()).add(rows.getString(2));
+                }
+            }
+
+            Map<String, List<UUID>> players = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT scope, player FROM scope_players")) {
+                while (rows.next()) {
+                    try {
+                        players.computeIfAbsent(rows.getString(1), k -> new ArrayList<>()).add(UUID.fromString(rows.getString(2)));
+                    } catch (IllegalArgumentException e) {
+                        logger.warning(plugin.translate("quill.scope-manager.format.invalid-player-uuid", rows.getString(2)));
+                    }
+                }
+            }
+
+            Map<String, Map<String, Object>> vars = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT scope, name, value FROM scope_vars")) {
+                while (rows.next()) {
+                    byte[] value = rows.getBytes(3);
+                    vars.computeIfAbsent(rows.getString(1), k -> new HashMap<>())
+                        .put(rows.getString(2), value != null ? ValueCodec.decode(value) : null);
+                }
+            }
+            connection.commit();
+
+            for (Scope scope : loaded.values()) {
+                scope.setFuncs(funcs.getOrDefault(scope.getName(), new ArrayList<>()));
+                scope.setPlayers(players.getOrDefault(scope.getName(), new ArrayList<>()));
+                scope.setPersistentVars(vars.getOrDefault(scope.getName(), new HashMap<>()));
+                logger.info(plugin.translate("quill.scope-manager.status.loaded-success", scope.getName()));
+            }
+            logger.info(plugin.translate("quill.scope-manager.file.loaded", loaded.size(), loaded.size()));
+            return new ArrayList<>(loaded.values());
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException(e);
+        }
+    }
+
+    private Scope readScope(ResultSet row) throws SQLException {
+        String name = row.getString("name");
+        UUID owner;
+        try {
+            owner = UUID.fromString(row.getString("owner"));
+        } catch (IllegalArgumentException e) {
+            logger.severe(plugin.translate("quill.scope-manager.format.invalid-owner-uuid", row.getString("owner")));
+            return null;
+        }
+
+        List<Double> boundaries = new ArrayList<>(List.of(
+            row.getDouble("x1"), row.getDouble("y1"), row.getDouble("z1"),
+            row.getDouble("x2"), row.getDouble("y2"), row.getDouble("z2")));
+
+        SecurityMode mode;
+        try {
+            mode = SecurityMode.valueOf(row.getString("mode").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning(plugin.translate("quill.scope-manager.format.invalid-mode", row.getString("mode")));
+            mode = SecurityMode.WHITELIST;
+        }
+
+        Scope scope = new Scope(name, owner, boundaries, mode);
+        String engine = row.getString("engine");
+        if (engine != null) {
+            scope.setEngine(ExecutionEngine.fromName(engine));
+        }
+        long budget = row.getLong("budget");
+        scope.setStepBudget(row.wasNull() ? null : budget);
+        int moveRate = row.getInt("move_rate");
+        scope.setMoveSampleRate(row.wasNull() ? null : moveRate);
+        return scope;
+    }
+
+    @Override
+    public void save(Scope scope) throws IOException {
+        saveAll(List.of(scope));
+    }
+
+    @Override
+    public void saveAll(Collection<Scope> scopes) throws IOException {
+        try {
+            try (PreparedStatement upsert = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO scopes (name, owner, x1, y1, z1, x2, y2, z2, mode, engine, budget, move_rate) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement func = connection.prepareStatement("INSERT INTO scope_funcs (scope, func) VALUES (?, ?)");
+                 PreparedStatement player = connection.prepareStatement("INSERT INTO scope_players (scope, player) VALUES (?, ?)");
+                 PreparedStatement var = connection.prepareStatement("INSERT INTO scope_vars (scope, name, value) VALUES (?, ?, ?)")) {
+                // Clear out what the scopes had before, so removed functions, players and variables don't linger
+                for (String table : CHILD_TABLES) {
+                    try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE scope = ?")) {
+                        for (Scope scope : scopes) {
+                            delete.setString(1, scope.getName());
+                            delete.addBatch();
+                        }
+                        delete.executeBatch();
+                    }
+                }
+
+                for (Scope scope : scopes) {
+                    String name = scope.getName();
+
+                    upsert.setString(1, name);
+                    upsert.setString(2, scope.getOwner().toString());
+                    List<Double> boundaries = scope.getBoundaries();
+                    for (int i = 0; i < 6; i++) {
+                        upsert.setDouble(3 + i, boundaries.get(i));
+                    }
+                    upsert.setString(9, scope.getSecurityMode().name().toLowerCase());
+                    upsert.setString(10, scope.getEngine() != null ? scope.getEngine().name().toLowerCase() : null);
+                    if (scope.getStepBudget() != null) {
+                        upsert.setLong(11, scope.getStepBudget());
+                    } else {
+                        upsert.setNull(11, Types.INTEGER);
+                    }
+                    if (scope.getMoveSampleRate() != null) {
+                        upsert.setInt(12, scope.getMoveSampleRate());
+                    } else {
+                        upsert.setNull(12, Types.INTEGER);
+                    }
+                    upsert.addBatch();
+
+                    if (scope.getFuncs() != null) {
+                        for (String f : new ArrayList<>(scope.getFuncs())) {
+                            func.setString(1, name);
+                            func.setString(2, f);
+                            func.addBatch();
+                        }
+                    }
+                    for (UUID p : scope.getPlayers()) {
+                        player.setString(1, name);
+                        player.setString(2, p.toString());
+                        player.addBatch();
+                    }
+                    for (Map.Entry<String, Object> v : scope.snapshotPersistentVars().entrySet()) {
+                        var.setString(1, name);
+                        var.setString(2, v.getKey());
+                        var.setBytes(3, ValueCodec.encode(v.getValue()));
+                        var.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+                func.executeBatch();
+                player.executeBatch();
+                var.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void saveVars(Scope scope, Map<String, Object> vars) throws IOException {
+        try {
+            try (PreparedStatement var = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO scope_vars (scope, name, value) VALUES (?, ?, ?)")) {
+                for (Map.Entry<String, Object> v : vars.entrySet()) {
+                    var.setString(1, scope.getName());
+                    var.setString(2, v.getKey());
+                    var.setBytes(3, ValueCodec.encode(v.getValue()));
+                    var.addBatch();
+                }
+                var.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public boolean exists(String name) {
+        try (PreparedStatement query = connection.prepareStatement("SELECT 1 FROM scopes WHERE name = ?")) {
+            query.setString(1, name);
+            try (ResultSet rows = query.executeQuery()) {
+                boolean found = rows.next();
+                connection.commit();
+                return found;
+            }
+        } catch (SQLException e) {
+            rollback();
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        try {
+            deleteRows(name);
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void deleteRows(String scope) throws SQLException {
+        for (String table : CHILD_TABLES) {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE scope = ?")) {
+                delete.setString(1, scope);
+                delete.executeUpdate();
+            }
+        }
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM scopes WHERE name = ?")) {
+            delete.setString(1, scope);
+            delete.executeUpdate();
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package me.kmathers.quill.storage;
+
+/**
+ * Formats scopes can be stored in.
+ */
+public enum StorageType {
+    /** Snapshots plus a journal of persistent variable changes, see {@link BinaryScopeStore}. */
+    BINARY,
+    /** One readable .yml file per scope, rewritten on every save. */
+    YAML,
+    /** One SQLite database with a table each for scopes, functions, players and persistent variables, see {@link SqlScopeStore}. */
+    SQLITE;
+
+    /**
+     * Parse a storage type as written in the config, or null if it isn't one.
+     */
+    public static StorageType fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
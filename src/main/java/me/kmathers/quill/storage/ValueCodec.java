@@ -0,0 +1,115 @@
+package me.kmathers.quill.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of persistent variable values, shared by the stores that don't keep them as text.
+ */
+final class ValueCodec {
+    // Value tags
+    private static final byte NULL = 0;
+    private static final byte NUMBER = 1;
+    private static final byte STRING = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte LIST = 4;
+    private static final byte MAP = 5;
+
+    private ValueCodec() {
+    }
+
+    static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeValue(new DataOutputStream(bytes), value);
+        return bytes.toByteArray();
+    }
+
+    static Object decode(byte[] bytes) throws IOException {
+        return readValue(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    // Persistent variables only ever hold what scripts can persist: null, numbers, strings, booleans, lists and maps
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Number number) {
+            out.writeByte(NUMBER);
+            out.writeDouble(number.doubleValue());
+        } else if (value instanceof String string) {
+            out.writeByte(STRING);
+            writeString(out, string);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(bool);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeValue(out, item);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof ConfigurationSection section) {
+            // Nested maps read from .yml files
+            writeValue(out, section.getValues(false));
+        } else {
+            out.writeByte(NULL);
+        }
+    }
+
+    static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NUMBER:
+                return in.readDouble();
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = in.readInt();
+                Map<String, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                return map;
+            }
+            default:
+                return null;
+        }
+    }
+
+    // Length prefixed UTF-8, since writeUTF can't hold strings over 64KB
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,235 @@
+package me.kmathers.quill.storage;
+
+import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.ExecutionEngine;
+import me.kmathers.quill.utils.Scope;
+import me.kmathers.quill.utils.SecurityConfig.SecurityMode;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Stores each scope as a readable .yml file, rewritten in full whenever anything in it changes.
+ */
+public class YamlScopeStore implements ScopeStore {
+    private final Quill plugin;
+    private final File scopesDir;
+    private final Logger logger;
+
+    public YamlScopeStore(Quill plugin, File scopesDir, Logger logger) {
+        this.plugin = plugin;
+        this.scopesDir = scopesDir;
+        this.logger = logger;
+    }
+
+    @Override
+    public List<Scope> loadAll() throws IOException {
+        File[] files = scopesDir.listFiles();
+        if (files == null) {
+            throw new IOException(plugin.translate("quill.scope-manager.file.read-fail", scopesDir.getName()));
+        }
+
+        List<File> toLoad = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().endsWith(".yml")) {
+                toLoad.add(file);
+            }
+        }
+
+        // Each scope is its own file, so they are parsed side by side
+        List<Scope> loaded = toLoad.parallelStream()
+            .map(file -> loadScope(file.getName()))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        logger.info(plugin.translate("quill.scope-manager.file.loaded", loaded.size(), toLoad.size()));
+        return loaded;
+    }
+
+    /**
+     * Load a scope from a YAML file.
+     */
+    Scope loadScope(String filename) {
+        File scopeFile = new File(scopesDir, filename);
+        
+        if (!scopeFile.exists()) {
+            logger.severe(plugin.translate("quill.scope-manager.file.file-not-found", filename));
+            return null;
+        }
+        
+        try {
+            FileConfiguration config = YamlConfiguration.loadConfiguration(scopeFile);
+
+            String name = config.getString("name");
+            String ownerStr = config.getString("owner");
+            List<Double> boundaries = config.getDoubleList("boundaries");
+            String modeStr = config.getString("mode", "whitelist");
+
+            if (name == null || ownerStr == null || boundaries == null || boundaries.size() != 6) {
+                logger.severe(plugin.translate("quill.scope-manager.format.invalid-format", filename));
+                return null;
+            }
+            
+            UUID owner;
+            try {
+                owner = UUID.fromString(ownerStr);
+            } catch (IllegalArgumentException e) {
+                logger.severe(plugin.translate("quill.scope-manager.format.invalid-owner-uuid", ownerStr));
+                e.printStackTrace();
+                return null;
+            }
+            
+            SecurityMode mode;
+            try {
+                mode = SecurityMode.valueOf(modeStr.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warning(plugin.translate("quill.scope-manager.format.invalid-mode", modeStr));
+                mode = SecurityMode.WHITELIST;
+            }
+            
+            List<String> funcs = config.getStringList("funcs");
+            if (funcs == null) {
+                funcs = new ArrayList<>();
+            }
+            
+            List<String> playerStrings = config.getStringList("players");
+            List<UUID> players = new ArrayList<>();
+            if (playerStrings != null) {
+                for (String playerStr : playerStrings) {
+                    try {
+                        players.add(UUID.fromString(playerStr));
+                    } catch (IllegalArgumentException e) {
+                        logger.warning(plugin.translate("quill.scope-manager.format.invalid-player-uuid", playerStr));
+                    }
+                }
+            }
+            
+            ExecutionEngine engine = null;
+            String engineStr = config.getString("engine");
+            if (engineStr != null) {
+                engine = ExecutionEngine.fromName(engineStr);
+                if (engine == null) {
+                    logger.warning(plugin.translate("quill.scope-manager.format.invalid-engine", engineStr));
+                }
+            }
+            
+            Long stepBudget = null;
+            if (config.contains("budget")) {
+                long steps = config.getLong("budget", -1);
+                if (steps < 0) {
+                    logger.warning(plugin.translate("quill.scope-manager.format.invalid-budget", config.getString("budget")));
+                } else {
+                    stepBudget = steps;
+                }
+            }
+            
+            Integer moveSampleRate = null;
+            if (config.contains("move-sample-rate")) {
+                int ticks = config.getInt("move-sample-rate", -1);
+                if (ticks < 0) {
+                    logger.warning(plugin.translate("quill.scope-manager.format.invalid-move-rate", config.getString("move-sample-rate")));
+                } else {
+                    moveSampleRate = ticks;
+                }
+            }
+            
+            Map<String, Object> persistentVars = new HashMap<>();
+            if (config.contains("persistent")) {
+                var section = config.getConfigurationSection("persistent");
+                if (section != null) {
+                    persistentVars = section.getValues(false);
+                }
+            }
+            
+            Scope scope = new Scope(name, owner, boundaries, mode);
+            scope.setFuncs(funcs);
+            scope.setPlayers(players);
+            scope.setPersistentVars(persistentVars);
+            scope.setEngine(engine);
+            scope.setStepBudget(stepBudget);
+            scope.setMoveSampleRate(moveSampleRate);
+            
+            logger.info(plugin.translate("quill.scope-manager.status.loaded-success", name));
+            return scope;
+            
+        } catch (Exception e) {
+            logger.severe(plugin.translate("quill.scope-manager.file.read-fail", filename));
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Save a scope to a YAML file.
+     */
+    @Override
+    public void save(Scope scope) throws IOException {
+        String filename = scope.getName() + ".yml";
+        FileConfiguration config = new YamlConfiguration();
+        
+        config.set("name", scope.getName());
+        config.set("owner", scope.getOwner().toString());
+        config.set("boundaries", scope.getBoundaries());
+        config.set("mode", scope.getSecurityMode().toString().toLowerCase());
+        
+        List<String> funcs = scope.getFuncs();
+        config.set("funcs", funcs != null ? funcs : new ArrayList<>());
+        
+        List<String> playerStrings = new ArrayList<>();
+        for (UUID playerId : scope.getPlayers()) {
+            playerStrings.add(playerId.toString());
+        }
+        config.set("players", playerStrings);
+        
+        if (scope.getEngine() != null) {
+            config.set("engine", scope.getEngine().toString().toLowerCase());
+        }
+        
+        if (scope.getStepBudget() != null) {
+            config.set("budget", scope.getStepBudget());
+        }
+        
+        if (scope.getMoveSampleRate() != null) {
+            config.set("move-sample-rate", scope.getMoveSampleRate());
+        }
+        
+        Map<String, Object> persistentVars = scope.snapshotPersistentVars();
+        
+        if (!persistentVars.isEmpty()) {
+            for (Map.Entry<String, Object> entry : persistentVars.entrySet()) {
+                config.set("persistent." + entry.getKey(), entry.getValue());
+            }
+        } else {
+            config.set("persistent", new HashMap<>());
+        }
+        
+        config.save(new File(scopesDir, filename));
+        logger.info(plugin.translate("quill.scope-manager.file.saved-success", scope.getName(), filename));
+    }
+
+    @Override
+    public void saveVars(Scope scope, Map<String, Object> vars) throws IOException {
+        save(scope);
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return new File(scopesDir, name + ".yml").exists();
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        if (!new File(scopesDir, name + ".yml").delete()) {
+            throw new IOException(plugin.translate("quill.scope-manager.file.delete-fail", name));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package me.kmathers.quill.utils;
+
+import me.kmathers.quill.interpreter.ScopeContext.Region;
+
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds which regions contain a point without testing every one of them.
+ * Each world is split into chunk sized columns, and a region is filed under every column it covers,
+ * so a lookup only tests the regions in the column the point falls in.
+ * Regions too big to file column by column are kept aside and tested on every lookup.
+ */
+public class RegionIndex<T> {
+    // Columns are 16 blocks wide, the same as chunks
+    private static final int COLUMN_SHIFT = 4;
+    // Regions covering more columns than this go in the oversized list
+    private static final long MAX_COLUMNS = 1024;
+
+    private final Map<T, Region> regions = new HashMap<>();
+    // World name to column key to the owners of the regions covering it
+    private final Map<String, Map<Long, List<T>>> worlds = new HashMap<>();
+    private final List<T> oversized = new ArrayList<>();
+
+    /**
+     * File an owner's region, replacing the one it had.
+     */
+    public synchronized void put(T owner, Region region) {
+        remove(owner);
+        regions.put(owner, region);
+
+        int minX = column(region.getX1());
+        int maxX = column(region.getX2());
+        int minZ = column(region.getZ1());
+        int maxZ = column(region.getZ2());
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > MAX_COLUMNS) {
+            oversized.add(owner);
+            return;
+        }
+
+        Map<Long, List<T>> columns = worlds.computeIfAbsent(region.getWorldName(), k -> new HashMap<>());
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                columns.computeIfAbsent(key(x, z), k -> new ArrayList<>()).add(owner);
+            }
+        }
+    }
+
+    /**
+     * Drop an owner's region, if it has one.
+     */
+    public synchronized void remove(T owner) {
+        Region region = regions.remove(owner);
+        if (region == null) return;
+        if (oversized.remove(owner)) return;
+
+        Map<Long, List<T>> columns = worlds.get(region.getWorldName());
+        for (int x = column(region.getX1()); x <= column(region.getX2()); x++) {
+            for (int z = column(region.getZ1()); z <= column(region.getZ2()); z++) {
+                long key = key(x, z);
+                List<T> owners = columns.get(key);
+                owners.remove(owner);
+                if (owners.isEmpty()) {
+                    columns.remove(key);
+                }
+            }
+        }
+        if (columns.isEmpty()) {
+            worlds.remove(region.getWorldName());
+        }
+    }
+
+    /**
+     * The owners of every region containing the location.
+     */
+    public synchronized List<T> at(Location loc) {
+        List<T> found = new ArrayList<>();
+        long key = key(column(loc.getX()), column(loc.getZ()));
+
+        collect(worlds.get(loc.getWorld().getName()), key, loc, found);
+        // Regions without a world hold in all of them
+        collect(worlds.get(null), key, loc, found);
+        for (T owner : oversized) {
+            if (regions.get(owner).contains(loc)) {
+                found.add(owner);
+            }
+        }
+        return found;
+    }
+
+    private void collect(Map<Long, List<T>> columns, long key, Location loc, List<T> found) {
+        if (columns == null) return;
+        List<T> owners = columns.get(key);
+        if (owners == null) return;
+        for (T owner : owners) {
+            if (regions.get(owner).contains(loc)) {
+                found.add(owner);
+            }
+        }
+    }
+
+    private static int column(double coord) {
+        return (int) Math.floor(coord) >> COLUMN_SHIFT;
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
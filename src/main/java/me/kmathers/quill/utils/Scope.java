@@ -1,12 +1,17 @@
 package me.kmathers.quill.utils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import me.kmathers.quill.Quill;
+import me.kmathers.quill.interpreter.ExecutionEngine;
 import me.kmathers.quill.utils.SecurityConfig.SecurityMode;
 
 public class Scope {
@@ -15,8 +20,19 @@ public class Scope {
     private List<Double> boundaries;
     private SecurityConfig config;
     private Map<String, Object> persistentVariables;
-    private List<UUID> players;
+    // A set so event routing can check membership without scanning, safe to read while commands change it
+    private final Set<UUID> players = ConcurrentHashMap.newKeySet();
+    private ExecutionEngine engine;
+    private Long stepBudget;
+    private Integer moveSampleRate;
+    // Runs stopped for going over their budget since the server started
+    private final AtomicInteger budgetOverruns = new AtomicInteger();
+    private volatile long lastBudgetOverrun;
+    // Runs stopped on the main thread because the tick's shared time ran out, which isn't held against the budget
+    private final AtomicInteger tickShareOverruns = new AtomicInteger();
     private Quill plugin;
+    // Bumped whenever the permissions change, so call sites that cached a verdict check again
+    private volatile int permissionEpoch;
 
     public Scope(String name, UUID owner, List<Double> boundaries, SecurityMode mode) {
         this.name = name;
@@ -24,7 +40,6 @@ public class Scope {
         this.boundaries = boundaries;
         this.config = new SecurityConfig(mode);
         this.persistentVariables = new HashMap<>();
-        this.players = new ArrayList<>();
         this.plugin = Quill.getPlugin(Quill.class);
     }
 
@@ -52,14 +67,75 @@ public class Scope {
         return persistentVariables;
     }
     
+    /**
+     * Engine this scope's scripts run on, or null to use the config default.
+     */
+    public ExecutionEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(ExecutionEngine engine) {
+        this.engine = engine;
+    }
+    
+    /**
+     * Loop iterations and function calls one run of this scope's scripts may make, or null to use the config default.
+     */
+    public Long getStepBudget() {
+        return stepBudget;
+    }
+
+    public void setStepBudget(Long stepBudget) {
+        this.stepBudget = stepBudget;
+    }
+
+    /**
+     * Ticks each of this scope's players' moves are folded together over, 0 to take every move, or null to use the config default.
+     */
+    public Integer getMoveSampleRate() {
+        return moveSampleRate;
+    }
+
+    public void setMoveSampleRate(Integer moveSampleRate) {
+        this.moveSampleRate = moveSampleRate;
+    }
+
+    /**
+     * Note that one of this scope's scripts was stopped for going over its budget.
+     */
+    public void recordBudgetExceeded() {
+        budgetOverruns.incrementAndGet();
+        lastBudgetOverrun = System.currentTimeMillis();
+    }
+
+    public int getBudgetOverruns() {
+        return budgetOverruns.get();
+    }
+
+    /**
+     * Note that one of this scope's scripts was stopped on the main thread because the tick's share of time ran out.
+     */
+    public void recordTickShareExceeded() {
+        tickShareOverruns.incrementAndGet();
+    }
+
+    public int getTickShareOverruns() {
+        return tickShareOverruns.get();
+    }
+
+    /**
+     * When a script in this scope was last stopped for going over its budget, in epoch millis, or 0 if never.
+     */
+    public long getLastBudgetOverrun() {
+        return lastBudgetOverrun;
+    }
+    
     public List<UUID> getPlayers() {
         return new ArrayList<>(players);
     }
     
     public void addPlayer(UUID playerId) {
-        if (!players.contains(playerId)) {
-            players.add(playerId);
-        }
+        players.add(playerId);
     }
     
     public void removePlayer(UUID playerId) {
@@ -71,7 +147,8 @@ public class Scope {
     }
     
     public void setPlayers(List<UUID> players) {
-        this.players = new ArrayList<>(players);
+        this.players.clear();
+        this.players.addAll(players);
     }
     
     public void setName(String name) {
@@ -92,10 +169,12 @@ public class Scope {
 
     public void setSecurityMode(SecurityMode mode) {
         this.config.setMode(mode);
+        this.permissionEpoch++;
     }
 
     public void setFuncs(List<String> funcs) {
         this.config.setFuncs(funcs);
+        this.permissionEpoch++;
     }
 
     public void setBoundary(String boundary, Double coord) {
@@ -110,27 +189,28 @@ public class Scope {
         this.boundaries.set(index, coord);
     }
 
-    public void setPersistentVars(Map<String, Object> vars){
+    public synchronized void setPersistentVars(Map<String, Object> vars){
         this.persistentVariables = vars;
     }
 
     public void addFunc(String func) {
         this.config.addFunc(func);
+        this.permissionEpoch++;
     }
 
-    public void addPersistentVar(String name) {
+    public synchronized void addPersistentVar(String name) {
         if (!(this.persistentVariables.containsKey(name))) {
             this.persistentVariables.put(name, null);
         }
     }
 
-    public void removePersistentVar(String name) {
+    public synchronized void removePersistentVar(String name) {
         if (this.persistentVariables.containsKey(name)) {
             this.persistentVariables.remove(name);
         }
     }
 
-    public void setPersistentVar(String name, Object value) {
+    public synchronized void setPersistentVar(String name, Object value) {
         if (this.persistentVariables.containsKey(name)) {
             this.persistentVariables.replace(name, value);
         } else {
@@ -138,15 +218,44 @@ public class Scope {
         }
     }
 
-    public boolean hasPersistentVar(String name) {
+    public synchronized boolean hasPersistentVar(String name) {
         return this.persistentVariables.containsKey(name);
     }
 
+    public synchronized Object getPersistentVar(String name) {
+        return this.persistentVariables.get(name);
+    }
+
+    /**
+     * A copy of the persistent variables, for saving while scripts keep changing them.
+     */
+    public synchronized Map<String, Object> snapshotPersistentVars() {
+        return new HashMap<>(this.persistentVariables);
+    }
+
+    /**
+     * A copy of just the named persistent variables that still exist.
+     */
+    public synchronized Map<String, Object> snapshotPersistentVars(Collection<String> names) {
+        Map<String, Object> vars = new HashMap<>();
+        for (String name : names) {
+            if (this.persistentVariables.containsKey(name)) {
+                vars.put(name, this.persistentVariables.get(name));
+            }
+        }
+        return vars;
+    }
+
     public void removeFunc(String func) {
         this.config.removeFunc(func);
+        this.permissionEpoch++;
     }
 
     public boolean hasPermission(String func) {
         return config.hasPermission(func);
     }
+
+    public int getPermissionEpoch() {
+        return permissionEpoch;
+    }
 }
\ No newline at end of file